@@ -0,0 +1,121 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decodes one encoded message per operation, either read whole or spread over several reads.
+ * <p>
+ * The same input buffers are decoded by every operation, decoders that transform their input in place (such as
+ * unmasking WebSocket frames) see alternating payload bytes, which does not change the work done.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class AbstractDecoderBM {
+
+    // the header of a fragmented message straddles the first two reads
+    private static final int FIRST_FRAGMENT_SIZE = 3;
+    private static final int FRAGMENT_SIZE = 1024;
+
+    @Param({ "64", "1024", "16384" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    @Param({ "false", "true" })
+    public boolean fragmented;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolDecoder decoder;
+    private IoBufferEx[] input;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        decoder = newDecoder(session, allocator);
+
+        byte[] bytes = newInput(allocator, size);
+        List<IoBufferEx> fragments = new ArrayList<>();
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = bytes.length - offset;
+            if (fragmented) {
+                length = Math.min(length, (offset == 0) ? FIRST_FRAGMENT_SIZE : FRAGMENT_SIZE);
+            }
+            ByteBuffer buf = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+            buf.put(bytes, offset, length);
+            buf.flip();
+            fragments.add(allocator.wrap(buf));
+            offset += length;
+        }
+        input = fragments.toArray(new IoBufferEx[fragments.size()]);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws Exception {
+        ProtocolDecoderOutput out = session.getDecoderOutput();
+        Queue<Object> decoded = session.getDecoderOutputQueue();
+        for (IoBufferEx fragment : input) {
+            fragment.rewind();
+            decoder.decode(session, (IoBuffer) fragment, out);
+            for (Object message = decoded.poll(); message != null; message = decoded.poll()) {
+                blackhole.consume(message);
+            }
+        }
+    }
+
+    /**
+     * Creates the decoder under test, preparing the session as the transport would.
+     */
+    protected abstract ProtocolDecoder newDecoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator)
+            throws Exception;
+
+    /**
+     * Returns the encoded bytes of a single message carrying a payload of about the given size.
+     */
+    protected abstract byte[] newInput(IoBufferAllocatorEx<?> allocator, int size) throws Exception;
+
+}
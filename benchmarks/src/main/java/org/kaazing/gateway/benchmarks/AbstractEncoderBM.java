@@ -0,0 +1,114 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.apache.mina.filter.codec.ProtocolEncoderOutput;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Encodes one message per operation, either whole or split into the fragments the protocol allows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class AbstractEncoderBM {
+
+    protected static final int FRAGMENT_COUNT = 4;
+
+    @Param({ "64", "1024", "16384" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    @Param({ "false", "true" })
+    public boolean fragmented;
+
+    private ProtocolCodecSessionEx session;
+    private ProtocolEncoder encoder;
+    private IoBufferEx[] payloads;
+    private Object[] messages;
+
+    @Setup
+    public void init() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        encoder = newEncoder(session, allocator);
+
+        byte[] bytes = CodecBenchmarks.newPayload(size);
+        payloads = new IoBufferEx[fragmented ? FRAGMENT_COUNT : 1];
+        int offset = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            int length = (bytes.length - offset) / (payloads.length - i);
+            ByteBuffer buf = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+            buf.put(bytes, offset, length);
+            buf.flip();
+            payloads[i] = allocator.wrap(buf);
+            offset += length;
+        }
+        messages = newMessages(payloads);
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) throws Exception {
+        ProtocolEncoderOutput out = session.getEncoderOutput();
+        Queue<Object> encoded = session.getEncoderOutputQueue();
+        // some encoders consume the payload of the message
+        for (IoBufferEx payload : payloads) {
+            payload.rewind();
+        }
+        for (Object message : messages) {
+            encoder.encode(session, message, out);
+            for (Object buf = encoded.poll(); buf != null; buf = encoded.poll()) {
+                blackhole.consume(buf);
+            }
+        }
+    }
+
+    /**
+     * Creates the encoder under test.
+     */
+    protected abstract ProtocolEncoder newEncoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator)
+            throws Exception;
+
+    /**
+     * Returns the messages to encode per operation, one per payload, in order.
+     */
+    protected abstract Object[] newMessages(IoBufferEx[] payloads) throws Exception;
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the codec benchmarks, reporting allocation rate alongside throughput.
+ */
+public final class CodecBenchmarks {
+
+    private CodecBenchmarks() {
+    }
+
+    /**
+     * Returns printable ASCII bytes, valid as text in every protocol and free of line breaks.
+     */
+    public static byte[] newPayload(int size) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) ('a' + i % 26);
+        }
+        return payload;
+    }
+
+    /**
+     * Encodes messages on a session of their own, returning the concatenated bytes.
+     */
+    public static byte[] encode(ProtocolEncoder encoder, Object... messages) throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        Queue<Object> encoded = session.getEncoderOutputQueue();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Object message : messages) {
+            encoder.encode(session, message, session.getEncoderOutput());
+            for (Object buf = encoded.poll(); buf != null; buf = encoded.poll()) {
+                ByteBuffer nioBuf = ((IoBufferEx) buf).buf().duplicate();
+                byte[] array = new byte[nioBuf.remaining()];
+                nioBuf.get(array);
+                bytes.write(array);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Or from command line, after mvn clean install:
+    //
+    // java -jar benchmarks/target/benchmarks.jar -prof gc
+    // java -jar benchmarks/target/benchmarks.jar WsFrameDecoderBM -p fragmented=true -prof gc
+    // java -jar benchmarks/target/benchmarks.jar HttpBindingsBM
+    // java -jar benchmarks/target/benchmarks.jar "WsFrameUnmaskBM|Utf8UtilBM"
+    //
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : ".*(Decoder|Encoder)BM")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.amqp.amqp091.codec;
+
+import java.net.SocketAddress;
+
+import org.apache.mina.core.service.DefaultTransportMetadata;
+import org.apache.mina.core.session.IoSessionConfig;
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.kaazing.gateway.benchmarks.AbstractDecoderBM;
+import org.kaazing.gateway.benchmarks.CodecBenchmarks;
+import org.kaazing.gateway.service.amqp.amqp091.AmqpTable;
+import org.kaazing.gateway.service.amqp.amqp091.message.AmqpStartMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Decodes connection.start frames whose server properties add up to about the given size, as read by the proxy from
+ * the broker during the connection handshake.
+ */
+public class AmqpMessageDecoderBM extends AbstractDecoderBM {
+
+    // "property-nnnn" with its type and length prefix, plus the value
+    private static final int PROPERTY_OVERHEAD = 13 + 1 + 1 + 4;
+    private static final int PROPERTY_VALUE_SIZE = 32;
+
+    @Override
+    protected ProtocolDecoder newDecoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        session.setTransportMetadata(new DefaultTransportMetadata(
+                "mina", "dummy", false, true,
+                SocketAddress.class, IoSessionConfig.class, Object.class));
+
+        return new AmqpMessageDecoder(allocator, true);
+    }
+
+    @Override
+    protected byte[] newInput(IoBufferAllocatorEx<?> allocator, int size) throws Exception {
+        String value = new String(CodecBenchmarks.newPayload(PROPERTY_VALUE_SIZE), "US-ASCII");
+        AmqpTable properties = new AmqpTable();
+        int count = Math.max(1, size / (PROPERTY_OVERHEAD + PROPERTY_VALUE_SIZE));
+        for (int i = 0; i < count; i++) {
+            properties.addLongString(String.format("property-%04d", i), value);
+        }
+
+        AmqpStartMessage message = new AmqpStartMessage();
+        message.setVersionMajor((byte) 0);
+        message.setVersionMinor((byte) 9);
+        message.setServerProperties(properties);
+        message.setSecurityMechanisms("AMQPLAIN PLAIN");
+        message.setLocales("en_US");
+        return CodecBenchmarks.encode(new AmqpMessageEncoder(allocator), message);
+    }
+
+}
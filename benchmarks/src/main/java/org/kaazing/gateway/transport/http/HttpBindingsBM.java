@@ -0,0 +1,150 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Looks up the binding of one request path per operation, comparing the path trie behind {@link HttpBindings} with
+ * the skip list lookup it replaced.
+ * <p>
+ * Services are bound two levels deep, a hundred per tenant, and requests carry the extra segments of a WSEB upstream
+ * request so that the lookup has to skip past them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpBindingsBM {
+
+    private static final int SERVICES_PER_TENANT = 100;
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({ "10", "1000", "100000" })
+    public int bindings;
+
+    @Param({ "trie", "skiplist" })
+    public String router;
+
+    private HttpPathTrie<String> trie;
+    private SkipListRouter skipList;
+    private String[] requests;
+    private int index;
+
+    @Setup
+    public void init() {
+        trie = new HttpPathTrie<>();
+        skipList = new SkipListRouter();
+        for (int i = 0; i < bindings; i++) {
+            String path = servicePath(i);
+            trie.putIfAbsent(path, path);
+            skipList.putIfAbsent(path, path);
+        }
+
+        requests = new String[REQUEST_COUNT];
+        for (int i = 0; i < requests.length; i++) {
+            int service = (int) ((i * 2654435761L) % bindings);
+            requests[i] = servicePath(service) + "/;e/ub/" + Integer.toHexString(i * 31 + 7) + "8a3c1f";
+            if (!servicePath(service).equals(lookup(requests[i]))) {
+                throw new IllegalStateException("Unexpected binding for " + requests[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookup() {
+        String request = requests[index];
+        index = (index + 1) & (REQUEST_COUNT - 1);
+        return lookup(request);
+    }
+
+    private String lookup(String path) {
+        return "trie".equals(router) ? trie.get(path) : skipList.get(path);
+    }
+
+    private static String servicePath(int service) {
+        return "/tenant" + (service / SERVICES_PER_TENANT) + "/service" + service;
+    }
+
+    // the lookup previously used by HttpBindings.HttpBinding, kept as the baseline
+    private static final class SkipListRouter {
+
+        private static final Comparator<String> PATH_ASCENDING = new Comparator<String>() {
+
+            @Override
+            public int compare(String path1, String path2) {
+                String[] segments1 = path1.split("/");
+                String[] segments2 = path2.split("/");
+
+                int nSegments = Math.min(segments1.length, segments2.length);
+                int comparison = 0;
+                for (int i = 0; i < nSegments; i++) {
+                    if (comparison != 0) {
+                        break;
+                    }
+                    comparison = segments1[i].compareTo(segments2[i]);
+                }
+
+                if (comparison == 0) {
+                    return (segments1.length - segments2.length);
+                }
+
+                return comparison;
+            }
+
+        };
+
+        private final ConcurrentNavigableMap<String, String> bindingsByPath = new ConcurrentSkipListMap<>(PATH_ASCENDING);
+
+        void putIfAbsent(String path, String binding) {
+            bindingsByPath.putIfAbsent(path, binding);
+        }
+
+        String get(String path) {
+            NavigableSet<String> paths = bindingsByPath.navigableKeySet();
+            NavigableSet<String> candidatePaths = paths.headSet(path, true);
+
+            for (Iterator<String> $i = candidatePaths.descendingIterator(); $i.hasNext(); ) {
+                String candidatePath = $i.next();
+                if (path.startsWith(candidatePath)) {
+                    return bindingsByPath.get(candidatePath);
+                }
+            }
+
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.kaazing.gateway.benchmarks.AbstractDecoderBM;
+import org.kaazing.gateway.benchmarks.CodecBenchmarks;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Decodes requests with typical browser headers and a body of the given size.
+ */
+public class HttpRequestDecoderBM extends AbstractDecoderBM {
+
+    @Override
+    protected ProtocolDecoder newDecoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new HttpRequestDecoder();
+    }
+
+    @Override
+    protected byte[] newInput(IoBufferAllocatorEx<?> allocator, int size) throws Exception {
+        String start = "POST /echo HTTP/1.1\r\n" +
+                       "Host: gateway.example.com:8000\r\n" +
+                       "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:49.0) Gecko/20100101 Firefox/49.0\r\n" +
+                       "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+                       "Accept-Language: en-US,en;q=0.5\r\n" +
+                       "Accept-Encoding: gzip, deflate\r\n" +
+                       "Cookie: session=0123456789abcdef; theme=dark\r\n" +
+                       "Connection: keep-alive\r\n" +
+                       "Content-Type: text/plain;charset=UTF-8\r\n" +
+                       "Content-Length: " + size + "\r\n" +
+                       "\r\n";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(start.getBytes(US_ASCII));
+        bytes.write(CodecBenchmarks.newPayload(size));
+        return bytes.toByteArray();
+    }
+
+}
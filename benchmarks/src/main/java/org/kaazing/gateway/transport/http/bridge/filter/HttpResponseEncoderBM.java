@@ -0,0 +1,66 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http.bridge.filter;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.benchmarks.AbstractEncoderBM;
+import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.gateway.transport.http.HttpVersion;
+import org.kaazing.gateway.transport.http.bridge.HttpContentMessage;
+import org.kaazing.gateway.transport.http.bridge.HttpResponseMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Encodes responses with a body of the given size, with fragmented bodies sent using chunked transfer encoding.
+ */
+public class HttpResponseEncoderBM extends AbstractEncoderBM {
+
+    @Override
+    protected ProtocolEncoder newEncoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new HttpResponseEncoder(allocator);
+    }
+
+    @Override
+    protected Object[] newMessages(IoBufferEx[] payloads) {
+        boolean chunked = payloads.length > 1;
+
+        HttpResponseMessage httpResponse = new HttpResponseMessage();
+        httpResponse.setVersion(HttpVersion.HTTP_1_1);
+        httpResponse.setStatus(HttpStatus.SUCCESS_OK);
+        httpResponse.setHeader("Content-Type", "text/plain;charset=UTF-8");
+        httpResponse.setHeader("Cache-Control", "no-cache");
+        httpResponse.setHeader("Server", "Kaazing Gateway");
+        if (chunked) {
+            httpResponse.setHeader("Transfer-Encoding", "chunked");
+        }
+
+        Object[] messages = new Object[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            HttpContentMessage httpContent = new HttpContentMessage(payloads[i], i == payloads.length - 1, chunked, false);
+            if (i == 0) {
+                httpResponse.setContent(httpContent);
+                messages[i] = httpResponse;
+            }
+            else {
+                messages[i] = httpContent;
+            }
+        }
+        return messages;
+    }
+
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.sse.bridge.filter;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.kaazing.gateway.benchmarks.AbstractDecoderBM;
+import org.kaazing.gateway.benchmarks.CodecBenchmarks;
+import org.kaazing.gateway.transport.sse.bridge.SseMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Decodes events with an id, a type and data of the given size.
+ */
+public class SseDecoderBM extends AbstractDecoderBM {
+
+    @Override
+    protected ProtocolDecoder newDecoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new SseDecoder(allocator);
+    }
+
+    @Override
+    protected byte[] newInput(IoBufferAllocatorEx<?> allocator, int size) throws Exception {
+        SseMessage message = new SseMessage("quote", allocator.wrap(ByteBuffer.wrap(CodecBenchmarks.newPayload(size))));
+        message.setId("42");
+        return CodecBenchmarks.encode(new SseEncoder(allocator), message);
+    }
+
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.filter;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.filter.codec.ProtocolDecoder;
+import org.kaazing.gateway.benchmarks.AbstractDecoderBM;
+import org.kaazing.gateway.benchmarks.CodecBenchmarks;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Decodes masked binary frames, as sent by WebSocket clients.
+ */
+public class WsFrameDecoderBM extends AbstractDecoderBM {
+
+    @Override
+    protected ProtocolDecoder newDecoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new WsFrameDecoder(allocator, 0, true);
+    }
+
+    @Override
+    protected byte[] newInput(IoBufferAllocatorEx<?> allocator, int size) throws Exception {
+        WsBinaryMessage message = new WsBinaryMessage(allocator.wrap(ByteBuffer.wrap(CodecBenchmarks.newPayload(size))));
+        return CodecBenchmarks.encode(new WsFrameEncoder(allocator, true), message);
+    }
+
+}
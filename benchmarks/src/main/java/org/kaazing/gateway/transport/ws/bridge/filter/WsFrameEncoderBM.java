@@ -0,0 +1,47 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.filter;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.benchmarks.AbstractEncoderBM;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Encodes unmasked binary frames, as sent by the gateway, with fragmented messages sent as continuation frames.
+ */
+public class WsFrameEncoderBM extends AbstractEncoderBM {
+
+    @Override
+    protected ProtocolEncoder newEncoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new WsFrameEncoder(allocator, false);
+    }
+
+    @Override
+    protected Object[] newMessages(IoBufferEx[] payloads) {
+        WsMessage[] messages = new WsMessage[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            boolean fin = i == payloads.length - 1;
+            messages[i] = (i == 0) ? new WsBinaryMessage(payloads[i], fin) : new WsContinuationMessage(payloads[i], fin);
+        }
+        return messages;
+    }
+
+}
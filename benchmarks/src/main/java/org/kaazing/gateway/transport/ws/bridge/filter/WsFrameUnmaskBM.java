@@ -0,0 +1,91 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.filter;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares unmasking of inbound frame payloads with the 4 byte at a time unmasking it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class WsFrameUnmaskBM {
+
+    private static final int MASK = 0x37fa213d;
+
+    @Param({ "64", "1024", "16384" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private ByteBuffer payload;
+
+    @Setup
+    public void init() {
+        payload = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            payload.put(i, (byte) i);
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer unmask() {
+        WsFrameDecoder.unmask(payload, MASK);
+        return payload;
+    }
+
+    @Benchmark
+    public ByteBuffer unmaskBaseline() {
+        baselineUnmask(payload, MASK);
+        return payload;
+    }
+
+    // the unmasking loop before the 8 byte wide one
+    private static void baselineUnmask(ByteBuffer buf, int mask) {
+        int start = buf.position();
+        int remainder = buf.remaining() % 4;
+        int end = buf.remaining() - remainder + buf.position();
+
+        while (buf.position() < end) {
+            int plaintext = buf.getInt(buf.position()) ^ mask;
+            buf.putInt(plaintext);
+        }
+
+        for (int shift = 24; remainder > 0; remainder--, shift -= 8) {
+            buf.put((byte) (buf.get(buf.position()) ^ (mask >> shift)));
+        }
+        buf.position(start);
+    }
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb.filter;
+
+import org.apache.mina.filter.codec.ProtocolEncoder;
+import org.kaazing.gateway.benchmarks.AbstractEncoderBM;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+/**
+ * Encodes binary frames for the downstream response of an emulated WebSocket.
+ * <p>
+ * The framing has no continuation frames, so a fragmented payload is sent as several binary frames.
+ */
+public class WsebFrameEncoderBM extends AbstractEncoderBM {
+
+    @Override
+    protected ProtocolEncoder newEncoder(ProtocolCodecSessionEx session, IoBufferAllocatorEx<?> allocator) {
+        return new WsebFrameEncoder(allocator);
+    }
+
+    @Override
+    protected Object[] newMessages(IoBufferEx[] payloads) {
+        WsBinaryMessage[] messages = new WsBinaryMessage[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            messages[i] = new WsBinaryMessage(payloads[i]);
+        }
+        return messages;
+    }
+
+}
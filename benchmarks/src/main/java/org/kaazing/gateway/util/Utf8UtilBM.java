@@ -0,0 +1,156 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares UTF-8 validation of text payloads, mostly ASCII or not, with the byte at a time validation it replaced.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class Utf8UtilBM {
+
+    private static final ErrorHandler IGNORE_ERRORS = new ErrorHandler() {
+        @Override
+        public void handleError(String message) {
+        }
+    };
+
+    @Param({ "64", "1024", "16384" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private ByteBuffer asciiText;
+    private ByteBuffer mixedText;
+
+    @Setup
+    public void init() {
+        StringBuilder ascii = new StringBuilder();
+        StringBuilder mixed = new StringBuilder();
+        while (ascii.length() < size) {
+            ascii.append("{\"symbol\":\"KZNG\",\"price\":42.0}");
+            mixed.append("{\"symbol\":\"\u00c9T\u00c9\",\"note\":\"\u8bc5\"}");
+        }
+        asciiText = text(ascii.substring(0, size));
+        mixedText = text(mixed.substring(0, size / 2));
+    }
+
+    @Benchmark
+    public int validateAsciiText() {
+        return Utf8Util.validateUTF8(asciiText, asciiText.position(), asciiText.remaining(), IGNORE_ERRORS);
+    }
+
+    @Benchmark
+    public int validateAsciiTextBaseline() {
+        return baselineValidateUTF8(asciiText, asciiText.position(), asciiText.remaining());
+    }
+
+    @Benchmark
+    public int validateMixedText() {
+        return Utf8Util.validateUTF8(mixedText, mixedText.position(), mixedText.remaining(), IGNORE_ERRORS);
+    }
+
+    @Benchmark
+    public int validateMixedTextBaseline() {
+        return baselineValidateUTF8(mixedText, mixedText.position(), mixedText.remaining());
+    }
+
+    private ByteBuffer text(String text) {
+        byte[] bytes = text.getBytes(UTF_8);
+        ByteBuffer buf = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buf.put(bytes);
+        buf.flip();
+        return buf;
+    }
+
+    // the byte at a time validation loop before the ASCII fast path
+    private static int baselineValidateUTF8(ByteBuffer buffer, int offset, int length) {
+        for (int index = 0; index < length; index++) {
+            byte leadingByte = buffer.get(offset + index);
+            final int expectedLen;
+            int codePoint;
+            if ((leadingByte & 0x80) == 0) {
+                continue;
+            }
+            if ((leadingByte & 0xff) > 0xf4) {
+                return Utf8Util.INVALID_UTF8;
+            }
+            if ((leadingByte & 0xE0) == 0xC0) {
+                expectedLen = 2;
+                codePoint = leadingByte & 0x1F;
+                if (codePoint < 2) {
+                    return Utf8Util.INVALID_UTF8;
+                }
+            } else if ((leadingByte & 0xF0) == 0xE0) {
+                expectedLen = 3;
+                codePoint = leadingByte & 0x0F;
+            } else if ((leadingByte & 0xF8) == 0xF0) {
+                expectedLen = 4;
+                codePoint = leadingByte & 0x07;
+            } else {
+                return Utf8Util.INVALID_UTF8;
+            }
+            int characterStartIndex = index;
+            int remainingLen = expectedLen;
+            while (--remainingLen > 0) {
+                if (++index >= length) {
+                    return length - characterStartIndex;
+                }
+                byte nextByte = buffer.get(offset + index);
+                if ((nextByte & 0xC0) != 0x80) {
+                    return Utf8Util.INVALID_UTF8;
+                }
+                codePoint = (codePoint << 6) | (nextByte & 0x3F);
+                if (codePoint > 0x10FFFF) {
+                    return Utf8Util.INVALID_UTF8;
+                }
+            }
+
+            try {
+                if (expectedLen > Utf8Util.byteCountUTF8(codePoint)) {
+                    return Utf8Util.INVALID_UTF8;
+                }
+            } catch (IOException e) {
+                return Utf8Util.INVALID_UTF8;
+            }
+        }
+        return 0;
+    }
+
+}
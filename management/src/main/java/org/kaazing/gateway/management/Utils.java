@@ -22,6 +22,7 @@ import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.resource.address.uri.URIUtils;
 import org.kaazing.gateway.transport.AbstractBridgeAcceptor;
 import org.kaazing.gateway.transport.AbstractBridgeConnector;
+import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.gateway.transport.wseb.WsebSession;
 import org.kaazing.gateway.transport.wsn.WsnSession;
 import org.kaazing.mina.core.service.IoAcceptorEx;
@@ -53,6 +54,9 @@ public class Utils {
     public static final String CONNECT_DIRECTION = "CONNECT";
     public static final String UNKNOWN_DIRECTION = "<unknown>";
 
+    // transports whose sessions are counted separately in the monitoring file, "other" being last
+    public static final String[] TRANSPORT_NAMES = {"wsn", "wseb", "sse", "http", "other"};
+
     /**
      * Create a descriptive string for the type of connection that this session has been created on. This is generally just used
      * in the Command Center. The following is the same as the insides of ResourceAddress.getProtocol(), which is private. NOTE:
@@ -82,6 +86,46 @@ public class Utils {
         return connectionDirection;
     }
 
+    /**
+     * Determine the transport name of a session, one of TRANSPORT_NAMES.
+     */
+    public static String getTransportName(IoSessionEx session) {
+        switch (getManagementSessionType(session)) {
+        case NATIVE:
+            return "wsn";
+        case EMULATED:
+            return "wseb";
+        default:
+            ResourceAddress address = BridgeSession.LOCAL_ADDRESS.get(session);
+            String scheme = (address != null) ? address.getResource().getScheme() : null;
+            if (scheme != null) {
+                if (scheme.startsWith("sse")) {
+                    return "sse";
+                }
+                if (scheme.startsWith("http")) {
+                    return "http";
+                }
+            }
+            return "other";
+        }
+    }
+
+    /**
+     * Determine how long it took to establish a session, from the creation of the session at the bottom of its transport
+     * stack (e.g. the TCP connection), or -1 if the session is not layered over another one.
+     */
+    public static long getHandshakeLatency(IoSessionEx session, long now) {
+        IoSessionEx root = session;
+        while (root instanceof BridgeSession) {
+            IoSessionEx parent = ((BridgeSession) root).getParent();
+            if (parent == null) {
+                break;
+            }
+            root = parent;
+        }
+        return (root != session) ? Math.max(0, now - root.getCreationTime()) : -1;
+    }
+
     public static String getCauseString(Throwable cause) {
         StringBuffer sb = new StringBuffer();
         Throwable t = cause;
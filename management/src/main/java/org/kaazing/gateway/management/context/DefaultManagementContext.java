@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -82,6 +83,8 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
     public static final int DEFAULT_SUMMARY_DATA_NOTIFICATION_INTERVAL = 5000; // 5 seconds by default
     public static final int DEFAULT_SYSTEM_SUMMARY_DATA_NOTIFICATION_INTERVAL = 2000; // 5 seconds by default
     public static final int DEFAULT_SUMMARY_DATA_GATHER_INTERVAL = 500;  // 500 ms
+    public static final int DEFAULT_MANAGEMENT_EVENT_THREADS = 1;
+    public static final int DEFAULT_MANAGEMENT_EVENT_QUEUE_SIZE = 4096;
 
     public static final String NAME = "managementContext";
 
@@ -147,6 +150,12 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
     // This is set by the management services from properties
     private int managementSessionThreshold;
 
+    // The number of threads handling session events, and the number of events each ring can have in flight.
+    // Only read when the event pipeline is created, on the first session event.
+    private int managementEventThreads = DEFAULT_MANAGEMENT_EVENT_THREADS;
+    private int managementEventQueueSize = DEFAULT_MANAGEMENT_EVENT_QUEUE_SIZE;
+    private volatile ManagementEventPipeline managementEventPipeline;
+
     // The list of handlers that have been configured for management for this gateway.
     // These are added during management-service init().
     private final List<ManagementServiceHandler> managementServiceHandlers;
@@ -277,6 +286,16 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
         return managementSessionThreshold;
     }
 
+    @Override
+    public void setManagementEventThreads(int managementEventThreads) {
+        this.managementEventThreads = managementEventThreads;
+    }
+
+    @Override
+    public void setManagementEventQueueSize(int managementEventQueueSize) {
+        this.managementEventQueueSize = managementEventQueueSize;
+    }
+
     @Override
     public int getOverallSessionCount() {
         return overallSessionCount.get();
@@ -394,6 +413,43 @@ public class DefaultManagementContext implements ManagementContext, DependencyCo
         managementExecutorService.execute(r);
     }
 
+    @Override
+    public void publishManagementEvent(ManagementEventHandler handler,
+                                       int event,
+                                       long sessionId,
+                                       Object arg1,
+                                       Object arg2) {
+        getManagementEventPipeline().publish(handler, event, sessionId, arg1, arg2);
+    }
+
+    @Override
+    public long getDroppedManagementEventCount() {
+        ManagementEventPipeline pipeline = managementEventPipeline;
+        return (pipeline != null) ? pipeline.getDroppedEventCount() : 0;
+    }
+
+    private ManagementEventPipeline getManagementEventPipeline() {
+        ManagementEventPipeline pipeline = managementEventPipeline;
+        if (pipeline == null) {
+            synchronized (this) {
+                pipeline = managementEventPipeline;
+                if (pipeline == null) {
+                    // the first thread is the one running the other management tasks
+                    Executor[] executors = new Executor[Math.max(1, managementEventThreads)];
+                    executors[0] = managementExecutorService;
+                    for (int i = 1; i < executors.length; i++) {
+                        executors[i] = schedulerProvider.getScheduler("management-" + i, true);
+                    }
+                    // sessions are spread across rings to limit contention between the IO threads publishing events
+                    int ringCount = Math.max(executors.length, Runtime.getRuntime().availableProcessors());
+                    pipeline = new ManagementEventPipeline(executors, ringCount, managementEventQueueSize);
+                    managementEventPipeline = pipeline;
+                }
+            }
+        }
+        return pipeline;
+    }
+
     public static synchronized int getNextServiceIndex(ServiceContext serviceContext) {
         Integer index = serviceIndexMap.get(serviceContext);
         if (index == null) {
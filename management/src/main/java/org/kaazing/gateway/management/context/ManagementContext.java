@@ -48,6 +48,10 @@ public interface ManagementContext {
 
     int getSessionManagementThreshold();
 
+    void setManagementEventThreads(int managementEventThreads);
+
+    void setManagementEventQueueSize(int managementEventQueueSize);
+
     int getOverallSessionCount();
 
     void incrementOverallSessionCount();
@@ -89,6 +93,14 @@ public interface ManagementContext {
 
     void runManagementTask(Runnable r);
 
+    /**
+     * Publish a session event to be handled OFF the IO thread, in order with the other events of that session.
+     * Message received and filter write events may be dropped when the management threads are not keeping up.
+     */
+    void publishManagementEvent(ManagementEventHandler handler, int event, long sessionId, Object arg1, Object arg2);
+
+    long getDroppedManagementEventCount();
+
     ManagementFilterStrategy getManagementFilterStrategy();
 
     ManagementGatewayStrategy getManagementGatewayStrategy();
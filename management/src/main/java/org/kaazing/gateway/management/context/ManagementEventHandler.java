@@ -0,0 +1,39 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.context;
+
+/**
+ * Receives the session events published to the {@link ManagementEventPipeline}, OFF the IO thread that published them.
+ * Events published by one IO thread are handled in the order they were published.
+ */
+public interface ManagementEventHandler {
+
+    int SESSION_CREATED = 0;
+    int SESSION_CLOSED = 1;
+    int MESSAGE_RECEIVED = 2;
+    int FILTER_WRITE = 3;
+    int EXCEPTION_CAUGHT = 4;
+
+    /**
+     * Handle a session event.
+     *
+     * @param event     one of the event constants above
+     * @param sessionId id of the session the event belongs to
+     * @param arg1      first event argument (e.g. the message or the exception), or null
+     * @param arg2      second event argument, or null
+     */
+    void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2);
+}
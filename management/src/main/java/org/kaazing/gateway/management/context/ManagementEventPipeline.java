@@ -0,0 +1,319 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.context;
+
+import static org.kaazing.gateway.management.context.ManagementEventHandler.FILTER_WRITE;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.MESSAGE_RECEIVED;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries session events from the IO threads to the management listeners without allocating per event.
+ * <p/>
+ * Events are written into one of a fixed number of bounded rings of preallocated event slots, chosen by session id, and
+ * drained in batches by one of the management executors, rings being spread across the executors. The events of a
+ * session are published from whichever thread reads, writes or closes it, so they all go through the same ring,
+ * which keeps them in the order they were published. A drain is only submitted to the executor when the ring goes
+ * from idle to busy, so under load one task carries many events.
+ * <p/>
+ * When a ring is full, message received and filter write events are dropped and counted, since the listeners only
+ * use them to refresh statistics that the next event brings up to date again. Session created, closed and exception
+ * events are never dropped: they spill into an unbounded overflow queue which is drained once the ring has emptied.
+ * While the overflow queue is non-empty later events go there too (or are dropped), so the order of the events
+ * of a session is kept.
+ * <p/>
+ * Pooled buffers passed as event arguments are retained until the event has been handled, since the IO thread
+ * returns them to the pool as soon as its own handling of the message is complete.
+ */
+public final class ManagementEventPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManagementEventPipeline.class);
+
+    // events handled per drain task before yielding the executor to the other rings it serves
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private final EventRing[] rings;
+    private final int ringCapacity;
+    private final AtomicLong droppedEventCount;
+
+    /**
+     * Constructor, with one ring per executor.
+     *
+     * @param executors    executors draining the rings, one thread each so that events are handled in order
+     * @param ringCapacity number of events each ring can have in flight, rounded up to a power of 2
+     */
+    public ManagementEventPipeline(Executor[] executors, int ringCapacity) {
+        this(executors, executors.length, ringCapacity);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executors    executors draining the rings, one thread each so that events are handled in order
+     * @param ringCount    number of rings the sessions are spread across, more rings meaning less contention between
+     *                     publishing threads
+     * @param ringCapacity number of events each ring can have in flight, rounded up to a power of 2
+     */
+    public ManagementEventPipeline(Executor[] executors, int ringCount, int ringCapacity) {
+        if (executors.length == 0) {
+            throw new IllegalArgumentException("At least one executor is required");
+        }
+        if (ringCount <= 0) {
+            throw new IllegalArgumentException("Ring count must be positive: " + ringCount);
+        }
+        if (ringCapacity <= 0) {
+            throw new IllegalArgumentException("Ring capacity must be positive: " + ringCapacity);
+        }
+        this.ringCapacity = ringCapacity == 1 ? 1 : Integer.highestOneBit(ringCapacity - 1) << 1;
+        this.rings = new EventRing[ringCount];
+        for (int i = 0; i < ringCount; i++) {
+            rings[i] = new EventRing(executors[i % executors.length], this.ringCapacity);
+        }
+        this.droppedEventCount = new AtomicLong();
+    }
+
+    /**
+     * Publish a session event, to be handled OFF the calling thread.
+     *
+     * @return false if the event was dropped because the management threads are not keeping up
+     */
+    public boolean publish(ManagementEventHandler handler, int event, long sessionId, Object arg1, Object arg2) {
+        EventRing ring = rings[(int) ((sessionId & Long.MAX_VALUE) % rings.length)];
+        retain(arg1);
+        retain(arg2);
+        if (!ring.offer(handler, event, sessionId, arg1, arg2)) {
+            release(arg1);
+            release(arg2);
+            if (droppedEventCount.getAndIncrement() == 0) {
+                logger.warn("Management threads are not keeping up with session events, message events are being dropped");
+            }
+            return false;
+        }
+
+        ring.schedule();
+        return true;
+    }
+
+    /**
+     * Returns the number of events dropped since the pipeline was created.
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    int getRingCapacity() {
+        return ringCapacity;
+    }
+
+    int getRingCount() {
+        return rings.length;
+    }
+
+    private static boolean isDroppable(int event) {
+        return event == MESSAGE_RECEIVED || event == FILTER_WRITE;
+    }
+
+    private static void handle(ManagementEventHandler handler, int event, long sessionId, Object arg1, Object arg2) {
+        try {
+            handler.handleManagementEvent(event, sessionId, arg1, arg2);
+        } catch (RuntimeException ex) {
+            logger.warn("Error during management event notifications:", ex);
+        } finally {
+            release(arg1);
+            release(arg2);
+        }
+    }
+
+    private static void retain(Object arg) {
+        if (arg instanceof IoBufferEx) {
+            PooledBufferAllocator.retain((IoBufferEx) arg);
+        }
+    }
+
+    private static void release(Object arg) {
+        if (arg instanceof IoBufferEx) {
+            PooledBufferAllocator.release((IoBufferEx) arg);
+        }
+    }
+
+    /**
+     * Multiple producer, single consumer ring of events. The slots are parallel arrays so that publishing allocates
+     * nothing. The sequence number of a slot is 2p while it is free for the producer claiming position p, and 2p + 1
+     * once the event at position p is published, so that producers claim positions with a single compare and set and
+     * the consumer never reads a slot that is still being written (even with a single slot).
+     */
+    private static final class EventRing implements Runnable {
+
+        private final Executor executor;
+        private final int mask;
+        private final AtomicLongArray sequences;
+        private final ManagementEventHandler[] handlers;
+        private final int[] events;
+        private final long[] sessionIds;
+        private final Object[] args1;
+        private final Object[] args2;
+
+        // only allocates when the ring is full, in order
+        private final Queue<OverflowEvent> overflow;
+
+        private final AtomicLong tail;
+        private final AtomicBoolean scheduled;
+
+        // only read and written by the draining thread
+        private long head;
+
+        EventRing(Executor executor, int capacity) {
+            this.executor = executor;
+            this.mask = capacity - 1;
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, 2L * i);
+            }
+            this.handlers = new ManagementEventHandler[capacity];
+            this.events = new int[capacity];
+            this.sessionIds = new long[capacity];
+            this.args1 = new Object[capacity];
+            this.args2 = new Object[capacity];
+            this.overflow = new ConcurrentLinkedQueue<>();
+            this.tail = new AtomicLong();
+            this.scheduled = new AtomicBoolean();
+        }
+
+        // This runs ON the publishing thread
+        boolean offer(ManagementEventHandler handler, int event, long sessionId, Object arg1, Object arg2) {
+            if (overflow.isEmpty()) {
+                for (;;) {
+                    long tail = this.tail.get();
+                    int index = (int) tail & mask;
+                    long available = sequences.get(index) - 2 * tail;
+                    if (available == 0) {
+                        if (this.tail.compareAndSet(tail, tail + 1)) {
+                            handlers[index] = handler;
+                            events[index] = event;
+                            sessionIds[index] = sessionId;
+                            args1[index] = arg1;
+                            args2[index] = arg2;
+                            sequences.lazySet(index, 2 * tail + 1);
+                            return true;
+                        }
+                    }
+                    else if (available < 0) {
+                        // full
+                        break;
+                    }
+                    // otherwise another publisher claimed this position first
+                }
+            }
+
+            if (isDroppable(event)) {
+                return false;
+            }
+
+            overflow.add(new OverflowEvent(handler, event, sessionId, arg1, arg2));
+            return true;
+        }
+
+        void schedule() {
+            if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        // This runs OFF the IO thread
+        @Override
+        public void run() {
+            int drained = drain(DRAIN_BATCH_SIZE);
+            if (drained == DRAIN_BATCH_SIZE) {
+                // more may be waiting, let the other rings on this executor have a turn first
+                executor.execute(this);
+                return;
+            }
+
+            scheduled.set(false);
+            if (!isEmpty()) {
+                schedule();
+            }
+        }
+
+        private boolean isEmpty() {
+            // a position claimed but not yet published is scheduled by its publisher once published
+            return !isPublished(head) && overflow.isEmpty();
+        }
+
+        private boolean isPublished(long position) {
+            return sequences.get((int) position & mask) == 2 * position + 1;
+        }
+
+        private int drain(int limit) {
+            int drained = 0;
+            while (drained < limit && isPublished(head)) {
+                int index = (int) head & mask;
+                ManagementEventHandler handler = handlers[index];
+                int event = events[index];
+                long sessionId = sessionIds[index];
+                Object arg1 = args1[index];
+                Object arg2 = args2[index];
+                handlers[index] = null;
+                args1[index] = null;
+                args2[index] = null;
+                sequences.lazySet(index, 2 * (head + mask + 1));
+                head++;
+
+                handle(handler, event, sessionId, arg1, arg2);
+                drained++;
+            }
+
+            // events spill over only once the ring is full, so the ring holds the older ones until it is empty
+            while (drained < limit && head == tail.get()) {
+                OverflowEvent overflowEvent = overflow.poll();
+                if (overflowEvent == null) {
+                    break;
+                }
+                handle(overflowEvent.handler, overflowEvent.event, overflowEvent.sessionId, overflowEvent.arg1,
+                        overflowEvent.arg2);
+                drained++;
+            }
+
+            return drained;
+        }
+    }
+
+    private static final class OverflowEvent {
+        final ManagementEventHandler handler;
+        final int event;
+        final long sessionId;
+        final Object arg1;
+        final Object arg2;
+
+        OverflowEvent(ManagementEventHandler handler, int event, long sessionId, Object arg1, Object arg2) {
+            this.handler = handler;
+            this.event = event;
+            this.sessionId = sessionId;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+        }
+    }
+}
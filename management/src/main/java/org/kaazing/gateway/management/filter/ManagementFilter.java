@@ -15,6 +15,7 @@
  */
 package org.kaazing.gateway.management.filter;
 
+import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.write.WriteRequest;
 import org.kaazing.gateway.management.Utils;
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
@@ -68,6 +69,7 @@ public class ManagementFilter extends IoFilterAdapter<IoSessionEx> {
                 .doSessionClosed(managementContext, serviceBean, session.getId(), managementSessionType);
         managementContext.decrementOverallSessionCount();
         serviceCounterManager.decrementSessionCounters(managementSessionType);
+        serviceCounterManager.decrementTransportSessionCounter(Utils.getTransportName(session));
 
         super.doSessionClosed(nextFilter, session);
     }
@@ -76,6 +78,7 @@ public class ManagementFilter extends IoFilterAdapter<IoSessionEx> {
     protected void doMessageReceived(NextFilter nextFilter, IoSessionEx session, Object message) throws Exception {
         managementContext.getManagementFilterStrategy()
                 .doMessageReceived(managementContext, serviceBean, session.getId(), session.getReadBytes(), message);
+        serviceCounterManager.messageReceived(getMessageSize(message));
         super.doMessageReceived(nextFilter, session, message);
     }
 
@@ -83,6 +86,7 @@ public class ManagementFilter extends IoFilterAdapter<IoSessionEx> {
     protected void doFilterWrite(NextFilter nextFilter, IoSessionEx session, WriteRequest writeRequest) throws Exception {
         managementContext.getManagementFilterStrategy()
                 .doFilterWrite(managementContext, serviceBean, session.getId(), session.getWrittenBytes(), writeRequest);
+        serviceCounterManager.messageSent(getMessageSize(writeRequest.getMessage()), session.getScheduledWriteMessages());
         super.doFilterWrite(nextFilter, session, writeRequest);
     }
 
@@ -108,5 +112,15 @@ public class ManagementFilter extends IoFilterAdapter<IoSessionEx> {
         managementContext.getManagementFilterStrategy()
                 .doSessionCreated(managementContext, serviceBean, session, managementSessionType);
         serviceCounterManager.incrementSessionCounters(managementSessionType);
+        serviceCounterManager.incrementTransportSessionCounter(Utils.getTransportName(session));
+
+        long handshakeLatency = Utils.getHandshakeLatency(session, System.currentTimeMillis());
+        if (handshakeLatency >= 0) {
+            serviceCounterManager.recordHandshakeLatency(handshakeLatency);
+        }
+    }
+
+    private static long getMessageSize(Object message) {
+        return (message instanceof IoBuffer) ? ((IoBuffer) message).remaining() : 0;
     }
 }
@@ -61,6 +61,8 @@ public interface GatewayManagementBean extends ManagementBean {
 
     long getTotalExceptions();
 
+    long getDroppedManagementEventCount();
+
     long getUptime();
 
     long getStartTime();
@@ -33,6 +33,7 @@ import org.kaazing.gateway.management.ClusterManagementListener;
 import org.kaazing.gateway.management.ManagementService;
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.context.ManagementContext;
+import org.kaazing.gateway.management.context.ManagementEventHandler;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheck;
 import org.kaazing.gateway.management.update.check.ManagementUpdateCheckFactory;
 import org.kaazing.gateway.server.context.GatewayContext;
@@ -55,7 +56,8 @@ import com.hazelcast.core.MapEvent;
  * protocols define the use of those data.
  */
 public class GatewayManagementBeanImpl extends AbstractManagementBean
-        implements GatewayManagementBean, MembershipEventListener, EntryListener<MemberId, Collection<String>> {
+        implements GatewayManagementBean, ManagementEventHandler, MembershipEventListener,
+        EntryListener<MemberId, Collection<String>> {
 
     private static final Logger logger = LoggerFactory.getLogger(GatewayManagementBeanImpl.class);
 
@@ -195,6 +197,11 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
         return total;
     }
 
+    @Override
+    public long getDroppedManagementEventCount() {
+        return managementContext.getDroppedManagementEventCount();
+    }
+
     @Override
     public long getUptime() {
         return System.currentTimeMillis() - startTime;
@@ -436,25 +443,11 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     /**
      * Notify the management listeners on a sessionCreated.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doSessionCreatedListeners(final long sessionId, final ManagementSessionType managementSessionType) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final GatewayManagementListener listener : getManagementListeners()) {
-                        listener.doSessionCreated(GatewayManagementBeanImpl.this, sessionId);
-                    }
-
-                    markChanged();  // mark ourselves as changed, possibly tell listeners
-                } catch (Exception ex) {
-                    logger.warn("Error during sessionCreated gateway listener notifications:", ex);
-                }
-            }
-        });
+        managementContext.publishManagementEvent(this, SESSION_CREATED, sessionId, null, null);
     }
 
     // This must run ON the IO thread
@@ -467,25 +460,11 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     /**
      * Notify the management listeners on a sessionClosed.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doSessionClosedListeners(final long sessionId, final ManagementSessionType managementSessionType) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final GatewayManagementListener listener : getManagementListeners()) {
-                        listener.doSessionClosed(GatewayManagementBeanImpl.this, sessionId);
-                    }
-
-                    markChanged();  // mark ourselves as changed, possibly tell listeners
-                } catch (Exception ex) {
-                    logger.warn("Error during sessionClosed gateway listener notifications:", ex);
-                }
-            }
-        });
+        managementContext.publishManagementEvent(this, SESSION_CLOSED, sessionId, null, null);
     }
 
     // This must run ON the IO thread
@@ -500,25 +479,11 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     /**
      * Notify the management listeners on a messageReceived.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doMessageReceivedListeners(final long sessionId, final long sessionReadBytes, final Object message) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final GatewayManagementListener listener : getManagementListeners()) {
-                        listener.doMessageReceived(GatewayManagementBeanImpl.this, sessionId);
-                    }
-
-                    markChanged();  // mark ourselves as changed, possibly tell listeners
-                } catch (Exception ex) {
-                    logger.warn("Error during messageReceived gateway listener notifications:", ex);
-                }
-            }
-        });
+        managementContext.publishManagementEvent(this, MESSAGE_RECEIVED, sessionId, null, null);
     }
 
 
@@ -537,25 +502,11 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     /**
      * Notify the management listeners on a filterWrite.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doFilterWriteListeners(final long sessionId, final long sessionWrittenBytes, final WriteRequest writeRequest) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final GatewayManagementListener listener : getManagementListeners()) {
-                        listener.doFilterWrite(GatewayManagementBeanImpl.this, sessionId);
-                    }
-
-                    markChanged();  // mark ourselves as changed, possibly tell listeners
-                } catch (Exception ex) {
-                    logger.warn("Error during filterWrite gateway listener notifications:", ex);
-                }
-            }
-        });
+        managementContext.publishManagementEvent(this, FILTER_WRITE, sessionId, null, null);
     }
 
     // This must run ON the IO thread
@@ -566,27 +517,55 @@ public class GatewayManagementBeanImpl extends AbstractManagementBean
     }
 
     /**
-     * Notify the management listeners on a filterWrite.
+     * Notify the management listeners on an exceptionCaught.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doExceptionCaughtListeners(final long sessionId, final Throwable cause) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final GatewayManagementListener listener : getManagementListeners()) {
-                        listener.doExceptionCaught(GatewayManagementBeanImpl.this, sessionId);
-                    }
+        managementContext.publishManagementEvent(this, EXCEPTION_CAUGHT, sessionId, null, null);
+    }
 
-                    markChanged();  // mark ourselves as changed, possibly tell listeners
-                } catch (Exception ex) {
-                    logger.warn("Error during exceptionCaught gateway listener notifications:", ex);
+    // This runs OFF the IO thread
+    @Override
+    public void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2) {
+        try {
+            // The particular management listeners change on strategy, so get them here.
+            List<GatewayManagementListener> gatewayListeners = getManagementListeners();
+            switch (event) {
+            case SESSION_CREATED:
+                for (final GatewayManagementListener listener : gatewayListeners) {
+                    listener.doSessionCreated(this, sessionId);
+                }
+                break;
+            case SESSION_CLOSED:
+                for (final GatewayManagementListener listener : gatewayListeners) {
+                    listener.doSessionClosed(this, sessionId);
+                }
+                break;
+            case MESSAGE_RECEIVED:
+                for (final GatewayManagementListener listener : gatewayListeners) {
+                    listener.doMessageReceived(this, sessionId);
+                }
+                break;
+            case FILTER_WRITE:
+                for (final GatewayManagementListener listener : gatewayListeners) {
+                    listener.doFilterWrite(this, sessionId);
                 }
+                break;
+            case EXCEPTION_CAUGHT:
+                for (final GatewayManagementListener listener : gatewayListeners) {
+                    listener.doExceptionCaught(this, sessionId);
+                }
+                break;
+            default:
+                return;
             }
-        });
+
+            markChanged();  // mark ourselves as changed, possibly tell listeners
+        } catch (Exception ex) {
+            logger.warn("Error during gateway listener notifications:", ex);
+        }
     }
 
     /**
@@ -37,6 +37,8 @@ public interface GatewayMXBean {
 
     long getTotalBytesSent();
 
+    long getDroppedManagementEventCount();
+
     long getUptime();
 
     long getStartTime();
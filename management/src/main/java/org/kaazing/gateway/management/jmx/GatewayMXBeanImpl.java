@@ -81,6 +81,11 @@ public class GatewayMXBeanImpl implements GatewayMXBean {
         return gatewayManagementBean.getTotalBytesSent();
     }
 
+    @Override
+    public long getDroppedManagementEventCount() {
+        return gatewayManagementBean.getDroppedManagementEventCount();
+    }
+
     @Override
     public long getUptime() {
         return gatewayManagementBean.getUptime();
@@ -131,6 +131,10 @@ public class JmxManagementService implements ManagementService, NotificationList
         handler = new JmxManagementServiceHandler(serviceContext, managementContext, getMBeanServer());
         managementContext.setManagementSessionThreshold(InternalSystemProperty.MANAGEMENT_SESSION_THRESHOLD
                 .getIntProperty(configuration));
+        managementContext.setManagementEventThreads(InternalSystemProperty.MANAGEMENT_EVENT_THREADS
+                .getIntProperty(configuration));
+        managementContext.setManagementEventQueueSize(InternalSystemProperty.MANAGEMENT_EVENT_QUEUE_SIZE
+                .getIntProperty(configuration));
         managementContext.addManagementServiceHandler(handler);
         managementContext.setActive(true);
     }
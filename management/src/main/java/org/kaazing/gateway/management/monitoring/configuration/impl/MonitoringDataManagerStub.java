@@ -17,15 +17,19 @@ package org.kaazing.gateway.management.monitoring.configuration.impl;
 
 import org.kaazing.gateway.management.monitoring.configuration.MonitoringDataManager;
 import org.kaazing.gateway.management.monitoring.entity.impl.DefaultLongMonitoringCounterStub;
+import org.kaazing.gateway.management.monitoring.entity.impl.DefaultLongMonitoringHistogramStub;
 import org.kaazing.gateway.management.monitoring.entity.manager.impl.ServiceCounterManagerImpl;
 import org.kaazing.gateway.management.monitoring.service.MonitoredService;
 import org.kaazing.gateway.service.LongMonitoringCounter;
+import org.kaazing.gateway.service.LongMonitoringHistogram;
 import org.kaazing.gateway.service.MonitoringEntityFactory;
 
 public class MonitoringDataManagerStub implements MonitoringDataManager {
 
     private static final DefaultLongMonitoringCounterStub DEFAULT_LONG_MONITORING_COUNTER_STUB =
             new DefaultLongMonitoringCounterStub();
+    private static final DefaultLongMonitoringHistogramStub DEFAULT_LONG_MONITORING_HISTOGRAM_STUB =
+            new DefaultLongMonitoringHistogramStub();
     private static final MonitoringEntityFactory MONITORING_ENTITY_FACTORY = new
             ServiceCounterManagerImpl(new MonitoringEntityFactory() {
 
@@ -34,6 +38,11 @@ public class MonitoringDataManagerStub implements MonitoringDataManager {
             return DEFAULT_LONG_MONITORING_COUNTER_STUB;
         }
 
+        @Override
+        public LongMonitoringHistogram makeLongMonitoringHistogram(String name, long[] bucketBounds) {
+            return DEFAULT_LONG_MONITORING_HISTOGRAM_STUB;
+        }
+
         @Override
         public void close() {
         }
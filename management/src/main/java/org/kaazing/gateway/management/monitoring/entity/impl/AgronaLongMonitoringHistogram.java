@@ -0,0 +1,91 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.monitoring.entity.impl;
+
+import java.util.Arrays;
+
+import org.kaazing.gateway.service.LongMonitoringHistogram;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * Agrona specific monitoring histogram. Each bucket, the count and the sum of the recorded values are AtomicCounters
+ * allocated next to each other in the counters buffer, so that a reader of the monitoring file sees the histogram as
+ * consecutive counters labelled after its name.
+ */
+public class AgronaLongMonitoringHistogram implements LongMonitoringHistogram {
+
+    private final long[] bucketBounds;
+    private final AtomicCounter[] buckets;
+    private final AtomicCounter count;
+    private final AtomicCounter sum;
+
+    AgronaLongMonitoringHistogram(long[] bucketBounds, AtomicCounter[] buckets, AtomicCounter count, AtomicCounter sum) {
+        if (buckets.length != bucketBounds.length + 1) {
+            throw new IllegalArgumentException("Expected one bucket per bound plus one, got " + buckets.length);
+        }
+        this.bucketBounds = bucketBounds;
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+    }
+
+    @Override
+    public LongMonitoringHistogram record(long value) {
+        buckets[bucketIndex(bucketBounds, value)].increment();
+        count.increment();
+        sum.add(value);
+        return this;
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public long getSum() {
+        return sum.get();
+    }
+
+    @Override
+    public long getBucketCount(int index) {
+        return buckets[index].get();
+    }
+
+    /**
+     * Method returning the index of the bucket a value falls in
+     * @param bucketBounds - the inclusive upper bounds of the buckets, in ascending order
+     * @param value - the value
+     * @return the index of the bucket, bucketBounds.length for values above every bound
+     */
+    static int bucketIndex(long[] bucketBounds, long value) {
+        int index = Arrays.binarySearch(bucketBounds, value);
+        return (index >= 0) ? index : -index - 1;
+    }
+
+    /**
+     * Method returning the label of the bucket at the given index
+     * @param name - the name of the histogram
+     * @param bucketBounds - the inclusive upper bounds of the buckets
+     * @param index - the index of the bucket
+     * @return the bucket label, e.g. "handshake-latency-ms.le.100" or "handshake-latency-ms.le.inf"
+     */
+    static String bucketLabel(String name, long[] bucketBounds, int index) {
+        return name + ".le." + ((index < bucketBounds.length) ? Long.toString(bucketBounds[index]) : "inf");
+    }
+
+}
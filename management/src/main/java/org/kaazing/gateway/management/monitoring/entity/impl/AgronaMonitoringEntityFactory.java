@@ -15,10 +15,12 @@
  */
 package org.kaazing.gateway.management.monitoring.entity.impl;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.kaazing.gateway.service.LongMonitoringCounter;
+import org.kaazing.gateway.service.LongMonitoringHistogram;
 import org.kaazing.gateway.service.MonitoringEntityFactory;
 
 import org.agrona.concurrent.status.AtomicCounter;
@@ -50,6 +52,29 @@ public class AgronaMonitoringEntityFactory implements MonitoringEntityFactory {
         return longMonitoringCounter;
     }
 
+    @Override
+    public LongMonitoringHistogram makeLongMonitoringHistogram(String name, long[] bucketBounds) {
+        long[] bounds = bucketBounds.clone();
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be in ascending order: " + Arrays.toString(bounds));
+            }
+        }
+
+        // The counters are allocated one after the other, so readers find the whole histogram in one place.
+        AtomicCounter count = countersManager.newCounter(name + ".count");
+        AtomicCounter sum = countersManager.newCounter(name + ".sum");
+        counters.add(count);
+        counters.add(sum);
+        AtomicCounter[] buckets = new AtomicCounter[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = countersManager.newCounter(AgronaLongMonitoringHistogram.bucketLabel(name, bounds, i));
+            counters.add(buckets[i]);
+        }
+
+        return new AgronaLongMonitoringHistogram(bounds, buckets, count, sum);
+    }
+
     @Override
     public void close() {
         // We close the counters, the String monitoring entities and the we also need to unmap the file and delete the
@@ -16,11 +16,13 @@
 package org.kaazing.gateway.management.monitoring.entity.impl;
 
 import org.kaazing.gateway.service.LongMonitoringCounter;
+import org.kaazing.gateway.service.LongMonitoringHistogram;
 import org.kaazing.gateway.service.MonitoringEntityFactory;
 
 public class DefaultMonitoringEntityFactoryStub implements MonitoringEntityFactory {
 
     private static final LongMonitoringCounter COUNTER_STUB = new DefaultLongMonitoringCounterStub();
+    private static final LongMonitoringHistogram HISTOGRAM_STUB = new DefaultLongMonitoringHistogramStub();
 
     @Override
     public void close() {
@@ -31,4 +33,9 @@ public class DefaultMonitoringEntityFactoryStub implements MonitoringEntityFacto
         return COUNTER_STUB;
     }
 
+    @Override
+    public LongMonitoringHistogram makeLongMonitoringHistogram(String name, long[] bucketBounds) {
+        return HISTOGRAM_STUB;
+    }
+
 }
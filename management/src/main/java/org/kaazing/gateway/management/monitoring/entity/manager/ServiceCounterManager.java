@@ -37,4 +37,35 @@ public interface ServiceCounterManager extends MonitoringEntityFactory {
      * @param managementSessionType - session type used to determine whether session is native or not
      */
     void decrementSessionCounters(ManagementSessionType managementSessionType);
+
+    /**
+     * Method incrementing the session counter of a transport
+     * @param transportName - one of the transport names returned by Utils.getTransportName
+     */
+    void incrementTransportSessionCounter(String transportName);
+
+    /**
+     * Method decrementing the session counter of a transport
+     * @param transportName - one of the transport names returned by Utils.getTransportName
+     */
+    void decrementTransportSessionCounter(String transportName);
+
+    /**
+     * Method recording the time taken to establish a session, from the connection of its transport
+     * @param latency - the handshake latency, in milliseconds
+     */
+    void recordHandshakeLatency(long latency);
+
+    /**
+     * Method counting a received message
+     * @param bytes - the size of the message, 0 if unknown
+     */
+    void messageReceived(long bytes);
+
+    /**
+     * Method counting a sent message
+     * @param bytes - the size of the message, 0 if unknown
+     * @param scheduledWriteMessages - the number of messages queued for writing on the session
+     */
+    void messageSent(long bytes, long scheduledWriteMessages);
 }
@@ -15,9 +15,12 @@
  */
 package org.kaazing.gateway.management.monitoring.entity.manager.impl;
 
+import static org.kaazing.gateway.management.Utils.TRANSPORT_NAMES;
+
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.monitoring.entity.manager.ServiceCounterManager;
 import org.kaazing.gateway.service.LongMonitoringCounter;
+import org.kaazing.gateway.service.LongMonitoringHistogram;
 import org.kaazing.gateway.service.MonitoringEntityFactory;
 
 public class ServiceCounterManagerImpl implements
@@ -29,12 +32,33 @@ public class ServiceCounterManagerImpl implements
     private static final String CUMULATIVE_NUMBER_OF_SESSIONS = "cumulative-number-of-sessions";
     private static final String CUMULATIVE_NUMBER_OF_NATIVE_SESSIONS = "cumulative-number-of-native-sessions";
     private static final String CUMULATIVE_NUMBER_OF_EMULATED_SESSIONS = "cumulative-number-of-emulated-sessions";
+    private static final String CURRENT_NUMBER_OF_TRANSPORT_SESSIONS = "current-number-of-%s-sessions";
+    private static final String CUMULATIVE_NUMBER_OF_MESSAGES_RECEIVED = "cumulative-number-of-messages-received";
+    private static final String CUMULATIVE_NUMBER_OF_MESSAGES_SENT = "cumulative-number-of-messages-sent";
+    private static final String CUMULATIVE_NUMBER_OF_BYTES_RECEIVED = "cumulative-number-of-bytes-received";
+    private static final String CUMULATIVE_NUMBER_OF_BYTES_SENT = "cumulative-number-of-bytes-sent";
+    private static final String HANDSHAKE_LATENCY = "handshake-latency-ms";
+    private static final String SCHEDULED_WRITE_QUEUE_DEPTH = "scheduled-write-queue-depth";
+
+    // milliseconds
+    private static final long[] HANDSHAKE_LATENCY_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // messages, sampled on every write
+    private static final long[] SCHEDULED_WRITE_QUEUE_DEPTH_BOUNDS = {0, 1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
     private LongMonitoringCounter numberOfSessionsCounter;
     private LongMonitoringCounter numberOfNativeSessionsCounter;
     private LongMonitoringCounter numberOfEmulatedSessionsCounter;
     private LongMonitoringCounter cumulativeSessionsCounter;
     private LongMonitoringCounter cumulativeNativeSessionsCounter;
     private LongMonitoringCounter cumulativeEmulatedSessionsCounter;
+    private LongMonitoringCounter[] transportSessionsCounters;
+    private LongMonitoringCounter messagesReceivedCounter;
+    private LongMonitoringCounter messagesSentCounter;
+    private LongMonitoringCounter bytesReceivedCounter;
+    private LongMonitoringCounter bytesSentCounter;
+    private LongMonitoringHistogram handshakeLatencyHistogram;
+    private LongMonitoringHistogram scheduledWriteQueueDepthHistogram;
 
     private MonitoringEntityFactory monitoringEntityFactory;
 
@@ -68,12 +92,49 @@ public class ServiceCounterManagerImpl implements
         }
     }
 
+    @Override
+    public void incrementTransportSessionCounter(String transportName) {
+        transportSessionsCounter(transportName).increment();
+    }
+
+    @Override
+    public void decrementTransportSessionCounter(String transportName) {
+        transportSessionsCounter(transportName).decrement();
+    }
+
+    @Override
+    public void recordHandshakeLatency(long latency) {
+        handshakeLatencyHistogram.record(latency);
+    }
+
+    @Override
+    public void messageReceived(long bytes) {
+        messagesReceivedCounter.increment();
+        if (bytes > 0) {
+            bytesReceivedCounter.incrementByValue(bytes);
+        }
+    }
+
+    @Override
+    public void messageSent(long bytes, long scheduledWriteMessages) {
+        messagesSentCounter.increment();
+        if (bytes > 0) {
+            bytesSentCounter.incrementByValue(bytes);
+        }
+        scheduledWriteQueueDepthHistogram.record(scheduledWriteMessages);
+    }
+
     // Monitoring factory interface
     @Override
     public LongMonitoringCounter makeLongMonitoringCounter(String name) {
         return monitoringEntityFactory.makeLongMonitoringCounter(name);
     }
 
+    @Override
+    public LongMonitoringHistogram makeLongMonitoringHistogram(String name, long[] bucketBounds) {
+        return monitoringEntityFactory.makeLongMonitoringHistogram(name, bucketBounds);
+    }
+
     @Override
     public void close() {
         monitoringEntityFactory.close();
@@ -127,6 +188,68 @@ public class ServiceCounterManagerImpl implements
         return cumulativeEmulatedSessionsCounter;
     }
 
+    /**
+     * Getter for the session counter of a transport
+     * @param transportName - one of the transport names returned by Utils.getTransportName
+     * @return the session counter of the transport
+     */
+    public LongMonitoringCounter transportSessionsCounter(String transportName) {
+        for (int i = 0; i < TRANSPORT_NAMES.length; i++) {
+            if (TRANSPORT_NAMES[i].equals(transportName)) {
+                return transportSessionsCounters[i];
+            }
+        }
+        return transportSessionsCounters[TRANSPORT_NAMES.length - 1];
+    }
+
+    /**
+     * Getter for the messagesReceivedCounter
+     * @return the messagesReceivedCounter
+     */
+    public LongMonitoringCounter messagesReceivedCounter() {
+        return messagesReceivedCounter;
+    }
+
+    /**
+     * Getter for the messagesSentCounter
+     * @return the messagesSentCounter
+     */
+    public LongMonitoringCounter messagesSentCounter() {
+        return messagesSentCounter;
+    }
+
+    /**
+     * Getter for the bytesReceivedCounter
+     * @return the bytesReceivedCounter
+     */
+    public LongMonitoringCounter bytesReceivedCounter() {
+        return bytesReceivedCounter;
+    }
+
+    /**
+     * Getter for the bytesSentCounter
+     * @return the bytesSentCounter
+     */
+    public LongMonitoringCounter bytesSentCounter() {
+        return bytesSentCounter;
+    }
+
+    /**
+     * Getter for the handshakeLatencyHistogram
+     * @return the handshakeLatencyHistogram
+     */
+    public LongMonitoringHistogram handshakeLatencyHistogram() {
+        return handshakeLatencyHistogram;
+    }
+
+    /**
+     * Getter for the scheduledWriteQueueDepthHistogram
+     * @return the scheduledWriteQueueDepthHistogram
+     */
+    public LongMonitoringHistogram scheduledWriteQueueDepthHistogram() {
+        return scheduledWriteQueueDepthHistogram;
+    }
+
     /**
      * Method initializing the service session counters
      * @return
@@ -143,5 +266,18 @@ public class ServiceCounterManagerImpl implements
                 monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_NATIVE_SESSIONS);
         cumulativeEmulatedSessionsCounter =
                 monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_EMULATED_SESSIONS);
+        transportSessionsCounters = new LongMonitoringCounter[TRANSPORT_NAMES.length];
+        for (int i = 0; i < TRANSPORT_NAMES.length; i++) {
+            transportSessionsCounters[i] = monitoringEntityFactory.makeLongMonitoringCounter(
+                    String.format(CURRENT_NUMBER_OF_TRANSPORT_SESSIONS, TRANSPORT_NAMES[i]));
+        }
+        messagesReceivedCounter = monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_MESSAGES_RECEIVED);
+        messagesSentCounter = monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_MESSAGES_SENT);
+        bytesReceivedCounter = monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_BYTES_RECEIVED);
+        bytesSentCounter = monitoringEntityFactory.makeLongMonitoringCounter(CUMULATIVE_NUMBER_OF_BYTES_SENT);
+        handshakeLatencyHistogram =
+                monitoringEntityFactory.makeLongMonitoringHistogram(HANDSHAKE_LATENCY, HANDSHAKE_LATENCY_BOUNDS);
+        scheduledWriteQueueDepthHistogram = monitoringEntityFactory.makeLongMonitoringHistogram(
+                SCHEDULED_WRITE_QUEUE_DEPTH, SCHEDULED_WRITE_QUEUE_DEPTH_BOUNDS);
     }
 }
@@ -37,6 +37,7 @@ import org.kaazing.gateway.management.ManagementBean;
 import org.kaazing.gateway.management.Utils;
 import org.kaazing.gateway.management.Utils.ManagementSessionType;
 import org.kaazing.gateway.management.context.DefaultManagementContext;
+import org.kaazing.gateway.management.context.ManagementEventHandler;
 import org.kaazing.gateway.management.gateway.GatewayManagementBean;
 import org.kaazing.gateway.management.session.SessionManagementBean;
 import org.kaazing.gateway.security.RealmContext;
@@ -216,7 +217,8 @@ public interface ServiceManagementBean extends ManagementBean {
 
     void removeUserPrincipals(IoSessionEx session);
 
-    class DefaultServiceManagementBean extends AbstractManagementBean implements ServiceManagementBean {
+    class DefaultServiceManagementBean extends AbstractManagementBean
+            implements ServiceManagementBean, ManagementEventHandler {
         // Each IO worker thread gets a ThreadServiceStats object via get().
         private final ThreadLocal<ThreadServiceStats> serviceStats = new VicariousThreadLocal<ThreadServiceStats>() {
             @Override
@@ -704,31 +706,11 @@ public interface ServiceManagementBean extends ManagementBean {
         /**
          * Notify the management listeners when a session is created.
          * <p/>
-         * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+         * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
          */
         @Override
         public void doSessionCreatedListeners(final long sessionId, final ManagementSessionType managementSessionType) {
-
-            // Call the listeners OFF the IO thread.
-            runManagementTask(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        // We need to gather current stats to send out notifications
-                        final long[] counts = collectCurrentSessionCounts();
-
-                        List<ServiceManagementListener> serviceListeners = getManagementListeners();
-                        for (final ServiceManagementListener listener : serviceListeners) {
-                            listener.doSessionCreated(DefaultServiceManagementBean.this, counts[0], counts[1]);
-                        }
-
-                        markChanged();
-                    } catch (Exception ex) {
-                        logger.warn("Error during doSessionCreated service listener notifications:", ex);
-                    }
-                }
-            });
-
+            managementContext.publishManagementEvent(this, SESSION_CREATED, sessionId, null, null);
         }
 
         // This must run ON the IO thread
@@ -743,28 +725,11 @@ public interface ServiceManagementBean extends ManagementBean {
         /**
          * Notify the management listeners on a sessionClosed.
          * <p/>
-         * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+         * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
          */
         @Override
         public void doSessionClosedListeners(final long sessionId, final ManagementSessionType managementSessionType) {
-            runManagementTask(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        // We need to gather current stats to send out notifications
-                        final long[] counts = collectCurrentSessionCounts();
-
-                        List<ServiceManagementListener> serviceListeners = getManagementListeners();
-                        for (final ServiceManagementListener listener : serviceListeners) {
-                            listener.doSessionClosed(DefaultServiceManagementBean.this, sessionId, counts[0]);
-                        }
-
-                        markChanged();
-                    } catch (Exception ex) {
-                        logger.warn("Error during doSessionClosed service listener notifications:", ex);
-                    }
-                }
-            });
+            managementContext.publishManagementEvent(this, SESSION_CLOSED, sessionId, null, null);
         }
 
         // This must run ON the IO thread
@@ -777,30 +742,11 @@ public interface ServiceManagementBean extends ManagementBean {
         /**
          * Notify the management listeners on a messageReceived.
          * <p/>
-         * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+         * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
          */
         @Override
         public  void doMessageReceivedListeners(final long sessionId, final long sessionReadBytes, final Object message) {
-            runManagementTask(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        if (message instanceof IoBuffer) {
-                            IoBuffer buf = (IoBuffer) message;
-                            ByteBuffer byteBuffer = buf.buf();
-
-                            List<ServiceManagementListener> serviceListeners = getManagementListeners();
-                            for (final ServiceManagementListener listener : serviceListeners) {
-                                listener.doMessageReceived(DefaultServiceManagementBean.this, sessionId, byteBuffer);
-                            }
-                        }
-
-                        markChanged();
-                    } catch (Exception ex) {
-                        logger.warn("Error during doMessageReceived service listener notifications:", ex);
-                    }
-                }
-            });
+            managementContext.publishManagementEvent(this, MESSAGE_RECEIVED, sessionId, message, null);
         }
 
         // This must run ON the IO thread
@@ -813,35 +759,13 @@ public interface ServiceManagementBean extends ManagementBean {
         /**
          * Notify the management listeners on a filterWrite.
          * <p/>
-         * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+         * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
          */
         @Override
         public void doFilterWriteListeners(final long sessionId,
                                            final long sessionWrittenBytes,
                                            final WriteRequest writeRequest) {
-
-            final Object message = writeRequest.getMessage();
-
-            runManagementTask(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        if (message instanceof IoBuffer) {
-                            IoBuffer buf = (IoBuffer) message;
-                            ByteBuffer byteBuffer = buf.buf();
-
-                            List<ServiceManagementListener> serviceListeners = getManagementListeners();
-                            for (final ServiceManagementListener listener : serviceListeners) {
-                                listener.doFilterWrite(DefaultServiceManagementBean.this, sessionId, byteBuffer);
-                            }
-                        }
-
-                        markChanged();
-                    } catch (Exception ex) {
-                        logger.warn("Error during doFilterWrite service listener notifications:", ex);
-                    }
-                }
-            });
+            managementContext.publishManagementEvent(this, FILTER_WRITE, sessionId, writeRequest.getMessage(), null);
         }
 
         // This must run ON the IO thread
@@ -858,28 +782,65 @@ public interface ServiceManagementBean extends ManagementBean {
         /**
          * Notify the management listeners on a doExceptionCaught
          * <p/>
-         * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+         * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
          */
         @Override
         public void doExceptionCaughtListeners(final long sessionId, final Throwable cause) {
-            runManagementTask(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        final String exceptionMessage = Utils.getCauseString(cause);
+            managementContext.publishManagementEvent(this, EXCEPTION_CAUGHT, sessionId, cause, null);
+        }
 
-                        List<ServiceManagementListener> serviceListeners = getManagementListeners();
+        // This runs OFF the IO thread
+        @Override
+        public void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2) {
+            try {
+                List<ServiceManagementListener> serviceListeners = getManagementListeners();
+                switch (event) {
+                case SESSION_CREATED: {
+                    // We need to gather current stats to send out notifications
+                    final long[] counts = collectCurrentSessionCounts();
+                    for (final ServiceManagementListener listener : serviceListeners) {
+                        listener.doSessionCreated(this, counts[0], counts[1]);
+                    }
+                    break;
+                }
+                case SESSION_CLOSED: {
+                    // We need to gather current stats to send out notifications
+                    final long[] counts = collectCurrentSessionCounts();
+                    for (final ServiceManagementListener listener : serviceListeners) {
+                        listener.doSessionClosed(this, sessionId, counts[0]);
+                    }
+                    break;
+                }
+                case MESSAGE_RECEIVED:
+                    if (arg1 instanceof IoBuffer) {
+                        ByteBuffer byteBuffer = ((IoBuffer) arg1).buf();
                         for (final ServiceManagementListener listener : serviceListeners) {
-                            listener.doExceptionCaught(DefaultServiceManagementBean.this, sessionId, exceptionMessage);
+                            listener.doMessageReceived(this, sessionId, byteBuffer);
                         }
-
-                        markChanged();
-                    } catch (Exception ex) {
-                        logger.warn("Error during doExceptionCaught service listener notifications:", ex);
                     }
+                    break;
+                case FILTER_WRITE:
+                    if (arg1 instanceof IoBuffer) {
+                        ByteBuffer byteBuffer = ((IoBuffer) arg1).buf();
+                        for (final ServiceManagementListener listener : serviceListeners) {
+                            listener.doFilterWrite(this, sessionId, byteBuffer);
+                        }
+                    }
+                    break;
+                case EXCEPTION_CAUGHT:
+                    final String exceptionMessage = Utils.getCauseString((Throwable) arg1);
+                    for (final ServiceManagementListener listener : serviceListeners) {
+                        listener.doExceptionCaught(this, sessionId, exceptionMessage);
+                    }
+                    break;
+                default:
+                    return;
                 }
-            });
 
+                markChanged();
+            } catch (Exception ex) {
+                logger.warn("Error during service listener notifications:", ex);
+            }
         }
 
         // This must run ON the IO thread
@@ -28,6 +28,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.kaazing.gateway.management.AbstractManagementBean;
 import org.kaazing.gateway.management.Utils;
+import org.kaazing.gateway.management.context.ManagementEventHandler;
 import org.kaazing.gateway.management.service.ServiceManagementBean;
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.mina.core.session.IoSessionEx;
@@ -41,7 +42,8 @@ import static org.kaazing.gateway.transport.ws.AbstractWsBridgeSession.LAST_ROUN
  * Implementation of the management 'data' bean for a session. This just contains the data. Wrappers for different management
  * protocols define the use of those data.
  */
-public class SessionManagementBeanImpl extends AbstractManagementBean implements SessionManagementBean {
+public class SessionManagementBeanImpl extends AbstractManagementBean
+        implements SessionManagementBean, ManagementEventHandler {
 
     private static final long CLOSE_TIMEOUT_MS = 100;
 
@@ -245,25 +247,11 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     /**
      * Notify the management listeners on a sessionCreated.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doSessionCreatedListeners() {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final SessionManagementListener listener : getManagementListeners()) {
-                        listener.doSessionCreated(SessionManagementBeanImpl.this);
-                    }
-
-                    // XXX Should we include a 'markChanged()' here?
-                } catch (Exception ex) {
-                    logger.warn("Error during doSessionCreated session listener notifications:", ex);
-                }
-            }
-        });
+        publishManagementEvent(SESSION_CREATED, null, null);
     }
 
     @Override
@@ -272,28 +260,13 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     }
 
     /**
-     * Notify the management listeners on a filterWrite.
+     * Notify the management listeners on a sessionClosed.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doSessionClosedListeners() {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    // The particular management listeners change on strategy, so get them here.
-                    for (final SessionManagementListener listener : getManagementListeners()) {
-                        listener.doSessionClosed(SessionManagementBeanImpl.this);
-                    }
-
-                    // XXX should there be a markChanged() here because the session status is now closed?
-                    // Or is that covered by the fact we generate a session-closed message?
-                } catch (Exception ex) {
-                    logger.warn("Error during doSessionClosed session listener notifications:", ex);
-                }
-            }
-        });
+        publishManagementEvent(SESSION_CLOSED, null, null);
     }
 
     @Override
@@ -303,25 +276,11 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     /**
      * Notify the management listeners on a messageReceived.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doMessageReceivedListeners(final Object message) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    List<SessionManagementListener> sessionListeners = getManagementListeners();
-                    for (final SessionManagementListener listener : sessionListeners) {
-                        listener.doMessageReceived(SessionManagementBeanImpl.this, message);
-                    }
-
-                    markChanged();
-                } catch (Exception ex) {
-                    logger.warn("Error during doMessageReceived session listener notifications:", ex);
-                }
-            }
-        });
+        publishManagementEvent(MESSAGE_RECEIVED, message, null);
     }
 
     @Override
@@ -329,32 +288,17 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     }
 
     /**
-     * Notify the management listeners on a messageReceived.
+     * Notify the management listeners on a filterWrite.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doFilterWriteListeners(final WriteRequest writeRequest) {
-
-        final Object message = writeRequest.getMessage();
+        Object message = writeRequest.getMessage();
         WriteRequest originalRequest = writeRequest.getOriginalRequest();
-        final Object originalMessage = originalRequest != null ? originalRequest.getMessage() : null;
-
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    List<SessionManagementListener> sessionListeners = getManagementListeners();
-                    for (final SessionManagementListener listener : sessionListeners) {
-                        listener.doFilterWrite(SessionManagementBeanImpl.this, message, originalMessage);
-                    }
+        Object originalMessage = originalRequest != null ? originalRequest.getMessage() : null;
 
-                    markChanged();
-                } catch (Exception ex) {
-                    logger.warn("Error during doFilterWrite session listener notifications:", ex);
-                }
-            }
-        });
+        publishManagementEvent(FILTER_WRITE, message, originalMessage);
     }
 
     @Override
@@ -363,27 +307,63 @@ public class SessionManagementBeanImpl extends AbstractManagementBean implements
     }
 
     /**
-     * Notify the management listeners on a messageReceived.
+     * Notify the management listeners on an exceptionCaught.
      * <p/>
-     * NOTE: this starts on the IO thread, but runs a task OFF the thread.
+     * NOTE: this starts on the IO thread, but the listeners are called OFF the thread.
      */
     @Override
     public void doExceptionCaughtListeners(final Throwable cause) {
-        runManagementTask(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    List<SessionManagementListener> sessionListeners = getManagementListeners();
-                    for (final SessionManagementListener listener : sessionListeners) {
-                        listener.doExceptionCaught(SessionManagementBeanImpl.this, cause);
-                    }
+        publishManagementEvent(EXCEPTION_CAUGHT, cause, null);
+    }
+
+    private void publishManagementEvent(int event, Object arg1, Object arg2) {
+        managementContext.publishManagementEvent(this, event, getId(), arg1, arg2);
+    }
 
-                    markChanged();
-                } catch (Exception ex) {
-                    logger.warn("Error during doExceptionCaught session listener notifications:", ex);
+    // This runs OFF the IO thread
+    @Override
+    public void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2) {
+        try {
+            // The particular management listeners change on strategy, so get them here.
+            List<SessionManagementListener> sessionListeners = getManagementListeners();
+            switch (event) {
+            case SESSION_CREATED:
+                for (final SessionManagementListener listener : sessionListeners) {
+                    listener.doSessionCreated(this);
+                }
+                // XXX Should we include a 'markChanged()' here?
+                break;
+            case SESSION_CLOSED:
+                for (final SessionManagementListener listener : sessionListeners) {
+                    listener.doSessionClosed(this);
                 }
+                // XXX should there be a markChanged() here because the session status is now closed?
+                // Or is that covered by the fact we generate a session-closed message?
+                break;
+            case MESSAGE_RECEIVED:
+                for (final SessionManagementListener listener : sessionListeners) {
+                    listener.doMessageReceived(this, arg1);
+                }
+                markChanged();
+                break;
+            case FILTER_WRITE:
+                for (final SessionManagementListener listener : sessionListeners) {
+                    listener.doFilterWrite(this, arg1, arg2);
+                }
+                markChanged();
+                break;
+            case EXCEPTION_CAUGHT:
+                for (final SessionManagementListener listener : sessionListeners) {
+                    listener.doExceptionCaught(this, (Throwable) arg1);
+                }
+                markChanged();
+                break;
+            default:
+                break;
             }
-        });
+        } catch (Exception ex) {
+            logger.warn("Error during session listener notifications:", ex);
+        }
     }
 
     @Override
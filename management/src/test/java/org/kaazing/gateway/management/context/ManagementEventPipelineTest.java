@@ -0,0 +1,251 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.context;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.EXCEPTION_CAUGHT;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.FILTER_WRITE;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.MESSAGE_RECEIVED;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.SESSION_CLOSED;
+import static org.kaazing.gateway.management.context.ManagementEventHandler.SESSION_CREATED;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator.SimpleBuffer;
+
+public class ManagementEventPipelineTest {
+
+    @Test
+    public void shouldHandleEventsInOrderWithArguments() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingHandler handler = new RecordingHandler();
+        ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{executor}, 8);
+
+        pipeline.publish(handler, SESSION_CREATED, 1, null, null);
+        pipeline.publish(handler, MESSAGE_RECEIVED, 1, "message", null);
+        pipeline.publish(handler, SESSION_CLOSED, 1, null, null);
+
+        assertEquals("one drain for the batch", 1, executor.tasks.size());
+        executor.runAll();
+
+        assertEquals(asList("0:1:null", "2:1:message", "1:1:null"), handler.events);
+        assertEquals(0, pipeline.getDroppedEventCount());
+    }
+
+    @Test
+    public void shouldRoundRingCapacityUpToPowerOfTwo() {
+        assertEquals(8, new ManagementEventPipeline(new Executor[]{new ManualExecutor()}, 5).getRingCapacity());
+        assertEquals(1, new ManagementEventPipeline(new Executor[]{new ManualExecutor()}, 1).getRingCapacity());
+    }
+
+    @Test
+    public void shouldDropMessageEventsWhenFull() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingHandler handler = new RecordingHandler();
+        ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{executor}, 2);
+
+        assertTrue(pipeline.publish(handler, MESSAGE_RECEIVED, 1, "first", null));
+        assertTrue(pipeline.publish(handler, MESSAGE_RECEIVED, 1, "second", null));
+        assertFalse(pipeline.publish(handler, MESSAGE_RECEIVED, 1, "third", null));
+        executor.runAll();
+
+        assertEquals(asList("2:1:first", "2:1:second"), handler.events);
+        assertEquals(1, pipeline.getDroppedEventCount());
+    }
+
+    @Test
+    public void shouldKeepLifecycleEventsInOrderWhenFull() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingHandler handler = new RecordingHandler();
+        ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{executor}, 2);
+
+        pipeline.publish(handler, SESSION_CREATED, 1, null, null);
+        pipeline.publish(handler, SESSION_CREATED, 2, null, null);
+        assertTrue(pipeline.publish(handler, EXCEPTION_CAUGHT, 1, "cause", null));
+        assertTrue(pipeline.publish(handler, SESSION_CLOSED, 1, null, null));
+        assertFalse("dropped while lifecycle events overflow", pipeline.publish(handler, MESSAGE_RECEIVED, 2, "m", null));
+        executor.runAll();
+        pipeline.publish(handler, SESSION_CLOSED, 2, null, null);
+        executor.runAll();
+
+        assertEquals(asList("0:1:null", "0:2:null", "4:1:cause", "1:1:null", "1:2:null"), handler.events);
+        assertEquals(1, pipeline.getDroppedEventCount());
+    }
+
+    @Test
+    public void shouldRetainPooledBuffersUntilHandled() {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingHandler handler = new RecordingHandler();
+        ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{executor}, 1);
+        PooledBufferAllocator<SimpleBuffer> bufferPool =
+                new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, 256 * 1024, 1, Long.MAX_VALUE);
+
+        try {
+            IoBufferEx handled = bufferPool.wrap(bufferPool.allocate(64));
+            IoBufferEx dropped = bufferPool.wrap(bufferPool.allocate(64));
+            assertTrue(pipeline.publish(handler, MESSAGE_RECEIVED, 1, handled, null));
+            assertFalse(pipeline.publish(handler, MESSAGE_RECEIVED, 1, dropped, null));
+
+            // as done by the IO thread once the message received event completes
+            PooledBufferAllocator.release(handled);
+            PooledBufferAllocator.release(dropped);
+            assertEquals(64, bufferPool.getUsedCapacity());
+
+            executor.runAll();
+            assertEquals(1, handler.events.size());
+            assertEquals(0, bufferPool.getUsedCapacity());
+        }
+        finally {
+            bufferPool.dispose();
+        }
+    }
+
+    @Test
+    public void shouldSpreadSessionsAcrossExecutors() throws Exception {
+        ManualExecutor first = new ManualExecutor();
+        ManualExecutor second = new ManualExecutor();
+        RecordingHandler handler = new RecordingHandler();
+        ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{first, second}, 8);
+
+        pipeline.publish(handler, SESSION_CREATED, 1, null, null);
+        pipeline.publish(handler, SESSION_CREATED, 2, null, null);
+
+        assertEquals(2, pipeline.getRingCount());
+        assertEquals(1, first.tasks.size());
+        assertEquals(1, second.tasks.size());
+    }
+
+    @Test
+    public void shouldKeepSessionEventsInOrderAcrossPublishingThreads() throws Exception {
+        ManualExecutor first = new ManualExecutor();
+        ManualExecutor second = new ManualExecutor();
+        final RecordingHandler handler = new RecordingHandler();
+        final ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{first, second}, 4, 8);
+
+        // created and read on the IO thread, written to and closed from another
+        pipeline.publish(handler, SESSION_CREATED, 1, null, null);
+        pipeline.publish(handler, MESSAGE_RECEIVED, 1, "message", null);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.publish(handler, FILTER_WRITE, 1, "reply", null);
+                pipeline.publish(handler, SESSION_CLOSED, 1, null, null);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals("one drain for the session", 1, first.tasks.size() + second.tasks.size());
+        first.runAll();
+        second.runAll();
+
+        assertEquals(asList("0:1:null", "2:1:message", "3:1:reply", "1:1:null"), handler.events);
+    }
+
+    @Test
+    public void shouldHandleEventsOfConcurrentPublishers() throws Exception {
+        final int publishers = 4;
+        final int eventsPerPublisher = 10000;
+        final ExecutorService drainer = Executors.newSingleThreadExecutor();
+        final List<Long> handled = Collections.synchronizedList(new ArrayList<Long>());
+        final ManagementEventHandler handler = new ManagementEventHandler() {
+            @Override
+            public void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2) {
+                handled.add((Long) arg1);
+            }
+        };
+        final ManagementEventPipeline pipeline = new ManagementEventPipeline(new Executor[]{drainer}, 1, 16);
+
+        try {
+            Thread[] threads = new Thread[publishers];
+            for (int i = 0; i < publishers; i++) {
+                final long publisher = i;
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (long sequence = 0; sequence < eventsPerPublisher; sequence++) {
+                            // lifecycle events are never dropped
+                            pipeline.publish(handler, EXCEPTION_CAUGHT, publisher, publisher << 32 | sequence, null);
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            // the last drains may still be running
+            long deadline = System.nanoTime() + SECONDS.toNanos(10);
+            while (handled.size() < publishers * eventsPerPublisher && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        finally {
+            drainer.shutdown();
+        }
+
+        assertEquals(publishers * eventsPerPublisher, handled.size());
+        long[] lastSequences = new long[publishers];
+        Arrays.fill(lastSequences, -1);
+        for (long value : handled) {
+            int publisher = (int) (value >>> 32);
+            long sequence = value & 0xffffffffL;
+            assertEquals("in order for publisher " + publisher, lastSequences[publisher] + 1, sequence);
+            lastSequences[publisher] = sequence;
+        }
+    }
+
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.run();
+            }
+        }
+    }
+
+    private static final class RecordingHandler implements ManagementEventHandler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void handleManagementEvent(int event, long sessionId, Object arg1, Object arg2) {
+            events.add(event + ":" + sessionId + ":" + arg1);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.management.monitoring.entity.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AgronaLongMonitoringHistogramTest {
+
+    private static final long[] BOUNDS = {1, 10, 100};
+
+    @Test
+    public void shouldSelectBucketByInclusiveUpperBound() {
+        assertEquals(0, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, 0));
+        assertEquals(0, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, 1));
+        assertEquals(1, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, 2));
+        assertEquals(2, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, 100));
+        assertEquals(3, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, 101));
+        assertEquals(3, AgronaLongMonitoringHistogram.bucketIndex(BOUNDS, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldLabelBucketsAfterTheirBound() {
+        assertEquals("latency.le.1", AgronaLongMonitoringHistogram.bucketLabel("latency", BOUNDS, 0));
+        assertEquals("latency.le.100", AgronaLongMonitoringHistogram.bucketLabel("latency", BOUNDS, 2));
+        assertEquals("latency.le.inf", AgronaLongMonitoringHistogram.bucketLabel("latency", BOUNDS, 3));
+    }
+}
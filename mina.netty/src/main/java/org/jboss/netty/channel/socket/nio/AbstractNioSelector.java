@@ -31,6 +31,7 @@
 package org.jboss.netty.channel.socket.nio;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
@@ -105,6 +106,12 @@ abstract class AbstractNioSelector implements NioSelector {
      */
     protected volatile Selector selector;
 
+    /**
+     * The selected keys of {@link #selector}, or null if it keeps its own {@link java.util.HashSet}. Only used by
+     * the I/O thread, like the selector it belongs to.
+     */
+    protected SelectedSelectionKeySet selectedKeySet;
+
     /**
      * Boolean that controls determines if a blocked Selector.select should
      * break out of its selection process. In our case we use a timeone for
@@ -120,6 +127,12 @@ abstract class AbstractNioSelector implements NioSelector {
     private final CountDownLatch shutdownLatch = new CountDownLatch(1);
     private volatile boolean shutdown;
 
+    // statistics, only updated by the I/O thread
+    private volatile long selectCount;
+    private volatile long selectedKeyCount;
+    private volatile long taskQueueNanos;
+    private volatile long maxTaskQueueNanos;
+
     AbstractNioSelector(Executor executor) {
         this(executor, null);
     }
@@ -176,8 +189,11 @@ abstract class AbstractNioSelector implements NioSelector {
             return;
         }
 
+        final SelectedSelectionKeySet oldSelectedKeySet = selectedKeySet;
+        final SelectedSelectionKeySet newSelectedKeySet;
         try {
             newSelector = SelectorUtil.open();
+            newSelectedKeySet = optimizeSelectedKeys() ? SelectorUtil.optimize(newSelector) : null;
         } catch (Exception e) {
             logger.warn("Failed to create a new Selector.", e);
             return;
@@ -211,6 +227,11 @@ abstract class AbstractNioSelector implements NioSelector {
         }
 
         selector = newSelector;
+        selectedKeySet = newSelectedKeySet;
+        if (oldSelectedKeySet != null) {
+            // keys of the old selector are cancelled, drop any left unprocessed
+            oldSelectedKeySet.reset(oldSelectedKeySet.size());
+        }
 
         try {
             // time to close the old selector as everything else is registered to the new one
@@ -246,6 +267,10 @@ abstract class AbstractNioSelector implements NioSelector {
             try {
                 long beforeSelect = System.nanoTime();
                 int selected = select(selector, quickSelect);
+                selectCount++;
+                if (selected > 0) {
+                    selectedKeyCount += selected;
+                }
                 // The SelectorUtil.EPOLL_BUG_WORKAROUND condition was removed in Netty 3.10.5 and instead
                 // added to the if (selectReturnsImmediately == 1024) condition later on. This seems inefficient
                 // for the (common) case where the workaround is not enabled since in that case there's no point
@@ -350,13 +375,19 @@ abstract class AbstractNioSelector implements NioSelector {
                 }
 
                 cancelledKeys = 0;
+                long beforeTasks = System.nanoTime();
                 if (maximumProcessTaskQueueNanos > 0) {
-                    long deadlineNanos = System.nanoTime() + maximumProcessTaskQueueNanos;
+                    long deadlineNanos = beforeTasks + maximumProcessTaskQueueNanos;
                     quickSelect = processTaskQueue(deadlineNanos);
                 }
                 else {
                     processTaskQueue();
                 }
+                long tasksTime = System.nanoTime() - beforeTasks;
+                taskQueueNanos += tasksTime;
+                if (tasksTime > maxTaskQueueNanos) {
+                    maxTaskQueueNanos = tasksTime;
+                }
                 selector = this.selector; // processTaskQueue() can call rebuildSelector()
 
                 if (shutdown) {
@@ -411,6 +442,9 @@ abstract class AbstractNioSelector implements NioSelector {
         } catch (Throwable t) {
             throw new ChannelException("Failed to create a selector.", t);
         }
+        if (optimizeSelectedKeys()) {
+            selectedKeySet = SelectorUtil.optimize(selector);
+        }
 
         // Start the worker thread with the new Selector.
         boolean success = false;
@@ -517,6 +551,67 @@ abstract class AbstractNioSelector implements NioSelector {
         }
     }
 
+    /**
+     * Returns the number of times this selector has selected, including selects that returned no keys.
+     */
+    public long getSelectCount() {
+        return selectCount;
+    }
+
+    /**
+     * Returns the number of ready keys selected so far.
+     */
+    public long getSelectedKeyCount() {
+        return selectedKeyCount;
+    }
+
+    /**
+     * Returns the average number of ready keys per select.
+     */
+    public double getKeysPerSelect() {
+        long selects = selectCount;
+        return (selects != 0L) ? (double) selectedKeyCount / selects : 0.0;
+    }
+
+    /**
+     * Returns the time spent running queued tasks between two selects, on average, which delays the handling of ready
+     * keys by as much.
+     */
+    public long getTaskQueueLatency(TimeUnit unit) {
+        long selects = selectCount;
+        return unit.convert((selects != 0L) ? taskQueueNanos / selects : 0L, NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time spent running queued tasks between two selects.
+     */
+    public long getMaxTaskQueueLatency(TimeUnit unit) {
+        return unit.convert(maxTaskQueueNanos, NANOSECONDS);
+    }
+
+    /**
+     * Returns whether the selected keys are kept in an array rather than the {@link java.util.HashSet} of the JDK.
+     */
+    public boolean isSelectedKeySetOptimized() {
+        return selectedKeySet != null;
+    }
+
+    @Override
+    public String toString() {
+        return format("%s #%d [selects=%d, keysPerSelect=%.2f, taskQueueLatency=%dus, maxTaskQueueLatency=%dus, "
+                + "optimizedSelectedKeys=%b]", getClass().getSimpleName(), id, getSelectCount(), getKeysPerSelect(),
+                getTaskQueueLatency(MICROSECONDS), getMaxTaskQueueLatency(MICROSECONDS), isSelectedKeySetOptimized());
+    }
+
+    /**
+     * Returns whether {@link #process(Selector)} walks {@link #selectedKeySet} when it is installed. Selectors that
+     * iterate {@link Selector#selectedKeys()} and remove keys through the iterator, such as the client boss of the
+     * Netty jar, must keep the set of the JDK, as the array backed set supports neither.
+     */
+    protected boolean optimizeSelectedKeys() {
+        return false;
+    }
+
     protected abstract void process(Selector selector) throws IOException;
 
     protected void processRead() throws IOException {
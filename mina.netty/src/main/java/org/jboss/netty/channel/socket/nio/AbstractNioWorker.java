@@ -141,9 +141,15 @@ public abstract class AbstractNioWorker extends AbstractNioSelector implements W
         recvBufferPool.releaseExternalResources();
     }
 
+    @Override
+    protected boolean optimizeSelectedKeys() {
+        return SelectorUtil.optimizeSelectedKeys();
+    }
+
     @Override
     protected void process(Selector selector) throws IOException {
-        Set<SelectionKey> selectedKeys = selector.selectedKeys();
+        SelectedSelectionKeySet selectedKeySet = this.selectedKeySet;
+        Set<SelectionKey> selectedKeys = (selectedKeySet != null) ? selectedKeySet : selector.selectedKeys();
         // check if the set is empty and if so just return to not create garbage by
         // creating a new Iterator every time even if there is nothing to process.
         // See https://github.com/netty/netty/issues/597
@@ -154,28 +160,42 @@ public abstract class AbstractNioWorker extends AbstractNioSelector implements W
         long startProcess = perfLogEnabled ? System.nanoTime() : 0;
         long numReads = 0;
         long numWrites = 0;
-        for (Iterator<SelectionKey> i = selectedKeys.iterator(); i.hasNext();) {
-            SelectionKey k = i.next();
-            i.remove();
-            try {
-                int readyOps = k.readyOps();
-                if ((readyOps & SelectionKey.OP_READ) != 0 || readyOps == 0) {
+        if (selectedKeySet != null) {
+            SelectionKey[] keys = selectedKeySet.keys();
+            int size = selectedKeySet.size();
+            int processed = 0;
+            while (processed < size) {
+                SelectionKey k = keys[processed];
+                keys[processed++] = null;
+                int processedOps = processSelectedKey(k);
+                if ((processedOps & SelectionKey.OP_READ) != 0) {
                     numReads++;
-                    if (!read(k)) {
-                        // Connection already closed - no need to handle write.
-                        continue;
-                    }
                 }
-                if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                if ((processedOps & SelectionKey.OP_WRITE) != 0) {
                     numWrites++;
-                    writeFromSelectorLoop(k);
                 }
-            } catch (CancelledKeyException e) {
-                close(k);
+
+                if (cleanUpCancelledKeys()) {
+                    break; // keys selected again are appended, keep the unprocessed ones for the next round
+                }
             }
+            selectedKeySet.reset(processed);
+        }
+        else {
+            for (Iterator<SelectionKey> i = selectedKeys.iterator(); i.hasNext();) {
+                SelectionKey k = i.next();
+                i.remove();
+                int processedOps = processSelectedKey(k);
+                if ((processedOps & SelectionKey.OP_READ) != 0) {
+                    numReads++;
+                }
+                if ((processedOps & SelectionKey.OP_WRITE) != 0) {
+                    numWrites++;
+                }
 
-            if (cleanUpCancelledKeys()) {
-                break; // break the loop to avoid ConcurrentModificationException
+                if (cleanUpCancelledKeys()) {
+                    break; // break the loop to avoid ConcurrentModificationException
+                }
             }
         }
         if (perfLogEnabled) {
@@ -187,6 +207,32 @@ public abstract class AbstractNioWorker extends AbstractNioSelector implements W
         }
     }
 
+    /**
+     * Reads from and writes to the channel of a selected key, as it is ready to.
+     *
+     * @return the operations handled, {@link SelectionKey#OP_READ} and/or {@link SelectionKey#OP_WRITE}
+     */
+    private int processSelectedKey(SelectionKey k) {
+        int processedOps = 0;
+        try {
+            int readyOps = k.readyOps();
+            if ((readyOps & SelectionKey.OP_READ) != 0 || readyOps == 0) {
+                processedOps |= SelectionKey.OP_READ;
+                if (!read(k)) {
+                    // Connection already closed - no need to handle write.
+                    return processedOps;
+                }
+            }
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                processedOps |= SelectionKey.OP_WRITE;
+                writeFromSelectorLoop(k);
+            }
+        } catch (CancelledKeyException e) {
+            close(k);
+        }
+        return processedOps;
+    }
+
     void writeFromUserCode(final AbstractNioChannel<?> channel) {
         if (!channel.isConnected()) {
             cleanUpWriteBuffer(channel);
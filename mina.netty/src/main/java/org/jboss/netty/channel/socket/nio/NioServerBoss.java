@@ -138,6 +138,11 @@ public final class NioServerBoss extends AbstractNioSelector
         }
     }
 
+    @Override
+    protected boolean optimizeSelectedKeys() {
+        return SelectorUtil.optimizeSelectedKeys();
+    }
+
     @Override
     protected void process(Selector selector) {
         Iterator<ChannelFuture> iter = channelUnregisteredFutures.iterator();
@@ -167,6 +172,19 @@ public final class NioServerBoss extends AbstractNioSelector
             } while (iter.hasNext());
         }
 
+        SelectedSelectionKeySet selectedKeySet = this.selectedKeySet;
+        if (selectedKeySet != null) {
+            SelectionKey[] keys = selectedKeySet.keys();
+            int size = selectedKeySet.size();
+            for (int i = 0; i < size; i++) {
+                SelectionKey k = keys[i];
+                keys[i] = null;
+                accept(k);
+            }
+            selectedKeySet.reset(size);
+            return;
+        }
+
         Set<SelectionKey> selectedKeys = selector.selectedKeys();
         if (selectedKeys.isEmpty()) {
             return;
@@ -174,37 +192,41 @@ public final class NioServerBoss extends AbstractNioSelector
         for (Iterator<SelectionKey> i = selectedKeys.iterator(); i.hasNext();) {
             SelectionKey k = i.next();
             i.remove();
-            NioServerSocketChannel channel = (NioServerSocketChannel) k.attachment();
+            accept(k);
+        }
+    }
 
-            try {
-                // accept connections in a for loop until no new connection is ready
-                for (;;) {
-                    SocketChannel acceptedSocket = channel.socket.accept();
-                    if (acceptedSocket == null) {
-                        break;
-                    }
-                    registerAcceptedChannel(channel, acceptedSocket, thread);
-                }
-            } catch (CancelledKeyException e) {
-                // Raised by accept() when the server socket was closed.
-                k.cancel();
-                channel.close();
-            } catch (SocketTimeoutException e) {
-                // Thrown every second to get ClosedChannelException
-                // raised.
-            } catch (ClosedChannelException e) {
-                // Closed as requested.
-            } catch (Throwable t) {
-                if (logger.isWarnEnabled()) {
-                    logger.warn(
-                            "Failed to accept a connection.", t);
-                }
+    private void accept(SelectionKey k) {
+        NioServerSocketChannel channel = (NioServerSocketChannel) k.attachment();
 
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e1) {
-                    // Ignore
+        try {
+            // accept connections in a for loop until no new connection is ready
+            for (;;) {
+                SocketChannel acceptedSocket = channel.socket.accept();
+                if (acceptedSocket == null) {
+                    break;
                 }
+                registerAcceptedChannel(channel, acceptedSocket, thread);
+            }
+        } catch (CancelledKeyException e) {
+            // Raised by accept() when the server socket was closed.
+            k.cancel();
+            channel.close();
+        } catch (SocketTimeoutException e) {
+            // Thrown every second to get ClosedChannelException
+            // raised.
+        } catch (ClosedChannelException e) {
+            // Closed as requested.
+        } catch (Throwable t) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(
+                        "Failed to accept a connection.", t);
+            }
+
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e1) {
+                // Ignore
             }
         }
     }
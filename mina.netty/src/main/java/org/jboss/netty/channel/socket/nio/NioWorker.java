@@ -61,6 +61,7 @@ import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.ReceiveBufferSizePredictor;
 import org.jboss.netty.util.ThreadNameDeterminer;
 
+import org.kaazing.mina.netty.buffer.ReadBufferFactory;
 import org.kaazing.mina.netty.config.InternalSystemProperty;
 
 public class NioWorker extends AbstractNioWorker {
@@ -120,7 +121,12 @@ public class NioWorker extends AbstractNioWorker {
         int readBytes = 0;
         boolean failure = true;
 
-        ByteBuffer bb = recvBufferPool.get(predictedRecvBufSize).order(bufferFactory.getDefaultOrder());
+        // read straight into the buffer passed up the pipeline when the factory supplies it
+        final ReadBufferFactory readBufferFactory =
+            (bufferFactory instanceof ReadBufferFactory) ? (ReadBufferFactory) bufferFactory : null;
+
+        ByteBuffer bb = (readBufferFactory != null) ? readBufferFactory.allocateReadBuffer(predictedRecvBufSize)
+                : recvBufferPool.get(predictedRecvBufSize).order(bufferFactory.getDefaultOrder());
         try {
             while ((ret = ch.read(bb)) > 0) {
                 readBytes += ret;
@@ -132,9 +138,15 @@ public class NioWorker extends AbstractNioWorker {
             if (readBytes > 0) {
                 bb.flip();
 
-                final ChannelBuffer buffer = bufferFactory.getBuffer(readBytes);
-                buffer.setBytes(0, bb);
-                buffer.writerIndex(readBytes);
+                final ChannelBuffer buffer;
+                if (readBufferFactory != null) {
+                    buffer = readBufferFactory.getBuffer(bb);
+                }
+                else {
+                    buffer = bufferFactory.getBuffer(readBytes);
+                    buffer.setBytes(0, bb);
+                    buffer.writerIndex(readBytes);
+                }
 
                 // Update the predictor.
                 predictor.previousReceiveBufferSize(readBytes);
@@ -146,6 +158,10 @@ public class NioWorker extends AbstractNioWorker {
             // Can happen, and does not need a user attention.
         } catch (Throwable t) {
             fireExceptionCaught(channel, t);
+        } finally {
+            if (readBufferFactory != null) {
+                readBufferFactory.releaseReadBuffer(bb);
+            }
         }
 
         if (ret < 0 || failure) {
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.netty.channel.socket.nio;
+
+import java.nio.channels.SelectionKey;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Array backed replacement for the selected-key set of a {@link java.nio.channels.Selector}, so that selecting does
+ * not hash every ready key into a {@link java.util.HashSet} and processing them does not iterate that set.
+ * <p>
+ * Keys are kept in the order the selector reports them. Since {@link #contains(Object)} always returns false, a key
+ * reported again before it has been processed is added twice, and a cancelled key stays until it is processed; both
+ * are harmless as processing a key that is not ready or cancelled already has to be handled.
+ */
+final class SelectedSelectionKeySet extends AbstractSet<SelectionKey> {
+
+    private SelectionKey[] keys = new SelectionKey[1024];
+    private int size;
+
+    @Override
+    public boolean add(SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+        keys[size++] = key;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return Arrays.asList(keys).subList(0, size).iterator();
+    }
+
+    /**
+     * Returns the array holding the selected keys, valid until the next key is added.
+     */
+    SelectionKey[] keys() {
+        return keys;
+    }
+
+    /**
+     * Drops the keys that have been processed, keeping the others for the next round.
+     */
+    void reset(int processed) {
+        int remaining = size - processed;
+        System.arraycopy(keys, processed, keys, 0, remaining);
+        Arrays.fill(keys, remaining, size, null);
+        size = remaining;
+    }
+}
@@ -30,7 +30,10 @@
  */
 package org.jboss.netty.channel.socket.nio;
 
+import static org.kaazing.mina.netty.config.InternalSystemProperty.OPTIMIZED_SELECTOR;
+
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.Selector;
 import java.util.concurrent.TimeUnit;
@@ -71,6 +74,7 @@ final class SelectorUtil {
         if (logger.isDebugEnabled()) {
             logger.debug("Using select timeout of " + SELECT_TIMEOUT);
             logger.debug("Epoll-bug workaround enabled = " + EPOLL_BUG_WORKAROUND);
+            logger.debug("Optimized selected keys enabled = " + optimizeSelectedKeys());
         }
     }
 
@@ -78,6 +82,45 @@ final class SelectorUtil {
         return Selector.open();
     }
 
+    /**
+     * Returns whether selectors able to walk a {@link SelectedSelectionKeySet} should have one installed, read each
+     * time a selector is opened.
+     */
+    static boolean optimizeSelectedKeys() {
+        return OPTIMIZED_SELECTOR.getBooleanProperty(System.getProperties());
+    }
+
+    /**
+     * Replaces the selected-key set of the selector with an array backed one, if the selector implementation allows
+     * it.
+     *
+     * @return the new selected-key set, or null if the selector keeps its own
+     */
+    static SelectedSelectionKeySet optimize(Selector selector) {
+        try {
+            Class<?> selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl", false, null);
+            if (!selectorImplClass.isInstance(selector)) {
+                return null;
+            }
+
+            Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+
+            SelectedSelectionKeySet selectedKeySet = new SelectedSelectionKeySet();
+            selectedKeysField.set(selector, selectedKeySet);
+            publicSelectedKeysField.set(selector, selectedKeySet);
+            return selectedKeySet;
+        } catch (Throwable t) {
+            // not a JDK selector, or its fields are not accessible (for instance not opened to us by a JDK module)
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to optimize the selected keys of " + selector, t);
+            }
+            return null;
+        }
+    }
+
     static int select(Selector selector) throws IOException {
         return select(selector, SELECT_TIMEOUT);
     }
@@ -250,6 +250,8 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
             oldBuf.clear();
             newBuf.put(oldBuf);
             buf(newBuf);
+            // no derived buffer shares the old memory, so it can go back to its pool if any
+            PooledBufferAllocator.releaseAllocated(oldBuf);
 
             //// Restore the state.
             buf().limit(limit);
@@ -449,6 +451,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
         oldBuf.limit(limit);
         newBuf.put(oldBuf);
         buf(newBuf);
+        PooledBufferAllocator.releaseAllocated(oldBuf);
 
         //// Restore the state.
         buf().position(position);
@@ -720,6 +723,7 @@ public abstract class AbstractIoBufferEx extends IoBuffer implements IoBufferEx
             ByteBuffer newBuf = autoShrinker.allocate(newCapacity, flags());
             newBuf.put(oldBuf);
             buf(newBuf);
+            PooledBufferAllocator.releaseAllocated(oldBuf);
 
             //// Restore the state.
             buf().order(bo);
@@ -0,0 +1,538 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.core.buffer;
+
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.Integer.numberOfTrailingZeros;
+import static java.lang.String.format;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An allocator that hands out heap buffers carved from pooled slabs instead of allocating a new array per buffer.
+ * <p>
+ * Each thread allocates from its own arena, which keeps one free list per power of two size class between
+ * {@link #MIN_POOLED_CAPACITY} and {@link #MAX_POOLED_CAPACITY}. Pooled buffers start with a reference count of one;
+ * {@link #retain(IoBufferEx)} adds a reference and {@link #release(IoBufferEx)} removes one, returning the memory to
+ * its arena when the count drops to zero. Buffers may be released from any thread, and through any buffer sharing
+ * their memory, whichever allocator wrapped it.
+ * <p>
+ * Direct buffers, buffers larger than {@link #MAX_POOLED_CAPACITY} and allocations made once the pool has reached its
+ * maximum capacity are allocated by the underlying allocator, exactly as without pooling, and releasing them has no
+ * effect. Wrapping is always left to the underlying allocator, so pooled buffers have the same type as unpooled ones.
+ * <p>
+ * A buffer that is dropped without being released is never returned to the pool. When the pool runs out of capacity
+ * it reports buffers that have been outstanding for longer than the leak threshold, at most once per threshold and in
+ * a single warning, with the stack trace of the allocation of one of the sampled ones.
+ * <p>
+ * Pooling suits buffers whose owner is known to release them, such as TCP read buffers, which the I/O thread releases
+ * once the message received event returns. It does not suit general purpose session allocators, whose buffers are
+ * transformed, copied and dropped by filters that do not know about the pool.
+ */
+public final class PooledBufferAllocator<T extends AbstractIoBufferEx> extends AbstractIoBufferAllocatorEx<T> {
+
+    public static final int MIN_POOLED_CAPACITY = 64;
+    public static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    static final int SLAB_CAPACITY = 256 * 1024;
+
+    private static final int MIN_SHIFT = numberOfTrailingZeros(MIN_POOLED_CAPACITY);
+    private static final int SIZE_CLASS_COUNT = numberOfTrailingZeros(MAX_POOLED_CAPACITY) - MIN_SHIFT + 1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledBufferAllocator.class);
+
+    // slabs of all pools by array, copied on write to keep lookups lock free
+    private static final Object SLABS_LOCK = new Object();
+    private static volatile Map<byte[], Slab> allSlabs = Collections.emptyMap();
+
+    private final AbstractIoBufferAllocatorEx<T> allocator;
+    private final long maxCapacity;
+    private final int leakSamplingInterval;
+    private final long leakThreshold;
+
+    private final ThreadLocal<Arena> arenas;
+    private final List<Arena> allArenas;
+
+    private final List<Slab> slabs;
+
+    private final AtomicLong capacity;
+    private final AtomicLong nextLeakCheck;
+    private final LongAdder allocations;
+    private final LongAdder hits;
+    private final LongAdder leaks;
+
+    /**
+     * @param allocator             the allocator that wraps every buffer and allocates those that are not pooled
+     * @param maxCapacity           the maximum number of bytes held in slabs, across all arenas
+     * @param leakSamplingInterval  record the allocation stack trace of one in every so many pooled buffers, or never
+     *                              if zero
+     * @param leakThreshold         the number of milliseconds after which an unreleased buffer is reported as a leak
+     */
+    public PooledBufferAllocator(AbstractIoBufferAllocatorEx<T> allocator, long maxCapacity, int leakSamplingInterval,
+            long leakThreshold) {
+        if (allocator == null) {
+            throw new NullPointerException("allocator");
+        }
+        if (maxCapacity < 0) {
+            throw new IllegalArgumentException(format("Negative maximum capacity: %d", maxCapacity));
+        }
+        if (leakSamplingInterval < 0) {
+            throw new IllegalArgumentException(format("Negative leak sampling interval: %d", leakSamplingInterval));
+        }
+
+        this.allocator = allocator;
+        this.maxCapacity = maxCapacity;
+        this.leakSamplingInterval = leakSamplingInterval;
+        this.leakThreshold = leakThreshold;
+        this.allArenas = new ArrayList<>();
+        this.arenas = new ThreadLocal<Arena>() {
+            @Override
+            protected Arena initialValue() {
+                Arena arena = new Arena();
+                synchronized (allArenas) {
+                    allArenas.add(arena);
+                }
+                return arena;
+            }
+        };
+        this.slabs = new CopyOnWriteArrayList<>();
+        this.capacity = new AtomicLong();
+        this.nextLeakCheck = new AtomicLong();
+        this.allocations = new LongAdder();
+        this.hits = new LongAdder();
+        this.leaks = new LongAdder();
+    }
+
+    @Override
+    public ByteBuffer allocate(int capacity, int flags) {
+        allocations.increment();
+
+        boolean direct = (flags & IoBufferEx.FLAG_DIRECT) != IoBufferEx.FLAG_NONE;
+        if (!direct && capacity > 0 && capacity <= MAX_POOLED_CAPACITY) {
+            ByteBuffer buf = arenas.get().allocate(sizeClass(capacity), capacity);
+            if (buf != null) {
+                hits.increment();
+                return buf;
+            }
+
+            // pool exhausted, check whether unreleased buffers are to blame, at most once per leak threshold
+            long now = System.currentTimeMillis();
+            long checkTime = nextLeakCheck.get();
+            if (now >= checkTime && nextLeakCheck.compareAndSet(checkTime, now + leakThreshold)) {
+                detectLeaks();
+            }
+        }
+
+        return allocator.allocate(capacity, flags);
+    }
+
+    @Override
+    public T wrap(ByteBuffer nioBuffer, int flags) {
+        return allocator.wrap(nioBuffer, flags);
+    }
+
+    /**
+     * Adds a reference to a pooled buffer, so that it stays allocated until it has been released once more.
+     *
+     * @return true if the buffer is pooled, false if it is not and retaining it has no effect
+     * @throws IllegalStateException if the buffer has already been released
+     */
+    public static boolean retain(IoBufferEx buffer) {
+        ByteBuffer buf = buffer.buf();
+        Slab slab = slabOf(buf);
+        if (slab == null) {
+            return false;
+        }
+
+        slab.retain(slab.indexOf(buf));
+        return true;
+    }
+
+    /**
+     * Removes a reference to a pooled buffer, returning its memory to the pool when no references remain. The buffer
+     * must not be used again once its last reference has been released.
+     *
+     * @return true if the buffer is pooled, false if it is not and releasing it has no effect
+     * @throws IllegalStateException if the buffer has already been released
+     */
+    public static boolean release(IoBufferEx buffer) {
+        return release(buffer.buf());
+    }
+
+    /**
+     * @see #release(IoBufferEx)
+     */
+    public static boolean release(ByteBuffer buf) {
+        Slab slab = slabOf(buf);
+        if (slab == null) {
+            return false;
+        }
+
+        slab.release(slab.indexOf(buf));
+        return true;
+    }
+
+    /**
+     * Releases a pooled buffer on behalf of its owner, provided that it is the very {@link ByteBuffer} returned by
+     * {@link #allocate(int, int)}, for instance once it has been written or replaced by a larger one. Duplicates and
+     * slices share its memory with buffers that may still be in use, so they are left for their owner to release.
+     *
+     * @return true if the buffer has been released
+     * @throws IllegalStateException if the buffer has already been released
+     */
+    public static boolean releaseAllocated(ByteBuffer buf) {
+        Slab slab = slabOf(buf);
+        if (slab == null) {
+            return false;
+        }
+
+        int index = slab.indexOf(buf);
+        if (!slab.isAllocated(index, buf)) {
+            return false;
+        }
+
+        slab.release(index);
+        return true;
+    }
+
+    /**
+     * Stops recognizing the buffers of this pool, so that its memory can be garbage collected once they are no longer
+     * referenced. Releasing them afterwards has no effect.
+     */
+    public void dispose() {
+        synchronized (SLABS_LOCK) {
+            Map<byte[], Slab> newSlabs = new IdentityHashMap<>(allSlabs);
+            for (Slab slab : slabs) {
+                newSlabs.remove(slab.array);
+            }
+            allSlabs = newSlabs;
+        }
+    }
+
+    /**
+     * Reports the pooled buffers that have been outstanding for longer than the leak threshold and that have not been
+     * reported yet.
+     *
+     * @return the number of newly reported buffers
+     */
+    public int detectLeaks() {
+        long leakedBefore = System.currentTimeMillis() - leakThreshold;
+        LeakReport report = new LeakReport();
+        for (Slab slab : slabs) {
+            slab.detectLeaks(leakedBefore, report);
+        }
+        leaks.add(report.count);
+        report.log();
+        return report.count;
+    }
+
+    /**
+     * Returns the number of buffers allocated, pooled or not.
+     */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * Returns the number of buffers allocated from the pool.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the fraction of buffers allocated from the pool, or 0.0 if no buffer has been allocated yet.
+     */
+    public double getHitRate() {
+        long allocationCount = allocations.sum();
+        return (allocationCount == 0) ? 0.0 : (double) hits.sum() / allocationCount;
+    }
+
+    /**
+     * Returns the number of bytes held in slabs, whether allocated or free.
+     */
+    public long getCapacity() {
+        return capacity.get();
+    }
+
+    /**
+     * Returns the number of bytes held in slabs that are allocated to buffers which have not been released yet.
+     */
+    public long getUsedCapacity() {
+        long usedCapacity = 0L;
+        for (Slab slab : slabs) {
+            usedCapacity += slab.getUsedCapacity();
+        }
+        return usedCapacity;
+    }
+
+    /**
+     * Returns the fraction of the pool capacity allocated to buffers which have not been released yet.
+     */
+    public double getOccupancy() {
+        long capacity = this.capacity.get();
+        return (capacity == 0L) ? 0.0 : (double) getUsedCapacity() / capacity;
+    }
+
+    /**
+     * Returns the number of arenas, which is the number of threads that have allocated from this pool.
+     */
+    public int getArenaCount() {
+        synchronized (allArenas) {
+            return allArenas.size();
+        }
+    }
+
+    /**
+     * Returns the number of buffers reported as leaked.
+     */
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    @Override
+    public String toString() {
+        return format("%s[hitRate=%.3f, occupancy=%.3f, capacity=%d, arenas=%d, leaks=%d]",
+                getClass().getSimpleName(), getHitRate(), getOccupancy(), getCapacity(), getArenaCount(),
+                getLeakCount());
+    }
+
+    static int sizeClass(int capacity) {
+        if (capacity <= MIN_POOLED_CAPACITY) {
+            return 0;
+        }
+        // index of the smallest power of two at least as large as capacity
+        return (32 - numberOfLeadingZeros(capacity - 1)) - MIN_SHIFT;
+    }
+
+    // Gathers the leaks found in one pass into a single warning, so that a pool drained by a leak is not reported
+    // buffer by buffer. Only the first sampled allocation site is logged as a warning, the others at debug level.
+    private static final class LeakReport {
+        int count;
+        long bytes;
+        Throwable allocationSite;
+
+        void add(int capacity, Throwable allocationSite) {
+            count++;
+            bytes += capacity;
+            if (this.allocationSite == null) {
+                this.allocationSite = allocationSite;
+            }
+            else if (allocationSite != null && LOGGER.isDebugEnabled()) {
+                LOGGER.debug(format("Pooled buffer of %d bytes was never released", capacity), allocationSite);
+            }
+        }
+
+        void log() {
+            if (count == 0 || !LOGGER.isWarnEnabled()) {
+                return;
+            }
+            String message = format("%d pooled buffers (%d bytes) were never released", count, bytes);
+            if (allocationSite != null) {
+                LOGGER.warn(message + ", allocated at", allocationSite);
+            }
+            else {
+                LOGGER.warn(message);
+            }
+        }
+    }
+
+    private static Slab slabOf(ByteBuffer buf) {
+        Map<byte[], Slab> allSlabs = PooledBufferAllocator.allSlabs;
+        if (allSlabs.isEmpty() || !buf.hasArray() || buf.capacity() == 0) {
+            return null;
+        }
+        return allSlabs.get(buf.array());
+    }
+
+    private Slab newSlab(int sizeClass) {
+        int elementShift = sizeClass + MIN_SHIFT;
+        int slabCapacity = Math.max(SLAB_CAPACITY, 1 << elementShift);
+
+        long oldCapacity;
+        do {
+            oldCapacity = capacity.get();
+            if (oldCapacity + slabCapacity > maxCapacity) {
+                return null;
+            }
+        } while (!capacity.compareAndSet(oldCapacity, oldCapacity + slabCapacity));
+
+        Slab slab = new Slab(slabCapacity, elementShift);
+        synchronized (SLABS_LOCK) {
+            Map<byte[], Slab> newSlabs = new IdentityHashMap<>(allSlabs);
+            newSlabs.put(slab.array, slab);
+            allSlabs = newSlabs;
+        }
+        slabs.add(slab);
+        return slab;
+    }
+
+    /*
+     * Only ever used by its own thread, other threads return buffers directly to the slab they came from.
+     */
+    private final class Arena {
+        private final List<List<Slab>> slabsBySizeClass;
+        private final int[] currentSlabs;
+        private int allocationCount;
+
+        Arena() {
+            this.slabsBySizeClass = new ArrayList<>(SIZE_CLASS_COUNT);
+            for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+                slabsBySizeClass.add(new ArrayList<Slab>());
+            }
+            this.currentSlabs = new int[SIZE_CLASS_COUNT];
+        }
+
+        ByteBuffer allocate(int sizeClass, int capacity) {
+            boolean sampled = leakSamplingInterval != 0 && ++allocationCount % leakSamplingInterval == 0;
+            Throwable allocationSite = sampled ? new Throwable("Pooled buffer allocated") : null;
+
+            List<Slab> sizeClassSlabs = slabsBySizeClass.get(sizeClass);
+            int slabCount = sizeClassSlabs.size();
+            int current = currentSlabs[sizeClass];
+            for (int i = 0; i < slabCount; i++) {
+                int slabIndex = (current + i) % slabCount;
+                ByteBuffer buf = sizeClassSlabs.get(slabIndex).allocate(capacity, allocationSite);
+                if (buf != null) {
+                    currentSlabs[sizeClass] = slabIndex;
+                    return buf;
+                }
+            }
+
+            Slab slab = newSlab(sizeClass);
+            if (slab == null) {
+                return null;
+            }
+            currentSlabs[sizeClass] = sizeClassSlabs.size();
+            sizeClassSlabs.add(slab);
+            return slab.allocate(capacity, allocationSite);
+        }
+    }
+
+    private static final class Slab {
+        private final byte[] array;
+        private final int elementShift;
+        private final AtomicIntegerArray referenceCounts;
+
+        // guarded by this
+        private final int[] freeElements;
+        private int freeCount;
+        private final ByteBuffer[] allocatedBuffers;
+        private final long[] allocationTimes;
+        private final Throwable[] allocationSites;
+
+        Slab(int capacity, int elementShift) {
+            int elementCount = capacity >> elementShift;
+            this.array = new byte[capacity];
+            this.elementShift = elementShift;
+            this.referenceCounts = new AtomicIntegerArray(elementCount);
+            this.freeElements = new int[elementCount];
+            this.allocatedBuffers = new ByteBuffer[elementCount];
+            this.allocationTimes = new long[elementCount];
+            this.allocationSites = new Throwable[elementCount];
+            for (int i = 0; i < elementCount; i++) {
+                // lowest elements first
+                freeElements[i] = elementCount - 1 - i;
+            }
+            this.freeCount = elementCount;
+        }
+
+        ByteBuffer allocate(int capacity, Throwable allocationSite) {
+            int index;
+            synchronized (this) {
+                if (freeCount == 0) {
+                    return null;
+                }
+                index = freeElements[--freeCount];
+            }
+
+            ByteBuffer buf = ByteBuffer.wrap(array, index << elementShift, capacity).slice();
+            synchronized (this) {
+                allocatedBuffers[index] = buf;
+                allocationTimes[index] = System.currentTimeMillis();
+                allocationSites[index] = allocationSite;
+            }
+            referenceCounts.set(index, 1);
+            return buf;
+        }
+
+        synchronized boolean isAllocated(int index, ByteBuffer buf) {
+            return allocatedBuffers[index] == buf;
+        }
+
+        int indexOf(ByteBuffer buf) {
+            // slices and duplicates stay within the element, so the last byte of any of them identifies it
+            return (buf.arrayOffset() + buf.capacity() - 1) >> elementShift;
+        }
+
+        void retain(int index) {
+            int referenceCount;
+            do {
+                referenceCount = referenceCounts.get(index);
+                if (referenceCount <= 0) {
+                    throw new IllegalStateException("Pooled buffer already released");
+                }
+            } while (!referenceCounts.compareAndSet(index, referenceCount, referenceCount + 1));
+        }
+
+        void release(int index) {
+            int referenceCount;
+            do {
+                referenceCount = referenceCounts.get(index);
+                if (referenceCount <= 0) {
+                    throw new IllegalStateException("Pooled buffer already released");
+                }
+            } while (!referenceCounts.compareAndSet(index, referenceCount, referenceCount - 1));
+
+            if (referenceCount == 1) {
+                synchronized (this) {
+                    allocatedBuffers[index] = null;
+                    allocationSites[index] = null;
+                    freeElements[freeCount++] = index;
+                }
+            }
+        }
+
+        synchronized void detectLeaks(long leakedBefore, LeakReport report) {
+            for (int index = 0; index < allocationTimes.length; index++) {
+                long allocationTime = allocationTimes[index];
+                if (allocationTime != 0L && allocationTime < leakedBefore && referenceCounts.get(index) > 0) {
+                    // report each buffer only once
+                    allocationTimes[index] = 0L;
+                    Throwable allocationSite = allocationSites[index];
+                    allocationSites[index] = null;
+                    report.add(1 << elementShift, allocationSite);
+                }
+            }
+        }
+
+        synchronized long getUsedCapacity() {
+            return (long) (freeElements.length - freeCount) << elementShift;
+        }
+    }
+}
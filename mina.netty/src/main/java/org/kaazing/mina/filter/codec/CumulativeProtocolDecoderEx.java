@@ -46,6 +46,7 @@ import org.apache.mina.filter.codec.ProtocolDecoderOutput;
 
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 
 /**
  * A {@link ProtocolDecoder} that cumulates the content of received
@@ -124,6 +125,7 @@ import org.kaazing.mina.core.buffer.IoBufferEx;
 /* This has the following differences from CumulativeProtocolDecoder in Mina 2.0.0-RC1:
  * 1. Uses IoBufferAllocatorEx as the allocator
  * 2. Fixes a Mina bug by removing the logic which compacted the buffer when data is remaining (see KG-9213)
+ * 3. Stores only the remaining data in the session, and returns pooled session buffers once replaced or removed
 */
 public abstract class CumulativeProtocolDecoderEx extends ProtocolDecoderAdapter {
 
@@ -195,6 +197,7 @@ public abstract class CumulativeProtocolDecoderEx extends ProtocolDecoderAdapter
                 newBuf.put(buf);
                 newBuf.put(inEx);
                 newBuf.flip();
+                PooledBufferAllocator.releaseAllocated(buf.buf());
                 buf = newBuf;
 
                 // Update the session attribute.
@@ -226,7 +229,7 @@ public abstract class CumulativeProtocolDecoderEx extends ProtocolDecoderAdapter
         // it in a buffer in the session and next time this decoder is
         // invoked the session buffer gets appended to
         if (buf.hasRemaining()) {
-                storeRemainingInSession(buf, session);
+            storeRemainingInSession(buf, session, usingSessionBuffer);
         } else {
             if (usingSessionBuffer) {
                 removeSessionBuffer(session);
@@ -259,16 +262,23 @@ public abstract class CumulativeProtocolDecoderEx extends ProtocolDecoderAdapter
     }
 
     private void removeSessionBuffer(IoSession session) {
-        session.removeAttribute(BUFFER);
+        IoBufferEx buf = (IoBufferEx) session.removeAttribute(BUFFER);
+        if (buf != null) {
+            PooledBufferAllocator.releaseAllocated(buf.buf());
+        }
     }
 
-    private void storeRemainingInSession(IoBufferEx buf, IoSession session) {
-        ByteBuffer remainingNioBuf = allocator.allocate(buf.capacity(), buf.flags());
+    private void storeRemainingInSession(IoBufferEx buf, IoSession session, boolean usingSessionBuffer) {
+        // only the undecoded data is kept, the cumulative buffer expands as more arrives
+        ByteBuffer remainingNioBuf = allocator.allocate(buf.remaining(), buf.flags());
         final IoBufferEx remainingBuf = allocator.wrap(remainingNioBuf).setAutoExpander(allocator);
         remainingBuf.mark();
         remainingBuf.order(buf.order());
         remainingBuf.put(buf);
 
+        if (usingSessionBuffer) {
+            PooledBufferAllocator.releaseAllocated(buf.buf());
+        }
         session.setAttribute(BUFFER, remainingBuf);
     }
 }
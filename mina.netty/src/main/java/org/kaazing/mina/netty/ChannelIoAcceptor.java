@@ -41,6 +41,7 @@ import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.future.BindFuture;
 import org.kaazing.mina.core.future.DefaultBindFuture;
 import org.kaazing.mina.core.future.DefaultUnbindFuture;
@@ -48,6 +49,7 @@ import org.kaazing.mina.core.future.UnbindFuture;
 import org.kaazing.mina.core.service.AbstractIoAcceptorEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.session.IoSessionConfigEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.bootstrap.ServerBootstrap;
 import org.kaazing.mina.netty.bootstrap.ServerBootstrapFactory;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -61,6 +63,8 @@ public abstract class ChannelIoAcceptor<C extends IoSessionConfigEx, F extends C
     private final IoAcceptorChannelHandler parentHandler;
     private final ChannelGroup channelGroup;
     private final IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor = new ChannelIoProcessor();
+    private volatile PooledBufferAllocator<ChannelIoBuffer> bufferPool;
+    private volatile boolean zeroCopyRead;
     private final List<IoSessionIdleTracker> sessionIdleTrackers
         = Collections.synchronizedList(new ArrayList<>());
     private final ThreadLocal<IoSessionIdleTracker> currentSessionIdleTracker
@@ -109,6 +113,34 @@ public abstract class ChannelIoAcceptor<C extends IoSessionConfigEx, F extends C
         parentHandler.setPipelineFactory(pipelineFactory);
     }
 
+    @Override
+    public PooledBufferAllocator<ChannelIoBuffer> getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Sets the pool that sessions created from now on read into, when reading without copying. Sessions keep
+     * allocating other buffers from {@link ChannelIoBufferAllocator#BUFFER_ALLOCATOR}, since filters transform, copy
+     * and drop those without releasing them.
+     */
+    public void setBufferPool(PooledBufferAllocator<ChannelIoBuffer> bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public boolean isZeroCopyRead() {
+        return zeroCopyRead;
+    }
+
+    /**
+     * Allows sessions to read straight into buffers of the buffer pool, when there is one, and pass them up without
+     * copying. Each session still has to opt in, see
+     * {@link org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession#enableZeroCopyRead()}.
+     */
+    public void setZeroCopyRead(boolean zeroCopyRead) {
+        this.zeroCopyRead = zeroCopyRead;
+    }
+
     @Override
     public IoSessionIdleTracker getSessionIdleTracker() {
         return currentSessionIdleTracker.get();
@@ -26,6 +26,8 @@ import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
 
 public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<ChannelIoBuffer> {
 
+    public static final ChannelIoBufferAllocator BUFFER_ALLOCATOR = new ChannelIoBufferAllocator();
+
     @Override
     public ByteBuffer allocate(int capacity, int flags) {
         return allocateNioBuffer0(capacity, flags);
@@ -37,7 +39,7 @@ public final class ChannelIoBufferAllocator extends AbstractIoBufferAllocatorEx<
         return shared ? new ChannelIoSharedBuffer(nioBuffer) : new ChannelIoUnsharedBuffer(nioBuffer);
     }
 
-    abstract static class ChannelIoBuffer extends AbstractIoBufferEx {
+    public abstract static class ChannelIoBuffer extends AbstractIoBufferEx {
         protected ChannelIoBuffer(int capacity) {
             super(capacity);
         }
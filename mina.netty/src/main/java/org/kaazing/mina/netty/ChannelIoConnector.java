@@ -37,9 +37,11 @@ import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.service.AbstractIoConnectorEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.core.session.IoSessionConfigEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.bootstrap.ClientBootstrap;
 import org.kaazing.mina.netty.bootstrap.ClientBootstrapFactory;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -52,6 +54,8 @@ public abstract
     private ChannelPipelineFactory pipelineFactory;
     private final ChannelGroup channelGroup;
     private final IoProcessorEx<ChannelIoSession<? extends ChannelConfig>> processor = new ChannelIoProcessor();
+    private volatile PooledBufferAllocator<ChannelIoBuffer> bufferPool;
+    private volatile boolean zeroCopyRead;
     private final ClientBootstrapFactory bootstrapFactory;
     private final IoConnectorChannelHandlerFactory handlerFactory;
     private final List<IoSessionIdleTracker> sessionIdleTrackers
@@ -85,6 +89,34 @@ public abstract
         this.pipelineFactory = pipelineFactory;
     }
 
+    @Override
+    public PooledBufferAllocator<ChannelIoBuffer> getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Sets the pool that sessions created from now on read into, when reading without copying. Sessions keep
+     * allocating other buffers from {@link ChannelIoBufferAllocator#BUFFER_ALLOCATOR}, since filters transform, copy
+     * and drop those without releasing them.
+     */
+    public void setBufferPool(PooledBufferAllocator<ChannelIoBuffer> bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public boolean isZeroCopyRead() {
+        return zeroCopyRead;
+    }
+
+    /**
+     * Allows sessions to read straight into buffers of the buffer pool, when there is one, and pass them up without
+     * copying. Each session still has to opt in, see
+     * {@link org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession#enableZeroCopyRead()}.
+     */
+    public void setZeroCopyRead(boolean zeroCopyRead) {
+        this.zeroCopyRead = zeroCopyRead;
+    }
+
     @Override
     public final ChannelIoSession<? extends ChannelConfig> createSession(Channel channel) {
         return createSession(channel, processor);
@@ -38,6 +38,7 @@ import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelPipeline;
 
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.service.AbstractIoProcessor;
 import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.channel.DownstreamMessageEventEx;
@@ -291,10 +292,11 @@ final class ChannelIoProcessor extends AbstractIoProcessor<ChannelIoSession<? ex
                             if (future.isDone()) {
                                 // unshared buffer write complete
                                 ChannelWriteFutureListener.operationComplete(future, filterChain, req);
+                                PooledBufferAllocator.releaseAllocated(unsharedBuf);
                             }
                             else {
                                 // unshared buffer write incomplete
-                                future.addListener(new ChannelWriteFutureListener(filterChain, req));
+                                future.addListener(new ChannelWriteFutureListener(filterChain, req, unsharedBuf));
                             }
                         }
                     }
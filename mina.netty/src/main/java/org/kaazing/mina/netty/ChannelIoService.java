@@ -19,7 +19,9 @@ import org.apache.mina.core.future.IoFuture;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.jboss.netty.channel.Channel;
 
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.service.IoServiceEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 
 public interface ChannelIoService extends IoServiceEx {
 
@@ -29,4 +31,8 @@ public interface ChannelIoService extends IoServiceEx {
 
     void initializeSession(ChannelIoSession<?> session, IoFuture future, IoSessionInitializer<?> sessionInitializer);
 
+    PooledBufferAllocator<ChannelIoBuffer> getBufferPool();
+
+    boolean isZeroCopyRead();
+
 }
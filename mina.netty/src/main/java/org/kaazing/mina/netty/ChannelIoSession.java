@@ -31,8 +31,6 @@ import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 
 public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSessionEx {
 
-    private static final IoBufferAllocatorEx<ChannelIoBuffer> BUFFER_ALLOCATOR = new ChannelIoBufferAllocator();
-
     private final ChannelIoService service;
     private final Channel channel;
     private final ChannelIoSessionConfig<C> config;
@@ -55,7 +53,7 @@ public class ChannelIoSession<C extends ChannelConfig> extends AbstractIoSession
 
     @Override
     public IoBufferAllocatorEx<ChannelIoBuffer> getBufferAllocator() {
-        return BUFFER_ALLOCATOR;
+        return ChannelIoBufferAllocator.BUFFER_ALLOCATOR;
     }
 
     @Override
@@ -15,24 +15,37 @@
  */
 package org.kaazing.mina.netty;
 
+import java.nio.ByteBuffer;
+
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.write.WriteRequest;
 import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.ChannelFutureListener;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 
 final class ChannelWriteFutureListener implements ChannelFutureListener {
     private final IoFilterChain filterChain;
     private final WriteRequest request;
+    private final ByteBuffer buffer;
 
     public ChannelWriteFutureListener(IoFilterChain filterChain, WriteRequest request) {
+        this(filterChain, request, null);
+    }
+
+    public ChannelWriteFutureListener(IoFilterChain filterChain, WriteRequest request, ByteBuffer buffer) {
         this.filterChain = filterChain;
         this.request = request;
+        this.buffer = buffer;
     }
 
     @Override
     public void operationComplete(ChannelFuture future) throws Exception {
         operationComplete(future, filterChain, request);
+        if (buffer != null) {
+            // written or failed, either way the channel is done with it
+            PooledBufferAllocator.releaseAllocated(buffer);
+        }
     }
 
     public static void operationComplete(ChannelFuture future, IoFilterChain filterChain, WriteRequest request) {
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.netty.buffer;
+
+import static org.kaazing.mina.netty.buffer.ByteBufferWrappingChannelBufferFactory.CHANNEL_BUFFER_FACTORY;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jboss.netty.buffer.AbstractChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+
+/**
+ * Reads into buffers taken from a {@link PooledBufferAllocator} and wraps them as they are, returning them to the
+ * pool once the message received event returns, unless retained with {@link PooledBufferAllocator#retain}.
+ */
+public final class PooledReadBufferFactory extends AbstractChannelBufferFactory implements ReadBufferFactory {
+
+    private final ChannelBufferFactory delegate;
+    private final PooledBufferAllocator<?> bufferPool;
+
+    public PooledReadBufferFactory(ChannelBufferFactory delegate, PooledBufferAllocator<?> bufferPool) {
+        super(delegate.getDefaultOrder());
+        this.delegate = delegate;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteOrder order, int capacity) {
+        return delegate.getBuffer(order, capacity);
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteOrder order, byte[] array, int offset, int length) {
+        return delegate.getBuffer(order, array, offset, length);
+    }
+
+    @Override
+    public ChannelBuffer getBuffer(ByteBuffer nioBuffer) {
+        return CHANNEL_BUFFER_FACTORY.getBuffer(nioBuffer);
+    }
+
+    @Override
+    public ByteBuffer allocateReadBuffer(int capacity) {
+        return bufferPool.allocate(capacity).order(getDefaultOrder());
+    }
+
+    @Override
+    public void releaseReadBuffer(ByteBuffer buffer) {
+        PooledBufferAllocator.releaseAllocated(buffer);
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.netty.buffer;
+
+import java.nio.ByteBuffer;
+
+import org.jboss.netty.buffer.ChannelBufferFactory;
+
+/**
+ * A buffer factory that also supplies the buffers a worker reads into, so that the data read can be passed up the
+ * pipeline without copying it into a new buffer first.
+ * <p>
+ * Buffers passed up the pipeline wrap the read buffer, which is released as soon as the message received event
+ * returns. Handlers must consume or copy the data before then.
+ */
+public interface ReadBufferFactory extends ChannelBufferFactory {
+
+    ByteBuffer allocateReadBuffer(int capacity);
+
+    void releaseReadBuffer(ByteBuffer buffer);
+}
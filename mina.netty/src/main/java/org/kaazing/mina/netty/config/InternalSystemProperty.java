@@ -15,6 +15,7 @@
  */
 package org.kaazing.mina.netty.config;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.lang.Integer.parseInt;
 import static java.lang.Long.parseLong;
 
@@ -35,7 +36,11 @@ public enum InternalSystemProperty {
 
     // A worker is serving multiple UDP child channels and they share an Agrona read queue.
     // Agrona uses the next power of 2 greater than or equal to the supplied value
-    UDP_CHANNEL_READ_QUEUE_SIZE("org.kaazing.netty.UDP_CHANNEL_READ_QUEUE_SIZE", "16384");
+    UDP_CHANNEL_READ_QUEUE_SIZE("org.kaazing.netty.UDP_CHANNEL_READ_QUEUE_SIZE", "16384"),
+
+    // Replace the selected-key set of each selector with an array, which avoids hashing and iterating a HashSet on
+    // every select. Falls back to the JDK set when the selector implementation cannot be accessed by reflection.
+    OPTIMIZED_SELECTOR("org.kaazing.netty.OPTIMIZED_SELECTOR", "false");
 
     private final String name;
     private final String defaultValue;
@@ -53,6 +58,10 @@ public enum InternalSystemProperty {
         return configuration.getProperty(name, defaultValue);
     }
 
+    public boolean getBooleanProperty(Properties configuration) {
+        return parseBoolean(getProperty(configuration));
+    }
+
     public Integer getIntProperty(Properties configuration) {
         String value = getProperty(configuration);
         if (value == null) {
@@ -20,15 +20,18 @@ import static java.lang.Thread.currentThread;
 
 import java.util.concurrent.Executor;
 
+import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.channel.ChannelConfig;
 import org.jboss.netty.channel.socket.nio.AbstractNioWorker;
 import org.jboss.netty.channel.socket.nio.NioSocketChannel;
 import org.jboss.netty.channel.socket.nio.NioSocketChannelConfig;
 import org.jboss.netty.channel.socket.nio.NioWorker;
 
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.service.IoProcessorEx;
 import org.kaazing.mina.netty.ChannelIoService;
 import org.kaazing.mina.netty.ChannelIoSession;
+import org.kaazing.mina.netty.buffer.PooledReadBufferFactory;
 
 /**
  * This session is always used in conjunction with an NioSocketChannel, which necessarily has an associated worker.
@@ -43,6 +46,29 @@ public class NioSocketChannelIoSession extends ChannelIoSession<NioSocketChannel
                 asExecutor(channel.getWorker()));
     }
 
+    /**
+     * Makes this session read straight into buffers of the service buffer pool and pass them up without copying,
+     * when the service allows it. Data received is then only valid until the session handler returns, unless its
+     * buffer is retained with {@link PooledBufferAllocator#retain}, so only handlers that neither keep received
+     * buffers nor hand them to other threads should enable this, from the I/O thread.
+     *
+     * @return whether reads are now zero-copy
+     */
+    public boolean enableZeroCopyRead() {
+        ChannelIoService service = getService();
+        PooledBufferAllocator<?> bufferPool = service.getBufferPool();
+        if (!service.isZeroCopyRead() || bufferPool == null) {
+            return false;
+        }
+
+        ChannelConfig config = getChannel().getConfig();
+        ChannelBufferFactory bufferFactory = config.getBufferFactory();
+        if (!(bufferFactory instanceof PooledReadBufferFactory)) {
+            config.setBufferFactory(new PooledReadBufferFactory(bufferFactory, bufferPool));
+        }
+        return true;
+    }
+
     @Override
     protected void setIoAlignment0(Thread ioThread, Executor ioExecutor) {
         NioSocketChannel channel = (NioSocketChannel) getChannel();
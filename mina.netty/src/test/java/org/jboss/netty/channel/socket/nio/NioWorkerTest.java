@@ -16,10 +16,21 @@
 package org.jboss.netty.channel.socket.nio;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.Executor;
 
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.ReceiveBufferSizePredictor;
+import org.jboss.netty.channel.socket.nio.NioWorker.TcpReadDispatcher;
+
 import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.jmock.api.Invocation;
@@ -27,6 +38,10 @@ import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Test;
 
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator.SimpleBuffer;
+import org.kaazing.mina.netty.buffer.PooledReadBufferFactory;
 import org.kaazing.mina.netty.config.InternalSystemProperty;
 
 
@@ -129,4 +144,67 @@ public class NioWorkerTest {
         worker.select(selector, true);
         context.assertIsSatisfied();
     }
+
+    @Test
+    public void readShouldPassPooledBufferUpWithoutCopyingAndReleaseItAfterwards() throws Exception {
+        Mockery context = new Mockery();
+        context.setImposteriser(ClassImposteriser.INSTANCE);
+        final Executor executor = context.mock(Executor.class);
+        final SelectionKey key = context.mock(SelectionKey.class);
+        final SocketChannel socketChannel = context.mock(SocketChannel.class);
+        final NioSocketChannel channel = context.mock(NioSocketChannel.class);
+        final NioSocketChannelConfig config = context.mock(NioSocketChannelConfig.class);
+        final ReceiveBufferSizePredictor predictor = context.mock(ReceiveBufferSizePredictor.class);
+        final ChannelPipeline pipeline = context.mock(ChannelPipeline.class);
+        final PooledBufferAllocator<SimpleBuffer> bufferPool =
+                new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, 256 * 1024, 1, Long.MAX_VALUE);
+        final PooledReadBufferFactory bufferFactory =
+                new PooledReadBufferFactory(HeapChannelBufferFactory.getInstance(), bufferPool);
+        final long[] usedCapacity = new long[1];
+
+        context.checking(new Expectations() {
+            {
+                oneOf(executor).execute(with(any(Runnable.class)));
+                allowing(key).channel(); will(returnValue(socketChannel));
+                allowing(channel).getConfig(); will(returnValue(config));
+                allowing(channel).getPipeline(); will(returnValue(pipeline));
+                allowing(config).getReceiveBufferSizePredictor(); will(returnValue(predictor));
+                allowing(config).getBufferFactory(); will(returnValue(bufferFactory));
+
+                oneOf(predictor).nextReceiveBufferSize(); will(returnValue(1024));
+                oneOf(socketChannel).read(with(any(ByteBuffer.class)));
+                will(new CustomAction("read bytes") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        ((ByteBuffer) invocation.getParameter(0)).put(new byte[16]);
+                        return 16;
+                    }
+                });
+                oneOf(socketChannel).read(with(any(ByteBuffer.class))); will(returnValue(0));
+                oneOf(predictor).previousReceiveBufferSize(16);
+
+                oneOf(pipeline).sendUpstream(with(any(MessageEvent.class)));
+                will(new CustomAction("save used capacity") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        MessageEvent event = (MessageEvent) invocation.getParameter(0);
+                        assertEquals(16, ((ChannelBuffer) event.getMessage()).readableBytes());
+                        usedCapacity[0] = bufferPool.getUsedCapacity();
+                        return null;
+                    }
+                });
+            }
+        });
+
+        try {
+            NioWorker worker = new NioWorker(executor);
+            assertTrue(new TcpReadDispatcher(channel).dispatch(worker, key));
+            assertEquals(1024, usedCapacity[0]);
+            assertEquals(0, bufferPool.getUsedCapacity());
+            context.assertIsSatisfied();
+        }
+        finally {
+            bufferPool.dispose();
+        }
+    }
 }
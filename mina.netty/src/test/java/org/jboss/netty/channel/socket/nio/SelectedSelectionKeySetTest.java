@@ -0,0 +1,82 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.netty.channel.socket.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeNotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+import org.junit.Test;
+
+public class SelectedSelectionKeySetTest {
+
+    @Test
+    public void shouldKeepUnprocessedKeysOnReset() throws Exception {
+        try (Selector selector = Selector.open()) {
+            Pipe pipe = Pipe.open();
+            pipe.source().configureBlocking(false);
+            SelectionKey key1 = pipe.source().register(selector, SelectionKey.OP_READ);
+            pipe.sink().configureBlocking(false);
+            SelectionKey key2 = pipe.sink().register(selector, SelectionKey.OP_WRITE);
+
+            SelectedSelectionKeySet selectedKeys = new SelectedSelectionKeySet();
+            for (int i = 0; i < 1500; i++) {
+                selectedKeys.add((i % 2 == 0) ? key1 : key2);
+            }
+            assertEquals(1500, selectedKeys.size());
+
+            selectedKeys.reset(1499);
+            assertEquals(1, selectedKeys.size());
+            assertSame(key2, selectedKeys.keys()[0]);
+            assertNull(selectedKeys.keys()[1]);
+
+            selectedKeys.reset(1);
+            assertEquals(0, selectedKeys.size());
+            assertNull(selectedKeys.keys()[0]);
+
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test
+    public void shouldCollectKeysSelectedByOptimizedSelector() throws Exception {
+        try (Selector selector = Selector.open()) {
+            SelectedSelectionKeySet selectedKeys = SelectorUtil.optimize(selector);
+            // not all JDKs let the selected keys be replaced
+            assumeNotNull(selectedKeys);
+
+            Pipe pipe = Pipe.open();
+            pipe.source().configureBlocking(false);
+            SelectionKey key = pipe.source().register(selector, SelectionKey.OP_READ);
+            pipe.sink().write(ByteBuffer.wrap(new byte[] { 0x01 }));
+
+            assertEquals(1, selector.select(1000L));
+            assertSame(selectedKeys, selector.selectedKeys());
+            assertEquals(1, selectedKeys.size());
+            assertSame(key, selectedKeys.keys()[0]);
+
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.core.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_DIRECT;
+import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_NONE;
+import static org.kaazing.mina.core.buffer.PooledBufferAllocator.MAX_POOLED_CAPACITY;
+import static org.kaazing.mina.core.buffer.PooledBufferAllocator.SLAB_CAPACITY;
+import static org.kaazing.mina.core.buffer.PooledBufferAllocator.release;
+import static org.kaazing.mina.core.buffer.PooledBufferAllocator.releaseAllocated;
+import static org.kaazing.mina.core.buffer.PooledBufferAllocator.retain;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator.SimpleBuffer;
+
+public class PooledBufferAllocatorTest {
+
+    private static final long NO_LEAKS = Long.MAX_VALUE;
+
+    private PooledBufferAllocator<SimpleBuffer> allocator;
+
+    @After
+    public void disposeAllocator() {
+        if (allocator != null) {
+            allocator.dispose();
+        }
+    }
+
+    @Test
+    public void shouldRoundCapacityUpToSizeClass() throws Exception {
+        assertEquals(0, PooledBufferAllocator.sizeClass(1));
+        assertEquals(0, PooledBufferAllocator.sizeClass(64));
+        assertEquals(1, PooledBufferAllocator.sizeClass(65));
+        assertEquals(1, PooledBufferAllocator.sizeClass(128));
+        assertEquals(10, PooledBufferAllocator.sizeClass(MAX_POOLED_CAPACITY));
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffer() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        ByteBuffer nioBuf = allocator.allocate(100);
+        assertEquals(0, nioBuf.position());
+        assertEquals(100, nioBuf.capacity());
+        assertEquals(128, allocator.getUsedCapacity());
+
+        IoBufferEx buf = allocator.wrap(nioBuf);
+        buf.putInt(42);
+        assertTrue(release(buf));
+        assertEquals(0, allocator.getUsedCapacity());
+
+        ByteBuffer newNioBuf = allocator.allocate(120);
+        assertSame(nioBuf.array(), newNioBuf.array());
+        assertEquals(nioBuf.arrayOffset(), newNioBuf.arrayOffset());
+        assertEquals(2, allocator.getHitCount());
+        assertEquals(1.0, allocator.getHitRate(), 0.0);
+        assertEquals(SLAB_CAPACITY, allocator.getCapacity());
+    }
+
+    @Test
+    public void shouldNotPoolDirectOrLargeBuffers() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx direct = allocator.wrap(allocator.allocate(100, FLAG_DIRECT), FLAG_DIRECT);
+        assertTrue(direct.isDirect());
+        assertFalse(release(direct));
+
+        IoBufferEx large = allocator.wrap(allocator.allocate(MAX_POOLED_CAPACITY + 1, FLAG_NONE));
+        assertFalse(release(large));
+
+        assertEquals(2, allocator.getAllocationCount());
+        assertEquals(0, allocator.getHitCount());
+        assertEquals(0, allocator.getCapacity());
+    }
+
+    @Test
+    public void shouldKeepRetainedBufferUntilLastRelease() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(64));
+        assertTrue(retain(buf));
+        assertTrue(release(buf));
+        assertEquals(64, allocator.getUsedCapacity());
+
+        assertTrue(release(buf.duplicate()));
+        assertEquals(0, allocator.getUsedCapacity());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectReleaseOfReleasedBuffer() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(64));
+        release(buf);
+        release(buf);
+    }
+
+    @Test
+    public void shouldReleaseOnlyAllocatedBufferOnBehalfOfOwner() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(64));
+        assertFalse(releaseAllocated(buf.duplicate().buf()));
+        assertFalse(releaseAllocated(ByteBuffer.allocate(64)));
+        assertTrue(releaseAllocated(buf.buf()));
+        assertEquals(0, allocator.getUsedCapacity());
+    }
+
+    @Test
+    public void shouldReleaseBufferReplacedOnExpansion() throws Exception {
+        allocator = newAllocator(2 * SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(64)).setAutoExpander(allocator);
+        buf.put(new byte[100]);
+        assertEquals(128, allocator.getUsedCapacity());
+
+        assertTrue(release(buf));
+        assertEquals(0, allocator.getUsedCapacity());
+    }
+
+    @Test
+    public void shouldForgetBuffersOnceDisposed() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        IoBufferEx empty = allocator.wrap(allocator.allocate(0));
+        assertFalse(release(empty));
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(64));
+        allocator.dispose();
+        assertFalse(release(buf));
+    }
+
+    @Test
+    public void shouldFallBackToUnpooledBuffersWhenFull() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        for (int i = 0; i < SLAB_CAPACITY / MAX_POOLED_CAPACITY; i++) {
+            allocator.allocate(MAX_POOLED_CAPACITY);
+        }
+        assertEquals(1.0, allocator.getOccupancy(), 0.0);
+
+        IoBufferEx buf = allocator.wrap(allocator.allocate(MAX_POOLED_CAPACITY));
+        assertFalse(release(buf));
+        assertEquals(0.8, allocator.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void shouldReturnBufferReleasedByAnotherThread() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, NO_LEAKS);
+
+        ByteBuffer nioBuf = allocator.allocate(64);
+        final IoBufferEx buf = allocator.wrap(nioBuf);
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                release(buf);
+            }
+        };
+        releaser.start();
+        releaser.join();
+
+        assertEquals(0, allocator.getUsedCapacity());
+        assertEquals(nioBuf.arrayOffset(), allocator.allocate(64).arrayOffset());
+        assertEquals(1, allocator.getArenaCount());
+    }
+
+    @Test
+    public void shouldReportUnreleasedBuffersOnce() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, 0L);
+
+        IoBufferEx leaked = allocator.wrap(allocator.allocate(64));
+        IoBufferEx released = allocator.wrap(allocator.allocate(64));
+        release(released);
+        Thread.sleep(10L);
+
+        assertEquals(1, allocator.detectLeaks());
+        assertEquals(0, allocator.detectLeaks());
+        assertEquals(1, allocator.getLeakCount());
+        assertTrue(release(leaked));
+    }
+
+    @Test
+    public void shouldReportLeaksFoundTogether() throws Exception {
+        allocator = newAllocator(SLAB_CAPACITY, 0L);
+
+        for (int i = 0; i < 100; i++) {
+            allocator.allocate(64);
+        }
+        Thread.sleep(10L);
+
+        assertEquals(100, allocator.detectLeaks());
+        assertEquals(100, allocator.getLeakCount());
+    }
+
+    private static PooledBufferAllocator<SimpleBuffer> newAllocator(long maxCapacity, long leakThreshold) {
+        return new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, maxCapacity, 1, leakThreshold);
+    }
+}
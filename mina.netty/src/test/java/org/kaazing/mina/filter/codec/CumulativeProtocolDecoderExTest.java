@@ -0,0 +1,111 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.mina.filter.codec;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolDecoderOutput;
+import org.junit.After;
+import org.junit.Test;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator.SimpleBuffer;
+
+public class CumulativeProtocolDecoderExTest {
+
+    private final PooledBufferAllocator<SimpleBuffer> bufferPool =
+            new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, 1024 * 1024, 1, Long.MAX_VALUE);
+    private final ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+    private final IntegerDecoder decoder = new IntegerDecoder(bufferPool);
+
+    @After
+    public void tearDown() {
+        bufferPool.dispose();
+    }
+
+    @Test
+    public void shouldDecodeLeftoverWithNextBuffer() throws Exception {
+        decode(0, 0, 0, 1, 0, 0);
+        assertEquals(1, session.getDecoderOutputQueue().poll());
+
+        // leftover is copied out of the read buffer
+        assertEquals(PooledBufferAllocator.MIN_POOLED_CAPACITY, bufferPool.getUsedCapacity());
+
+        decode(0, 2, 0, 0, 0);
+        assertEquals(2, session.getDecoderOutputQueue().poll());
+        assertEquals(0, session.getDecoderOutputQueue().size());
+
+        decode(3);
+        assertEquals(3, session.getDecoderOutputQueue().poll());
+        assertEquals(0, bufferPool.getUsedCapacity());
+    }
+
+    @Test
+    public void shouldKeepOnlyLeftoverInSession() throws Exception {
+        decode(new byte[1001]);
+
+        assertEquals(250, session.getDecoderOutputQueue().size());
+        assertEquals(PooledBufferAllocator.MIN_POOLED_CAPACITY, bufferPool.getUsedCapacity());
+    }
+
+    @Test
+    public void shouldReleaseLeftoverOnDispose() throws Exception {
+        decode(0, 0);
+        assertEquals(PooledBufferAllocator.MIN_POOLED_CAPACITY, bufferPool.getUsedCapacity());
+
+        decoder.dispose(session);
+        assertEquals(0, bufferPool.getUsedCapacity());
+    }
+
+    private void decode(int... values) throws Exception {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        decode(bytes);
+    }
+
+    // as done on the I/O thread, returning the read buffer to the pool once decoded
+    private void decode(byte[] bytes) throws Exception {
+        SimpleBuffer buf = bufferPool.wrap(bufferPool.allocate(bytes.length));
+        buf.put(bytes).flip();
+        try {
+            decoder.decode(session, buf, session.getDecoderOutput());
+        }
+        finally {
+            PooledBufferAllocator.release(buf);
+        }
+    }
+
+    private static final class IntegerDecoder extends CumulativeProtocolDecoderEx {
+
+        IntegerDecoder(PooledBufferAllocator<SimpleBuffer> allocator) {
+            super(allocator);
+        }
+
+        @Override
+        protected boolean doDecode(IoSession session, IoBufferEx in, ProtocolDecoderOutput out) throws Exception {
+            if (in.remaining() < 4) {
+                return false;
+            }
+
+            out.write(in.getInt());
+            return true;
+        }
+    }
+}
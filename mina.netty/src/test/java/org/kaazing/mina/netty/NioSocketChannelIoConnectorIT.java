@@ -16,6 +16,7 @@
 package org.kaazing.mina.netty;
 
 import static org.kaazing.mina.netty.PortUtil.nextPort;
+import static org.kaazing.mina.netty.config.InternalSystemProperty.OPTIMIZED_SELECTOR;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -141,4 +142,30 @@ public class NioSocketChannelIoConnectorIT {
         assertEquals("no handler exceptions", 0, exceptionsCaught.get());
     }
 
+    @Test(timeout = 10000)
+    public void shouldConnectWithOptimizedSelector() throws Exception {
+        // the client boss iterates the selected keys of the JDK, so it must keep them
+        System.setProperty(OPTIMIZED_SELECTOR.getPropertyName(), "true");
+        try {
+            connector.dispose();
+            connector = new NioSocketChannelIoConnector(new DefaultNioSocketChannelIoSessionConfig());
+        }
+        finally {
+            System.clearProperty(OPTIMIZED_SELECTOR.getPropertyName());
+        }
+
+        final SocketAddress bindAddress = new InetSocketAddress("localhost", nextPort(8100, 100));
+        server.bind(bindAddress);
+
+        for (int i = 0; i < 3; i++) {
+            connector.setHandler(new IoHandlerAdapter());
+            ConnectFuture connect = connector.connect(bindAddress);
+            Socket accepted = server.accept();
+            connect.await();
+            assertTrue("connected", connect.isConnected());
+            connect.getSession().close(true).await();
+            accepted.close();
+        }
+    }
+
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.server.context.resolve;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.util.GL;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Periodically publishes the load of a balanced service, under each of its accept URIs, to the balancee load map of
+ * the cluster.
+ */
+final class BalanceeLoadPublisher implements Runnable {
+
+    private final Collection<String> accepts;
+    private final Collection<IoSessionEx> activeSessions;
+    private final CollectionsFactory collectionsFactory;
+    private final OperatingSystemMXBean operatingSystem;
+
+    private ScheduledFuture<?> future;
+
+    BalanceeLoadPublisher(Collection<String> accepts, Collection<IoSessionEx> activeSessions,
+                          CollectionsFactory collectionsFactory) {
+        this.accepts = new ArrayList<>(accepts);
+        this.activeSessions = activeSessions;
+        this.collectionsFactory = collectionsFactory;
+        this.operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler, long intervalMillis) {
+        if (future == null) {
+            future = scheduler.scheduleWithFixedDelay(this, 0, intervalMillis, MILLISECONDS);
+        }
+    }
+
+    synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+
+            Map<String, BalanceeLoad> loads = collectionsFactory.getMap(DefaultServiceContext.BALANCEE_LOAD_MAP_NAME);
+            for (String accept : accepts) {
+                loads.remove(accept);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            long scheduledWriteBytes = 0;
+            int sessionCount = 0;
+            for (IoSessionEx session : activeSessions) {
+                scheduledWriteBytes += session.getScheduledWriteBytes();
+                sessionCount++;
+            }
+            BalanceeLoad load = new BalanceeLoad(sessionCount, getCpuLoad(), scheduledWriteBytes,
+                    System.currentTimeMillis());
+
+            Map<String, BalanceeLoad> loads = collectionsFactory.getMap(DefaultServiceContext.BALANCEE_LOAD_MAP_NAME);
+            for (String accept : accepts) {
+                loads.put(accept, load);
+            }
+        }
+        catch (Exception e) {
+            // keep publishing, a later attempt may well succeed
+            GL.debug(GL.CLUSTER_LOGGER_NAME, "Failed to publish balancee load for {}: {}", accepts, e);
+        }
+    }
+
+    private double getCpuLoad() {
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuLoad();
+        }
+        double loadAverage = operatingSystem.getSystemLoadAverage();
+        return (loadAverage < 0) ? -1.0 : Math.min(1.0, loadAverage / operatingSystem.getAvailableProcessors());
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.kaazing.gateway.server.context.resolve;
 
+import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.BALANCEE_LOAD_MAP_NAME;
 import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.BALANCER_MAP_NAME;
 import static org.kaazing.gateway.server.context.resolve.DefaultServiceContext.MEMBERID_BALANCER_MAP_NAME;
 
@@ -35,6 +36,7 @@ import java.util.logging.LogRecord;
 
 import org.kaazing.gateway.resource.address.ResolutionUtils;
 import org.kaazing.gateway.server.collections.ClusterCollectionsFactory;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
 import org.kaazing.gateway.service.cluster.ClusterConnectOptionsContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
 import org.kaazing.gateway.service.cluster.MemberId;
@@ -556,6 +558,11 @@ public class DefaultClusterContext implements ClusterContext, LogListener {
                         GL.debug(GL.CLUSTER_LOGGER_NAME,
                                 "Removed balanced URIs for cluster member {}, new global list: {}", removedMember,
                                 newGlobalBalancedUris);
+
+                        Map<String, BalanceeLoad> balanceeLoadMap = getCollectionsFactory().getMap(BALANCEE_LOAD_MAP_NAME);
+                        for (String memberBalancedUri : memberBalancedUris) {
+                            balanceeLoadMap.remove(memberBalancedUri);
+                        }
                     }
                 } catch (Exception e) {
                     throw new IllegalStateException("Unable to remove the balanced URIs served by the member going down from " +
@@ -17,6 +17,7 @@ package org.kaazing.gateway.server.context.resolve;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.kaazing.gateway.resource.address.ResourceAddress.CONNECT_REQUIRES_INIT;
 import static org.kaazing.gateway.resource.address.ResourceAddress.TRANSPORT;
 import static org.kaazing.gateway.resource.address.uri.URIUtils.buildURIAsString;
@@ -27,6 +28,7 @@ import static org.kaazing.gateway.resource.address.uri.URIUtils.getQuery;
 import static org.kaazing.gateway.resource.address.uri.URIUtils.getScheme;
 import static org.kaazing.gateway.resource.address.uri.URIUtils.modifyURIScheme;
 import static org.kaazing.gateway.resource.address.uri.URIUtils.resolve;
+import static org.kaazing.gateway.util.InternalSystemProperty.BALANCEE_LOAD_INTERVAL;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -92,6 +94,7 @@ import org.kaazing.gateway.transport.Transport;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.util.Encoding;
 import org.kaazing.gateway.util.GL;
+import org.kaazing.gateway.util.Utils;
 import org.kaazing.gateway.util.feature.EarlyAccessFeatures;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
 import org.kaazing.mina.core.session.IoSessionEx;
@@ -104,6 +107,7 @@ public class DefaultServiceContext implements ServiceContext {
 
     public static final String BALANCER_MAP_NAME = "balancerMap";
     public static final String MEMBERID_BALANCER_MAP_NAME = "memberIdBalancerMap";
+    public static final String BALANCEE_LOAD_MAP_NAME = "balanceeLoadMap";
 
     private static final Charset UTF_8 = Charset.forName("UTF-8");
     private static final String[] EMPTY_REQUIRE_ROLES = new String[]{};
@@ -186,6 +190,7 @@ public class DefaultServiceContext implements ServiceContext {
     private MonitoringEntityFactory monitoringFactory;
     private final RealmsContext realmsContext;
     private Properties configuration;
+    private BalanceeLoadPublisher loadPublisher;
 
     @Deprecated
     // Perhaps can be removed, (check management)
@@ -619,12 +624,29 @@ public class DefaultServiceContext implements ServiceContext {
                 }
 
                 memberIdBalancerUriMap.put(localMember, memberBalanceUriMap);
+                startLoadPublisher(factory);
             }
         }
         GL.debug(GL.CLUSTER_LOGGER_NAME, "Exit Bind");
         clusterContext.logClusterState();
     }
 
+    private synchronized void startLoadPublisher(CollectionsFactory factory) {
+        Properties configuration = (this.configuration != null) ? this.configuration : new Properties();
+        long interval = Utils.parseTimeInterval(BALANCEE_LOAD_INTERVAL.getProperty(configuration), MILLISECONDS);
+        if (loadPublisher == null && interval > 0 && schedulerProvider != null) {
+            loadPublisher = new BalanceeLoadPublisher(accepts, activeSessions.values(), factory);
+            loadPublisher.start(schedulerProvider.getScheduler("balancee_load", false), interval);
+        }
+    }
+
+    private synchronized void stopLoadPublisher() {
+        if (loadPublisher != null) {
+            loadPublisher.stop();
+            loadPublisher = null;
+        }
+    }
+
     private Map<String, Object> buildResourceAddressOptions(String transportURI, AcceptOptionsContext acceptOptionsContext) {
         // options is a new HashMap
         final Map<String, Object> options = acceptOptionsContext.asOptionsMap();
@@ -914,6 +936,7 @@ public class DefaultServiceContext implements ServiceContext {
                 }
 
                 MemberId localMember = clusterContext.getLocalMember();
+                stopLoadPublisher();
 
                 Map<String, List<String>> memberBalanceUriMap = memberIdBalancerUriMap.get(localMember);
                 if (memberBalanceUriMap == null) {
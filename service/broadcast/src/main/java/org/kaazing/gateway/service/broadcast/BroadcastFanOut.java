@@ -0,0 +1,246 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.broadcast;
+
+import static org.kaazing.mina.core.session.IoSessionEx.CURRENT_THREAD;
+import static org.kaazing.mina.core.session.IoSessionEx.NO_THREAD;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.AttributeKey;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.util.ConcurrentHashSet;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+/**
+ * Fans broadcast messages out to client sessions grouped (sharded) by the I/O worker thread that owns them.
+ *
+ * Instead of the upstream I/O thread writing to every client in turn, each shard receives a single task per
+ * message and writes to all of its own clients in one batch on its own I/O thread. Since the transport encoding
+ * cache of a {@link org.kaazing.gateway.transport.bridge.Message} is held per thread, each shard encodes a
+ * message once and shares the encoded buffer across all of its clients.
+ *
+ * Clients that are not aligned to an I/O thread are written inline on the calling thread, as before.
+ *
+ * The number of batches queued for each shard is bounded. Once an I/O thread falls that far behind, its clients
+ * are treated as slow consumers and closed, rather than letting the backlog (and the messages it holds) grow.
+ */
+class BroadcastFanOut {
+
+    private static final AttributeKey SHARD_KEY = new AttributeKey(BroadcastFanOut.class, "shard");
+
+    interface ClientWriter {
+        void write(IoSession client, Object message);
+
+        void close(IoSession client, int queueDepth);
+    }
+
+    private final ConcurrentMap<Thread, Shard> shardsByThread;
+    private final Shard inlineShard;
+    private final ClientWriter writer;
+    private final boolean sharded;
+    private final int maximumQueueDepth;
+
+    BroadcastFanOut(ClientWriter writer, boolean sharded, int maximumQueueDepth) {
+        this.writer = writer;
+        this.sharded = sharded;
+        this.maximumQueueDepth = maximumQueueDepth;
+        this.shardsByThread = new ConcurrentHashMap<>();
+        this.inlineShard = new Shard("inline", null);
+    }
+
+    void add(IoSession client) {
+        Shard shard = shardOf(client);
+        client.setAttribute(SHARD_KEY, shard);
+        shard.clients.add(client);
+    }
+
+    void remove(IoSession client) {
+        Shard shard = (Shard) client.removeAttribute(SHARD_KEY);
+        if (shard != null) {
+            shard.clients.remove(client);
+        }
+    }
+
+    void broadcast(Object message) {
+        long receivedAt = System.nanoTime();
+
+        // the caller consumes an IoBuffer once this method returns, so snapshot its position and limit first
+        Object shared = (message instanceof IoBuffer) ? ((IoBuffer) message).duplicate() : message;
+
+        for (Shard shard : shardsByThread.values()) {
+            shard.dispatch(shared, receivedAt);
+        }
+        inlineShard.fanOut(shared, receivedAt);
+    }
+
+    /**
+     * Returns a snapshot of the clients of all shards.
+     */
+    Collection<IoSession> getClients() {
+        Collection<IoSession> clients = new ArrayList<IoSession>(inlineShard.clients);
+        for (Shard shard : shardsByThread.values()) {
+            clients.addAll(shard.clients);
+        }
+        return clients;
+    }
+
+    Collection<BroadcastFanOutShard> getShards() {
+        Collection<BroadcastFanOutShard> shards = new ArrayList<BroadcastFanOutShard>(shardsByThread.values());
+        shards.add(inlineShard);
+        return Collections.unmodifiableCollection(shards);
+    }
+
+    private Shard shardOf(IoSession client) {
+        if (!sharded || !(client instanceof IoSessionEx)) {
+            return inlineShard;
+        }
+
+        IoSessionEx clientEx = (IoSessionEx) client;
+        Thread ioThread = clientEx.getIoThread();
+        if (!clientEx.isIoAligned() || ioThread == NO_THREAD || ioThread == CURRENT_THREAD) {
+            return inlineShard;
+        }
+
+        Shard shard = shardsByThread.get(ioThread);
+        if (shard == null) {
+            Shard newShard = new Shard(ioThread.getName(), clientEx.getIoExecutor());
+            shard = shardsByThread.putIfAbsent(ioThread, newShard);
+            if (shard == null) {
+                shard = newShard;
+            }
+        }
+        return shard;
+    }
+
+    private final class Shard implements BroadcastFanOutShard {
+
+        private final String threadName;
+        private final Executor ioExecutor;
+        private final Set<IoSession> clients;
+        private final AtomicInteger queueDepth;
+        private final AtomicLong fanOutCount;
+        private final AtomicLong lastFanOutLatency;
+        private final AtomicLong maximumFanOutLatency;
+        private final AtomicLong totalFanOutLatency;
+
+        Shard(String threadName, Executor ioExecutor) {
+            this.threadName = threadName;
+            this.ioExecutor = ioExecutor;
+            this.clients = new ConcurrentHashSet<>();
+            this.queueDepth = new AtomicInteger();
+            this.fanOutCount = new AtomicLong();
+            this.lastFanOutLatency = new AtomicLong();
+            this.maximumFanOutLatency = new AtomicLong();
+            this.totalFanOutLatency = new AtomicLong();
+        }
+
+        void dispatch(final Object message, final long receivedAt) {
+            if (clients.isEmpty()) {
+                return;
+            }
+
+            int depth = queueDepth.get();
+            if (depth >= maximumQueueDepth) {
+                // dropping the message for these clients would silently break the stream, so close them instead
+                for (IoSession client : clients) {
+                    writer.close(client, depth);
+                }
+                return;
+            }
+
+            queueDepth.incrementAndGet();
+            ioExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    queueDepth.decrementAndGet();
+                    fanOut(message, receivedAt);
+                }
+            });
+        }
+
+        void fanOut(Object message, long receivedAt) {
+            if (clients.isEmpty()) {
+                return;
+            }
+
+            boolean isBuffer = message instanceof IoBuffer;
+            for (IoSession client : clients) {
+                writer.write(client, isBuffer ? ((IoBuffer) message).duplicate() : message);
+            }
+
+            long latency = System.nanoTime() - receivedAt;
+            fanOutCount.incrementAndGet();
+            lastFanOutLatency.set(latency);
+            totalFanOutLatency.addAndGet(latency);
+            long maximum = maximumFanOutLatency.get();
+            while (latency > maximum && !maximumFanOutLatency.compareAndSet(maximum, latency)) {
+                maximum = maximumFanOutLatency.get();
+            }
+        }
+
+        @Override
+        public String getThreadName() {
+            return threadName;
+        }
+
+        @Override
+        public int getClientCount() {
+            return clients.size();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return queueDepth.get();
+        }
+
+        @Override
+        public long getFanOutCount() {
+            return fanOutCount.get();
+        }
+
+        @Override
+        public long getLastFanOutLatency() {
+            return lastFanOutLatency.get();
+        }
+
+        @Override
+        public long getMaximumFanOutLatency() {
+            return maximumFanOutLatency.get();
+        }
+
+        @Override
+        public long getTotalFanOutLatency() {
+            return totalFanOutLatency.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%s clients=%d queueDepth=%d fanOuts=%d lastLatency=%dns maxLatency=%dns]",
+                    getThreadName(), getClientCount(), getQueueDepth(), getFanOutCount(), getLastFanOutLatency(),
+                    getMaximumFanOutLatency());
+        }
+    }
+}
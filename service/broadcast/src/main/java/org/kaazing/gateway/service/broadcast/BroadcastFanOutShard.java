@@ -0,0 +1,59 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.broadcast;
+
+/**
+ * Metrics for the subset of broadcast clients that share one I/O worker thread.
+ */
+public interface BroadcastFanOutShard {
+
+    /**
+     * Returns the name of the I/O worker thread owning the clients of this shard.
+     */
+    String getThreadName();
+
+    /**
+     * Returns the number of clients currently assigned to this shard.
+     */
+    int getClientCount();
+
+    /**
+     * Returns the number of broadcast batches handed to this shard that have not yet started executing.
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the number of broadcast batches completed by this shard.
+     */
+    long getFanOutCount();
+
+    /**
+     * Returns the latency of the most recent batch, in nanoseconds, measured from the time the message was
+     * received from the upstream until the last client of this shard was written.
+     */
+    long getLastFanOutLatency();
+
+    /**
+     * Returns the highest batch latency observed by this shard, in nanoseconds.
+     */
+    long getMaximumFanOutLatency();
+
+    /**
+     * Returns the sum of all batch latencies observed by this shard, in nanoseconds.
+     */
+    long getTotalFanOutLatency();
+
+}
@@ -15,7 +15,6 @@
  */
 package org.kaazing.gateway.service.broadcast;
 
-import java.util.Collection;
 import java.util.Iterator;
 
 import org.apache.mina.core.buffer.IoBuffer;
@@ -28,20 +27,57 @@ import org.kaazing.gateway.transport.LoggingUtils;
 import org.kaazing.gateway.transport.bridge.Message;
 import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
 
+/**
+ * Writes the messages received from the broadcast source to every client added through {@link #addClient(IoSession)}.
+ */
 public class BroadcastListenHandler extends IoHandlerAdapter {
 
-    private final Collection<IoSession> clients;
     private final IoMessageCodecFilter codec;
     private final boolean disconnectClientsOnReconnect;
     private final long maximumScheduledWriteBytes;
     private final Logger logger;
+	private final BroadcastFanOut fanOut;
+
+	static final boolean DEFAULT_SHARDED_FAN_OUT = true;
+	static final int DEFAULT_MAXIMUM_SHARD_QUEUE_DEPTH = 1024;
+
+	public BroadcastListenHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger) {
+		this(disconnectClientsOnReconnect, maximumScheduledWriteBytes, DEFAULT_SHARDED_FAN_OUT,
+				DEFAULT_MAXIMUM_SHARD_QUEUE_DEPTH, logger);
+	}
 
-	public BroadcastListenHandler(Collection<IoSession> clients, boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, Logger logger) {
-		this.clients = clients;
+	public BroadcastListenHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes,
+			boolean shardedFanOut, int maximumShardQueueDepth, Logger logger) {
 		this.codec = new IoMessageCodecFilter();
 		this.disconnectClientsOnReconnect = disconnectClientsOnReconnect;
 		this.logger = logger;
 		this.maximumScheduledWriteBytes = maximumScheduledWriteBytes;
+		this.fanOut = new BroadcastFanOut(new BroadcastFanOut.ClientWriter() {
+			@Override
+			public void write(IoSession client, Object message) {
+				writeOrClose(client, message);
+			}
+
+			@Override
+			public void close(IoSession client, int queueDepth) {
+				closeSlowShard(client, queueDepth);
+			}
+		}, shardedFanOut, maximumShardQueueDepth);
+	}
+
+	/**
+	 * Adds a client to write broadcast messages to, until it is removed.
+	 */
+	public void addClient(IoSession client) {
+		fanOut.add(client);
+	}
+
+	public void removeClient(IoSession client) {
+		fanOut.remove(client);
+	}
+
+	BroadcastFanOut getFanOut() {
+		return fanOut;
 	}
 
 	@Override
@@ -52,7 +88,7 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
     @Override
     public void sessionClosed(IoSession session) throws Exception {
         if (disconnectClientsOnReconnect) {
-            Iterator<IoSession> clientsIterator = clients.iterator();
+            Iterator<IoSession> clientsIterator = fanOut.getClients().iterator();
             while (clientsIterator.hasNext()) {
                 clientsIterator.next().close(false);
                 // BroadcastServiceHandler.sessionClosed(IoSession) will take care of removing client from clients
@@ -64,9 +100,7 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
 	public void messageReceived(IoSession session, Object message) throws Exception {
         if (message instanceof IoBuffer) {
 			IoBuffer buf = (IoBuffer) message;
-			for (IoSession client : clients) {
-			    writeOrClose(client, buf);
-			}
+			fanOut.broadcast(buf);
 			buf.skip(buf.remaining());
 		}
 		else {
@@ -74,9 +108,7 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
 	            ((Message)message).initCache();
 	        }
 
-			for (IoSession client : clients) {
-			    writeOrClose(client, message);
-			}
+			fanOut.broadcast(message);
 		}
 	}
 
@@ -107,6 +139,18 @@ public class BroadcastListenHandler extends IoHandlerAdapter {
         }
     }
 
+	private void closeSlowShard(IoSession client, int queueDepth) {
+		if (!client.isClosing()) {
+			if (logger.isInfoEnabled()) {
+				String logMessage = String.format("Closing client session %s because %d broadcast messages are already queued for its I/O thread",
+						client, queueDepth);
+				logger.info(logMessage);
+			}
+			client.close(true);
+			// BroadcastServiceHandler.sessionClosed(IoSession) will take care of removing client from clients
+		}
+	}
+
     private long getScheduledWriteBytes(IoSession client) {
         IoSession session = client;
         while (session instanceof BridgeSession) {
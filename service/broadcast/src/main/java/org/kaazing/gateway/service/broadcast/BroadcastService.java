@@ -17,11 +17,14 @@ package org.kaazing.gateway.service.broadcast;
 
 import static org.kaazing.gateway.util.InternalSystemProperty.BROADCAST_SERVICE_DISCONNECT_CLIENTS_ON_RECONNECT;
 import static org.kaazing.gateway.util.InternalSystemProperty.BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES;
+import static org.kaazing.gateway.util.InternalSystemProperty.BROADCAST_SERVICE_MAXIMUM_SHARD_QUEUE_DEPTH;
+import static org.kaazing.gateway.util.InternalSystemProperty.BROADCAST_SERVICE_SHARDED_FAN_OUT;
 
 import static org.kaazing.gateway.util.Utils.parseBoolean;
 import static org.kaazing.gateway.util.Utils.parsePositiveInteger;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Properties;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -100,6 +103,14 @@ public class BroadcastService implements Service {
                 configuration.getProperty(BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES.getPropertyName()),
 //                BROADCAST_SERVICE_MAXIMUM_PENDING_BYTES.getProperty(configuration),
                 Long.MAX_VALUE);
+        boolean shardedFanOut = parseBoolean(
+                BROADCAST_SERVICE_SHARDED_FAN_OUT.getPropertyName(),
+                BROADCAST_SERVICE_SHARDED_FAN_OUT.getProperty(configuration),
+                BroadcastListenHandler.DEFAULT_SHARDED_FAN_OUT);
+        int maximumShardQueueDepth = (int) parsePositiveInteger(
+                BROADCAST_SERVICE_MAXIMUM_SHARD_QUEUE_DEPTH.getPropertyName(),
+                BROADCAST_SERVICE_MAXIMUM_SHARD_QUEUE_DEPTH.getProperty(configuration),
+                BroadcastListenHandler.DEFAULT_MAXIMUM_SHARD_QUEUE_DEPTH);
         OnClientMessage onClientMessage = OnClientMessage.fromString(serviceContext.getProperties().get(ON_CLIENT_MESSAGE));
         if ( maximumScheduledWriteBytes != Long.MAX_VALUE ) {
             // The system property was specified
@@ -107,7 +118,7 @@ public class BroadcastService implements Service {
                     maximumScheduledWriteBytes));
         }
         this.handler = new BroadcastServiceHandler(disconnectClientsOnReconnect, maximumScheduledWriteBytes,
-                onClientMessage, serviceContext.getLogger());
+                shardedFanOut, maximumShardQueueDepth, onClientMessage, serviceContext.getLogger());
 
         Collection<String> connectURIs = serviceContext.getConnects();
         ServiceProperties properties = serviceContext.getProperties();
@@ -120,6 +131,13 @@ public class BroadcastService implements Service {
         this.reconnectDelay = (reconnectDelay != null) ? Integer.parseInt(reconnectDelay) : 3000;
     }
 
+    /**
+     * Returns queue depth and latency metrics for each group of clients sharing an I/O worker thread.
+     */
+    public Collection<BroadcastFanOutShard> getFanOutShards() {
+        return (handler != null) ? handler.getFanOutShards() : Collections.<BroadcastFanOutShard>emptyList();
+    }
+
     @Override
     public void start() throws Exception {
         reconnect.set(true);
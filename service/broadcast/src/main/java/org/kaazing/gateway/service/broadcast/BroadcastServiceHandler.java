@@ -19,13 +19,11 @@ import static org.kaazing.gateway.service.broadcast.BroadcastService.OnClientMes
 
 import java.nio.channels.ClosedChannelException;
 import java.util.Collection;
-import java.util.Collections;
 
 import org.apache.mina.core.filterchain.IoFilter;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.IoHandlerAdapter;
 import org.apache.mina.core.session.IoSession;
-import org.apache.mina.util.ConcurrentHashSet;
 import org.slf4j.Logger;
 import org.kaazing.gateway.service.broadcast.BroadcastService.OnClientMessage;
 import org.kaazing.gateway.transport.LoggingUtils;
@@ -34,18 +32,21 @@ import org.kaazing.gateway.transport.io.filter.IoMessageCodecFilter;
 class BroadcastServiceHandler extends IoHandlerAdapter {
 
     private final IoFilter codec;
-    private final Collection<IoSession> clients;
-    private final IoHandler handler;
+    private final BroadcastListenHandler handler;
     private final Logger logger;
     private IoSession connectSession;
     private final OnClientMessage onClientMessage;
 
     BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, OnClientMessage onClientMessage, Logger logger)
             throws Exception {
+        this(disconnectClientsOnReconnect, maximumScheduledWriteBytes, BroadcastListenHandler.DEFAULT_SHARDED_FAN_OUT,
+                BroadcastListenHandler.DEFAULT_MAXIMUM_SHARD_QUEUE_DEPTH, onClientMessage, logger);
+    }
+
+    BroadcastServiceHandler(boolean disconnectClientsOnReconnect, long maximumScheduledWriteBytes, boolean shardedFanOut,
+            int maximumShardQueueDepth, OnClientMessage onClientMessage, Logger logger) throws Exception {
         this.onClientMessage = onClientMessage;
-        this.clients = new ConcurrentHashSet<>();
-        this.handler = new BroadcastListenHandler(Collections.unmodifiableCollection(clients),
-                disconnectClientsOnReconnect, maximumScheduledWriteBytes, logger);
+        this.handler = new BroadcastListenHandler(disconnectClientsOnReconnect, maximumScheduledWriteBytes, shardedFanOut, maximumShardQueueDepth, logger);
         this.codec = new IoMessageCodecFilter();
         this.logger = logger;
     }
@@ -62,6 +63,10 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
         return handler;
     }
 
+    Collection<BroadcastFanOutShard> getFanOutShards() {
+        return handler.getFanOut().getShards();
+    }
+
     @Override
     public void messageReceived(IoSession session, Object message) throws Exception {
         if (onClientMessage == BROADCAST) {
@@ -87,7 +92,7 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
     @Override
     public void sessionOpened(IoSession session) throws Exception {
         session.getFilterChain().addLast("io", codec);
-        clients.add(session);
+        handler.addClient(session);
     }
 
     @Override
@@ -96,6 +101,6 @@ class BroadcastServiceHandler extends IoHandlerAdapter {
             logger.debug(String.format("BroadcastServiceHandler: session closed on %s", session.toString()));
         }
 
-        clients.remove(session);
+        handler.removeClient(session);
     }
 }
\ No newline at end of file
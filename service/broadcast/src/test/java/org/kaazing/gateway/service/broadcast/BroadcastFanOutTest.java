@@ -0,0 +1,215 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.broadcast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class BroadcastFanOutTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final List<IoSession> written = new ArrayList<>();
+    private final List<IoSession> closed = new ArrayList<>();
+
+    private final BroadcastFanOut.ClientWriter writer = new BroadcastFanOut.ClientWriter() {
+        @Override
+        public void write(IoSession client, Object message) {
+            written.add(client);
+        }
+
+        @Override
+        public void close(IoSession client, int queueDepth) {
+            closed.add(client);
+        }
+    };
+
+    @Test
+    public void shouldWriteAlignedClientsInOneBatchPerThread() throws Exception {
+        Thread ioThread = new Thread("worker-1");
+        QueueingExecutor ioExecutor = new QueueingExecutor();
+        IoSessionEx client1 = mockClient("client1", ioThread, ioExecutor);
+        IoSessionEx client2 = mockClient("client2", ioThread, ioExecutor);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, true, 16);
+        fanOut.add(client1);
+        fanOut.add(client2);
+        fanOut.broadcast("message");
+
+        assertEquals(0, written.size());
+        assertEquals(1, ioExecutor.tasks.size());
+        BroadcastFanOutShard shard = shardNamed(fanOut, "worker-1");
+        assertEquals(2, shard.getClientCount());
+        assertEquals(1, shard.getQueueDepth());
+
+        ioExecutor.runAll();
+
+        assertEquals(2, written.size());
+        assertEquals(0, shard.getQueueDepth());
+        assertEquals(1, shard.getFanOutCount());
+    }
+
+    @Test
+    public void shouldWriteUnalignedClientsInline() throws Exception {
+        IoSessionEx client = mockClient("client", IoSessionEx.NO_THREAD, IoSessionEx.NO_EXECUTOR);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, true, 16);
+        fanOut.add(client);
+        fanOut.broadcast("message");
+
+        assertEquals(1, written.size());
+        assertEquals(1, shardNamed(fanOut, "inline").getFanOutCount());
+    }
+
+    @Test
+    public void shouldWriteInlineWhenNotSharded() throws Exception {
+        QueueingExecutor ioExecutor = new QueueingExecutor();
+        IoSessionEx client = mockClient("client", new Thread("worker-1"), ioExecutor);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, false, 16);
+        fanOut.add(client);
+        fanOut.broadcast("message");
+
+        assertEquals(1, written.size());
+        assertEquals(0, ioExecutor.tasks.size());
+    }
+
+    @Test
+    public void shouldNotWriteRemovedClients() throws Exception {
+        QueueingExecutor ioExecutor = new QueueingExecutor();
+        IoSessionEx client = mockClient("client", new Thread("worker-1"), ioExecutor);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, true, 16);
+        fanOut.add(client);
+        fanOut.remove(client);
+        fanOut.broadcast("message");
+        ioExecutor.runAll();
+
+        assertEquals(0, written.size());
+        assertEquals(0, shardNamed(fanOut, "worker-1").getClientCount());
+    }
+
+    @Test
+    public void shouldReturnClientsOfAllShards() throws Exception {
+        IoSessionEx aligned = mockClient("aligned", new Thread("worker-1"), new QueueingExecutor());
+        IoSessionEx unaligned = mockClient("unaligned", IoSessionEx.NO_THREAD, IoSessionEx.NO_EXECUTOR);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, true, 16);
+        fanOut.add(aligned);
+        fanOut.add(unaligned);
+
+        assertEquals(new HashSet<IoSession>(Arrays.asList(aligned, unaligned)), new HashSet<>(fanOut.getClients()));
+
+        fanOut.remove(aligned);
+
+        assertEquals(Collections.singletonList(unaligned), new ArrayList<>(fanOut.getClients()));
+    }
+
+    @Test
+    public void shouldCloseClientsOfShardWithFullQueue() throws Exception {
+        QueueingExecutor ioExecutor = new QueueingExecutor();
+        IoSessionEx client = mockClient("client", new Thread("worker-1"), ioExecutor);
+
+        BroadcastFanOut fanOut = new BroadcastFanOut(writer, true, 2);
+        fanOut.add(client);
+        fanOut.broadcast("message1");
+        fanOut.broadcast("message2");
+        fanOut.broadcast("message3");
+
+        assertEquals(2, ioExecutor.tasks.size());
+        assertEquals(Collections.singletonList(client), closed);
+
+        ioExecutor.runAll();
+        fanOut.broadcast("message4");
+
+        assertEquals(2, written.size());
+        assertEquals(1, ioExecutor.tasks.size());
+        assertEquals(1, closed.size());
+    }
+
+    private IoSessionEx mockClient(String name, final Thread ioThread, final Executor ioExecutor) {
+        final IoSessionEx client = context.mock(IoSessionEx.class, name);
+        final Object[] shard = new Object[1];
+        context.checking(new Expectations() {
+            {
+                allowing(client).isIoAligned(); will(returnValue(ioThread != IoSessionEx.NO_THREAD));
+                allowing(client).getIoThread(); will(returnValue(ioThread));
+                allowing(client).getIoExecutor(); will(returnValue(ioExecutor));
+                allowing(client).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                will(new CustomAction("set shard") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        shard[0] = invocation.getParameter(1);
+                        return null;
+                    }
+                });
+                allowing(client).removeAttribute(with(any(Object.class)));
+                will(new CustomAction("remove shard") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        Object removed = shard[0];
+                        shard[0] = null;
+                        return removed;
+                    }
+                });
+            }
+        });
+        return client;
+    }
+
+    private static BroadcastFanOutShard shardNamed(BroadcastFanOut fanOut, String threadName) {
+        for (BroadcastFanOutShard shard : fanOut.getShards()) {
+            if (threadName.equals(shard.getThreadName())) {
+                return shard;
+            }
+        }
+        throw new AssertionError("No shard for " + threadName);
+    }
+
+    private static final class QueueingExecutor implements Executor {
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static org.kaazing.gateway.resource.address.uri.URIUtils.getScheme;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kaazing.gateway.resource.address.Protocol;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.service.cluster.MemberId;
+import org.kaazing.gateway.service.cluster.MembershipEventListener;
+import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.transport.TransportFactory;
+import org.kaazing.gateway.util.GL;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+
+/**
+ * Local copy of the balancee URIs a balancer service can redirect to, taken from the shared balancer map.
+ * <p>
+ * Balancer requests read an immutable snapshot, without locking and without going to the cluster. The snapshot is
+ * rebuilt when an entry of the balancer map changes for one of the accept URIs of the service, and in full when a
+ * member joins or leaves the cluster, which is when the balancer map is cleaned up for members that have gone down.
+ * <p>
+ * The load published by the balancees is followed the same way, from the balancee load map.
+ */
+final class BalancerTopologyCache implements MembershipEventListener {
+
+    private final Collection<String> accepts;
+    private final ClusterContext clusterContext;
+    private final TransportFactory transportFactory;
+    private final AtomicLong refreshCount;
+
+    // guarded by this
+    private final Map<String, Collection<String>> balanceesByAccept;
+    private IMap<String, Collection<String>> balancers;
+    private String listenerId;
+    private IMap<String, BalanceeLoad> balanceeLoads;
+    private String loadListenerId;
+
+    private volatile Snapshot snapshot;
+    private volatile Map<String, BalanceeLoad> loads;
+
+    BalancerTopologyCache(Collection<String> accepts, ClusterContext clusterContext, TransportFactory transportFactory) {
+        this.accepts = new ArrayList<>(accepts);
+        this.clusterContext = clusterContext;
+        this.transportFactory = transportFactory;
+        this.refreshCount = new AtomicLong();
+        this.balanceesByAccept = new HashMap<>();
+        this.snapshot = new Snapshot(emptyList(), emptyList(), 0L);
+        this.loads = emptyMap();
+    }
+
+    /**
+     * Starts following the balancer map and takes the first snapshot of it.
+     */
+    synchronized void start() {
+        CollectionsFactory collectionsFactory = clusterContext.getCollectionsFactory();
+        if (collectionsFactory == null) {
+            GL.debug(GL.CLUSTER_LOGGER_NAME, "No balancee URIs available: cluster context collections factory is null");
+            return;
+        }
+
+        balancers = collectionsFactory.getMap(HttpBalancerService.BALANCER_MAP_NAME);
+        listenerId = balancers.addEntryListener(new BalancerMapListener(), false);
+        balanceeLoads = collectionsFactory.getMap(HttpBalancerService.BALANCEE_LOAD_MAP_NAME);
+        loadListenerId = balanceeLoads.addEntryListener(new BalanceeLoadMapListener(), true);
+        clusterContext.addMembershipEventListener(this);
+        refreshAll();
+    }
+
+    synchronized void stop() {
+        if (balancers != null) {
+            clusterContext.removeMembershipEventListener(this);
+            balancers.removeEntryListener(listenerId);
+            balanceeLoads.removeEntryListener(loadListenerId);
+            balancers = null;
+            listenerId = null;
+            balanceeLoads = null;
+            loadListenerId = null;
+        }
+    }
+
+    /**
+     * Returns the balancee URIs for the accept URIs of the service, as of the last snapshot.
+     *
+     * @param secure  whether to return the secure or the clear balancee URIs
+     */
+    List<String> getBalanceeURIs(boolean secure) {
+        Snapshot snapshot = this.snapshot;
+        return secure ? snapshot.secureBalanceeURIs : snapshot.clearBalanceeURIs;
+    }
+
+    /**
+     * Returns the load last published by each balancee, balancees that have not published any load are missing.
+     */
+    Map<String, BalanceeLoad> getLoads() {
+        return loads;
+    }
+
+    /**
+     * Returns the number of times the snapshot has been rebuilt.
+     */
+    long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Returns the time, in milliseconds, since the snapshot was last rebuilt from the balancer map, or -1 if it has not
+     * been taken yet.
+     */
+    long getStaleness() {
+        long refreshTime = snapshot.refreshTime;
+        return (refreshTime == 0L) ? -1L : System.currentTimeMillis() - refreshTime;
+    }
+
+    @Override
+    public void memberAdded(MemberId newMember) {
+        refreshAll();
+    }
+
+    @Override
+    public void memberRemoved(MemberId removedMember) {
+        // balancee URIs of the member that went down have been removed from the balancer map by now
+        refreshAll();
+    }
+
+    private synchronized void refreshAll() {
+        if (balancers == null) {
+            return;
+        }
+        for (String accept : accepts) {
+            readEntry(accept);
+        }
+        publish();
+
+        Map<String, BalanceeLoad> newLoads = new HashMap<>();
+        for (Collection<String> balanceeURIs : balanceesByAccept.values()) {
+            for (String balanceeURI : balanceeURIs) {
+                BalanceeLoad load = balanceeLoads.get(balanceeURI);
+                if (load != null) {
+                    newLoads.put(balanceeURI, load);
+                }
+            }
+        }
+        loads = unmodifiableMap(newLoads);
+    }
+
+    private synchronized void updateLoad(String balanceeURI, BalanceeLoad load) {
+        if (balanceeLoads == null) {
+            return;
+        }
+        Map<String, BalanceeLoad> loads = this.loads;
+        BalanceeLoad oldLoad = loads.get(balanceeURI);
+        if (load == null || oldLoad == null || load.getTimestamp() >= oldLoad.getTimestamp()) {
+            Map<String, BalanceeLoad> newLoads = new HashMap<>(loads);
+            if (load == null) {
+                newLoads.remove(balanceeURI);
+            }
+            else {
+                newLoads.put(balanceeURI, load);
+            }
+            this.loads = unmodifiableMap(newLoads);
+        }
+    }
+
+    private synchronized void refresh(String accept) {
+        if (balancers == null || !accepts.contains(accept)) {
+            return;
+        }
+        // events only tell which entry changed, the value is read back so that events handled out of order do no harm
+        readEntry(accept);
+        publish();
+    }
+
+    private void readEntry(String accept) {
+        Collection<String> balanceeURIs = balancers.get(accept);
+        if (balanceeURIs == null) {
+            balanceesByAccept.remove(accept);
+        }
+        else {
+            balanceesByAccept.put(accept, new ArrayList<>(balanceeURIs));
+        }
+    }
+
+    private void publish() {
+        List<String> secureBalanceeURIs = new ArrayList<>();
+        List<String> clearBalanceeURIs = new ArrayList<>();
+        for (String accept : accepts) {
+            Collection<String> balanceeURIs = balanceesByAccept.get(accept);
+            GL.debug(GL.CLUSTER_LOGGER_NAME, "Found balancee URIs {} for accept URI {}", balanceeURIs, accept);
+            if (balanceeURIs == null) {
+                continue;
+            }
+            for (String balanceeURI : balanceeURIs) {
+                // Pick only clear or secure balancees as appropriate.
+                Protocol protocol = transportFactory.getProtocol(getScheme(balanceeURI));
+                if (protocol.isSecure()) {
+                    secureBalanceeURIs.add(balanceeURI);
+                }
+                else {
+                    clearBalanceeURIs.add(balanceeURI);
+                }
+            }
+        }
+
+        snapshot = new Snapshot(secureBalanceeURIs, clearBalanceeURIs, System.currentTimeMillis());
+        refreshCount.incrementAndGet();
+    }
+
+    private static final class Snapshot {
+        private final List<String> secureBalanceeURIs;
+        private final List<String> clearBalanceeURIs;
+        private final long refreshTime;
+
+        Snapshot(List<String> secureBalanceeURIs, List<String> clearBalanceeURIs, long refreshTime) {
+            this.secureBalanceeURIs = unmodifiableList(secureBalanceeURIs);
+            this.clearBalanceeURIs = unmodifiableList(clearBalanceeURIs);
+            this.refreshTime = refreshTime;
+        }
+    }
+
+    private final class BalancerMapListener implements EntryAddedListener<String, Collection<String>>,
+            EntryUpdatedListener<String, Collection<String>>, EntryRemovedListener<String, Collection<String>>,
+            EntryEvictedListener<String, Collection<String>> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, Collection<String>> event) {
+            refresh(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, Collection<String>> event) {
+            refresh(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, Collection<String>> event) {
+            refresh(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<String, Collection<String>> event) {
+            refresh(event.getKey());
+        }
+    }
+
+    private final class BalanceeLoadMapListener implements EntryAddedListener<String, BalanceeLoad>,
+            EntryUpdatedListener<String, BalanceeLoad>, EntryRemovedListener<String, BalanceeLoad>,
+            EntryEvictedListener<String, BalanceeLoad> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, BalanceeLoad> event) {
+            updateLoad(event.getKey(), event.getValue());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, BalanceeLoad> event) {
+            updateLoad(event.getKey(), event.getValue());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, BalanceeLoad> event) {
+            updateLoad(event.getKey(), null);
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<String, BalanceeLoad> event) {
+            updateLoad(event.getKey(), null);
+        }
+    }
+}
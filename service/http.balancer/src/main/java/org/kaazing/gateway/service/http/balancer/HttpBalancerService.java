@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.ServiceLoader;
 
 import javax.annotation.Resource;
 
@@ -37,6 +38,7 @@ import org.kaazing.gateway.service.AcceptOptionsContext;
 import org.kaazing.gateway.service.Service;
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
 import org.kaazing.gateway.transport.BridgeSessionInitializer;
 import org.kaazing.gateway.transport.BridgeSessionInitializerAdapter;
 import org.kaazing.gateway.transport.TransportFactory;
@@ -57,8 +59,12 @@ import org.kaazing.gateway.util.GL;
 public class HttpBalancerService implements Service {
     public static final String BALANCER_MAP_NAME = "balancerMap";
     public static final String MEMBERID_BALANCER_MAP_NAME = "memberIdBalancerMap";
+    public static final String BALANCEE_LOAD_MAP_NAME = "balanceeLoadMap";
+
+    private static final String SELECTION_STRATEGY = "selection.strategy";
 
     private WsebBalancerServiceHandler wsebHandler;
+    private BalancerTopologyCache topology;
     private WsnBalancerServiceHandler wsnHandler;
     private ServiceContext serviceContext;
     private ClusterContext clusterContext;
@@ -92,24 +98,29 @@ public class HttpBalancerService implements Service {
 
         // Register the Gateway's connection capabilities with the handlers so that session counts are tracked
         wsebHandler.setTransportFactory(transportFactory);
+
+        topology = new BalancerTopologyCache(serviceContext.getAccepts(), clusterContext, transportFactory);
+        wsebHandler.setTopology(topology);
+        wsebHandler.setSelectionStrategy(newSelectionStrategy(serviceContext.getProperties().get(SELECTION_STRATEGY)));
         GL.info(GL.CLUSTER_LOGGER_NAME,"Finished  HttpBalancerService.init()");
         clusterContext.logClusterStateAtInfoLevel();
     }
 
     @Override
     public void start() throws Exception {
+        topology.start();
+
         final BridgeSessionInitializer<ConnectFuture> wsBalancerSessionInitializer = new BridgeSessionInitializerAdapter<ConnectFuture>() {
 
             private final BridgeSessionInitializer<ConnectFuture> preUpgradeHttpSessionInitializer = new BridgeSessionInitializerAdapter<ConnectFuture>() {
                 @Override
                 public void initializeSession(IoSession session, ConnectFuture future) {
                     HttpAcceptSession httpSession = (HttpAcceptSession) session;
-                    List<String> availableBalanceeURIs = wsebHandler.getBalanceeURIs(httpSession.isSecure());
+                    String selectedBalanceeURI = wsebHandler.selectBalanceeURI(httpSession.isSecure());
                     List<String> selectedBalanceeURIs;
-                    if (availableBalanceeURIs.isEmpty()) {
+                    if (selectedBalanceeURI == null) {
                         selectedBalanceeURIs = Collections.emptyList();
                     } else {
-                        String selectedBalanceeURI = availableBalanceeURIs.get((int) (Math.random() * availableBalanceeURIs.size()));
                         selectedBalanceeURIs = new ArrayList<>(1);
                         selectedBalanceeURIs.add(selectedBalanceeURI);
                         GL.debug(GL.CLUSTER_LOGGER_NAME, "HttpBalancerService initializeSession Selected Balancee URI: {}", selectedBalanceeURI);
@@ -150,6 +161,10 @@ public class HttpBalancerService implements Service {
                 session.close(true);
             }
         }
+
+        if (topology != null) {
+            topology.stop();
+        }
     }
 
     @Override
@@ -164,6 +179,27 @@ public class HttpBalancerService implements Service {
     public void destroy() throws Exception {
     }
 
+    /**
+     * Returns the time, in milliseconds, since this balancer last rebuilt its local copy of the balancer map, or -1 if
+     * it has not been started.
+     */
+    public long getBalancerTopologyStaleness() {
+        return (topology != null) ? topology.getStaleness() : -1L;
+    }
+
+    /**
+     * Loads the balancee selection strategy with the given name, power of two choices if none is given.
+     */
+    private static BalanceeSelectionStrategySpi newSelectionStrategy(String name) {
+        String strategyName = (name != null) ? name.trim() : PowerOfTwoChoicesSelectionStrategy.NAME;
+        for (BalanceeSelectionStrategySpi strategy : ServiceLoader.load(BalanceeSelectionStrategySpi.class)) {
+            if (strategy.getName().equals(strategyName)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown balancee selection strategy: " + strategyName);
+    }
+
     /**
      * Converts a collection of WS URIs to their equivalent WSN balancer URIs.
      * 
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
+
+/**
+ * Picks the balancee with the fewest connections, weighted by how busy its member is.
+ * <p>
+ * Loads are only published periodically, so between two updates every balancer sends all new clients to the same
+ * balancee. This suits a few long lived connections better than many short ones, for which power of two choices
+ * spreads the load more evenly.
+ */
+public final class LeastConnectionsSelectionStrategy extends BalanceeSelectionStrategySpi {
+
+    public static final String NAME = "least-connections";
+
+    // bytes waiting to be written that count as much as one more connection
+    private static final double SCHEDULED_WRITE_BYTES_PER_CONNECTION = 64 * 1024;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String select(List<String> balanceeURIs, Map<String, BalanceeLoad> loads) {
+        String selected = null;
+        double selectedLoad = Double.MAX_VALUE;
+        int ties = 0;
+        for (String balanceeURI : balanceeURIs) {
+            double load = weightedLoad(loads.get(balanceeURI));
+            if (load < selectedLoad) {
+                selected = balanceeURI;
+                selectedLoad = load;
+                ties = 1;
+            }
+            else if (load == selectedLoad && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                // spread clients evenly across equally loaded balancees
+                selected = balanceeURI;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the load of a balancee as a number of connections, scaled up by the CPU usage of its member. Balancees
+     * that have not published any load count as idle.
+     */
+    static double weightedLoad(BalanceeLoad load) {
+        if (load == null) {
+            return 0.0;
+        }
+        double connections = load.getSessionCount()
+                + load.getScheduledWriteBytes() / SCHEDULED_WRITE_BYTES_PER_CONNECTION;
+        double cpuLoad = Math.max(0.0, load.getCpuLoad());
+        return connections * (1.0 + cpuLoad);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import static org.kaazing.gateway.service.http.balancer.LeastConnectionsSelectionStrategy.weightedLoad;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
+
+/**
+ * Picks two balancees at random and sends the client to the less loaded of them. This steers clients away from busy
+ * members without sending them all to the same one while the published loads are out of date. This is the default
+ * strategy.
+ */
+public final class PowerOfTwoChoicesSelectionStrategy extends BalanceeSelectionStrategySpi {
+
+    public static final String NAME = "power-of-two-choices";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String select(List<String> balanceeURIs, Map<String, BalanceeLoad> loads) {
+        int size = balanceeURIs.size();
+        if (size == 1) {
+            return balanceeURIs.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        String firstURI = balanceeURIs.get(first);
+        String secondURI = balanceeURIs.get(second);
+        return (weightedLoad(loads.get(secondURI)) < weightedLoad(loads.get(firstURI))) ? secondURI : firstURI;
+    }
+}
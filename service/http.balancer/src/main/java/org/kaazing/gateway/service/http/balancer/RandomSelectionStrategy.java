@@ -0,0 +1,41 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
+
+/**
+ * Picks a balancee at random, regardless of load.
+ */
+public final class RandomSelectionStrategy extends BalanceeSelectionStrategySpi {
+
+    public static final String NAME = "random";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String select(List<String> balanceeURIs, Map<String, BalanceeLoad> loads) {
+        return balanceeURIs.get(ThreadLocalRandom.current().nextInt(balanceeURIs.size()));
+    }
+}
@@ -23,13 +23,12 @@ import static org.kaazing.gateway.resource.address.uri.URIUtils.getScheme;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
-import org.kaazing.gateway.resource.address.Protocol;
 import org.kaazing.gateway.service.cluster.ClusterContext;
-import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
 import org.kaazing.gateway.transport.IoHandlerAdapter;
 import org.kaazing.gateway.transport.TransportFactory;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
@@ -42,6 +41,8 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
     private Collection<String> accepts;
     private ClusterContext clusterContext;
     private TransportFactory transportFactory;
+    private BalancerTopologyCache topology;
+    private BalanceeSelectionStrategySpi selectionStrategy;
 
     WsebBalancerServiceHandler() {
     }
@@ -66,6 +67,18 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         this.transportFactory = transportFactory;
     }
 
+    BalancerTopologyCache getTopology() {
+        return topology;
+    }
+
+    void setTopology(BalancerTopologyCache topology) {
+        this.topology = topology;
+    }
+
+    void setSelectionStrategy(BalanceeSelectionStrategySpi selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+    }
+
     @Override
     protected void doExceptionCaught(HttpAcceptSession session, Throwable cause) throws Exception {
         // trigger sessionClosed to update connection capabilities accordingly
@@ -74,14 +87,12 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
     @Override
     protected void doSessionOpened(HttpAcceptSession session) throws Exception {
-        List<String> availableBalanceeURIs = getBalanceeURIs(session.isSecure());
+        String selectedBalanceeURI = selectBalanceeURI(session.isSecure());
 
-        if (availableBalanceeURIs.isEmpty()) {
+        if (selectedBalanceeURI == null) {
             GL.warn(GL.CLUSTER_LOGGER_NAME, "Rejected {} request for URI \"{}\" on session {}: no available balancee URI was found",                        session.getMethod(), session.getRequestURI(), session);
            session.setStatus(HttpStatus.CLIENT_NOT_FOUND);
         } else {
-
-            String selectedBalanceeURI = availableBalanceeURIs.get((int) (Math.random() * availableBalanceeURIs.size()));
             GL.debug(GL.CLUSTER_LOGGER_NAME, "WsebBalancerServiceHandler doSessionOpen Selected Balancee URI: {}", selectedBalanceeURI);
 
             URI requestURI = session.getRequestURI();
@@ -114,61 +125,24 @@ class WsebBalancerServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
     }
 
     List<String> getBalanceeURIs(boolean secure) {
-        List<String> balanceeURIs = new ArrayList<>();
-
-        CollectionsFactory collectionsFactory = null;
-        if (clusterContext != null) {
-            collectionsFactory = clusterContext.getCollectionsFactory();
+        if (topology == null) {
+            GL.debug(GL.CLUSTER_LOGGER_NAME, "Returning empty balancee URIs list: balancer topology is not available");
+            return Collections.emptyList();
         }
+        return topology.getBalanceeURIs(secure);
+    }
 
-        if (accepts != null &&
-            collectionsFactory != null) {
-
-            Lock mapLock = getLock(HttpBalancerService.BALANCER_MAP_NAME);
-            try {
-                mapLock.lock();
-                // Get the map of balance URIs to accept URIs from the cluster.
-                Map<String, Collection<String>> balancers = collectionsFactory.getMap(HttpBalancerService.BALANCER_MAP_NAME);
-
-                // For my accept URIs, look up the map to get the balancee URIs for which I am balancing.
-                for (String balancerAccept : accepts) {
-                    Collection<String> balanceesForAccept = balancers.get(balancerAccept);
-                    GL.debug("ha", String.format("Found balancee URIs %s for accept URI %s", balanceesForAccept, balancerAccept));
-
-                    if (balanceesForAccept != null) {
-                        for (String balanceeURI : balanceesForAccept) {
-                            // Pick only clear or secure balancees as appropriate.
-                            Protocol protocol = transportFactory.getProtocol(getScheme(balanceeURI));
-                            if (secure == protocol.isSecure()) {
-                                balanceeURIs.add(balanceeURI);
-                            }
-                        }
-                    }
-                }
-            } finally {
-                mapLock.unlock();
-            }
-
-        } else {
-            StringBuilder sb = new StringBuilder();
-            sb.append("Returning empty balancee URIs list: ");
-
-            if (accepts == null) {
-                sb.append("accepts are null, ");
-            }
-
-            if (clusterContext.getCollectionsFactory() == null) {
-                sb.append("cluster context collections factory is null");
-            }
-
-            GL.debug("CLUSTER_LOGGER_NAME", sb.toString());
+    /**
+     * Picks the balancee URI to send a client to, or returns null if there is none.
+     */
+    String selectBalanceeURI(boolean secure) {
+        List<String> balanceeURIs = getBalanceeURIs(secure);
+        if (balanceeURIs.isEmpty()) {
+            return null;
         }
-        GL.debug(GL.CLUSTER_LOGGER_NAME,"Exit WsebBalancerService.getBalanceeURIs");
-        clusterContext.logClusterState();
-        return balanceeURIs;
+        return selectionStrategy.select(balanceeURIs, topology.getLoads());
     }
 
-
     public Lock getLock(String name) {
         return clusterContext.getLock(name);
     }
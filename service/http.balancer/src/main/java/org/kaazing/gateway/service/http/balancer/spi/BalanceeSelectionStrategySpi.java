@@ -0,0 +1,46 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer.spi;
+
+import java.util.List;
+import java.util.Map;
+
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+
+/**
+ * Strategy used by balancer services to pick the balancee a client is sent to. Strategies are loaded via the
+ * ServiceLoader by extending this class, and chosen per balancer service by name with the "selection.strategy" service
+ * property.
+ * <p>
+ * A strategy is called concurrently for many requests and must not block.
+ */
+public abstract class BalanceeSelectionStrategySpi {
+
+    /**
+     * Returns the name of the strategy, as given in the "selection.strategy" service property.
+     */
+    public abstract String getName();
+
+    /**
+     * Picks one of the given balancee URIs.
+     *
+     * @param balanceeURIs  the balancee URIs to choose from, never empty
+     * @param loads         the load last published for each balancee URI, balancees that have not published any load
+     *                      are missing
+     * @return one of the given balancee URIs
+     */
+    public abstract String select(List<String> balanceeURIs, Map<String, BalanceeLoad> loads);
+}
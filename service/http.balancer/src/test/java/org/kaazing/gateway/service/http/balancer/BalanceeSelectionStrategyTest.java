@@ -0,0 +1,109 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import org.junit.Test;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.http.balancer.spi.BalanceeSelectionStrategySpi;
+
+public class BalanceeSelectionStrategyTest {
+
+    private static final String IDLE = "ws://idle.example.com:8001/echo";
+    private static final String BUSY = "ws://busy.example.com:8001/echo";
+    private static final String HOT = "ws://hot.example.com:8001/echo";
+
+    @Test
+    public void shouldLoadBuiltInStrategies() throws Exception {
+        Set<String> names = new HashSet<>();
+        for (BalanceeSelectionStrategySpi strategy : ServiceLoader.load(BalanceeSelectionStrategySpi.class)) {
+            names.add(strategy.getName());
+        }
+        assertTrue(names.containsAll(asList(RandomSelectionStrategy.NAME, LeastConnectionsSelectionStrategy.NAME,
+                PowerOfTwoChoicesSelectionStrategy.NAME)));
+    }
+
+    @Test
+    public void shouldSelectLeastConnections() throws Exception {
+        BalanceeSelectionStrategySpi strategy = new LeastConnectionsSelectionStrategy();
+        Map<String, BalanceeLoad> loads = new HashMap<>();
+        loads.put(IDLE, new BalanceeLoad(10, 0.1, 0, 0));
+        loads.put(BUSY, new BalanceeLoad(100, 0.1, 0, 0));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(IDLE, strategy.select(asList(BUSY, IDLE), loads));
+        }
+    }
+
+    @Test
+    public void shouldWeighConnectionsByCpuLoad() throws Exception {
+        BalanceeSelectionStrategySpi strategy = new LeastConnectionsSelectionStrategy();
+        Map<String, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, new BalanceeLoad(100, 0.1, 0, 0));
+        loads.put(HOT, new BalanceeLoad(80, 0.9, 0, 0));
+
+        assertEquals(BUSY, strategy.select(asList(BUSY, HOT), loads));
+    }
+
+    @Test
+    public void shouldTreatBalanceesWithoutLoadAsIdle() throws Exception {
+        BalanceeSelectionStrategySpi strategy = new LeastConnectionsSelectionStrategy();
+        Map<String, BalanceeLoad> loads = new HashMap<>();
+        loads.put(BUSY, new BalanceeLoad(1, 0.0, 0, 0));
+
+        assertEquals(IDLE, strategy.select(asList(BUSY, IDLE), loads));
+    }
+
+    @Test
+    public void shouldSelectLessLoadedOfTwoChoices() throws Exception {
+        BalanceeSelectionStrategySpi strategy = new PowerOfTwoChoicesSelectionStrategy();
+        Map<String, BalanceeLoad> loads = new HashMap<>();
+        loads.put(IDLE, new BalanceeLoad(0, 0.0, 0, 0));
+        loads.put(BUSY, new BalanceeLoad(100, 0.5, 0, 0));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(IDLE, strategy.select(asList(BUSY, IDLE), loads));
+        }
+        assertEquals(BUSY, strategy.select(singletonList(BUSY), loads));
+    }
+
+    @Test
+    public void shouldNeverSelectMostLoadedOfThreeWithTwoChoices() throws Exception {
+        BalanceeSelectionStrategySpi strategy = new PowerOfTwoChoicesSelectionStrategy();
+        List<String> balanceeURIs = asList(IDLE, BUSY, HOT);
+        Map<String, BalanceeLoad> loads = new HashMap<>();
+        loads.put(IDLE, new BalanceeLoad(0, 0.0, 0, 0));
+        loads.put(BUSY, new BalanceeLoad(50, 0.0, 0, 0));
+        loads.put(HOT, new BalanceeLoad(100, 0.0, 0, 0));
+
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            selected.add(strategy.select(balanceeURIs, loads));
+        }
+        assertEquals(new HashSet<>(asList(IDLE, BUSY)), selected);
+    }
+}
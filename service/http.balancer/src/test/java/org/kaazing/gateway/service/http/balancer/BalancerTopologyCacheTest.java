@@ -0,0 +1,136 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.balancer;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.service.cluster.BalanceeLoad;
+import org.kaazing.gateway.service.cluster.ClusterContext;
+import org.kaazing.gateway.service.cluster.MemberId;
+import org.kaazing.gateway.service.cluster.MembershipEventListener;
+import org.kaazing.gateway.service.collections.CollectionsFactory;
+import org.kaazing.gateway.service.collections.MemoryCollectionsFactory;
+import org.kaazing.gateway.transport.TransportFactory;
+
+import com.hazelcast.core.IMap;
+
+public class BalancerTopologyCacheTest {
+
+    private static final String BALANCE_URI = "ws://balancer.example.com:8001/echo";
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final ClusterContext clusterContext = context.mock(ClusterContext.class);
+
+    private CollectionsFactory collectionsFactory;
+    private IMap<String, Collection<String>> balancers;
+    private BalancerTopologyCache topology;
+
+    @Before
+    public void before() {
+        collectionsFactory = new MemoryCollectionsFactory();
+        balancers = collectionsFactory.getMap(HttpBalancerService.BALANCER_MAP_NAME);
+        TransportFactory transportFactory = TransportFactory.newTransportFactory(Collections.<String, Object>emptyMap());
+        topology = new BalancerTopologyCache(singletonList(BALANCE_URI), clusterContext, transportFactory);
+
+        context.checking(new Expectations() {
+            {
+                allowing(clusterContext).getCollectionsFactory();
+                will(returnValue(collectionsFactory));
+                allowing(clusterContext).addMembershipEventListener(with(any(MembershipEventListener.class)));
+                allowing(clusterContext).removeMembershipEventListener(with(any(MembershipEventListener.class)));
+            }
+        });
+    }
+
+    @Test
+    public void shouldTakeSnapshotOnStart() throws Exception {
+        balancers.put(BALANCE_URI, new TreeSet<>(asList("ws://member1.example.com:8001/echo",
+                                                        "wss://member1.example.com:9001/echo")));
+
+        topology.start();
+
+        assertEquals(singletonList("ws://member1.example.com:8001/echo"), topology.getBalanceeURIs(false));
+        assertEquals(singletonList("wss://member1.example.com:9001/echo"), topology.getBalanceeURIs(true));
+        assertTrue(topology.getStaleness() >= 0);
+    }
+
+    @Test
+    public void shouldFollowBalancerMapChanges() throws Exception {
+        topology.start();
+        assertTrue(topology.getBalanceeURIs(false).isEmpty());
+
+        TreeSet<String> balancees = new TreeSet<>(singletonList("ws://member1.example.com:8001/echo"));
+        balancers.putIfAbsent(BALANCE_URI, balancees);
+        assertEquals(singletonList("ws://member1.example.com:8001/echo"), topology.getBalanceeURIs(false));
+
+        TreeSet<String> newBalancees = new TreeSet<>(balancees);
+        newBalancees.add("ws://member2.example.com:8001/echo");
+        balancers.replace(BALANCE_URI, balancees, newBalancees);
+        assertEquals(asList("ws://member1.example.com:8001/echo", "ws://member2.example.com:8001/echo"),
+                topology.getBalanceeURIs(false));
+
+        balancers.put("ws://other.example.com:8001/echo", new TreeSet<>(singletonList("ws://member3.example.com:8001/echo")));
+        assertEquals(2, topology.getBalanceeURIs(false).size());
+
+        balancers.remove(BALANCE_URI, newBalancees);
+        assertTrue(topology.getBalanceeURIs(false).isEmpty());
+    }
+
+    @Test
+    public void shouldFollowPublishedLoads() throws Exception {
+        String balanceeURI = "ws://member1.example.com:8001/echo";
+        IMap<String, BalanceeLoad> loads = collectionsFactory.getMap(HttpBalancerService.BALANCEE_LOAD_MAP_NAME);
+        balancers.put(BALANCE_URI, new TreeSet<>(singletonList(balanceeURI)));
+        loads.put(balanceeURI, new BalanceeLoad(5, 0.5, 0, 1000L));
+
+        topology.start();
+        assertEquals(5, topology.getLoads().get(balanceeURI).getSessionCount());
+
+        loads.put(balanceeURI, new BalanceeLoad(7, 0.5, 0, 2000L));
+        assertEquals(7, topology.getLoads().get(balanceeURI).getSessionCount());
+
+        loads.remove(balanceeURI);
+        assertNull(topology.getLoads().get(balanceeURI));
+    }
+
+    @Test
+    public void shouldStopFollowingBalancerMapWhenStopped() throws Exception {
+        topology.start();
+        topology.stop();
+        long refreshCount = topology.getRefreshCount();
+
+        balancers.put(BALANCE_URI, new TreeSet<>(singletonList("ws://member1.example.com:8001/echo")));
+        topology.memberRemoved(new MemberId("tcp", "member1.example.com", 5941));
+
+        assertEquals(refreshCount, topology.getRefreshCount());
+        assertTrue(topology.getBalanceeURIs(false).isEmpty());
+    }
+}
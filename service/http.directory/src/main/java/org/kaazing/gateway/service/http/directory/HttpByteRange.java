@@ -0,0 +1,160 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.kaazing.gateway.transport.http.HttpUtils;
+
+/**
+ * A satisfiable byte range of a representation, as requested by an RFC 7233 Range header.
+ */
+final class HttpByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    // guards against requests for many small (or overlapping) ranges of the same representation
+    static final int MAXIMUM_RANGE_COUNT = 16;
+
+    private final long first;
+    private final long last;
+
+    HttpByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    long getFirst() {
+        return first;
+    }
+
+    long getLast() {
+        return last;
+    }
+
+    long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Returns the Content-Range header value for this range of a representation of the given length.
+     */
+    String toContentRange(long length) {
+        return "bytes " + first + "-" + last + "/" + length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof HttpByteRange)) {
+            return false;
+        }
+        HttpByteRange that = (HttpByteRange) o;
+        return this.first == that.first && this.last == that.last;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (first * 31 + last);
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+
+    /**
+     * Parses a Range header value against a representation of the given length.
+     *
+     * @return null if the header is absent, malformed or requests too many ranges (so the full representation should be
+     *         sent), an empty list if no requested range is satisfiable, otherwise the satisfiable ranges in request order
+     */
+    static List<HttpByteRange> parse(String range, long length) {
+        if (range == null || !range.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        String[] specs = range.substring(BYTES_UNIT.length()).split(",");
+        if (specs.length > MAXIMUM_RANGE_COUNT) {
+            return null;
+        }
+
+        List<HttpByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
+            }
+
+            String firstPos = spec.substring(0, dash).trim();
+            String lastPos = spec.substring(dash + 1).trim();
+            try {
+                if (firstPos.isEmpty()) {
+                    // suffix-byte-range-spec, the last N bytes
+                    long suffixLength = Long.parseLong(lastPos);
+                    if (suffixLength < 0) {
+                        return null;
+                    }
+                    if (suffixLength > 0 && length > 0) {
+                        ranges.add(new HttpByteRange(Math.max(0, length - suffixLength), length - 1));
+                    }
+                }
+                else {
+                    long first = Long.parseLong(firstPos);
+                    long last = lastPos.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastPos);
+                    if (first < 0 || last < first) {
+                        return null;
+                    }
+                    if (first < length) {
+                        ranges.add(new HttpByteRange(first, Math.min(last, length - 1)));
+                    }
+                }
+            }
+            catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return ranges.isEmpty() ? Collections.<HttpByteRange>emptyList() : ranges;
+    }
+
+    /**
+     * Evaluates an If-Range precondition against the current validators of a representation.
+     *
+     * @return true if the Range header should be honored
+     */
+    static boolean isIfRangeSatisfied(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("W/") || ifRange.startsWith("\"")) {
+            // If-Range requires a strong comparison, which a weak validator never satisfies
+            return !ifRange.startsWith("W/") && etag != null && !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+
+        try {
+            // an HTTP-date only matches when it is exactly the last modification time (to the second)
+            return HttpUtils.parseDateHeader(ifRange) == (lastModified / 1000) * 1000;
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Content coding negotiation and compression for the directory service.
+ */
+final class HttpContentEncodings {
+
+    static final String BROTLI = "br";
+    static final String GZIP = "gzip";
+
+    // in order of preference, brotli is only served from pre-compressed files
+    static final String[] CONTENT_CODINGS = new String[] { BROTLI, GZIP };
+
+    // below this size the gzip framing outweighs any saving
+    static final int MINIMUM_COMPRESSIBLE_LENGTH = 256;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int DEFLATE_CHUNK_SIZE = 8192;
+
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            // raw deflate, the gzip header and trailer are written explicitly
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    };
+
+    private HttpContentEncodings() {
+    }
+
+    /**
+     * Returns the file name extension of pre-compressed siblings for a content coding.
+     */
+    static String getFileExtension(String coding) {
+        return GZIP.equals(coding) ? ".gz" : "." + coding;
+    }
+
+    /**
+     * Returns true if the Accept-Encoding header value allows the given content coding (RFC 7231 section 5.3.4).
+     */
+    static boolean isAcceptable(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] params = element.split(";");
+            String name = params[0].trim();
+            boolean matches = name.equalsIgnoreCase(coding) || (GZIP.equals(coding) && name.equalsIgnoreCase("x-gzip"));
+            boolean isWildcard = "*".equals(name);
+            if (!matches && !isWildcard) {
+                continue;
+            }
+
+            boolean acceptable = getQuality(params) > 0;
+            if (matches) {
+                return acceptable;
+            }
+            wildcard = acceptable;
+        }
+        return wildcard != null && wildcard;
+    }
+
+    /**
+     * Returns true if content of the given type usually compresses well.
+     */
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String type = contentType.toLowerCase();
+        int parameters = type.indexOf(';');
+        if (parameters != -1) {
+            type = type.substring(0, parameters).trim();
+        }
+
+        return type.startsWith("text/") ||
+               type.endsWith("+xml") ||
+               type.endsWith("+json") ||
+               type.equals("application/javascript") ||
+               type.equals("application/x-javascript") ||
+               type.equals("application/ecmascript") ||
+               type.equals("application/json") ||
+               type.equals("application/xml") ||
+               type.equals("image/x-icon");
+    }
+
+    /**
+     * Compresses array-backed content into gzip format, reusing a deflater owned by the calling thread.
+     */
+    static ByteBuffer gzip(ByteBuffer content) {
+        int length = content.remaining();
+        byte[] input = content.array();
+        int offset = content.arrayOffset() + content.position();
+
+        CRC32 crc = new CRC32();
+        crc.update(input, offset, length);
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(input, offset, length);
+        deflater.finish();
+
+        byte[] output = new byte[Math.max(GZIP_HEADER_LENGTH + DEFLATE_CHUNK_SIZE, length / 2)];
+        int size = writeHeader(output);
+        while (!deflater.finished()) {
+            if (output.length - size < DEFLATE_CHUNK_SIZE) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            size += deflater.deflate(output, size, output.length - size);
+        }
+        deflater.reset();
+
+        if (output.length - size < GZIP_TRAILER_LENGTH) {
+            output = Arrays.copyOf(output, size + GZIP_TRAILER_LENGTH);
+        }
+        size = writeIntLE(output, size, (int) crc.getValue());
+        size = writeIntLE(output, size, length);
+
+        return ByteBuffer.wrap(output, 0, size);
+    }
+
+    private static double getQuality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                }
+                catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static int writeHeader(byte[] output) {
+        output[0] = (byte) GZIP_MAGIC;
+        output[1] = (byte) (GZIP_MAGIC >> 8);
+        output[2] = Deflater.DEFLATED;
+        // flags, modification time, extra flags
+        Arrays.fill(output, 3, 9, (byte) 0);
+        // operating system unknown
+        output[9] = (byte) 0xff;
+        return GZIP_HEADER_LENGTH;
+    }
+
+    private static int writeIntLE(byte[] output, int offset, int value) {
+        output[offset] = (byte) value;
+        output[offset + 1] = (byte) (value >> 8);
+        output[offset + 2] = (byte) (value >> 16);
+        output[offset + 3] = (byte) (value >> 24);
+        return offset + 4;
+    }
+}
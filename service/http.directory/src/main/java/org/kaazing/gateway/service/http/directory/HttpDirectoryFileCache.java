@@ -0,0 +1,640 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.kaazing.gateway.transport.http.HttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size-bounded LRU cache of static file content and response metadata for the directory service.
+ *
+ * Files no larger than {@code maxCachedFileSize} are read once into a heap buffer that is shared (by duplication)
+ * by every response. Larger files are memory-mapped, so their content is sent from the page cache without being
+ * copied onto the heap. Mapped bytes are counted against {@code maxMappedSize} rather than the heap budget, and
+ * files too large for it are not held at all, nor is any file when the cache is disabled: such entries have no
+ * content and are streamed from the file by each response (see {@link HttpFileStreamer}).
+ *
+ * Entries are invalidated by a {@link WatchService} registered on the parent directory of each cached file; where
+ * the file system cannot be watched, entries are validated against the file modification time and length on each
+ * lookup instead. Mapped entries are always validated on lookup, as reading a mapping past the end of a truncated
+ * file fails. So are entries streamed from their file, which is reopened by path for each response: it must also still
+ * resolve to the same canonical file, lest a parent directory since replaced by a symbolic link be served without the
+ * access checks made when the entry was loaded.
+ *
+ * Each entry also holds its content codings (see {@link HttpContentEncodings}) once they have been requested.
+ */
+class HttpDirectoryFileCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("service.directory");
+
+    // approximate heap cost of an entry, in addition to any cached content
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final Variant NO_VARIANT = new Variant(null, null, null, ByteBuffer.allocate(0), 0, null);
+
+    private final long maxCacheSize;
+    private final long maxCachedFileSize;
+    private final long maxMappedSize;
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentMap<Path, WatchKey> watchedDirectories;
+
+    private long cacheSize;
+    private long mappedSize;
+    private long invalidations;
+    private WatchService watcher;
+
+    HttpDirectoryFileCache(long maxCacheSize, long maxCachedFileSize, long maxMappedSize) {
+        this.maxCacheSize = maxCacheSize;
+        this.maxCachedFileSize = Math.min(maxCachedFileSize, Integer.MAX_VALUE);
+        this.maxMappedSize = Math.min(maxMappedSize, Integer.MAX_VALUE);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.watchedDirectories = new ConcurrentHashMap<>();
+    }
+
+    boolean isEnabled() {
+        return maxCacheSize > 0;
+    }
+
+    /**
+     * Returns the cached entry for the request path, or null if it is not cached or is no longer valid.
+     */
+    Entry get(String requestPath) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(requestPath);
+        }
+
+        if (entry != null && !isValid(entry)) {
+            invalidate(requestPath);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Loads the file content and metadata, caching the result under the request path when the cache is enabled.
+     * The content is not loaded when the cache is disabled or the file is too large to be held.
+     */
+    Entry load(String requestPath, File file, String contentType) throws IOException {
+        // watch before reading, so that a concurrent change is not lost between reading and caching
+        boolean watched = isEnabled() && watch(file);
+        long generation = getInvalidations();
+
+        File canonicalFile = file.getCanonicalFile();
+        long lastModified = file.lastModified();
+        String etag = HttpUtils.getETagHeaderValue(file);
+        String lastModifiedHeader = HttpUtils.formatDateHeader(lastModified);
+
+        ByteBuffer content = isEnabled() ? readContent(file) : null;
+        boolean mapped = content != null && content.isDirect();
+        long length = (content != null) ? content.remaining() : file.length();
+
+        Entry entry = new Entry(file, canonicalFile, length, lastModified, etag, lastModifiedHeader, contentType, content,
+                mapped);
+        if (isEnabled()) {
+            entry.watched = watched;
+            put(requestPath, entry, generation);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the representation of the entry in the given content coding, or null if there is none. A pre-compressed
+     * sibling file (for example {@code app.js.gz}) is preferred, otherwise compressible content held on the heap is
+     * gzipped. Either way the result is kept with the entry, so that it is only read or compressed once.
+     */
+    Variant getVariant(Entry entry, String coding) throws IOException {
+        Variant variant = entry.variants.get(coding);
+        if (variant == null) {
+            variant = loadVariant(entry, coding);
+            Variant existing = entry.variants.putIfAbsent(coding, variant);
+            if (existing != null) {
+                variant = existing;
+            }
+            else if (variant != NO_VARIANT) {
+                addVariantWeight(entry, variant);
+            }
+        }
+        return (variant != NO_VARIANT) ? variant : null;
+    }
+
+    /**
+     * Returns whether the entry may have a representation in some content coding, without reading or compressing
+     * anything: that is whether it has a pre-compressed sibling file, or compressible content held on the heap.
+     * Responses for such entries vary on Accept-Encoding, whichever coding ends up being selected.
+     */
+    boolean isEncodable(Entry entry) {
+        Boolean encodable = entry.encodable;
+        if (encodable == null) {
+            boolean found = isCompressible(entry);
+            for (int i = 0; !found && i < HttpContentEncodings.CONTENT_CODINGS.length; i++) {
+                found = getSibling(entry, HttpContentEncodings.CONTENT_CODINGS[i]) != null;
+            }
+            entry.encodable = encodable = found;
+        }
+        return encodable;
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+            cacheSize = 0;
+            mappedSize = 0;
+        }
+    }
+
+    void dispose() {
+        clear();
+        WatchService watcher;
+        synchronized (this) {
+            watcher = this.watcher;
+            this.watcher = null;
+        }
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close directory service file watcher", e);
+            }
+        }
+        watchedDirectories.clear();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getCacheSize() {
+        synchronized (entries) {
+            return cacheSize;
+        }
+    }
+
+    long getMappedSize() {
+        synchronized (entries) {
+            return mappedSize;
+        }
+    }
+
+    /**
+     * Drops the entry cached under the request path, such as after its content could not be read.
+     */
+    void invalidate(String requestPath) {
+        synchronized (entries) {
+            Entry entry = entries.remove(requestPath);
+            if (entry != null) {
+                remove(entry);
+            }
+        }
+    }
+
+    private Variant loadVariant(Entry entry, String coding) throws IOException {
+        File sibling = getSibling(entry, coding);
+        if (sibling != null) {
+            ByteBuffer content = isEnabled() ? readContent(sibling) : null;
+            long length = (content != null) ? content.remaining() : sibling.length();
+            return new Variant(coding, sibling, sibling.getCanonicalFile(), content, length, entry.getETag(coding));
+        }
+
+        if (HttpContentEncodings.GZIP.equals(coding) && isCompressible(entry)) {
+            ByteBuffer content = HttpContentEncodings.gzip(entry.getContent());
+            if (content.remaining() < entry.length) {
+                return new Variant(coding, null, null, content, content.remaining(), entry.getETag(coding));
+            }
+        }
+
+        return NO_VARIANT;
+    }
+
+    /**
+     * Returns the pre-compressed sibling file of the entry for the content coding, or null if there is no current one.
+     */
+    private static File getSibling(Entry entry, String coding) {
+        File sibling = new File(entry.file.getPath() + HttpContentEncodings.getFileExtension(coding));
+        boolean current = sibling.isFile() && !Files.isSymbolicLink(sibling.toPath()) &&
+                sibling.lastModified() >= entry.lastModified;
+        return current ? sibling : null;
+    }
+
+    private static boolean isValid(Entry entry) {
+        boolean streamed = entry.isStreamed();
+        if ((!entry.watched || entry.mapped || streamed) && !entry.isCurrent()) {
+            return false;
+        }
+        // streamed files are reopened by path, so must still be the files whose access was checked on load
+        return !streamed || entry.isCanonical();
+    }
+
+    /**
+     * Returns whether the changed file is the file name itself or one of its pre-compressed siblings, comparing whole
+     * names so that a change to {@code app.json} does not invalidate {@code app.js}.
+     */
+    static boolean isSameOrSibling(String fileName, String changedFileName) {
+        if (changedFileName.equals(fileName)) {
+            return true;
+        }
+        for (String coding : HttpContentEncodings.CONTENT_CODINGS) {
+            if (changedFileName.equals(fileName + HttpContentEncodings.getFileExtension(coding))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompressible(Entry entry) {
+        // only content held on the heap is compressed, the result being kept with the entry
+        return entry.content != null && !entry.mapped &&
+                entry.length >= HttpContentEncodings.MINIMUM_COMPRESSIBLE_LENGTH &&
+                HttpContentEncodings.isCompressible(entry.contentType);
+    }
+
+    private void addVariantWeight(Entry entry, Variant variant) {
+        synchronized (entries) {
+            entry.variantWeight += variant.weight();
+            entry.variantMappedSize += variant.mappedSize();
+            if (entry.cached) {
+                cacheSize += variant.weight();
+                mappedSize += variant.mappedSize();
+                evict();
+            }
+        }
+    }
+
+    private long getInvalidations() {
+        synchronized (entries) {
+            return invalidations;
+        }
+    }
+
+    private void put(String requestPath, Entry entry, long generation) {
+        long weight = entry.weight();
+        if (weight > maxCacheSize || entry.mappedSize() > maxMappedSize) {
+            return;
+        }
+
+        synchronized (entries) {
+            if (entry.watched && generation != invalidations) {
+                // a watched file may have changed while it was being read
+                return;
+            }
+
+            Entry previous = entries.put(requestPath, entry);
+            if (previous != null) {
+                remove(previous);
+            }
+            entry.cached = true;
+            cacheSize += weight;
+            mappedSize += entry.mappedSize();
+            evict();
+        }
+    }
+
+    private void evict() {
+        // evict least recently used entries until within budget, dropped mappings are unmapped once unreferenced
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((cacheSize > maxCacheSize || mappedSize > maxMappedSize) && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            remove(eldest);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entry.cached = false;
+        cacheSize -= entry.weight();
+        mappedSize -= entry.mappedSize();
+    }
+
+    private void invalidateDirectory(Path directory, Path changedFile) {
+        synchronized (entries) {
+            invalidations++;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                Path path = entry.file.toPath().toAbsolutePath();
+                // a change to a pre-compressed sibling (such as app.js.gz) also invalidates the file
+                if (directory.equals(path.getParent()) &&
+                        (changedFile == null || isSameOrSibling(path.getFileName().toString(), changedFile.toString()))) {
+                    iterator.remove();
+                    remove(entry);
+                }
+            }
+        }
+    }
+
+    private boolean watch(File file) {
+        Path directory = file.toPath().toAbsolutePath().getParent();
+        if (directory == null) {
+            return false;
+        }
+        if (watchedDirectories.containsKey(directory)) {
+            return true;
+        }
+
+        try {
+            WatchService watcher = getWatcher();
+            WatchKey key = directory.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watchedDirectories.putIfAbsent(directory, key);
+            return true;
+        }
+        catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+            LOGGER.debug(String.format("Unable to watch %s for changes, validating cached files on access", directory), e);
+            return false;
+        }
+    }
+
+    private synchronized WatchService getWatcher() throws IOException {
+        if (watcher == null) {
+            final WatchService newWatcher = FileSystems.getDefault().newWatchService();
+            Thread watcherThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    processEvents(newWatcher);
+                }
+            }, "directory-service-file-watcher");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+            watcher = newWatcher;
+        }
+        return watcher;
+    }
+
+    private void processEvents(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        invalidateDirectory(directory, null);
+                    }
+                    else {
+                        invalidateDirectory(directory, (Path) event.context());
+                    }
+                }
+                if (!key.reset()) {
+                    // directory no longer accessible
+                    watchedDirectories.remove(directory, key);
+                    invalidateDirectory(directory, null);
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e) {
+            // cache disposed
+        }
+    }
+
+    /**
+     * Returns the file content, on the heap or mapped depending on its length, or null if it is too large to be held.
+     */
+    private ByteBuffer readContent(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            long length = channel.size();
+            if (length <= maxCachedFileSize) {
+                return readFully(channel, (int) length);
+            }
+            return (length <= maxMappedSize) ? channel.map(READ_ONLY, 0, length) : null;
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(length);
+        while (content.hasRemaining()) {
+            if (channel.read(content) == -1) {
+                throw new EOFException("File truncated while reading");
+            }
+        }
+        content.flip();
+        return content;
+    }
+
+    static final class Entry {
+        private final File file;
+        private final File canonicalFile;
+        private final long length;
+        private final long lastModified;
+        private final String etag;
+        private final String lastModifiedHeader;
+        private final String contentType;
+        private final ByteBuffer content;
+        private final boolean mapped;
+        private final ConcurrentMap<String, Variant> variants;
+        private volatile boolean watched;
+        private volatile Boolean encodable;
+
+        // guarded by the cache entries lock
+        private boolean cached;
+        private long variantWeight;
+        private long variantMappedSize;
+
+        Entry(File file, File canonicalFile, long length, long lastModified, String etag, String lastModifiedHeader,
+              String contentType, ByteBuffer content, boolean mapped) {
+            this.file = file;
+            this.canonicalFile = canonicalFile;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.lastModifiedHeader = lastModifiedHeader;
+            this.contentType = contentType;
+            this.content = content;
+            this.mapped = mapped;
+            this.variants = new ConcurrentHashMap<>();
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        String getLastModifiedHeader() {
+            return lastModifiedHeader;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        boolean isMapped() {
+            return mapped;
+        }
+
+        /**
+         * Returns a view of the file content with an independent position and limit.
+         *
+         * @return null if the content is not held, and is to be streamed from the file instead
+         */
+        ByteBuffer getContent() {
+            return (content != null) ? content.duplicate() : null;
+        }
+
+        private boolean isCurrent() {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
+        private boolean isStreamed() {
+            if (content == null) {
+                return true;
+            }
+            for (Variant variant : variants.values()) {
+                if (variant.isStreamed()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isCanonical() {
+            if (content == null && !resolvesTo(file, canonicalFile)) {
+                return false;
+            }
+            for (Variant variant : variants.values()) {
+                if (variant.isStreamed() && !resolvesTo(variant.file, variant.canonicalFile)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String getETag(String coding) {
+            // each coding is a distinct representation, so needs a distinct entity tag
+            return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+        }
+
+        private long weight() {
+            // mapped content lives in the page cache rather than on the heap
+            return (content == null || mapped ? ENTRY_OVERHEAD : ENTRY_OVERHEAD + length) + variantWeight;
+        }
+
+        private long mappedSize() {
+            return (mapped ? length : 0) + variantMappedSize;
+        }
+    }
+
+    static final class Variant {
+        private final String coding;
+        private final File file;
+        private final File canonicalFile;
+        private final ByteBuffer content;
+        private final long length;
+        private final String etag;
+
+        Variant(String coding, File file, File canonicalFile, ByteBuffer content, long length, String etag) {
+            this.coding = coding;
+            this.file = file;
+            this.canonicalFile = canonicalFile;
+            this.content = content;
+            this.length = length;
+            this.etag = etag;
+        }
+
+        String getCoding() {
+            return coding;
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        /**
+         * Returns the pre-compressed sibling file, or null if the content was compressed by the cache.
+         */
+        File getFile() {
+            return file;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns a view of the encoded content with an independent position and limit.
+         *
+         * @return null if the content is not held, and is to be streamed from the file instead
+         */
+        ByteBuffer getContent() {
+            return (content != null) ? content.duplicate() : null;
+        }
+
+        private boolean isStreamed() {
+            return content == null && file != null;
+        }
+
+        private long weight() {
+            return (content == null || content.isDirect()) ? ENTRY_OVERHEAD : ENTRY_OVERHEAD + length;
+        }
+
+        private long mappedSize() {
+            return (content != null && content.isDirect()) ? length : 0;
+        }
+    }
+
+    private static boolean resolvesTo(File file, File canonicalFile) {
+        try {
+            return file.getCanonicalFile().equals(canonicalFile);
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HttpDirectoryFileCache [entries=%d, size=%d, maxSize=%d, mappedSize=%d, maxMappedSize=%d]",
+                size(), getCacheSize(), maxCacheSize, getMappedSize(), maxMappedSize);
+    }
+}
@@ -15,6 +15,10 @@
  */
 package org.kaazing.gateway.service.http.directory;
 
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_DIRECTORY_CACHE_MAX_FILE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_DIRECTORY_CACHE_MAX_MAPPED_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.HTTP_DIRECTORY_CACHE_SIZE;
+
 import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
@@ -25,6 +29,9 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+
+import javax.annotation.Resource;
 
 import org.apache.mina.core.session.IoSession;
 import org.kaazing.gateway.resource.address.uri.URIUtils;
@@ -34,6 +41,7 @@ import org.kaazing.gateway.service.ServiceProperties;
 import org.kaazing.gateway.service.http.directory.cachecontrol.ConflictResolverUtils;
 import org.kaazing.gateway.service.http.directory.cachecontrol.PatternCacheControl;
 import org.kaazing.gateway.service.http.directory.cachecontrol.PatternMatcherUtils;
+import org.kaazing.gateway.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,10 +63,16 @@ public class HttpDirectoryService implements Service {
 
     private HttpDirectoryServiceHandler handler;
     private ServiceContext serviceContext;
+    private Properties configuration = new Properties();
 
     public HttpDirectoryService() {
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Override
     public String getType() {
         return "directory";
@@ -117,6 +131,10 @@ public class HttpDirectoryService implements Service {
         handler.setWelcomeFile(welcomeFile);
         handler.setErrorPagesDir(errorPagesDir);
         handler.setPatterns(buildPatternsList(properties));
+        handler.setFileCache(new HttpDirectoryFileCache(
+                Utils.parseDataSize(HTTP_DIRECTORY_CACHE_SIZE.getProperty(configuration)),
+                Utils.parseDataSize(HTTP_DIRECTORY_CACHE_MAX_FILE_SIZE.getProperty(configuration)),
+                Utils.parseDataSize(HTTP_DIRECTORY_CACHE_MAX_MAPPED_SIZE.getProperty(configuration))));
 
         String indexes = properties.get("options");
         if ((indexes != null) && "indexes".equalsIgnoreCase(indexes)) {
@@ -234,6 +252,7 @@ public class HttpDirectoryService implements Service {
         }
         if (handler != null) {
             handler.emptyUrlCacheControlMap();
+            handler.getFileCache().clear();
         }
     }
 
@@ -246,5 +265,8 @@ public class HttpDirectoryService implements Service {
 
     @Override
     public void destroy() throws Exception {
+        if (handler != null) {
+            handler.getFileCache().dispose();
+        }
     }
 }
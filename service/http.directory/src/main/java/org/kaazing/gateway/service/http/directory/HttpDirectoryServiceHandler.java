@@ -15,6 +15,8 @@
  */
 package org.kaazing.gateway.service.http.directory;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -23,6 +25,8 @@ import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -30,6 +34,7 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.ServiceProperties;
@@ -57,10 +62,12 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
     private List<PatternCacheControl> patterns;
     private Map<String, CacheControlHandler> urlCacheControlMap = new ConcurrentHashMap<>();
+    private HttpDirectoryFileCache fileCache = new HttpDirectoryFileCache(0, DEFAULT_MAX_CACHED_FILE_SIZE, 0);
 
     private static final DateFormat RFC822_FORMAT_PATTERN =
             new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.ENGLISH);
     private static final String SYMLINK_RESTRICTED = "restricted";
+    private static final long DEFAULT_MAX_CACHED_FILE_SIZE = 1024 * 1024;
 
     static {
         RFC822_FORMAT_PATTERN.setTimeZone(TimeZone.getTimeZone("GMT"));
@@ -113,6 +120,14 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         urlCacheControlMap.clear();
     }
 
+    void setFileCache(HttpDirectoryFileCache fileCache) {
+        this.fileCache = fileCache;
+    }
+
+    HttpDirectoryFileCache getFileCache() {
+        return fileCache;
+    }
+
     @Override
     public void doSessionCreated(HttpAcceptSession session) throws Exception {
         // NOOP no license check needed
@@ -144,6 +159,216 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         // get relative path from service path
         String pathInfo = session.getPathInfo().getPath();
 
+        // serve from the file cache when possible, skipping file system checks already made for this path
+        HttpDirectoryFileCache.Entry entry = fileCache.get(pathInfo);
+        if (entry == null) {
+            File requestFile = resolveRequestFile(session, pathInfo);
+            if (requestFile == null) {
+                // response already written
+                return;
+            }
+
+            String contentType = serviceContext.getContentType(FileUtils.getFileExtension(requestFile));
+            entry = fileCache.load(pathInfo, requestFile, contentType);
+        }
+
+        File requestFile = entry.getFile();
+
+        String requestPath = requestFile.getPath().replaceAll("\\\\", "/");
+        addCacheControl(session, requestFile, requestPath);
+
+        // choose a content coding, byte ranges are only served from the identity coding
+        String range = (method == HttpMethod.GET) ? session.getReadHeader("Range") : null;
+        HttpDirectoryFileCache.Variant variant = selectVariant(session, entry, range == null);
+
+        // check to see if the file has been modified since the last request
+        String etag = (variant != null) ? variant.getETag() : entry.getETag();
+        boolean modified = HttpUtils.hasBeenModified(session, etag, entry.getLastModified());
+        if (!modified) {
+            // file has not been modified so set status and close session
+            session.setWriteHeader("ETag", etag);
+            session.setWriteHeader("Last-Modified", entry.getLastModifiedHeader());
+            session.setStatus(HttpStatus.REDIRECT_NOT_MODIFIED);
+            session.close(false);
+            return;
+        }
+
+        // add cached content file headers.
+        session.setWriteHeader("Last-Modified", entry.getLastModifiedHeader());
+
+        session.setWriteHeader("ETag", etag);
+
+        // add the content type, based on file extension.
+        String contentType = entry.getContentType();
+        if (contentType != null) {
+            session.setWriteHeader("Content-Type", contentType);
+        }
+
+        session.setWriteHeader("Accept-Ranges", "bytes");
+
+        if (variant != null) {
+            session.setWriteHeader("Content-Encoding", variant.getCoding());
+            session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Long.toString(variant.getLength()));
+            ByteBuffer content = variant.getContent();
+            if (content == null) {
+                new HttpFileStreamer(session, variant.getFile()).addRegion(0, variant.getLength()).start();
+                return;
+            }
+            writeContent(session, pathInfo, Collections.singletonList(content));
+            return;
+        }
+
+        // honor Range requests, ignoring them when If-Range shows the client's copy is out of date
+        if (range != null) {
+            List<HttpByteRange> ranges = HttpByteRange.parse(range, entry.getLength());
+            if (ranges != null &&
+                    HttpByteRange.isIfRangeSatisfied(session.getReadHeader("If-Range"), etag, entry.getLastModified())) {
+                writeRanges(session, pathInfo, entry, ranges);
+                return;
+            }
+        }
+
+        // add content length
+        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Long.toString(entry.getLength()));
+
+        ByteBuffer content = entry.getContent();
+        if (content == null) {
+            // not held by the cache, so stream it from the file
+            new HttpFileStreamer(session, entry.getFile()).addRegion(0, entry.getLength()).start();
+            return;
+        }
+
+        // wrap a view of the cached (or memory-mapped) content, no copy is made
+        writeContent(session, pathInfo, Collections.singletonList(content));
+    }
+
+    /**
+     * Writes content held by the file cache and closes the session.
+     */
+    private void writeContent(HttpAcceptSession session, String pathInfo, List<ByteBuffer> buffers) {
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        try {
+            for (ByteBuffer buf : buffers) {
+                session.write(allocator.wrap(buf));
+            }
+            session.close(false);
+        }
+        catch (InternalError e) {
+            // a memory-mapped file was truncated since the entry was validated, so reload it on the next request
+            fileCache.invalidate(pathInfo);
+            session.close(true);
+        }
+    }
+
+    /**
+     * Returns the most preferred content coding of the entry accepted by the client, or null for the identity coding.
+     * Sets the Vary header if the entry may have any content coding, whether or not one is selected. Only codings
+     * accepted by the client are loaded (or compressed).
+     */
+    private HttpDirectoryFileCache.Variant selectVariant(HttpAcceptSession session, HttpDirectoryFileCache.Entry entry,
+            boolean encode) throws IOException {
+        if (!fileCache.isEncodable(entry)) {
+            return null;
+        }
+        session.setWriteHeader("Vary", "Accept-Encoding");
+
+        String acceptEncoding = session.getReadHeader("Accept-Encoding");
+        if (!encode || acceptEncoding == null) {
+            return null;
+        }
+
+        for (String coding : HttpContentEncodings.CONTENT_CODINGS) {
+            if (HttpContentEncodings.isAcceptable(acceptEncoding, coding)) {
+                HttpDirectoryFileCache.Variant variant = fileCache.getVariant(entry, coding);
+                if (variant != null) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the ranges of the entry content and closes the session, streaming them from the file if the content
+     * is not held by the file cache.
+     */
+    private void writeRanges(HttpAcceptSession session, String pathInfo, HttpDirectoryFileCache.Entry entry,
+            List<HttpByteRange> ranges) {
+        long length = entry.getLength();
+        if (ranges.isEmpty()) {
+            session.setStatus(HttpStatus.CLIENT_REQUEST_RANGE_NOT_SATISFIABLE);
+            session.setWriteHeader("Content-Range", "bytes */" + length);
+            session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, "0");
+            session.close(false);
+            return;
+        }
+
+        session.setStatus(HttpStatus.SUCCESS_PARTIAL_CONTENT);
+
+        ByteBuffer content = entry.getContent();
+        HttpFileStreamer streamer = (content == null) ? new HttpFileStreamer(session, entry.getFile()) : null;
+
+        if (ranges.size() == 1) {
+            HttpByteRange range = ranges.get(0);
+            session.setWriteHeader("Content-Range", range.toContentRange(length));
+            session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Long.toString(range.getLength()));
+            if (streamer != null) {
+                streamer.addRegion(range.getFirst(), range.getLength()).start();
+            }
+            else {
+                writeContent(session, pathInfo, Collections.singletonList(slice(content, range)));
+            }
+            return;
+        }
+
+        // multipart/byteranges, each part is a view of the content between small part header buffers
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        String contentType = entry.getContentType();
+        List<ByteBuffer> parts = new ArrayList<>(ranges.size() * 2 + 1);
+        long contentLength = 0;
+        for (HttpByteRange range : ranges) {
+            StringBuilder partHeader = new StringBuilder();
+            partHeader.append("\r\n--").append(boundary).append("\r\n");
+            if (contentType != null) {
+                partHeader.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            partHeader.append("Content-Range: ").append(range.toContentRange(length)).append("\r\n\r\n");
+            ByteBuffer partHeaderBuf = ByteBuffer.wrap(partHeader.toString().getBytes(US_ASCII));
+            if (streamer != null) {
+                streamer.addBuffer(partHeaderBuf).addRegion(range.getFirst(), range.getLength());
+            }
+            else {
+                parts.add(partHeaderBuf);
+                parts.add(slice(content, range));
+            }
+            contentLength += partHeaderBuf.remaining() + range.getLength();
+        }
+        ByteBuffer trailer = ByteBuffer.wrap(("\r\n--" + boundary + "--\r\n").getBytes(US_ASCII));
+        contentLength += trailer.remaining();
+
+        session.setWriteHeader("Content-Type", "multipart/byteranges; boundary=" + boundary);
+        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Long.toString(contentLength));
+        if (streamer != null) {
+            streamer.addBuffer(trailer).start();
+        }
+        else {
+            parts.add(trailer);
+            writeContent(session, pathInfo, parts);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer content, HttpByteRange range) {
+        content = content.duplicate();
+        content.limit((int) (range.getLast() + 1));
+        content.position((int) range.getFirst());
+        return content;
+    }
+
+    /**
+     * Resolves the file for the request path, checking that it may be served.
+     * @return the file to serve, or null if a redirect, directory listing or error response has been written instead
+     */
+    private File resolveRequestFile(HttpAcceptSession session, String pathInfo) throws Exception {
         // construct file reference from configured base directory
         File requestFile = new File(baseDir, "/" + pathInfo);
         // check if this is a directory reference
@@ -157,7 +382,7 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
                 // TODO: add queryString back for redirect
                 session.setWriteHeader("Location", requestPath + "/");
                 session.close(false);
-                return;
+                return null;
             }
         }
 
@@ -175,7 +400,7 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         if (!underBaseDir) {
             reportError(session, HttpStatus.CLIENT_BAD_REQUEST);
             session.close(false);
-            return;
+            return null;
         }
 
         // Make another check for the file being a directory, return the welcomeFile
@@ -207,7 +432,7 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
                 IoBufferEx buf = allocator.wrap(nioBuf);
                 session.write(buf);
                 session.close(false);
-                return;
+                return null;
             }
         }
 
@@ -215,7 +440,7 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
         if (!requestFile.exists()) {
             reportError(session, HttpStatus.CLIENT_NOT_FOUND);
             session.close(false);
-            return;
+            return null;
         }
 
         ServiceProperties properties = serviceContext.getProperties();
@@ -230,46 +455,11 @@ class HttpDirectoryServiceHandler extends IoHandlerAdapter<HttpAcceptSession> {
             if (SYMLINK_RESTRICTED.equals(followSymlink) && !symLinkUnderBaseDir) {
                 reportError(session, HttpStatus.CLIENT_NOT_FOUND);
                 session.close(false);
-                return;
+                return null;
             }
         }
 
-        String requestPath = requestFile.getPath().replaceAll("\\\\", "/");
-        addCacheControl(session, requestFile, requestPath);
-
-        // check to see if the file has been modified since the last request
-        String etag = HttpUtils.getETagHeaderValue(requestFile);
-        boolean modified = HttpUtils.hasBeenModified(session, etag, requestFile);
-        if (!modified) {
-            // file has not been modified so set status and close session
-            session.setWriteHeader("ETag", etag);
-            session.setWriteHeader("Last-Modified", RFC822_FORMAT_PATTERN.format(requestFile.lastModified()));
-            session.setStatus(HttpStatus.REDIRECT_NOT_MODIFIED);
-            session.close(false);
-            return;
-        }
-
-        // add cached content file headers.
-        HttpUtils.addLastModifiedHeader(session, requestFile);
-
-        session.setWriteHeader("ETag", etag);
-
-        // add the content type, based on file extension.
-        String contentType = serviceContext.getContentType(FileUtils.getFileExtension(requestFile));
-        if (contentType != null) {
-            session.setWriteHeader("Content-Type", contentType);
-        }
-
-        // get io buffer for file
-        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
-        IoBufferEx buf = HttpUtils.getBufferForFile(allocator, requestFile);
-
-        // add content length
-        session.setWriteHeader(HttpHeaders.HEADER_CONTENT_LENGTH, Integer.toString(buf.remaining()));
-
-        // write buffer and close session
-        session.write(buf);
-        session.close(false);
+        return requestFile;
     }
 
     @Override
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the content of a file that is not held by the {@link HttpDirectoryFileCache}, one chunk at a time, reading
+ * the next chunk only once the previous one has been written, so that the file is never held in memory as a whole.
+ * Buffers added in between regions of the file (such as the part headers of multipart/byteranges) are written as is.
+ *
+ * The session is closed once everything has been written, or as soon as the file cannot be read.
+ */
+final class HttpFileStreamer implements IoFutureListener<WriteFuture> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("service.directory");
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final HttpAcceptSession session;
+    private final File file;
+    private final Queue<Object> parts;
+
+    private FileChannel channel;
+
+    HttpFileStreamer(HttpAcceptSession session, File file) {
+        this.session = session;
+        this.file = file;
+        this.parts = new ArrayDeque<>();
+    }
+
+    /**
+     * Adds a region of the file to be written.
+     */
+    HttpFileStreamer addRegion(long position, long length) {
+        parts.add(new Region(position, length));
+        return this;
+    }
+
+    /**
+     * Adds content already in memory to be written.
+     */
+    HttpFileStreamer addBuffer(ByteBuffer buf) {
+        parts.add(buf);
+        return this;
+    }
+
+    /**
+     * Starts writing, which completes asynchronously as the chunks are written.
+     */
+    void start() {
+        writeNext();
+    }
+
+    @Override
+    public void operationComplete(WriteFuture future) {
+        if (future.isWritten()) {
+            writeNext();
+        }
+        else {
+            // peer gone
+            abort(null);
+        }
+    }
+
+    private void writeNext() {
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        try {
+            ByteBuffer buf;
+            while ((buf = nextBuffer(allocator)) != null) {
+                WriteFuture future = session.write(allocator.wrap(buf));
+                if (!future.isDone()) {
+                    // continue once written, rather than queuing up the whole file
+                    future.addListener(this);
+                    return;
+                }
+                if (!future.isWritten()) {
+                    abort(null);
+                    return;
+                }
+            }
+            closeChannel();
+            session.close(false);
+        }
+        catch (IOException e) {
+            abort(e);
+        }
+    }
+
+    private ByteBuffer nextBuffer(IoBufferAllocatorEx<?> allocator) throws IOException {
+        Object part;
+        while ((part = parts.peek()) != null) {
+            if (part instanceof ByteBuffer) {
+                return (ByteBuffer) parts.remove();
+            }
+
+            Region region = (Region) part;
+            if (region.length == 0) {
+                parts.remove();
+                continue;
+            }
+
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), READ);
+            }
+            int size = (int) Math.min(region.length, CHUNK_SIZE);
+            ByteBuffer chunk = allocator.allocate(size);
+            int start = chunk.position();
+            chunk.limit(start + size);
+            while (chunk.hasRemaining()) {
+                int read = channel.read(chunk, region.position);
+                if (read == -1) {
+                    // the response headers already promised more content
+                    throw new EOFException("File truncated while streaming: " + file);
+                }
+                region.position += read;
+                region.length -= read;
+            }
+            chunk.position(start);
+            return chunk;
+        }
+        return null;
+    }
+
+    private void abort(IOException cause) {
+        if (cause != null && LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Unable to stream %s", file), cause);
+        }
+        closeChannel();
+        session.close(true);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                // ignore
+            }
+            channel = null;
+        }
+    }
+
+    private static final class Region {
+        private long position;
+        private long length;
+
+        Region(long position, long length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
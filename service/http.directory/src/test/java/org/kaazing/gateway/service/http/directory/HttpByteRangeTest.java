@@ -0,0 +1,103 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kaazing.gateway.transport.http.HttpUtils;
+
+public class HttpByteRangeTest {
+
+    @Test
+    public void shouldParseSingleRange() {
+        assertEquals(asList(new HttpByteRange(0, 499)), HttpByteRange.parse("bytes=0-499", 1000));
+    }
+
+    @Test
+    public void shouldParseOpenEndedRange() {
+        assertEquals(asList(new HttpByteRange(900, 999)), HttpByteRange.parse("bytes=900-", 1000));
+    }
+
+    @Test
+    public void shouldParseSuffixRange() {
+        assertEquals(asList(new HttpByteRange(800, 999)), HttpByteRange.parse("bytes=-200", 1000));
+        assertEquals(asList(new HttpByteRange(0, 999)), HttpByteRange.parse("bytes=-2000", 1000));
+    }
+
+    @Test
+    public void shouldClampLastPositionToLength() {
+        assertEquals(asList(new HttpByteRange(500, 999)), HttpByteRange.parse("bytes=500-5000", 1000));
+    }
+
+    @Test
+    public void shouldParseMultipleRanges() {
+        assertEquals(asList(new HttpByteRange(0, 0), new HttpByteRange(10, 19), new HttpByteRange(990, 999)),
+                HttpByteRange.parse("bytes=0-0, 10-19,-10", 1000));
+    }
+
+    @Test
+    public void shouldSkipUnsatisfiableRanges() {
+        assertEquals(asList(new HttpByteRange(0, 9)), HttpByteRange.parse("bytes=0-9,2000-3000", 1000));
+        assertEquals(Collections.emptyList(), HttpByteRange.parse("bytes=1000-", 1000));
+        assertEquals(Collections.emptyList(), HttpByteRange.parse("bytes=-0", 1000));
+    }
+
+    @Test
+    public void shouldIgnoreInvalidRanges() {
+        assertNull(HttpByteRange.parse(null, 1000));
+        assertNull(HttpByteRange.parse("items=0-9", 1000));
+        assertNull(HttpByteRange.parse("bytes=9-0", 1000));
+        assertNull(HttpByteRange.parse("bytes=abc", 1000));
+        assertNull(HttpByteRange.parse("bytes=a-b", 1000));
+    }
+
+    @Test
+    public void shouldIgnoreTooManyRanges() {
+        StringBuilder range = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= HttpByteRange.MAXIMUM_RANGE_COUNT; i++) {
+            range.append(',').append(i).append('-').append(i);
+        }
+        assertNull(HttpByteRange.parse(range.toString(), 1000));
+    }
+
+    @Test
+    public void shouldFormatContentRange() {
+        assertEquals("bytes 10-19/1000", new HttpByteRange(10, 19).toContentRange(1000));
+    }
+
+    @Test
+    public void shouldSatisfyIfRangeWithMatchingDate() {
+        long lastModified = 1476748800123L;
+        assertTrue(HttpByteRange.isIfRangeSatisfied(null, "W/\"abc\"", lastModified));
+        assertTrue(HttpByteRange.isIfRangeSatisfied(HttpUtils.formatDateHeader(lastModified), "W/\"abc\"", lastModified));
+        assertFalse(HttpByteRange.isIfRangeSatisfied(HttpUtils.formatDateHeader(lastModified - 5000), "W/\"abc\"",
+                lastModified));
+    }
+
+    @Test
+    public void shouldNotSatisfyIfRangeWithWeakEntityTag() {
+        assertFalse(HttpByteRange.isIfRangeSatisfied("W/\"abc\"", "W/\"abc\"", 0));
+        assertFalse(HttpByteRange.isIfRangeSatisfied("\"abc\"", "W/\"abc\"", 0));
+        assertTrue(HttpByteRange.isIfRangeSatisfied("\"abc\"", "\"abc\"", 0));
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class HttpContentEncodingsTest {
+
+    @Test
+    public void shouldAcceptListedCodings() {
+        assertTrue(HttpContentEncodings.isAcceptable("gzip, deflate, br", "gzip"));
+        assertTrue(HttpContentEncodings.isAcceptable("gzip, deflate, br", "br"));
+        assertTrue(HttpContentEncodings.isAcceptable("x-gzip", "gzip"));
+        assertTrue(HttpContentEncodings.isAcceptable("GZIP;q=0.5", "gzip"));
+    }
+
+    @Test
+    public void shouldNotAcceptMissingOrRefusedCodings() {
+        assertFalse(HttpContentEncodings.isAcceptable(null, "gzip"));
+        assertFalse(HttpContentEncodings.isAcceptable("", "gzip"));
+        assertFalse(HttpContentEncodings.isAcceptable("deflate", "gzip"));
+        assertFalse(HttpContentEncodings.isAcceptable("gzip;q=0", "gzip"));
+        assertFalse(HttpContentEncodings.isAcceptable("gzip; q=0.0, br", "gzip"));
+    }
+
+    @Test
+    public void shouldApplyWildcardUnlessCodingIsListed() {
+        assertTrue(HttpContentEncodings.isAcceptable("*", "br"));
+        assertFalse(HttpContentEncodings.isAcceptable("*;q=0", "br"));
+        assertFalse(HttpContentEncodings.isAcceptable("*, gzip;q=0", "gzip"));
+        assertTrue(HttpContentEncodings.isAcceptable("*;q=0, gzip", "gzip"));
+    }
+
+    @Test
+    public void shouldRecognizeCompressibleContentTypes() {
+        assertTrue(HttpContentEncodings.isCompressible("text/html"));
+        assertTrue(HttpContentEncodings.isCompressible("text/css; charset=UTF-8"));
+        assertTrue(HttpContentEncodings.isCompressible("application/javascript"));
+        assertTrue(HttpContentEncodings.isCompressible("image/svg+xml"));
+        assertFalse(HttpContentEncodings.isCompressible(null));
+        assertFalse(HttpContentEncodings.isCompressible("image/png"));
+        assertFalse(HttpContentEncodings.isCompressible("application/octet-stream"));
+    }
+
+    @Test
+    public void shouldGzipContent() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("function f").append(i).append("() { return ").append(i).append("; }\n");
+        }
+        byte[] content = text.toString().getBytes(UTF_8);
+
+        ByteBuffer compressed = HttpContentEncodings.gzip(ByteBuffer.wrap(content));
+
+        assertTrue(compressed.remaining() < content.length);
+        assertArrayEquals(content, gunzip(compressed));
+    }
+
+    @Test
+    public void shouldGzipIncompressibleContent() throws Exception {
+        byte[] content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+
+        assertArrayEquals(content, gunzip(HttpContentEncodings.gzip(ByteBuffer.wrap(content))));
+        assertArrayEquals(new byte[0], gunzip(HttpContentEncodings.gzip(ByteBuffer.allocate(0))));
+    }
+
+    @Test
+    public void shouldNameGzipSiblingsWithShortExtension() {
+        assertEquals(".gz", HttpContentEncodings.getFileExtension("gzip"));
+        assertEquals(".br", HttpContentEncodings.getFileExtension("br"));
+    }
+
+    private static byte[] gunzip(ByteBuffer buf) throws IOException {
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] chunk = new byte[4096];
+            for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+                out.write(chunk, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HttpDirectoryFileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpDirectoryFileCache cache;
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.dispose();
+        }
+    }
+
+    @Test
+    public void shouldCacheSmallFileContent() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 1024, 1024 * 1024);
+        File file = newFile("small.js", "var x = 1;");
+
+        HttpDirectoryFileCache.Entry entry = cache.load("small.js", file, "text/javascript");
+
+        assertFalse(entry.isMapped());
+        assertEquals("var x = 1;", toString(entry.getContent()));
+        assertEquals("text/javascript", entry.getContentType());
+        assertNotNull(entry.getETag());
+        assertSame(entry, cache.get("small.js"));
+    }
+
+    @Test
+    public void shouldMapLargeFile() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4, 1024 * 1024);
+        File file = newFile("large.js", "var large = true;");
+
+        HttpDirectoryFileCache.Entry entry = cache.load("large.js", file, null);
+
+        assertTrue(entry.isMapped());
+        assertTrue(entry.getContent().isDirect());
+        assertEquals("var large = true;", toString(entry.getContent()));
+    }
+
+    @Test
+    public void shouldShareContentWithIndependentPositions() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 1024, 1024 * 1024);
+        File file = newFile("shared.js", "shared");
+
+        HttpDirectoryFileCache.Entry entry = cache.load("shared.js", file, null);
+        ByteBuffer first = entry.getContent();
+        first.position(first.limit());
+
+        assertEquals("shared", toString(entry.getContent()));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() throws Exception {
+        File a = newFile("a.txt", "0123456789");
+        File b = newFile("b.txt", "0123456789");
+        File c = newFile("c.txt", "0123456789");
+
+        cache = new HttpDirectoryFileCache(2 * 256 + 20, 1024, 1024 * 1024);
+        cache.load("a", a, null);
+        cache.load("b", b, null);
+        cache.get("a");
+        cache.load("c", c, null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() throws Exception {
+        cache = new HttpDirectoryFileCache(0, 1024, 1024 * 1024);
+        File file = newFile("disabled.txt", "content");
+
+        HttpDirectoryFileCache.Entry entry = cache.load("disabled.txt", file, null);
+
+        // streamed from the file instead
+        assertNull(entry.getContent());
+        assertEquals(7, entry.getLength());
+        assertNull(cache.get("disabled.txt"));
+    }
+
+    @Test
+    public void shouldStreamFileTooLargeToMap() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4, 8);
+        File file = newFile("huge.js", "var huge = true;");
+
+        HttpDirectoryFileCache.Entry entry = cache.load("huge.js", file, null);
+
+        assertFalse(entry.isMapped());
+        assertNull(entry.getContent());
+        assertEquals(16, entry.getLength());
+        assertEquals(0, cache.getMappedSize());
+    }
+
+    @Test
+    public void shouldEvictMappedFilesBeyondMappedSize() throws Exception {
+        File a = newFile("a.txt", "0123456789");
+        File b = newFile("b.txt", "0123456789");
+        File c = newFile("c.txt", "0123456789");
+
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4, 25);
+        cache.load("a", a, null);
+        cache.load("b", b, null);
+        assertEquals(20, cache.getMappedSize());
+        cache.get("a");
+        cache.load("c", c, null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(20, cache.getMappedSize());
+    }
+
+    @Test
+    public void shouldInvalidateTruncatedMappedFile() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4, 1024 * 1024);
+        File file = newFile("truncated.js", "var truncated = false;");
+        HttpDirectoryFileCache.Entry entry = cache.load("truncated.js", file, null);
+        assertTrue(entry.isMapped());
+
+        // checked on lookup even when the directory is watched, rather than reading past the end of the file
+        Files.write(file.toPath(), "var t;".getBytes(UTF_8));
+
+        assertNull(cache.get("truncated.js"));
+        assertEquals(0, cache.getMappedSize());
+    }
+
+    @Test(timeout = 30000)
+    public void shouldInvalidateModifiedFile() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 1024, 1024 * 1024);
+        File file = newFile("changing.txt", "before");
+        cache.load("changing.txt", file, null);
+
+        Files.write(file.toPath(), "after!".getBytes(UTF_8));
+        file.setLastModified(file.lastModified() + 2000);
+
+        while (cache.get("changing.txt") != null) {
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void shouldPreferPrecompressedSibling() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 1024, 1024 * 1024);
+        File file = newFile("app.js", "var app = true;");
+        newFile("app.js.br", "brotli");
+        file.setLastModified(file.lastModified() - 2000);
+
+        HttpDirectoryFileCache.Entry entry = cache.load("app.js", file, "application/javascript");
+        HttpDirectoryFileCache.Variant variant = cache.getVariant(entry, "br");
+
+        assertEquals("brotli", toString(variant.getContent()));
+        assertFalse(entry.getETag().equals(variant.getETag()));
+        assertSame(variant, cache.getVariant(entry, "br"));
+    }
+
+    @Test
+    public void shouldGzipCompressibleContent() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4096, 1024 * 1024);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("<p>paragraph ").append(i).append("</p>\n");
+        }
+        File file = newFile("page.html", content.toString());
+
+        HttpDirectoryFileCache.Entry entry = cache.load("page.html", file, "text/html");
+        HttpDirectoryFileCache.Variant variant = cache.getVariant(entry, "gzip");
+
+        assertNotNull(variant);
+        assertTrue(variant.getLength() < entry.getLength());
+        assertTrue(cache.getCacheSize() > entry.getLength() + variant.getLength());
+        assertNull(cache.getVariant(entry, "br"));
+    }
+
+    @Test
+    public void shouldNotGzipSmallOrIncompressibleContent() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4096, 1024 * 1024);
+        File small = newFile("small.html", "<p>small</p>");
+        File image = newFile("image.png", new String(new char[1024]));
+
+        assertNull(cache.getVariant(cache.load("small.html", small, "text/html"), "gzip"));
+        assertNull(cache.getVariant(cache.load("image.png", image, "image/png"), "gzip"));
+    }
+
+    @Test
+    public void shouldInvalidateStreamedFileResolvingToAnotherFile() throws Exception {
+        cache = new HttpDirectoryFileCache(1024 * 1024, 4, 8);
+        File directory = folder.newFolder("assets");
+        File file = new File(directory, "huge.js");
+        Files.write(file.toPath(), "var huge = true;".getBytes(UTF_8));
+        assertNull(cache.load("assets/huge.js", file, null).getContent());
+        assertNotNull(cache.get("assets/huge.js"));
+
+        // same length and modification time, but no longer the file that was loaded
+        File other = folder.newFolder("other");
+        File otherFile = new File(other, "huge.js");
+        Files.write(otherFile.toPath(), "var evil = true;".getBytes(UTF_8));
+        otherFile.setLastModified(file.lastModified());
+        Files.move(directory.toPath(), folder.getRoot().toPath().resolve("assets.old"));
+        Files.createSymbolicLink(directory.toPath(), other.toPath());
+
+        assertNull(cache.get("assets/huge.js"));
+    }
+
+    @Test
+    public void shouldMatchWholeFileNamesOfChangedFiles() {
+        assertTrue(HttpDirectoryFileCache.isSameOrSibling("app.js", "app.js"));
+        assertTrue(HttpDirectoryFileCache.isSameOrSibling("app.js", "app.js.gz"));
+        assertTrue(HttpDirectoryFileCache.isSameOrSibling("app.js", "app.js.br"));
+        assertFalse(HttpDirectoryFileCache.isSameOrSibling("app.js", "app.json"));
+        assertFalse(HttpDirectoryFileCache.isSameOrSibling("app.js", "app.js.map"));
+        assertFalse(HttpDirectoryFileCache.isSameOrSibling("app.js.gz", "app.js"));
+    }
+
+    private File newFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+        return file;
+    }
+
+    private static String toString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -15,29 +15,53 @@
  */
 package org.kaazing.gateway.service.http.directory;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.apache.mina.core.future.DefaultWriteFuture;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.TestRule;
+import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.ServiceProperties;
 import org.kaazing.gateway.transport.http.HttpAcceptSession;
 import org.kaazing.gateway.transport.http.HttpMethod;
 import org.kaazing.gateway.transport.http.HttpStatus;
+import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.test.util.MethodExecutionTrace;
 
 public class HttpDirectoryServiceHandlerTest {
     @Rule
     public TestRule testExecutionTrace = new MethodExecutionTrace();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder outsideFolder = new TemporaryFolder();
+
     private Mockery mockery;
     private HttpDirectoryServiceHandler handler;
+    private int sessions;
 
     @Before
     public void setup() {
@@ -50,6 +74,11 @@ public class HttpDirectoryServiceHandlerTest {
         handler.setBaseDir(new File("." + File.pathSeparator)); // current directory
     }
 
+    @After
+    public void tearDown() {
+        handler.getFileCache().dispose();
+    }
+
     @Test
     public void test404NoCustomErrorPagesDir() {
         final HttpAcceptSession session = mockery.mock(HttpAcceptSession.class);
@@ -95,4 +124,251 @@ public class HttpDirectoryServiceHandlerTest {
         }
         mockery.assertIsSatisfied();
     }
+
+    @Test
+    public void shouldNotCompressWhenClientDoesNotAcceptEncoding() throws Exception {
+        HttpDirectoryFileCache cache = serveFrom(1024 * 1024, "page.html", HTML);
+
+        Response response = serve("/page.html", Collections.<String, String>emptyMap());
+
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals(HTML, response.body());
+        // nothing was compressed just to find out that the response varies
+        assertEquals(cachedWeight(HTML), cache.getCacheSize());
+    }
+
+    @Test
+    public void shouldNotCompressRangeRequest() throws Exception {
+        HttpDirectoryFileCache cache = serveFrom(1024 * 1024, "page.html", HTML);
+
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put("Accept-Encoding", "gzip");
+        requestHeaders.put("Range", "bytes=0-9");
+        Response response = serve("/page.html", requestHeaders);
+
+        assertEquals(HttpStatus.SUCCESS_PARTIAL_CONTENT, response.status);
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals(HTML.substring(0, 10), response.body());
+        assertEquals(cachedWeight(HTML), cache.getCacheSize());
+    }
+
+    @Test
+    public void shouldCompressWhenClientAcceptsEncoding() throws Exception {
+        HttpDirectoryFileCache cache = serveFrom(1024 * 1024, "page.html", HTML);
+
+        Response response = serve("/page.html", Collections.singletonMap("Accept-Encoding", "gzip"));
+
+        assertEquals("Accept-Encoding", response.headers.get("Vary"));
+        assertEquals("gzip", response.headers.get("Content-Encoding"));
+        assertEquals(Integer.toString(response.body.size()), response.headers.get("Content-Length"));
+        assertEquals(true, cache.getCacheSize() > cachedWeight(HTML));
+    }
+
+    @Test
+    public void shouldNotVaryWhenNotEncodable() throws Exception {
+        serveFrom(1024 * 1024, "image.png", HTML);
+
+        Response response = serve("/image.png", Collections.singletonMap("Accept-Encoding", "gzip"));
+
+        assertNull(response.headers.get("Vary"));
+        assertNull(response.headers.get("Content-Encoding"));
+        assertEquals(HTML, response.body());
+    }
+
+    @Test
+    public void shouldWriteSingleRange() throws Exception {
+        assertSingleRange(1024 * 1024);
+    }
+
+    @Test
+    public void shouldStreamSingleRangeWhenNotCached() throws Exception {
+        assertSingleRange(0);
+    }
+
+    @Test
+    public void shouldWriteMultipleRanges() throws Exception {
+        assertMultipleRanges(1024 * 1024);
+    }
+
+    @Test
+    public void shouldStreamMultipleRangesWhenNotCached() throws Exception {
+        assertMultipleRanges(0);
+    }
+
+    @Test
+    public void shouldRejectUnsatisfiableRange() throws Exception {
+        serveFrom(1024 * 1024, "range.txt", TEXT);
+
+        Response response = serve("/range.txt", Collections.singletonMap("Range", "bytes=100-"));
+
+        assertEquals(HttpStatus.CLIENT_REQUEST_RANGE_NOT_SATISFIABLE, response.status);
+        assertEquals("bytes */20", response.headers.get("Content-Range"));
+        assertEquals("0", response.headers.get("Content-Length"));
+        assertEquals("", response.body());
+    }
+
+    @Test
+    public void shouldNotStreamCachedFileOnceParentDirectoryIsReplacedBySymbolicLink() throws Exception {
+        // too large to be held, so cached without content and streamed from the file by each response
+        serveFrom(new HttpDirectoryFileCache(1024 * 1024, 4, 8), "assets/range.txt", TEXT);
+        assertEquals(TEXT, serve("/assets/range.txt", Collections.<String, String>emptyMap()).body());
+
+        File assets = new File(folder.getRoot(), "assets");
+        File outside = outsideFolder.newFile("range.txt");
+        Files.write(outside.toPath(), "outside of base dir!".getBytes(UTF_8));
+        outside.setLastModified(new File(assets, "range.txt").lastModified());
+        Files.move(assets.toPath(), new File(folder.getRoot(), "assets.old").toPath());
+        Files.createSymbolicLink(assets.toPath(), outsideFolder.getRoot().toPath());
+
+        Response response = serve("/assets/range.txt", Collections.<String, String>emptyMap());
+
+        assertEquals(HttpStatus.CLIENT_BAD_REQUEST, response.status);
+        assertEquals("", response.body());
+    }
+
+    private void assertSingleRange(long cacheSize) throws Exception {
+        serveFrom(cacheSize, "range.txt", TEXT);
+
+        Response response = serve("/range.txt", Collections.singletonMap("Range", "bytes=5-9"));
+
+        assertEquals(HttpStatus.SUCCESS_PARTIAL_CONTENT, response.status);
+        assertEquals("bytes 5-9/20", response.headers.get("Content-Range"));
+        assertEquals("5", response.headers.get("Content-Length"));
+        assertEquals("text/plain", response.headers.get("Content-Type"));
+        assertEquals("56789", response.body());
+    }
+
+    private void assertMultipleRanges(long cacheSize) throws Exception {
+        serveFrom(cacheSize, "range.txt", TEXT);
+
+        Response response = serve("/range.txt", Collections.singletonMap("Range", "bytes=0-1,-3"));
+
+        assertEquals(HttpStatus.SUCCESS_PARTIAL_CONTENT, response.status);
+        assertNull(response.headers.get("Content-Range"));
+        String contentType = response.headers.get("Content-Type");
+        String prefix = "multipart/byteranges; boundary=";
+        assertEquals(prefix, contentType.substring(0, prefix.length()));
+        String boundary = contentType.substring(prefix.length());
+
+        String expected =
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 0-1/20\r\n\r\n" +
+                "01" +
+                "\r\n--" + boundary + "\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Range: bytes 17-19/20\r\n\r\n" +
+                "hij" +
+                "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, response.body());
+        assertEquals(Integer.toString(expected.length()), response.headers.get("Content-Length"));
+    }
+
+    private static final String TEXT = "0123456789abcdefghij";
+
+    private static final String HTML;
+    static {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 64; i++) {
+            html.append("<p>compressible</p>");
+        }
+        HTML = html.append("</body></html>").toString();
+    }
+
+    private static long cachedWeight(String content) {
+        // entry overhead and content held on the heap
+        return 256 + content.length();
+    }
+
+    private HttpDirectoryFileCache serveFrom(long cacheSize, String fileName, String content) throws Exception {
+        return serveFrom(new HttpDirectoryFileCache(cacheSize, 1024 * 1024, 1024 * 1024), fileName, content);
+    }
+
+    private HttpDirectoryFileCache serveFrom(HttpDirectoryFileCache cache, String fileName, String content)
+            throws Exception {
+        File baseDir = folder.getRoot();
+        File file = new File(baseDir, fileName);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+        handler.setBaseDir(baseDir);
+        handler.setPatterns(Collections.emptyList());
+        handler.setFileCache(cache);
+
+        final ServiceContext serviceContext = mockery.mock(ServiceContext.class);
+        final ServiceProperties properties = mockery.mock(ServiceProperties.class);
+        mockery.checking(new Expectations() {
+            {
+                allowing(serviceContext).getContentType("html"); will(returnValue("text/html"));
+                allowing(serviceContext).getContentType("png"); will(returnValue("image/png"));
+                allowing(serviceContext).getContentType("txt"); will(returnValue("text/plain"));
+                allowing(serviceContext).getProperties(); will(returnValue(properties));
+                allowing(properties).get("symbolic-links"); will(returnValue(null));
+            }
+        });
+        handler.setServiceContext(serviceContext);
+        return cache;
+    }
+
+    private Response serve(String path, final Map<String, String> requestHeaders) throws Exception {
+        final HttpAcceptSession session = mockery.mock(HttpAcceptSession.class, "session" + ++sessions);
+        final Response response = new Response();
+        mockery.checking(new Expectations() {
+            {
+                allowing(session).getMethod(); will(returnValue(HttpMethod.GET));
+                allowing(session).getPathInfo(); will(returnValue(URI.create(path)));
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                allowing(session).getReadHeader(with(any(String.class)));
+                will(new CustomAction("read header") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        return requestHeaders.get(invocation.getParameter(0));
+                    }
+                });
+                allowing(session).setWriteHeader(with(any(String.class)), with(any(String.class)));
+                will(new CustomAction("write header") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        response.headers.put((String) invocation.getParameter(0), (String) invocation.getParameter(1));
+                        return null;
+                    }
+                });
+                allowing(session).setStatus(with(any(HttpStatus.class)));
+                will(new CustomAction("status") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        response.status = (HttpStatus) invocation.getParameter(0);
+                        return null;
+                    }
+                });
+                allowing(session).write(with(any(IoBufferEx.class)));
+                will(new CustomAction("write") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        IoBufferEx buf = (IoBufferEx) invocation.getParameter(0);
+                        byte[] bytes = new byte[buf.remaining()];
+                        buf.get(bytes);
+                        response.body.write(bytes);
+                        return DefaultWriteFuture.newWrittenFuture(session);
+                    }
+                });
+                oneOf(session).close(false);
+            }
+        });
+
+        handler.doSessionOpened(session);
+        mockery.assertIsSatisfied();
+        return response;
+    }
+
+    private static final class Response {
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private HttpStatus status = HttpStatus.SUCCESS_OK;
+
+        private String body() {
+            return new String(body.toByteArray(), UTF_8);
+        }
+    }
 }
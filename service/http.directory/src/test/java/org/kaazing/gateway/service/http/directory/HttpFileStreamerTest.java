@@ -0,0 +1,164 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.http.directory;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.kaazing.gateway.service.http.directory.HttpFileStreamer.CHUNK_SIZE;
+import static org.kaazing.mina.core.buffer.SimpleBufferAllocator.BUFFER_ALLOCATOR;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.jmock.Expectations;
+import org.jmock.Sequence;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+
+public class HttpFileStreamerTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private HttpAcceptSession session;
+    private File file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        session = context.mock(HttpAcceptSession.class);
+        content = new byte[2 * CHUNK_SIZE + 100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = folder.newFile("streamed.bin");
+        Files.write(file.toPath(), content);
+    }
+
+    @Test
+    public void shouldWriteFileInChunks() throws Exception {
+        final Sequence writes = context.sequence("writes");
+        context.checking(new Expectations() {
+            {
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                exactly(3).of(session).write(with(any(IoBufferEx.class))); inSequence(writes);
+                will(write(DefaultWriteFuture.newWrittenFuture(session)));
+                oneOf(session).close(false); inSequence(writes);
+            }
+        });
+
+        new HttpFileStreamer(session, file).addRegion(0, content.length).start();
+
+        assertEquals(Arrays.toString(content), Arrays.toString(written.toByteArray()));
+    }
+
+    @Test
+    public void shouldWaitForChunkToBeWrittenBeforeReadingNext() throws Exception {
+        final DefaultWriteFuture pending = new DefaultWriteFuture(session);
+        final Sequence writes = context.sequence("writes");
+        context.checking(new Expectations() {
+            {
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                oneOf(session).write(with(any(IoBufferEx.class))); inSequence(writes);
+                will(write(pending));
+            }
+        });
+
+        new HttpFileStreamer(session, file).addRegion(10, 2 * CHUNK_SIZE).start();
+        context.assertIsSatisfied();
+        assertEquals(CHUNK_SIZE, written.size());
+
+        context.checking(new Expectations() {
+            {
+                oneOf(session).write(with(any(IoBufferEx.class))); inSequence(writes);
+                will(write(DefaultWriteFuture.newWrittenFuture(session)));
+                oneOf(session).close(false); inSequence(writes);
+            }
+        });
+        pending.setWritten();
+
+        byte[] expected = Arrays.copyOfRange(content, 10, 10 + 2 * CHUNK_SIZE);
+        assertEquals(Arrays.toString(expected), Arrays.toString(written.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteBuffersBetweenRegions() throws Exception {
+        context.checking(new Expectations() {
+            {
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                exactly(5).of(session).write(with(any(IoBufferEx.class)));
+                will(write(DefaultWriteFuture.newWrittenFuture(session)));
+                oneOf(session).close(false);
+            }
+        });
+
+        new HttpFileStreamer(session, file)
+            .addBuffer(ByteBuffer.wrap("[".getBytes(US_ASCII)))
+            .addRegion(0, 2)
+            .addBuffer(ByteBuffer.wrap("|".getBytes(US_ASCII)))
+            .addRegion(4, 2)
+            .addBuffer(ByteBuffer.wrap("]".getBytes(US_ASCII)))
+            .start();
+
+        byte[] expected = { '[', 0, 1, '|', 4, 5, ']' };
+        assertEquals(Arrays.toString(expected), Arrays.toString(written.toByteArray()));
+    }
+
+    @Test
+    public void shouldCloseWhenFileTruncated() throws Exception {
+        context.checking(new Expectations() {
+            {
+                allowing(session).getBufferAllocator(); will(returnValue(BUFFER_ALLOCATOR));
+                oneOf(session).close(true);
+            }
+        });
+
+        Files.write(file.toPath(), new byte[10]);
+
+        new HttpFileStreamer(session, file).addRegion(0, content.length).start();
+    }
+
+    private Action write(final WriteFuture future) {
+        return new CustomAction("write") {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                IoBufferEx buf = (IoBufferEx) invocation.getParameter(0);
+                byte[] bytes = new byte[buf.remaining()];
+                buf.get(bytes);
+                written.write(bytes);
+                return future;
+            }
+        };
+    }
+}
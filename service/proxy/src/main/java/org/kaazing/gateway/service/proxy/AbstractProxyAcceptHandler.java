@@ -27,6 +27,8 @@ import org.kaazing.mina.core.session.IoSessionEx;
 
 public abstract class AbstractProxyAcceptHandler extends AbstractProxyHandler {
 
+    static final String DUPLICATE_FILTER = "duplicate";
+
     private AbstractProxyHandler connectHandler;
     private Collection<String> connectURIs;
     private ServiceConnectManager serviceConnectManager = null;
@@ -56,9 +58,8 @@ public abstract class AbstractProxyAcceptHandler extends AbstractProxyHandler {
     }
 
     public void initServiceConnectManager(BridgeServiceFactory bridgeServiceFactory) {
-        String connectURI = connectURIs.iterator().next();
         serviceConnectManager = new ServiceConnectManager(getServiceContext(), getConnectHandler(),
-                bridgeServiceFactory, connectURI, getMaximumRecoveryInterval(), getPreparedConnectionCount());
+                bridgeServiceFactory, connectURIs, getMaximumRecoveryInterval(), getPreparedConnectionCount());
     }
 
     public void startServiceConnectManager() {
@@ -91,7 +92,7 @@ public abstract class AbstractProxyAcceptHandler extends AbstractProxyHandler {
         IoFilterChain filterChain = session.getFilterChain();
         IoSessionEx sessionEx = (IoSessionEx) session;
         IoBufferAllocatorEx<?> allocator = sessionEx.getBufferAllocator();
-        filterChain.addLast("duplicate", new DuplicateBufferFilter(allocator));
+        filterChain.addLast(DUPLICATE_FILTER, new DuplicateBufferFilter(allocator));
     }
 
     @Override
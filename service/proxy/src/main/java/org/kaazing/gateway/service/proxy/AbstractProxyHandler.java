@@ -18,6 +18,7 @@ package org.kaazing.gateway.service.proxy;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -34,6 +35,8 @@ import org.kaazing.gateway.service.ServiceContext;
 import org.kaazing.gateway.service.proxy.ProxyConnectStrategy.Strategy;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.kaazing.mina.core.session.IoSessionEx;
 import org.kaazing.mina.filter.util.WriteRequestFilterEx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,6 +93,15 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         if (detachedSession != null) {
             detachedSession.close(false);
         }
+
+        // return pooled buffers of messages that were never flushed
+        Queue<Object> messageQueue = getMessageQueue(session);
+        while (messageQueue != null && !messageQueue.isEmpty()) {
+            Object queuedMessage = messageQueue.poll();
+            if (queuedMessage instanceof IoBufferEx) {
+                PooledBufferAllocator.release((IoBufferEx) queuedMessage);
+            }
+        }
     }
 
     public void setServiceContext(ServiceContext serviceContext) {
@@ -117,7 +129,8 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
             // write current message
             attachedSessionManager.writeMessage(session, message);
         } else if (messageQueue != null && !session.isClosing()) {
-            // queue message unless closing
+            // queue message unless closing, keeping a pooled read buffer until the message has been flushed
+            retainPooledBuffer(message);
             messageQueue.add(message);
         }
     }
@@ -205,7 +218,26 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
         while (messageQueue != null && !messageQueue.isEmpty()) {
             Object queuedMessage = messageQueue.poll();
             attachedSessionManager.writeMessage(session, queuedMessage);
+            if (queuedMessage instanceof IoBufferEx) {
+                PooledBufferAllocator.release((IoBufferEx) queuedMessage);
+            }
+        }
+    }
+
+    /**
+     * Keeps a message read into a pooled buffer, as done when reading TCP data without copying, from returning to the
+     * pool once the message received event completes.
+     *
+     * @return the retained buffer to release once the message is no longer needed, or null if it is not pooled
+     */
+    static ByteBuffer retainPooledBuffer(Object message) {
+        if (message instanceof IoBufferEx) {
+            IoBufferEx buf = (IoBufferEx) message;
+            if (PooledBufferAllocator.retain(buf)) {
+                return buf.buf();
+            }
         }
+        return null;
     }
 
     @SuppressWarnings("unchecked")
@@ -218,15 +250,38 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
     }
 
     protected AttachedSessionManager attachSessions(IoSession session, IoSession attachedSession) {
+        boolean threadAffine = isThreadAffine(session, attachedSession);
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("[" + session.getId() + "->" + attachedSession.getId() + "] attaching sessions");
+            LOGGER.debug("[" + session.getId() + "->" + attachedSession.getId() + "] attaching sessions"
+                    + (threadAffine ? " on the same I/O thread" : ""));
+        }
+        AttachedSessionManager attachedSessionManager;
+        if (threadAffine) {
+            attachedSessionManager = new ThreadAffineSessionManager(session, attachedSession);
+            attachedSession.setAttribute(ATTACHED_SESSION_KEY, new ThreadAffineSessionManager(attachedSession, session));
+        }
+        else {
+            attachedSessionManager = new AttachedSessionManager(attachedSession);
+            attachedSession.setAttribute(ATTACHED_SESSION_KEY, new AttachedSessionManager(session));
         }
-        AttachedSessionManager attachedSessionManager = new AttachedSessionManager(attachedSession);
         session.setAttribute(ATTACHED_SESSION_KEY, attachedSessionManager);
-        attachedSession.setAttribute(ATTACHED_SESSION_KEY, new AttachedSessionManager(session));
         return attachedSessionManager;
     }
 
+    /**
+     * Returns whether both sessions run on the same I/O thread, as is the case when the connect session comes from the
+     * connection pool of the I/O thread of the accept session.
+     */
+    static boolean isThreadAffine(IoSession session, IoSession attachedSession) {
+        if (!(session instanceof IoSessionEx) || !(attachedSession instanceof IoSessionEx)) {
+            return false;
+        }
+        IoSessionEx sessionEx = (IoSessionEx) session;
+        IoSessionEx attachedSessionEx = (IoSessionEx) attachedSession;
+        return sessionEx.isIoAligned() && attachedSessionEx.isIoAligned()
+                && sessionEx.getIoThread() == attachedSessionEx.getIoThread();
+    }
+
     static IoSession detachSessions(IoSession session) {
         AttachedSessionManager detached = (AttachedSessionManager) session.removeAttribute(ATTACHED_SESSION_KEY);
         IoSession detachedSession = null;
@@ -285,7 +340,7 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                 // if maximum transferred bytes is zero, then we don't write anything
                 return;
             default:
-                int newTotalTransferredBytes = totalTransferredBytes.addAndGet(bytesWritten);
+                int newTotalTransferredBytes = addTransferredBytes(bytesWritten);
                 // simplify the check to write or not, maximizing the opportunity to drain
                 if (newTotalTransferredBytes > sessionMaximumTransferredBytes) {
 
@@ -301,6 +356,14 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                 break;
             }
 
+            scheduleWrite(sourceSession, message, bytesWritten);
+        }
+
+        int addTransferredBytes(int bytesWritten) {
+            return totalTransferredBytes.addAndGet(bytesWritten);
+        }
+
+        void scheduleWrite(final IoSession sourceSession, Object message, final int bytesWritten) {
             int newScheduledWriteBytes = scheduledWriteBytes.addAndGet(bytesWritten);
             if (newScheduledWriteBytes > maximumPendingBytes) {
                 if (LOGGER.isDebugEnabled()) {
@@ -316,11 +379,15 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
                     sourceSession.suspendRead();
                 }
             }
+            final ByteBuffer pooledBuf = retainPooledBuffer(message);
             // Add the FutureListener after suspending to ensure the FutureListener sees it is suspended
             WriteFuture future = attachedSession.write(message);
             future.addListener(new IoFutureListener<WriteFuture>() {
                 @Override
                 public void operationComplete(WriteFuture future) {
+                    if (pooledBuf != null) {
+                        PooledBufferAllocator.release(pooledBuf);
+                    }
                     int newScheduledWriteBytes = scheduledWriteBytes.addAndGet(-bytesWritten);
                     // Use <= to ensure we resume read in case where both values are 0
                     if (readSuspended.get() && newScheduledWriteBytes <= thresholdPendingBytes) {
@@ -341,6 +408,138 @@ public abstract class AbstractProxyHandler extends IoHandlerAdapter {
 
     }
 
+    // Manages an attached session running on the same I/O thread as its source session, where messages are received
+    // and write futures complete, so that suspending and resuming reads needs no guarding and the bytes scheduled for
+    // write can be tracked with plain counters. Pending writes are kept in a ring buffer and a single listener serves
+    // all of them, allocating nothing per message once the ring buffer has grown to the usual number of pending writes.
+    // Writes mostly complete in the order they were made, but a write failed straight away, for instance on a closing
+    // session, completes ahead of the earlier ones, so each completion is matched to its entry by its write future.
+    private final class ThreadAffineSessionManager extends AttachedSessionManager
+            implements IoFutureListener<WriteFuture> {
+        // marks an entry whose write future has not been returned yet
+        private final Object writeInProgress = new Object();
+
+        private final IoSessionEx sourceSession;
+        private int scheduledWriteBytes;
+        private boolean readSuspended;
+        private int totalTransferredBytes;
+
+        private int[] pendingWriteBytes = new int[16];
+        private ByteBuffer[] pendingWriteBuffers = new ByteBuffer[16];
+        private Object[] pendingWriteFutures = new Object[16];
+        private int pendingWriteHead;
+        private int pendingWriteCount;
+
+        ThreadAffineSessionManager(IoSession sourceSession, IoSession attachedSession) {
+            super(attachedSession);
+            this.sourceSession = (IoSessionEx) sourceSession;
+        }
+
+        @Override
+        int addTransferredBytes(int bytesWritten) {
+            totalTransferredBytes += bytesWritten;
+            return totalTransferredBytes;
+        }
+
+        @Override
+        void scheduleWrite(IoSession sourceSession, Object message, int bytesWritten) {
+            scheduledWriteBytes += bytesWritten;
+            if (scheduledWriteBytes > maximumPendingBytes && !readSuspended) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("[" + sourceSession.getId() + "->" + getAttachedSession().getId() + ", "
+                            + Thread.currentThread().getName() + "] scheduledWriteBytes " + scheduledWriteBytes
+                            + " exceeds " + maximumPendingBytes + ", suspending reads on " + sourceSession);
+                }
+                readSuspended = true;
+                sourceSession.suspendRead();
+            }
+
+            if (pendingWriteCount == pendingWriteBytes.length) {
+                growPendingWrites();
+            }
+            // completions during the write may move the head, but never past an entry still in progress
+            int pendingWriteTail = (pendingWriteHead + pendingWriteCount++) % pendingWriteBytes.length;
+            pendingWriteBytes[pendingWriteTail] = bytesWritten;
+            pendingWriteBuffers[pendingWriteTail] = retainPooledBuffer(message);
+            pendingWriteFutures[pendingWriteTail] = writeInProgress;
+
+            // Add the FutureListener after suspending to ensure the FutureListener sees it is suspended
+            WriteFuture future = getAttachedSession().write(message);
+            pendingWriteFutures[pendingWriteTail] = future;
+            future.addListener(this);
+        }
+
+        @Override
+        public void operationComplete(final WriteFuture future) {
+            if (Thread.currentThread() != sourceSession.getIoThread()) {
+                // not expected, but keep the counters confined to the I/O thread regardless
+                sourceSession.getIoExecutor().execute(() -> operationComplete(future));
+                return;
+            }
+
+            int index = indexOfPendingWrite(future);
+            if (index == -1) {
+                return;
+            }
+
+            int bytesWritten = pendingWriteBytes[index];
+            ByteBuffer pooledBuf = pendingWriteBuffers[index];
+            pendingWriteBuffers[index] = null;
+            pendingWriteFutures[index] = null;
+            if (pooledBuf != null) {
+                PooledBufferAllocator.release(pooledBuf);
+            }
+
+            // drop the completed entries from the head, leaving those completed out of order for later
+            while (pendingWriteCount > 0 && pendingWriteFutures[pendingWriteHead] == null) {
+                pendingWriteHead = (pendingWriteHead + 1) % pendingWriteFutures.length;
+                pendingWriteCount--;
+            }
+
+            scheduledWriteBytes -= bytesWritten;
+            // Use <= to ensure we resume read in case where both values are 0
+            if (readSuspended && scheduledWriteBytes <= thresholdPendingBytes) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("[" + sourceSession.getId() + "->" + getAttachedSession().getId() + ", "
+                            + Thread.currentThread().getName() + "] scheduledWriteBytes " + scheduledWriteBytes
+                            + " <= " + thresholdPendingBytes + ", resuming reads on " + sourceSession);
+                }
+                readSuspended = false;
+                sourceSession.resumeRead();
+            }
+        }
+
+        private int indexOfPendingWrite(WriteFuture future) {
+            for (int i = 0; i < pendingWriteCount; i++) {
+                int index = (pendingWriteHead + i) % pendingWriteFutures.length;
+                if (pendingWriteFutures[index] == future) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        private void growPendingWrites() {
+            int capacity = pendingWriteBytes.length;
+            int[] newPendingWriteBytes = new int[capacity * 2];
+            unwrap(pendingWriteBytes, newPendingWriteBytes, capacity);
+            pendingWriteBytes = newPendingWriteBytes;
+            ByteBuffer[] newPendingWriteBuffers = new ByteBuffer[capacity * 2];
+            unwrap(pendingWriteBuffers, newPendingWriteBuffers, capacity);
+            pendingWriteBuffers = newPendingWriteBuffers;
+            Object[] newPendingWriteFutures = new Object[capacity * 2];
+            unwrap(pendingWriteFutures, newPendingWriteFutures, capacity);
+            pendingWriteFutures = newPendingWriteFutures;
+            pendingWriteHead = 0;
+        }
+
+        // copies a full ring buffer into a larger array, starting from its head
+        private void unwrap(Object ring, Object newRing, int capacity) {
+            System.arraycopy(ring, pendingWriteHead, newRing, 0, capacity - pendingWriteHead);
+            System.arraycopy(ring, 0, newRing, capacity - pendingWriteHead, pendingWriteHead);
+        }
+    }
+
     protected static class DuplicateBufferFilter extends WriteRequestFilterEx {
 
         private final IoBufferAllocatorEx<?> allocator;
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.proxy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Health and load of one connect URI of a service, shared by the connection pools of all I/O threads.
+ * <p>
+ * Connect latency and error rate are tracked as moving averages. The load of a backend is its average connect latency
+ * scaled by the number of connections it is serving or establishing, so a backend that slows down is given fewer new
+ * connections well before it fails outright.
+ * <p>
+ * A backend that fails {@value #FAILURE_THRESHOLD} connects in a row is ejected, and is not selected again until its
+ * ejection time has passed. A single connect is then let through as a trial, which either restores the backend or
+ * ejects it again for twice as long, up to the maximum ejection time.
+ */
+final class ConnectBackend {
+
+    static final int FAILURE_THRESHOLD = 3;
+
+    static final long MINIMUM_EJECTION_NANOS = SECONDS.toNanos(1);
+    static final long DEFAULT_MAXIMUM_EJECTION_NANOS = SECONDS.toNanos(30);
+
+    // weight of the latest sample in the moving averages
+    private static final double SMOOTHING = 0.3;
+
+    // below this the connect latency is noise, unmeasured backends start here too so that they get tried
+    private static final long MINIMUM_LATENCY_NANOS = MILLISECONDS.toNanos(1);
+
+    // a backend failing half of its connects looks three times as loaded
+    private static final double ERROR_PENALTY = 4.0;
+
+    private final String connectURI;
+    private final long maximumEjectionNanos;
+
+    private final AtomicInteger outstanding;
+    private final AtomicInteger consecutiveFailures;
+    private final AtomicLong ejectedUntil;
+    private final AtomicBoolean trial;
+    private final AtomicLong ejectionCount;
+
+    // moving averages, racy updates lose the odd sample at worst
+    private volatile double latencyNanos;
+    private volatile double errorRate;
+    private volatile long ejectionNanos;
+    private volatile boolean ejected;
+
+    ConnectBackend(String connectURI) {
+        this(connectURI, DEFAULT_MAXIMUM_EJECTION_NANOS);
+    }
+
+    ConnectBackend(String connectURI, long maximumEjectionNanos) {
+        this.connectURI = connectURI;
+        this.maximumEjectionNanos = Math.max(MINIMUM_EJECTION_NANOS, maximumEjectionNanos);
+        this.outstanding = new AtomicInteger();
+        this.consecutiveFailures = new AtomicInteger();
+        this.ejectedUntil = new AtomicLong();
+        this.trial = new AtomicBoolean();
+        this.ejectionCount = new AtomicLong();
+        this.ejectionNanos = MINIMUM_EJECTION_NANOS;
+    }
+
+    String getConnectURI() {
+        return connectURI;
+    }
+
+    /**
+     * Returns the average connect latency, in nanoseconds.
+     */
+    long getConnectLatency() {
+        return (long) latencyNanos;
+    }
+
+    /**
+     * Returns the moving average of the fraction of connects that failed.
+     */
+    double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Returns the number of connections served by, or being established to, this backend.
+     */
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    long getEjectionCount() {
+        return ejectionCount.get();
+    }
+
+    boolean isEjected() {
+        return ejected;
+    }
+
+    double getLoad() {
+        double latency = Math.max(latencyNanos, MINIMUM_LATENCY_NANOS);
+        return latency * (outstanding.get() + 1) * (1.0 + ERROR_PENALTY * errorRate);
+    }
+
+    /**
+     * Counts a connection against this backend until the returned lease is released, either because the connect failed
+     * or because the connected session was closed.
+     */
+    Lease acquire() {
+        outstanding.incrementAndGet();
+        return new Lease();
+    }
+
+    /**
+     * Records the outcome of a connect to this backend.
+     *
+     * @return true if the backend was ejected as a result
+     */
+    boolean connectComplete(boolean connected, long latency, long now) {
+        if (connected) {
+            latencyNanos = (latencyNanos == 0) ? latency : latencyNanos + SMOOTHING * (latency - latencyNanos);
+            errorRate -= SMOOTHING * errorRate;
+            consecutiveFailures.set(0);
+            if (ejected) {
+                ejected = false;
+                ejectionNanos = MINIMUM_EJECTION_NANOS;
+            }
+            trial.set(false);
+            return false;
+        }
+
+        errorRate += SMOOTHING * (1.0 - errorRate);
+        int failures = consecutiveFailures.incrementAndGet();
+        if (trial.compareAndSet(true, false)) {
+            // the trial failed, back off further
+            ejectionNanos = Math.min(ejectionNanos * 2, maximumEjectionNanos);
+            return eject(now);
+        }
+        return failures >= FAILURE_THRESHOLD && !ejected && eject(now);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (latency %dus, errors %.2f, outstanding %d%s)", connectURI, getConnectLatency() / 1000,
+                errorRate, outstanding.get(), ejected ? ", ejected" : "");
+    }
+
+    /**
+     * Selects the available backend with the least load. When the ejection time of a backend has passed, it is
+     * selected for a trial connect ahead of any other. When every backend is ejected, the one due back the soonest is
+     * selected, so that connects are still attempted.
+     */
+    static ConnectBackend select(ConnectBackend[] backends, long now) {
+        if (backends.length == 1) {
+            ConnectBackend backend = backends[0];
+            backend.tryTrial(now);
+            return backend;
+        }
+
+        ConnectBackend selected = null;
+        double selectedLoad = Double.MAX_VALUE;
+        ConnectBackend soonest = null;
+        for (ConnectBackend backend : backends) {
+            if (backend.ejected) {
+                if (backend.tryTrial(now)) {
+                    return backend;
+                }
+                if (soonest == null || backend.ejectedUntil.get() - soonest.ejectedUntil.get() < 0) {
+                    soonest = backend;
+                }
+            }
+            else {
+                double load = backend.getLoad();
+                if (load < selectedLoad) {
+                    selected = backend;
+                    selectedLoad = load;
+                }
+            }
+        }
+
+        return (selected != null) ? selected : soonest;
+    }
+
+    private boolean tryTrial(long now) {
+        return ejected && now - ejectedUntil.get() >= 0 && trial.compareAndSet(false, true);
+    }
+
+    private boolean eject(long now) {
+        ejectedUntil.set(now + ejectionNanos);
+        if (ejected) {
+            return false;
+        }
+        ejected = true;
+        ejectionCount.incrementAndGet();
+        return true;
+    }
+
+    final class Lease {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ConnectBackend getBackend() {
+            return ConnectBackend.this;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                outstanding.decrementAndGet();
+            }
+        }
+    }
+}
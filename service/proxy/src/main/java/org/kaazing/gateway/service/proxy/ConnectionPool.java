@@ -15,6 +15,8 @@
  */
 package org.kaazing.gateway.service.proxy;
 
+import static java.lang.String.format;
+
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -29,39 +31,57 @@ import org.apache.mina.core.session.AttributeKey;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.service.ServiceContext;
+import org.kaazing.gateway.service.proxy.ConnectBackend.Lease;
 import org.kaazing.gateway.service.proxy.ServiceConnectManager.HeartbeatFilter;
+import org.slf4j.Logger;
 
+/**
+ * Prepared connections of one I/O thread to the backends of a service.
+ * <p>
+ * Each connection is routed to the backend selected by {@link ConnectBackend#select}, taking a prepared connection to
+ * that backend when there is one. The prepared connections are spread over the backends that are not ejected, in
+ * proportion to how often each backend was selected recently.
+ */
 class ConnectionPool {
     private static final AttributeKey CONNECT_FUTURE_KEY = new AttributeKey(ServiceConnectManager.class, "connectFutureKey");
-    
+    private static final AttributeKey BACKEND_LEASE_KEY = new AttributeKey(ConnectionPool.class, "backendLease");
+
+    // weight kept by the demand for a backend each time a connection is routed
+    private static final double DEMAND_DECAY = 0.9;
+
+    // keeps a backend that has seen no demand lately in the running for a prepared connection
+    private static final double MINIMUM_DEMAND = 0.1;
+
     private final ServiceContext serviceContext;
     private final AbstractProxyHandler connectHandler;
-    private final String connectURI;
     private final HeartbeatFilter heartbeatFilter;
     private final IoFutureListener<ConnectFuture> connectListener;
     private final int preparedConnectionCount;
 
-    private final AtomicInteger currentPreparedConnectionCount;
-    private final PreConnectFilter preConnectFilter;
+    private final ConnectBackend[] backends;
+    private final BackendConnections[] connections;
+    private final BackendLeaseFilter backendLeaseFilter;
     private final AtomicBoolean preConnectFlag;
-    private final ConnectFutures connectFutures;
     private boolean active = false;
 
     /**
      * hearbeatFilter the only parameter that can be null
      */
-    ConnectionPool(ServiceContext serviceContext, AbstractProxyHandler connectHandler, String connectURI, HeartbeatFilter heartbeatFilter,
-            IoFutureListener<ConnectFuture> connectListener, int preparedConnectionCount, boolean isThreadAligned) {
+    ConnectionPool(ServiceContext serviceContext, AbstractProxyHandler connectHandler, ConnectBackend[] backends,
+            HeartbeatFilter heartbeatFilter, IoFutureListener<ConnectFuture> connectListener, int preparedConnectionCount,
+            boolean isThreadAligned) {
         this.serviceContext = serviceContext;
         this.connectHandler = connectHandler;
-        this.connectURI = connectURI;
+        this.backends = backends;
         this.heartbeatFilter = heartbeatFilter;
         this.connectListener = connectListener;
         this.preparedConnectionCount = preparedConnectionCount;
         preConnectFlag = new AtomicBoolean(false);
-        currentPreparedConnectionCount = new AtomicInteger(0);
-        preConnectFilter = new PreConnectFilter(this);
-        connectFutures = ConnectFutures.createConnectFutures(preparedConnectionCount, isThreadAligned);
+        backendLeaseFilter = new BackendLeaseFilter();
+        connections = new BackendConnections[backends.length];
+        for (int i = 0; i < backends.length; i++) {
+            connections[i] = new BackendConnections(backends[i], preparedConnectionCount, isThreadAligned);
+        }
     }
 
     void start() {
@@ -72,11 +92,16 @@ class ConnectionPool {
     }
 
     ConnectFuture getNextConnectFuture(final IoSessionInitializer<ConnectFuture> connectInitializer) {
-        ConnectFuture future = connectFutures.pollFirstEntry();
+        ConnectBackend backend = ConnectBackend.select(backends, System.nanoTime());
+        BackendConnections backendConnections = getConnections(backend);
+        backendConnections.demanded();
+
+        // an ejected backend is only selected for a fresh connect, the outcome of which decides whether it is restored
+        ConnectFuture future = backend.isEjected() ? null : backendConnections.connectFutures.pollFirstEntry();
         if (future == null) {
-            future = doConnect(false, connectInitializer);
+            future = doConnect(backendConnections, false, connectInitializer);
         } else {
-            currentPreparedConnectionCount.decrementAndGet();
+            backendConnections.preparedCount.decrementAndGet();
 
             // No longer a pre-connect, remove the pre-connect filter which is responsible for cleaning up zombie pre-connects
             IoSession connectSession = future.getSession();
@@ -85,6 +110,7 @@ class ConnectionPool {
                 filterChain.remove("PreConnectFilter");
                 connectSession.removeAttribute(CONNECT_FUTURE_KEY);
             }
+            connectSession.setAttribute(BACKEND_LEASE_KEY, backend.acquire());
 
             if (connectInitializer != null) {
                 connectInitializer.initializeSession(connectSession, future);
@@ -96,56 +122,105 @@ class ConnectionPool {
 
     private void fillPreConnects() {
         if (preConnectFlag.compareAndSet(false, true)) {
-            if (currentPreparedConnectionCount.get() < preparedConnectionCount) {
-                do {
-                    doConnect(true, null);
-                } while (isActive() && (currentPreparedConnectionCount.incrementAndGet() < preparedConnectionCount));
+            if (isActive() && preparedConnectionCount > 0) {
+                int[] targets = getPreparedTargets();
+                for (int i = 0; i < connections.length; i++) {
+                    BackendConnections backendConnections = connections[i];
+                    while (isActive() && backendConnections.isActive() &&
+                            backendConnections.preparedCount.get() < targets[i]) {
+                        backendConnections.preparedCount.incrementAndGet();
+                        doConnect(backendConnections, true, null);
+                    }
+                }
             }
             preConnectFlag.compareAndSet(true, false);
         }
     }
 
-    private boolean isActive() {
-        return active;
-    }
-
-    private void quiesce() {
-        active = false;
-    }
+    /**
+     * Splits the prepared connection count over the backends that are not ejected, in proportion to their demand.
+     */
+    private int[] getPreparedTargets() {
+        int[] targets = new int[connections.length];
+        double[] shares = new double[connections.length];
+        double totalDemand = 0;
+        for (int i = 0; i < connections.length; i++) {
+            if (!backends[i].isEjected() && connections[i].isActive()) {
+                shares[i] = Math.max(connections[i].demand, MINIMUM_DEMAND);
+                totalDemand += shares[i];
+            }
+        }
+        if (totalDemand == 0) {
+            return targets;
+        }
 
-    private void resume() {
-        active = true;
+        // largest remainder, so the targets add up to the prepared connection count
+        int assigned = 0;
+        for (int i = 0; i < connections.length; i++) {
+            shares[i] = preparedConnectionCount * shares[i] / totalDemand;
+            targets[i] = (int) shares[i];
+            shares[i] -= targets[i];
+            assigned += targets[i];
+        }
+        for (; assigned < preparedConnectionCount; assigned++) {
+            int largest = -1;
+            for (int i = 0; i < connections.length; i++) {
+                if (shares[i] > 0 && (largest == -1 || shares[i] > shares[largest])) {
+                    largest = i;
+                }
+            }
+            if (largest == -1) {
+                break;
+            }
+            targets[largest]++;
+            shares[largest] = 0;
+        }
+        return targets;
     }
 
-    void remove(Object key) {
-        if (key != null) {
-            ConnectFuture future = connectFutures.remove(key);
-            if (future != null) {
-                // only decrement the connection count if a future was actually removed from the list
-                currentPreparedConnectionCount.decrementAndGet();
+    private BackendConnections getConnections(ConnectBackend backend) {
+        for (BackendConnections backendConnections : connections) {
+            if (backendConnections.backend == backend) {
+                return backendConnections;
             }
         }
+        throw new IllegalArgumentException(backend.getConnectURI());
+    }
+
+    private boolean isActive() {
+        return active;
     }
 
-    private void decrementConnectionCount() {
-        currentPreparedConnectionCount.decrementAndGet();
+    private void resume() {
+        active = true;
+        for (BackendConnections backendConnections : connections) {
+            backendConnections.resume();
+        }
     }
 
     // Set the connect future key on the session so that if the session is closed we can remove
     // the associated ConnectFuture from the map of preconnect futures.
-    private void addConnectFuture(ConnectFuture future) {
-        Object key = connectFutures.add(future);
+    private void addConnectFuture(BackendConnections backendConnections, ConnectFuture future) {
+        Object key = backendConnections.connectFutures.add(future);
         future.getSession().setAttributeIfAbsent(CONNECT_FUTURE_KEY, key);
     }
 
-    private ConnectFuture doConnect(final boolean preconnected, final IoSessionInitializer<ConnectFuture> connectInitializer) {
-        ConnectFuture future = serviceContext.connect(connectURI, connectHandler, new IoSessionInitializer<ConnectFuture>() {
+    private ConnectFuture doConnect(final BackendConnections backendConnections, final boolean preconnected,
+            final IoSessionInitializer<ConnectFuture> connectInitializer) {
+        final ConnectBackend backend = backendConnections.backend;
+        final Lease lease = preconnected ? null : backend.acquire();
+        final long connectStart = System.nanoTime();
+        ConnectFuture future = serviceContext.connect(backend.getConnectURI(), connectHandler, new IoSessionInitializer<ConnectFuture>() {
             @Override
             public void initializeSession(IoSession connectSession, ConnectFuture future) {
                 if (heartbeatFilter != null) {
                     connectSession.getFilterChain().addLast("ServiceHeartbeat", heartbeatFilter);
                 }
-                connectSession.getFilterChain().addLast("PreConnectFilter", preConnectFilter);
+                connectSession.getFilterChain().addLast("PreConnectFilter", backendConnections.preConnectFilter);
+                connectSession.getFilterChain().addLast("BackendLeaseFilter", backendLeaseFilter);
+                if (lease != null) {
+                    connectSession.setAttribute(BACKEND_LEASE_KEY, lease);
+                }
 
                 if (connectInitializer != null) {
                     connectInitializer.initializeSession(connectSession, future);
@@ -155,17 +230,27 @@ class ConnectionPool {
         future.addListener(new IoFutureListener<ConnectFuture>() {
             @Override
             public void operationComplete(ConnectFuture future) {
+                long now = System.nanoTime();
+                if (backend.connectComplete(future.isConnected(), now - connectStart, now) && backends.length > 1) {
+                    Logger logger = serviceContext.getLogger();
+                    if (logger.isWarnEnabled()) {
+                        logger.warn(format("Ejected %s after repeated connect failures", backend));
+                    }
+                }
                 if ( future.isConnected() ) {
                     if (preconnected) {
                         // Add the future as an attribute so if the connection goes down it can be removed from the map.
-                        addConnectFuture(future);
+                        addConnectFuture(backendConnections, future);
                     }
                 }
                 else {
+                    if (lease != null) {
+                        lease.release();
+                    }
                     if (preconnected) {
-                        // The connection failed, quiesce the connect manager and decrement the connection count
-                        quiesce();
-                        decrementConnectionCount();
+                        // The connection failed, stop preparing connections to this backend and decrement the connection count
+                        backendConnections.quiesce();
+                        backendConnections.preparedCount.decrementAndGet();
                     }
                 }
                 connectListener.operationComplete(future);
@@ -174,17 +259,80 @@ class ConnectionPool {
         return future;
     }
 
+    /**
+     * Prepared connections to one backend.
+     */
+    private static final class BackendConnections {
+        private final ConnectBackend backend;
+        private final ConnectFutures connectFutures;
+        private final AtomicInteger preparedCount;
+        private final PreConnectFilter preConnectFilter;
+
+        // confined to the I/O thread of the pool
+        private double demand;
+        private volatile boolean active;
+
+        private BackendConnections(ConnectBackend backend, int preparedConnectionCount, boolean isThreadAligned) {
+            this.backend = backend;
+            this.connectFutures = ConnectFutures.createConnectFutures(preparedConnectionCount, isThreadAligned);
+            this.preparedCount = new AtomicInteger(0);
+            this.preConnectFilter = new PreConnectFilter(this);
+        }
+
+        private void demanded() {
+            demand = demand * DEMAND_DECAY + 1;
+        }
+
+        private boolean isActive() {
+            return active;
+        }
+
+        private void quiesce() {
+            active = false;
+        }
+
+        private void resume() {
+            active = true;
+        }
+
+        private void remove(Object key) {
+            if (key != null) {
+                ConnectFuture future = connectFutures.remove(key);
+                if (future != null) {
+                    // only decrement the connection count if a future was actually removed from the list
+                    preparedCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
     static class PreConnectFilter extends IoFilterAdapter {
-        private final ConnectionPool connectManager;
+        private final BackendConnections connections;
 
-        private PreConnectFilter(ConnectionPool connectManager) {
-            this.connectManager = connectManager;
+        private PreConnectFilter(BackendConnections connections) {
+            this.connections = connections;
         }
 
         @Override
         public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
             // if this is a pre-connected session, remove it from the ConnectManager's list
-            connectManager.remove(session.getAttribute(CONNECT_FUTURE_KEY));
+            connections.remove(session.getAttribute(CONNECT_FUTURE_KEY));
+
+            super.sessionClosed(nextFilter, session);
+        }
+    }
+
+    /**
+     * Stops counting a connection against its backend once the connected session closes.
+     */
+    static class BackendLeaseFilter extends IoFilterAdapter {
+
+        @Override
+        public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+            Lease lease = (Lease) session.removeAttribute(BACKEND_LEASE_KEY);
+            if (lease != null) {
+                lease.release();
+            }
 
             super.sessionClosed(nextFilter, session);
         }
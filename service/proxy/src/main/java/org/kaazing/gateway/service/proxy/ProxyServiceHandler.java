@@ -18,6 +18,7 @@ package org.kaazing.gateway.service.proxy;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.CloseFuture;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.IoFutureListener;
@@ -25,6 +26,7 @@ import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.session.IoSessionInitializer;
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -116,6 +118,26 @@ public class ProxyServiceHandler extends AbstractProxyAcceptHandler {
         return new ConnectHandler();
     }
 
+    /**
+     * Returns whether messages can be passed through as they are between the accept and connect sessions, which is
+     * the case when both are plain TCP connections on the same I/O thread and no extension may intervene. Buffers read
+     * from either connection can then be written to the other without duplication, and read straight into pooled
+     * buffers when the TCP transport allows it, so that proxying copies no data at all.
+     */
+    boolean isPassThrough(IoSession acceptSession, IoSession connectSession) {
+        return extensions.isEmpty()
+                && acceptSession instanceof NioSocketChannelIoSession
+                && connectSession instanceof NioSocketChannelIoSession
+                && isThreadAffine(acceptSession, connectSession);
+    }
+
+    private static void removeDuplicateFilter(IoSession session) {
+        IoFilterChain filterChain = session.getFilterChain();
+        if (filterChain.contains(DUPLICATE_FILTER)) {
+            filterChain.remove(DUPLICATE_FILTER);
+        }
+    }
+
     private class ConnectListener implements IoFutureListener<ConnectFuture> {
         private final IoSession acceptSession;
 
@@ -142,6 +164,15 @@ public class ProxyServiceHandler extends AbstractProxyAcceptHandler {
                         extension.proxiedConnectionEstablished(acceptSessionEx, connectedSessionEx);
                     }
 
+                    if (isPassThrough(acceptSession, connectedSession)) {
+                        // relay buffers between the TCP connections as they are read, pooled ones being retained
+                        // by the attached session manager until written
+                        removeDuplicateFilter(acceptSession);
+                        removeDuplicateFilter(connectedSession);
+                        ((NioSocketChannelIoSession) acceptSession).enableZeroCopyRead();
+                        ((NioSocketChannelIoSession) connectedSession).enableZeroCopyRead();
+                    }
+
                     AttachedSessionManager attachedSessionManager = attachSessions(acceptSession, connectedSession);
                     flushQueuedMessages(acceptSession, attachedSessionManager);
                 }
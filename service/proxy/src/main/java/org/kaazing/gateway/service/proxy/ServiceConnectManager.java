@@ -16,7 +16,10 @@
 package org.kaazing.gateway.service.proxy;
 
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
+import java.util.Collection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
@@ -50,8 +53,9 @@ import org.slf4j.Logger;
  * ServiceConnectManager (one per service, owned by the proxy service handler):
  * - connectHandler (AbstractProxyHandler)
  * - schedulerProvider
- * - ConnectManager
- *   - ConnectFutures
+ * - ConnectBackend (1 per connect URI, shared by the ConnectionPools)
+ * - ConnectionPool (1 per I/O thread)
+ *   - ConnectFutures (1 per ConnectBackend)
  *     - ConnectFuture (many)
  *       - ConnectListener (1 per ConnectFuture)
  * - HeartbeatFilter
@@ -63,6 +67,7 @@ public final class ServiceConnectManager {
     private final ServiceContext serviceCtx;
     private final AbstractProxyHandler connectHandler;
     private final String connectURI;
+    private final ConnectBackend[] backends;
     private final AtomicBoolean serviceConnected = new AtomicBoolean(true);
     private final SchedulerProvider schedulerProvider;
 
@@ -94,9 +99,26 @@ public final class ServiceConnectManager {
                                  String connectURI,
                                  int interval,
                                  final int preparedConnectionCount) {
+        this(service, connectHandler, bridgeServiceFactory, singletonList(connectURI), interval, preparedConnectionCount);
+    }
+
+    public ServiceConnectManager(ServiceContext service,
+                                 AbstractProxyHandler connectHandler,
+                                 BridgeServiceFactory bridgeServiceFactory,
+                                 Collection<String> connectURIs,
+                                 int interval,
+                                 final int preparedConnectionCount) {
         this.serviceCtx = service;
         this.connectHandler = connectHandler;
-        this.connectURI = connectURI;
+        this.connectURI = connectURIs.iterator().next();
+
+        // backends that keep failing are ejected for at most the recovery interval
+        long maximumEjectionNanos = interval > 0 ? SECONDS.toNanos(interval) : ConnectBackend.DEFAULT_MAXIMUM_EJECTION_NANOS;
+        this.backends = new ConnectBackend[connectURIs.size()];
+        int index = 0;
+        for (String uri : connectURIs) {
+            backends[index++] = new ConnectBackend(uri, maximumEjectionNanos);
+        }
         this.schedulerProvider = service.getSchedulerProvider();
         this.logger = service.getLogger();
         this.interval = interval;
@@ -144,7 +166,7 @@ public final class ServiceConnectManager {
             tmpConnectListener = new IoFutureListener<ConnectFuture>() {
                 @Override
                 public void operationComplete(ConnectFuture future) {
-                    heartbeatFilter.setServiceConnected(future.isConnected());
+                    heartbeatFilter.setServiceConnected(future.isConnected() || isAnyBackendAvailable());
                     updateConnectTimes(future.isConnected());
                 }
             };
@@ -170,7 +192,7 @@ public final class ServiceConnectManager {
                 if (currentPool == null) {
                     // the first time the pool is started is needs to be created, subsequent times it should just be started
                     // without re-creating.
-                    currentPool = new ConnectionPool(serviceCtx, connectHandler, connectURI, heartbeatFilter,
+                    currentPool = new ConnectionPool(serviceCtx, connectHandler, backends, heartbeatFilter,
                             connectListener, count, true);
                     connectionPool.set(currentPool);
                 }
@@ -225,6 +247,25 @@ public final class ServiceConnectManager {
         return preparedConnectionCount;
     }
 
+    // for unit test use
+    ConnectBackend[] getConnectBackends() {
+        return backends;
+    }
+
+    /**
+     * With several backends, a failed connect leaves the service connected as long as one of the backends is not ejected.
+     */
+    private boolean isAnyBackendAvailable() {
+        if (backends.length > 1) {
+            for (ConnectBackend backend : backends) {
+                if (!backend.isEjected()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * A single instance of this filter is set on every outgoing connection. It is in charge of making sure
      * we periodically establish a connection (and close it immediately) if there are no (permanent)
@@ -408,7 +449,17 @@ public final class ServiceConnectManager {
                 }
                 ConnectFuture connectFuture = null;
                 try {
-                    connectFuture = serviceCtx.connect(connectURI, handler, null);
+                    // probe the backend most likely to be back, the outcome counts towards its health
+                    final ConnectBackend backend = ConnectBackend.select(backends, System.nanoTime());
+                    final long connectStart = System.nanoTime();
+                    connectFuture = serviceCtx.connect(backend.getConnectURI(), handler, null);
+                    connectFuture.addListener(new IoFutureListener<ConnectFuture>() {
+                        @Override
+                        public void operationComplete(ConnectFuture future) {
+                            long now = System.nanoTime();
+                            backend.connectComplete(future.isConnected(), now - connectStart, now);
+                        }
+                    });
                     connectFuture.addListener(heartbeatFilter.getConnectListener()); // dummy connection
                 } catch (Exception ex) {
                     if (logger.isDebugEnabled()) {
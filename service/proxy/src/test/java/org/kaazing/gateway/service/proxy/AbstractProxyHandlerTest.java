@@ -0,0 +1,272 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.States;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.service.proxy.AbstractProxyHandler.AttachedSessionManager;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator;
+import org.kaazing.mina.core.buffer.SimpleBufferAllocator.SimpleBuffer;
+import org.kaazing.mina.core.session.IoSessionEx;
+
+public class AbstractProxyHandlerTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final IoSessionEx acceptSession = context.mock(IoSessionEx.class, "acceptSession");
+    private final IoSessionEx connectSession = context.mock(IoSessionEx.class, "connectSession");
+    private final WriteFuture writeFuture = context.mock(WriteFuture.class);
+
+    private final AbstractProxyHandler handler = new AbstractProxyHandler() { };
+
+    @Test
+    public void shouldAttachSessionsOnSameIoThreadWithThreadAffineFlowControl() throws Exception {
+        final List<IoFutureListener<?>> listeners = new ArrayList<>();
+        handler.setMaximumPendingBytes(100);
+
+        context.checking(new Expectations() {
+            {
+                allowing(acceptSession).getId(); will(returnValue(1L));
+                allowing(connectSession).getId(); will(returnValue(2L));
+                allowing(acceptSession).isIoAligned(); will(returnValue(true));
+                allowing(connectSession).isIoAligned(); will(returnValue(true));
+                allowing(acceptSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(connectSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(acceptSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                allowing(connectSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+
+                exactly(3).of(connectSession).write(with(any(IoBuffer.class))); will(returnValue(writeFuture));
+                exactly(3).of(writeFuture).addListener(with(any(IoFutureListener.class)));
+                will(addListenerTo(listeners));
+
+                oneOf(acceptSession).suspendRead();
+                oneOf(acceptSession).resumeRead();
+            }
+        });
+
+        assertTrue(AbstractProxyHandler.isThreadAffine(acceptSession, connectSession));
+        AttachedSessionManager attachedSessionManager = handler.attachSessions(acceptSession, connectSession);
+        attachedSessionManager.writeMessage(acceptSession, IoBuffer.wrap(new byte[60]));
+        attachedSessionManager.writeMessage(acceptSession, IoBuffer.wrap(new byte[60]));
+        attachedSessionManager.writeMessage(acceptSession, IoBuffer.wrap(new byte[10]));
+
+        assertEquals(3, listeners.size());
+        assertSame(listeners.get(0), listeners.get(1));
+        assertSame(listeners.get(0), listeners.get(2));
+
+        // 70 bytes still pending, above the threshold of 50
+        complete(listeners.get(0));
+        // 10 bytes still pending, reads resume
+        complete(listeners.get(1));
+        complete(listeners.get(2));
+    }
+
+    @Test
+    public void shouldMatchWriteFailedAheadOfPendingWrites() throws Exception {
+        final List<IoFutureListener<?>> listeners = new ArrayList<>();
+        final WriteFuture pendingWriteFuture = context.mock(WriteFuture.class, "pendingWriteFuture");
+        final WriteFuture failedWriteFuture = context.mock(WriteFuture.class, "failedWriteFuture");
+        final States writes = context.states("writes").startsAs("pending");
+        handler.setMaximumPendingBytes(100);
+
+        context.checking(new Expectations() {
+            {
+                allowing(acceptSession).getId(); will(returnValue(1L));
+                allowing(connectSession).getId(); will(returnValue(2L));
+                allowing(acceptSession).isIoAligned(); will(returnValue(true));
+                allowing(connectSession).isIoAligned(); will(returnValue(true));
+                allowing(acceptSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(connectSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(acceptSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                allowing(connectSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+
+                oneOf(connectSession).write(with(any(IoBuffer.class))); will(returnValue(pendingWriteFuture));
+                oneOf(pendingWriteFuture).addListener(with(any(IoFutureListener.class)));
+                will(addListenerTo(listeners));
+
+                // as when the attached session is closing
+                oneOf(acceptSession).suspendRead();
+                oneOf(connectSession).write(with(any(IoBuffer.class))); will(returnValue(failedWriteFuture));
+                oneOf(failedWriteFuture).addListener(with(any(IoFutureListener.class)));
+                will(completeWith(failedWriteFuture));
+
+                oneOf(acceptSession).resumeRead(); when(writes.is("written"));
+            }
+        });
+
+        AttachedSessionManager attachedSessionManager = handler.attachSessions(acceptSession, connectSession);
+        attachedSessionManager.writeMessage(acceptSession, IoBuffer.wrap(new byte[90]));
+        // 90 bytes still pending, above the threshold of 50
+        attachedSessionManager.writeMessage(acceptSession, IoBuffer.wrap(new byte[20]));
+
+        writes.become("written");
+        complete(listeners.get(0), pendingWriteFuture);
+    }
+
+    @Test
+    public void shouldRetainPooledBufferUntilWritten() throws Exception {
+        final List<IoFutureListener<?>> listeners = new ArrayList<>();
+        PooledBufferAllocator<SimpleBuffer> bufferPool =
+                new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, 256 * 1024, 1, Long.MAX_VALUE);
+        handler.setMaximumPendingBytes(100);
+
+        context.checking(new Expectations() {
+            {
+                allowing(acceptSession).getId(); will(returnValue(1L));
+                allowing(connectSession).getId(); will(returnValue(2L));
+                allowing(acceptSession).isIoAligned(); will(returnValue(true));
+                allowing(connectSession).isIoAligned(); will(returnValue(true));
+                allowing(acceptSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(connectSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(acceptSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                allowing(connectSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+
+                oneOf(connectSession).write(with(any(IoBuffer.class))); will(returnValue(writeFuture));
+                oneOf(writeFuture).addListener(with(any(IoFutureListener.class)));
+                will(addListenerTo(listeners));
+            }
+        });
+
+        try {
+            IoBufferEx buf = bufferPool.wrap(bufferPool.allocate(64));
+            AttachedSessionManager attachedSessionManager = handler.attachSessions(acceptSession, connectSession);
+            attachedSessionManager.writeMessage(acceptSession, buf);
+
+            // as done by the I/O thread once the message received event completes
+            PooledBufferAllocator.release(buf);
+            assertEquals(64, bufferPool.getUsedCapacity());
+
+            complete(listeners.get(0));
+            assertEquals(0, bufferPool.getUsedCapacity());
+        }
+        finally {
+            bufferPool.dispose();
+        }
+    }
+
+    @Test
+    public void shouldReleasePooledBufferOfWriteFailedAheadOfPendingWrites() throws Exception {
+        final List<IoFutureListener<?>> listeners = new ArrayList<>();
+        final WriteFuture failedWriteFuture = context.mock(WriteFuture.class, "failedWriteFuture");
+        PooledBufferAllocator<SimpleBuffer> bufferPool =
+                new PooledBufferAllocator<>(SimpleBufferAllocator.BUFFER_ALLOCATOR, 256 * 1024, 1, Long.MAX_VALUE);
+        handler.setMaximumPendingBytes(1000);
+
+        context.checking(new Expectations() {
+            {
+                allowing(acceptSession).getId(); will(returnValue(1L));
+                allowing(connectSession).getId(); will(returnValue(2L));
+                allowing(acceptSession).isIoAligned(); will(returnValue(true));
+                allowing(connectSession).isIoAligned(); will(returnValue(true));
+                allowing(acceptSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(connectSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(acceptSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                allowing(connectSession).setAttribute(with(any(Object.class)), with(any(Object.class)));
+
+                oneOf(connectSession).write(with(any(IoBuffer.class))); will(returnValue(writeFuture));
+                oneOf(writeFuture).addListener(with(any(IoFutureListener.class)));
+                will(addListenerTo(listeners));
+
+                // as when the attached session is closing
+                oneOf(connectSession).write(with(any(IoBuffer.class))); will(returnValue(failedWriteFuture));
+                oneOf(failedWriteFuture).addListener(with(any(IoFutureListener.class)));
+                will(completeWith(failedWriteFuture));
+            }
+        });
+
+        try {
+            IoBufferEx pendingBuf = bufferPool.wrap(bufferPool.allocate(64));
+            IoBufferEx failedBuf = bufferPool.wrap(bufferPool.allocate(64));
+            AttachedSessionManager attachedSessionManager = handler.attachSessions(acceptSession, connectSession);
+            attachedSessionManager.writeMessage(acceptSession, pendingBuf);
+            attachedSessionManager.writeMessage(acceptSession, failedBuf);
+
+            // as done by the I/O thread once the message received events complete
+            PooledBufferAllocator.release(pendingBuf);
+            PooledBufferAllocator.release(failedBuf);
+            assertEquals(64, bufferPool.getUsedCapacity());
+
+            complete(listeners.get(0));
+            assertEquals(0, bufferPool.getUsedCapacity());
+        }
+        finally {
+            bufferPool.dispose();
+        }
+    }
+
+    @Test
+    public void shouldNotTreatSessionsOnDifferentIoThreadsAsThreadAffine() throws Exception {
+        context.checking(new Expectations() {
+            {
+                allowing(acceptSession).isIoAligned(); will(returnValue(true));
+                allowing(connectSession).isIoAligned(); will(returnValue(true));
+                allowing(acceptSession).getIoThread(); will(returnValue(Thread.currentThread()));
+                allowing(connectSession).getIoThread(); will(returnValue(new Thread()));
+            }
+        });
+
+        assertFalse(AbstractProxyHandler.isThreadAffine(acceptSession, connectSession));
+    }
+
+    private void complete(IoFutureListener<?> listener) {
+        complete(listener, writeFuture);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void complete(IoFutureListener<?> listener, WriteFuture future) {
+        ((IoFutureListener<WriteFuture>) listener).operationComplete(future);
+    }
+
+    private static Action completeWith(final WriteFuture future) {
+        return new CustomAction("complete write") {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                complete((IoFutureListener<?>) invocation.getParameter(0), future);
+                return future;
+            }
+        };
+    }
+
+    private static Action addListenerTo(final List<IoFutureListener<?>> listeners) {
+        return new CustomAction("add listener") {
+            @Override
+            public Object invoke(Invocation invocation) throws Throwable {
+                listeners.add((IoFutureListener<?>) invocation.getParameter(0));
+                return invocation.getInvokedObject();
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.proxy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.kaazing.gateway.service.proxy.ConnectBackend.Lease;
+
+public class ConnectBackendTest {
+
+    private static final long NOW = SECONDS.toNanos(1000);
+
+    @Test
+    public void shouldSelectBackendWithLeastOutstandingConnections() {
+        ConnectBackend first = new ConnectBackend("tcp://backend1:5672");
+        ConnectBackend second = new ConnectBackend("tcp://backend2:5672");
+        ConnectBackend[] backends = { first, second };
+
+        first.acquire();
+
+        assertSame(second, ConnectBackend.select(backends, NOW));
+    }
+
+    @Test
+    public void shouldSelectFasterBackend() {
+        ConnectBackend slow = new ConnectBackend("tcp://slow:5672");
+        ConnectBackend fast = new ConnectBackend("tcp://fast:5672");
+        ConnectBackend[] backends = { slow, fast };
+
+        slow.connectComplete(true, MILLISECONDS.toNanos(200), NOW);
+        fast.connectComplete(true, MILLISECONDS.toNanos(5), NOW);
+        fast.acquire();
+        fast.acquire();
+
+        assertSame(fast, ConnectBackend.select(backends, NOW));
+    }
+
+    @Test
+    public void shouldReleaseLeaseOnce() {
+        ConnectBackend backend = new ConnectBackend("tcp://backend:5672");
+
+        Lease lease = backend.acquire();
+        backend.acquire();
+        lease.release();
+        lease.release();
+
+        assertEquals(1, backend.getOutstanding());
+    }
+
+    @Test
+    public void shouldEjectBackendAfterConsecutiveFailures() {
+        ConnectBackend failing = new ConnectBackend("tcp://failing:5672");
+        ConnectBackend healthy = new ConnectBackend("tcp://healthy:5672");
+        ConnectBackend[] backends = { failing, healthy };
+        healthy.acquire();
+        healthy.acquire();
+
+        for (int i = 1; i < ConnectBackend.FAILURE_THRESHOLD; i++) {
+            assertFalse(failing.connectComplete(false, 0, NOW));
+        }
+        assertTrue(failing.connectComplete(false, 0, NOW));
+
+        assertTrue(failing.isEjected());
+        assertEquals(1, failing.getEjectionCount());
+        assertSame(healthy, ConnectBackend.select(backends, NOW));
+    }
+
+    @Test
+    public void shouldTrialEjectedBackendOnceEjectionTimeHasPassed() {
+        ConnectBackend failing = new ConnectBackend("tcp://failing:5672");
+        ConnectBackend healthy = new ConnectBackend("tcp://healthy:5672");
+        ConnectBackend[] backends = { failing, healthy };
+        eject(failing);
+
+        long later = NOW + ConnectBackend.MINIMUM_EJECTION_NANOS;
+        assertSame(failing, ConnectBackend.select(backends, later));
+        assertSame("only one trial at a time", healthy, ConnectBackend.select(backends, later));
+
+        failing.connectComplete(true, MILLISECONDS.toNanos(1), later);
+
+        assertFalse(failing.isEjected());
+    }
+
+    @Test
+    public void shouldBackOffWhenTrialFails() {
+        ConnectBackend failing = new ConnectBackend("tcp://failing:5672");
+        ConnectBackend healthy = new ConnectBackend("tcp://healthy:5672");
+        ConnectBackend[] backends = { failing, healthy };
+        eject(failing);
+
+        long later = NOW + ConnectBackend.MINIMUM_EJECTION_NANOS;
+        assertSame(failing, ConnectBackend.select(backends, later));
+        failing.connectComplete(false, 0, later);
+
+        assertTrue(failing.isEjected());
+        assertSame(healthy, ConnectBackend.select(backends, later + ConnectBackend.MINIMUM_EJECTION_NANOS));
+        assertSame(failing, ConnectBackend.select(backends, later + 2 * ConnectBackend.MINIMUM_EJECTION_NANOS));
+    }
+
+    @Test
+    public void shouldSelectBackendDueSoonestWhenAllAreEjected() {
+        ConnectBackend first = new ConnectBackend("tcp://backend1:5672");
+        ConnectBackend second = new ConnectBackend("tcp://backend2:5672");
+        ConnectBackend[] backends = { first, second };
+        eject(first, NOW + 1);
+        eject(second, NOW);
+
+        assertSame(second, ConnectBackend.select(backends, NOW + 2));
+    }
+
+    private static void eject(ConnectBackend backend) {
+        eject(backend, NOW);
+    }
+
+    private static void eject(ConnectBackend backend, long now) {
+        for (int i = 0; i < ConnectBackend.FAILURE_THRESHOLD; i++) {
+            backend.connectComplete(false, 0, now);
+        }
+    }
+}
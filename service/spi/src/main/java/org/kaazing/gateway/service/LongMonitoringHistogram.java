@@ -0,0 +1,53 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service;
+
+/**
+ * This interface represents the abstraction layer for fixed-bucket histograms of long values.
+ *
+ * Monitoring histograms record the distribution of values such as latencies or queue depths, so that percentiles can be
+ * computed by whoever reads them. Each bucket counts the recorded values less than or equal to its upper bound and greater
+ * than the bound of the previous bucket, a last bucket counts the values above every bound.
+ *
+ */
+public interface LongMonitoringHistogram {
+
+    /**
+     * Method recording a value in the bucket it falls in
+     * @param value - the value to record
+     * @return LongMonitoringHistogram - the updated histogram
+     */
+    LongMonitoringHistogram record(long value);
+
+    /**
+     * Method returning the number of recorded values
+     * @return long - the number of values recorded in all the buckets
+     */
+    long getCount();
+
+    /**
+     * Method returning the sum of the recorded values
+     * @return long - the sum of the values recorded in all the buckets
+     */
+    long getSum();
+
+    /**
+     * Method returning the number of values recorded in a bucket
+     * @param index - the index of the bucket, the bucket of values above every bound being the last one
+     * @return long - the number of values recorded in the bucket
+     */
+    long getBucketCount(int index);
+}
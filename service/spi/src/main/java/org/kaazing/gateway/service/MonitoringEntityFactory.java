@@ -31,6 +31,14 @@ public interface MonitoringEntityFactory {
      */
     LongMonitoringCounter makeLongMonitoringCounter(String name);
 
+    /**
+     * Method returning a LongMonitoringHistogram object
+     * @param name - the name associated to the histogram
+     * @param bucketBounds - the inclusive upper bounds of the buckets, in ascending order
+     * @return - LongMonitoringHistogram
+     */
+    LongMonitoringHistogram makeLongMonitoringHistogram(String name, long[] bucketBounds);
+
     /**
      * Cleans up the monitoring entities
      */
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.cluster;
+
+import java.io.Serializable;
+
+/**
+ * Load of a balanced service, as last published by the cluster member running it. Balancers use it to choose between
+ * the balancee URIs of a balance URI.
+ */
+public final class BalanceeLoad implements Serializable {
+
+    private static final long serialVersionUID = -2634181005227466391L;
+
+    private final int sessionCount;
+    private final double cpuLoad;
+    private final long scheduledWriteBytes;
+    private final long timestamp;
+
+    public BalanceeLoad(int sessionCount, double cpuLoad, long scheduledWriteBytes, long timestamp) {
+        this.sessionCount = sessionCount;
+        this.cpuLoad = cpuLoad;
+        this.scheduledWriteBytes = scheduledWriteBytes;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the number of sessions currently open on the service.
+     */
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    /**
+     * Returns the recent CPU usage of the member, between 0.0 and 1.0, or a negative value if it is not available.
+     */
+    public double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    /**
+     * Returns the number of bytes written to the sessions of the service and not yet sent.
+     */
+    public long getScheduledWriteBytes() {
+        return scheduledWriteBytes;
+    }
+
+    /**
+     * Returns the time, in milliseconds since the epoch, at which the load was measured.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[sessions=%d, cpu=%.2f, scheduledWriteBytes=%d]", sessionCount, cpuLoad,
+                scheduledWriteBytes);
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.collections;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel ordering keys by expiration deadline.
+ * <p>
+ * Scheduling a key is a constant time, lock free operation. Each level of the wheel has {@value #WHEEL_SIZE} slots,
+ * the first spanning one tick each and every further level spanning a whole turn of the level below it. As the wheel
+ * advances, the slot of a higher level that comes due is cascaded into the lower levels, so each scheduled key is
+ * moved at most once per level before it expires and no operation ever scans all scheduled keys.
+ * <p>
+ * Keys are never cancelled, a key that is removed or rescheduled leaves its earlier deadline in the wheel and the
+ * {@link Handler} is expected to ignore deadlines that no longer apply when they come due.
+ */
+final class ExpirationWheel<K> {
+
+    static final long DEFAULT_TICK_MILLIS = 10;
+
+    private static final int WHEEL_BITS = 6;
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // enough levels to cover any tick that fits in a long
+    private static final int MAXIMUM_LEVELS = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    interface Handler<K> {
+
+        /**
+         * Called when the deadline of a key has passed, while the wheel is being advanced.
+         */
+        void expired(K key, long deadline);
+    }
+
+    private static final class Expiration<K> {
+        private final K key;
+        private final long deadline;
+        private final long tick;
+        private Expiration<K> next;
+
+        private Expiration(K key, long deadline, long tick) {
+            this.key = key;
+            this.deadline = deadline;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Queue<Expiration<K>> pending;
+    private final Lock lock;
+
+    // guarded by lock
+    private final Expiration<K>[][] levels;
+    private final int[] levelSizes;
+    private Expiration<K> due;
+    private long currentTick;
+    private int size;
+
+    ExpirationWheel(long now) {
+        this(DEFAULT_TICK_MILLIS, now);
+    }
+
+    @SuppressWarnings("unchecked")
+    ExpirationWheel(long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.lock = new ReentrantLock();
+        this.levels = new Expiration[MAXIMUM_LEVELS][];
+        this.levelSizes = new int[MAXIMUM_LEVELS];
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * Schedules a key to expire at the given deadline (in milliseconds).
+     */
+    void schedule(K key, long deadline) {
+        // round up, so that a key never expires before its deadline
+        long tick = deadline / tickMillis + ((deadline % tickMillis != 0) ? 1 : 0);
+        pending.offer(new Expiration<>(key, deadline, tick));
+    }
+
+    /**
+     * Advances the wheel to the given time (in milliseconds), passing every key whose deadline has passed to the
+     * handler. Deadlines are resolved to the tick of the wheel, so a key may be reported up to one tick late.
+     *
+     * @return false if the wheel was not advanced because another thread is advancing it
+     */
+    boolean advance(long now, Handler<? super K> handler) {
+        if (!lock.tryLock()) {
+            return false;
+        }
+
+        try {
+            for (Expiration<K> expiration = pending.poll(); expiration != null; expiration = pending.poll()) {
+                insert(expiration);
+            }
+
+            long nowTick = now / tickMillis;
+            while (currentTick < nowTick) {
+                if (size == 0) {
+                    currentTick = nowTick;
+                    break;
+                }
+
+                // nothing happens until the next turn of the lowest level holding any keys
+                int lowest = 0;
+                while (levelSizes[lowest] == 0) {
+                    lowest++;
+                }
+                int shift = lowest * WHEEL_BITS;
+                currentTick = (lowest == 0) ? currentTick + 1 : Math.min(nowTick, ((currentTick >> shift) + 1) << shift);
+
+                cascade();
+                Expiration<K> slot = removeSlot(0, (int) (currentTick & WHEEL_MASK));
+                while (slot != null) {
+                    Expiration<K> next = slot.next;
+                    expire(slot);
+                    slot = next;
+                }
+            }
+
+            for (Expiration<K> expiration = due; expiration != null; expiration = expiration.next) {
+                handler.expired(expiration.key, expiration.deadline);
+            }
+            due = null;
+
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of deadlines held by the wheel, including those of keys since removed or rescheduled.
+     */
+    int size() {
+        return size + pending.size();
+    }
+
+    /**
+     * Discards all scheduled deadlines.
+     */
+    void clear() {
+        lock.lock();
+        try {
+            pending.clear();
+            for (int level = 0; level < MAXIMUM_LEVELS; level++) {
+                levels[level] = null;
+                levelSizes[level] = 0;
+            }
+            due = null;
+            size = 0;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void insert(Expiration<K> expiration) {
+        long tick = expiration.tick;
+        if (tick <= currentTick) {
+            expiration.next = due;
+            due = expiration;
+            return;
+        }
+
+        // the lowest level whose span still reaches the deadline
+        int level = 0;
+        while (level < MAXIMUM_LEVELS - 1 && (tick >> (level * WHEEL_BITS)) - (currentTick >> (level * WHEEL_BITS)) >= WHEEL_SIZE) {
+            level++;
+        }
+
+        Expiration<K>[] slots = levels[level];
+        if (slots == null) {
+            @SuppressWarnings("unchecked")
+            Expiration<K>[] newSlots = new Expiration[WHEEL_SIZE];
+            slots = levels[level] = newSlots;
+        }
+
+        int index = (int) ((tick >> (level * WHEEL_BITS)) & WHEEL_MASK);
+        expiration.next = slots[index];
+        slots[index] = expiration;
+        levelSizes[level]++;
+        size++;
+    }
+
+    private void cascade() {
+        // higher levels first, so that keys cascade down as far as the current tick allows
+        for (int level = MAXIMUM_LEVELS - 1; level > 0; level--) {
+            int shift = level * WHEEL_BITS;
+            if (levelSizes[level] != 0 && (currentTick & ((1L << shift) - 1)) == 0) {
+                Expiration<K> slot = removeSlot(level, (int) ((currentTick >> shift) & WHEEL_MASK));
+                while (slot != null) {
+                    Expiration<K> next = slot.next;
+                    insert(slot);
+                    slot = next;
+                }
+            }
+        }
+    }
+
+    private Expiration<K> removeSlot(int level, int index) {
+        Expiration<K>[] slots = levels[level];
+        if (slots == null) {
+            return null;
+        }
+
+        Expiration<K> slot = slots[index];
+        slots[index] = null;
+        for (Expiration<K> expiration = slot; expiration != null; expiration = expiration.next) {
+            levelSizes[level]--;
+            size--;
+        }
+        return slot;
+    }
+
+    private void expire(Expiration<K> expiration) {
+        expiration.next = due;
+        due = expiration;
+    }
+}
@@ -26,17 +26,23 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.kaazing.gateway.util.AtomicCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.EntryListener;
 import com.hazelcast.core.EntryView;
 import com.hazelcast.core.ExecutionCallback;
@@ -51,6 +57,11 @@ import com.hazelcast.core.ITopic;
 import com.hazelcast.core.ItemListener;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.map.MapInterceptor;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
 import com.hazelcast.map.listener.MapListener;
 import com.hazelcast.map.listener.MapPartitionLostListener;
 import com.hazelcast.mapreduce.JobTracker;
@@ -63,6 +74,8 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
     private static final String OPERATION_NOT_SUPPORTED_MESSAGE = "Operation %s not supported";
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryCollectionsFactory.class);
+
     private final ConcurrentMap<String, IMapImpl<?, ?>> maps;
     private final ConcurrentMap<String, IListImpl<?>> lists;
     private final Map<String, ILockImpl> locks;
@@ -117,6 +130,13 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         return map;
     }
 
+    /**
+     * Returns the size and expiration statistics of the named map, or null if the map has not been created.
+     */
+    public MemoryMapStats getMapStats(String name) {
+        return maps.get(name);
+    }
+
     @Override
     public ILock getLock(String name) {
         synchronized (locks) {
@@ -173,16 +193,33 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         }
     }
 
-    private class IMapImpl<K, V> implements IMap<K, V> {
+    /**
+     * Entries put with a time to live are expired by a timing wheel, which every map operation advances, so that no
+     * operation has to scan all entries. Operations on a single key also expire that key exactly on time, while
+     * operations on the whole map (such as size) may still see entries expired within the last tick of the wheel.
+     */
+    private class IMapImpl<K, V> implements IMap<K, V>, MemoryMapStats, ExpirationWheel.Handler<K> {
 
         private final ConcurrentHashMap<K, V> map;
         private final ConcurrentHashMap<K, Long> keyExpirations;
+        private final ExpirationWheel<K> expirationWheel;
+        private final Map<String, MapListenerHolder> listeners;
+        private final LongAdder expiredCount;
         private final String name;
 
+        // guarded by this
+        private long rateIntervalStart;
+        private long rateIntervalExpiredCount;
+        private volatile double expirationRate;
+
         public IMapImpl(String name) {
             this.name = name;
             this.map = new ConcurrentHashMap<>();
             this.keyExpirations = new ConcurrentHashMap<>();
+            this.expirationWheel = new ExpirationWheel<>(currentTimeMillis());
+            this.listeners = new ConcurrentHashMap<>();
+            this.expiredCount = new LongAdder();
+            this.rateIntervalStart = currentTimeMillis();
         }
 
         @Override
@@ -191,6 +228,26 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
             return map.size();
         }
 
+        @Override
+        public int getSize() {
+            return size();
+        }
+
+        @Override
+        public long getExpiredCount() {
+            return expiredCount.sum();
+        }
+
+        @Override
+        public double getExpirationRate() {
+            return expirationRate;
+        }
+
+        @Override
+        public int getScheduledExpirationCount() {
+            return expirationWheel.size();
+        }
+
         @Override
         public boolean isEmpty() {
             removeExpiredEntries();
@@ -216,13 +273,19 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         public void destroy() {
             maps.remove(getName());
             keyExpirations.clear();
+            expirationWheel.clear();
+            listeners.clear();
             map.clear();
         }
 
         @Override
         public void putAll(Map<? extends K, ? extends V> m) {
             removeExpiredEntries();
-            map.putAll(m);
+            for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                K key = entry.getKey();
+                V value = entry.getValue();
+                firePutEvent(key, map.put(key, value), value);
+            }
         }
 
         @Override
@@ -248,45 +311,150 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public V put(K key, V value) {
             removeExpiredEntries();
-            return map.put(key, value);
+            V oldValue = map.put(key, value);
+            firePutEvent(key, oldValue, value);
+            return oldValue;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public V remove(Object key) {
             removeExpiredEntries();
             keyExpirations.remove(key);
-            return map.remove(key);
+            V value = map.remove(key);
+            if (value != null) {
+                fireEntryEvent(EntryEventType.REMOVED, (K) key, value);
+            }
+            return value;
         }
 
         private void removeExpiredEntries() {
             long currentMillis = currentTimeMillis();
-            this.keyExpirations.entrySet().removeIf(e -> {
-                final Long expiration = e.getValue();
-                if (currentMillis >= expiration.longValue()) {
-                    map.remove(e.getKey());
-                    return true;
+            if (expirationWheel.advance(currentMillis, this)) {
+                updateExpirationRate(currentMillis);
+            }
+        }
+
+        @Override
+        public void expired(K key, long deadline) {
+            // the deadline no longer applies if the key was removed or put again since
+            if (keyExpirations.remove(key, deadline)) {
+                V value = map.remove(key);
+                if (value != null) {
+                    expiredCount.increment();
+                    fireEntryEvent(EntryEventType.EXPIRED, key, value);
                 }
-                return false;
-            });
+            }
         }
 
+        private synchronized void updateExpirationRate(long currentMillis) {
+            long interval = currentMillis - rateIntervalStart;
+            if (interval >= 1000) {
+                long expired = expiredCount.sum();
+                expirationRate = (expired - rateIntervalExpiredCount) * 1000.0 / interval;
+                rateIntervalExpiredCount = expired;
+                rateIntervalStart = currentMillis;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
         private boolean evictEntryIfExpired(Object key) {
             long currentMillis = currentTimeMillis();
             final Long expiration = keyExpirations.get(key);
             if (expiration != null) {
                 if (currentMillis >= expiration.longValue()) {
-                    map.remove(key);
-                    keyExpirations.remove(key);
+                    expired((K) key, expiration);
                     return true;
                 }
             }
             return false;
         }
 
+        private void scheduleExpiration(K key, long ttl, TimeUnit timeunit) {
+            long expiration = currentTimeMillis() + timeunit.toMillis(ttl);
+            keyExpirations.put(key, expiration);
+            expirationWheel.schedule(key, expiration);
+        }
+
+        private void firePutEvent(K key, V oldValue, V value) {
+            if (oldValue == null) {
+                fireEntryEvent(EntryEventType.ADDED, key, null, value);
+            }
+            else {
+                fireEntryEvent(EntryEventType.UPDATED, key, oldValue, value);
+            }
+        }
+
+        private void fireEntryEvent(EntryEventType eventType, K key, V value) {
+            // the removed value is offered as both old and current value, as Hazelcast versions differ on which to read
+            fireEntryEvent(eventType, key, value, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fireEntryEvent(EntryEventType eventType, K key, V oldValue, V value) {
+            for (MapListenerHolder holder : listeners.values()) {
+                MapListener listener = holder.listener;
+                EntryEventType listenerEventType = eventType;
+                if (eventType == EntryEventType.EXPIRED && !(listener instanceof EntryExpiredListener)) {
+                    // listeners predating expiration events are told about evictions instead
+                    listenerEventType = EntryEventType.EVICTED;
+                }
+
+                V eventOldValue = holder.includeValue ? oldValue : null;
+                V eventValue = holder.includeValue ? value : null;
+                EntryEvent<K, V> event = new EntryEvent<>(name, null, listenerEventType.getType(), key, eventOldValue,
+                        eventValue);
+                try {
+                    switch (listenerEventType) {
+                        case ADDED:
+                            if (listener instanceof EntryAddedListener) {
+                                ((EntryAddedListener<K, V>) listener).entryAdded(event);
+                            }
+                            break;
+                        case UPDATED:
+                            if (listener instanceof EntryUpdatedListener) {
+                                ((EntryUpdatedListener<K, V>) listener).entryUpdated(event);
+                            }
+                            break;
+                        case REMOVED:
+                            if (listener instanceof EntryRemovedListener) {
+                                ((EntryRemovedListener<K, V>) listener).entryRemoved(event);
+                            }
+                            break;
+                        case EXPIRED:
+                            ((EntryExpiredListener<K, V>) listener).entryExpired(event);
+                            break;
+                        default:
+                            if (listener instanceof EntryEvictedListener) {
+                                ((EntryEvictedListener<K, V>) listener).entryEvicted(event);
+                            }
+                            break;
+                    }
+                }
+                catch (Exception e) {
+                    LOGGER.debug("Entry listener: " + holder.id + " on map: " + name + " failed.", e);
+                }
+            }
+        }
+
+        private String addListener(MapListener listener, boolean includeValue) {
+            if (listener == null) {
+                throw new NullPointerException("listener must be not null");
+            }
+            String id = UUID.randomUUID().toString();
+            listeners.put(id, new MapListenerHolder(id, listener, includeValue));
+            return id;
+        }
+
         @Override
+        @SuppressWarnings("unchecked")
         public boolean remove(Object key, Object value) {
-            keyExpirations.remove(key, value);
-            return map.remove(key, value);
+            if (map.remove(key, value)) {
+                keyExpirations.remove(key);
+                fireEntryEvent(EntryEventType.REMOVED, (K) key, (V) value);
+                return true;
+            }
+            return false;
         }
 
         @Override
@@ -318,6 +486,7 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         public void clear() {
             map.clear();
             keyExpirations.clear();
+            expirationWheel.clear();
         }
 
         @Override
@@ -373,15 +542,22 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public V putIfAbsent(K key, V value) {
             removeExpiredEntries();
-            return map.putIfAbsent(key, value);
+            evictEntryIfExpired(key);
+            V oldValue = map.putIfAbsent(key, value);
+            if (oldValue == null) {
+                fireEntryEvent(EntryEventType.ADDED, key, null, value);
+            }
+            return oldValue;
         }
 
         @Override
         public V putIfAbsent(K key, V value, long ttl, TimeUnit timeunit) {
             removeExpiredEntries();
+            evictEntryIfExpired(key);
             V oldValue = map.putIfAbsent(key, value);
             if (oldValue == null) {
-                keyExpirations.put(key, currentTimeMillis() + timeunit.toMillis(ttl));
+                scheduleExpiration(key, ttl, timeunit);
+                fireEntryEvent(EntryEventType.ADDED, key, null, value);
             }
             return oldValue;
         }
@@ -389,13 +565,21 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
         @Override
         public boolean replace(K key, V oldValue, V newValue) {
             removeExpiredEntries();
-            return map.replace(key, oldValue, newValue);
+            if (map.replace(key, oldValue, newValue)) {
+                fireEntryEvent(EntryEventType.UPDATED, key, oldValue, newValue);
+                return true;
+            }
+            return false;
         }
 
         @Override
         public V replace(K key, V value) {
             removeExpiredEntries();
-            return map.replace(key, value);
+            V oldValue = map.replace(key, value);
+            if (oldValue != null) {
+                fireEntryEvent(EntryEventType.UPDATED, key, oldValue, value);
+            }
+            return oldValue;
         }
 
         @Override
@@ -451,13 +635,13 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public String addLocalEntryListener(MapListener listener) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addLocalEntryListener"));
+            return addListener(listener, true);
         }
 
         @SuppressWarnings("rawtypes")
         @Override
         public String addLocalEntryListener(EntryListener listener) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addLocalEntryListener"));
+            return addListener(listener, true);
         }
 
         @Override
@@ -494,18 +678,18 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public String addEntryListener(MapListener listener, boolean includeValue) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addEntryListener"));
+            return addListener(listener, includeValue);
         }
 
         @SuppressWarnings("rawtypes")
         @Override
         public String addEntryListener(EntryListener listener, boolean includeValue) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "addEntryListener"));
+            return addListener(listener, includeValue);
         }
 
         @Override
         public boolean removeEntryListener(String id) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "removeEntryListener"));
+            return listeners.remove(id) != null;
         }
 
         @Override
@@ -558,7 +742,14 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
         @Override
         public boolean evict(K key) {
-            throw new UnsupportedOperationException(format(OPERATION_NOT_SUPPORTED_MESSAGE, "evict"));
+            removeExpiredEntries();
+            V value = map.remove(key);
+            keyExpirations.remove(key);
+            if (value != null) {
+                fireEntryEvent(EntryEventType.EVICTED, key, value);
+                return true;
+            }
+            return false;
         }
 
         @Override
@@ -673,6 +864,18 @@ public class MemoryCollectionsFactory implements CollectionsFactory {
 
     }
 
+    private static final class MapListenerHolder {
+        private final String id;
+        private final MapListener listener;
+        private final boolean includeValue;
+
+        MapListenerHolder(String id, MapListener listener, boolean includeValue) {
+            this.id = id;
+            this.listener = listener;
+            this.includeValue = includeValue;
+        }
+    }
+
     private class ILockImpl implements ILock {
 
         private final String name;
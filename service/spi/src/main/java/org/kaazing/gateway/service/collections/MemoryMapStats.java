@@ -0,0 +1,44 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.collections;
+
+/**
+ * Size and expiration statistics of a map created by {@link MemoryCollectionsFactory}.
+ */
+public interface MemoryMapStats {
+
+    /**
+     * Returns the number of entries in the map, after expiring those whose time to live has passed.
+     */
+    int getSize();
+
+    /**
+     * Returns the number of entries expired since the map was created.
+     */
+    long getExpiredCount();
+
+    /**
+     * Returns the number of entries expired per second, measured over the last interval of at least one second in which
+     * the map was used.
+     */
+    double getExpirationRate();
+
+    /**
+     * Returns the number of expiration deadlines held for the map, including stale deadlines of entries since removed
+     * or put again, which are discarded as they come due.
+     */
+    int getScheduledExpirationCount();
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.service.collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ExpirationWheelTest {
+
+    private final List<String> expired = new ArrayList<>();
+    private final ExpirationWheel.Handler<String> handler = (key, deadline) -> expired.add(key);
+
+    @Test
+    public void shouldExpireKeysInDeadlineOrder() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(10, 0);
+        wheel.schedule("late", 500);
+        wheel.schedule("early", 20);
+
+        wheel.advance(19, handler);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(20, handler);
+        assertEquals(asList("early"), expired);
+
+        wheel.advance(499, handler);
+        assertEquals(asList("early"), expired);
+
+        wheel.advance(500, handler);
+        assertEquals(asList("early", "late"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldNotExpireBeforeDeadlineWithinTick() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(10, 0);
+        wheel.schedule("key", 15);
+
+        wheel.advance(15, handler);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(20, handler);
+        assertEquals(asList("key"), expired);
+    }
+
+    @Test
+    public void shouldExpirePastDeadlineImmediately() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(10, 1000);
+        wheel.schedule("past", 500);
+
+        wheel.advance(1000, handler);
+
+        assertEquals(asList("past"), expired);
+    }
+
+    @Test
+    public void shouldCascadeDistantDeadlines() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(1, 0);
+        long[] deadlines = { 63, 64, 65, 4095, 4096, 4097, 262144, 1L << 40 };
+        for (long deadline : deadlines) {
+            wheel.schedule(Long.toString(deadline), deadline);
+        }
+
+        for (long deadline : deadlines) {
+            expired.clear();
+            wheel.advance(deadline - 1, handler);
+            assertTrue("expired before " + deadline + ": " + expired, expired.isEmpty());
+            wheel.advance(deadline, handler);
+            assertEquals(asList(Long.toString(deadline)), expired);
+        }
+    }
+
+    @Test
+    public void shouldExpireRandomDeadlinesWhenAdvancedInSteps() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(1, 0);
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            String key = Integer.toString(i);
+            keys.add(key);
+            wheel.schedule(key, 1 + random.nextInt(1000000));
+        }
+
+        List<String> late = new ArrayList<>();
+        for (long now = 0; now <= 1000000; now += 1 + random.nextInt(5000)) {
+            final long time = now;
+            wheel.advance(now, (key, deadline) -> {
+                if (deadline > time) {
+                    late.add(key);
+                }
+                expired.add(key);
+            });
+        }
+        wheel.advance(1000000, handler);
+
+        assertTrue("expired early: " + late, late.isEmpty());
+        Collections.sort(keys);
+        Collections.sort(expired);
+        assertEquals(keys, expired);
+    }
+
+    @Test
+    public void shouldDiscardScheduledKeysOnClear() {
+        ExpirationWheel<String> wheel = new ExpirationWheel<>(10, 0);
+        wheel.schedule("key", 100);
+        wheel.advance(0, handler);
+
+        wheel.clear();
+        wheel.advance(1000, handler);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
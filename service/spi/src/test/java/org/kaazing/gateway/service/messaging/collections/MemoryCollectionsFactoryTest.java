@@ -25,18 +25,26 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.kaazing.gateway.service.collections.MemoryCollectionsFactory;
+import org.kaazing.gateway.service.collections.MemoryMapStats;
 import org.kaazing.gateway.util.AtomicCounter;
 
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryEventType;
 import com.hazelcast.core.IList;
 import com.hazelcast.core.ILock;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.ITopic;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
 
 public class MemoryCollectionsFactoryTest {
     private static final String OBJECT_NAME = "TestObject";
@@ -111,6 +119,96 @@ public class MemoryCollectionsFactoryTest {
         assertFalse(map.remove("three", "30"));
     }
 
+    @Test
+    public void shouldNotifyListenersOfExpiredEntries() throws Exception {
+        IMap<String, String> map = factory.getMap(OBJECT_NAME);
+        List<EntryEvent<String, String>> expired = new ArrayList<>();
+        List<EntryEvent<String, String>> evicted = new ArrayList<>();
+        map.addEntryListener((EntryExpiredListener<String, String>) expired::add, true);
+        String evictedListener = map.addEntryListener((EntryEvictedListener<String, String>) evicted::add, false);
+
+        map.putIfAbsent("one", "1", 1, MILLISECONDS);
+        map.putIfAbsent("two", "2", 10000, MILLISECONDS);
+
+        sleep(5);
+
+        assertNull(map.get("one"));
+        assertEquals(1, expired.size());
+        assertEquals("one", expired.get(0).getKey());
+        assertEquals("1", expired.get(0).getOldValue());
+        assertEquals(1, evicted.size());
+        assertNull(evicted.get(0).getOldValue());
+
+        assertTrue(map.removeEntryListener(evictedListener));
+        assertTrue(map.evict("two"));
+        assertEquals(1, evicted.size());
+        assertFalse(map.containsKey("two"));
+    }
+
+    @Test
+    public void shouldNotifyListenersOfAddedUpdatedAndRemovedEntries() throws Exception {
+        IMap<String, String> map = factory.getMap(OBJECT_NAME);
+        List<EntryEvent<String, String>> events = new ArrayList<>();
+        map.addEntryListener(new EntryAdapter<String, String>() {
+            @Override
+            public void onEntryEvent(EntryEvent<String, String> event) {
+                events.add(event);
+            }
+        }, true);
+
+        map.put("one", "1");
+        map.putIfAbsent("two", "2");
+        map.putIfAbsent("two", "20");
+        assertTrue(map.replace("one", "1", "10"));
+        assertFalse(map.replace("one", "1", "100"));
+        assertTrue(map.remove("one", "10"));
+        map.remove("two");
+        map.remove("three");
+
+        assertEquals(5, events.size());
+        assertEquals(EntryEventType.ADDED, events.get(0).getEventType());
+        assertEquals("1", events.get(0).getValue());
+        assertEquals(EntryEventType.ADDED, events.get(1).getEventType());
+        assertEquals("two", events.get(1).getKey());
+        assertEquals(EntryEventType.UPDATED, events.get(2).getEventType());
+        assertEquals("1", events.get(2).getOldValue());
+        assertEquals("10", events.get(2).getValue());
+        assertEquals(EntryEventType.REMOVED, events.get(3).getEventType());
+        assertEquals("one", events.get(3).getKey());
+        assertEquals(EntryEventType.REMOVED, events.get(4).getEventType());
+        assertEquals("2", events.get(4).getOldValue());
+    }
+
+    @Test
+    public void shouldReportMapStats() throws Exception {
+        IMap<String, String> map = factory.getMap(OBJECT_NAME);
+        assertNull(factory.getMapStats(ANOTHER_OBJECT_NAME));
+
+        map.putIfAbsent("one", "1", 1, MILLISECONDS);
+        map.putIfAbsent("two", "2", 10000, MILLISECONDS);
+        MemoryMapStats stats = factory.getMapStats(OBJECT_NAME);
+        assertEquals(0, stats.getExpiredCount());
+
+        sleep(5);
+
+        assertNull(map.get("one"));
+        assertEquals(1, stats.getSize());
+        assertEquals(1, stats.getExpiredCount());
+    }
+
+    @Test
+    public void shouldNotExpireEntryPutAgainAfterRemove() throws Exception {
+        IMap<String, String> map = factory.getMap(OBJECT_NAME);
+
+        map.putIfAbsent("one", "1", 1, MILLISECONDS);
+        assertTrue(map.remove("one", "1"));
+        map.putIfAbsent("one", "10");
+
+        sleep(5);
+
+        assertEquals("10", map.get("one"));
+    }
+
     @Test
     public void shouldGetIList() throws Exception {
         IList<String> list = factory.getList(OBJECT_NAME);
@@ -19,10 +19,7 @@ import java.net.URI;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map.Entry;
-import java.util.NavigableSet;
 import java.util.Set;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.kaazing.gateway.resource.address.Comparators;
 import org.kaazing.gateway.resource.address.ResourceAddress;
@@ -136,34 +133,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
 
     public static class HttpBinding extends org.kaazing.gateway.transport.Bindings.Binding {
 
-        private static final Comparator<String> PATH_ASCENDING = new Comparator<String>() {
-
-            @Override
-            public int compare(String path1, String path2) {
-
-                // TODO: optimize by inspecting string directly rather than splitting into arrays
-                String[] segments1 = path1.split("/");
-                String[] segments2 = path2.split("/");
-
-                int nSegments = Math.min(segments1.length, segments2.length);
-                int comparison = 0;
-                for (int i=0; i < nSegments; i++) {
-                    if (comparison != 0) {
-                        break;
-                    }
-                    comparison = segments1[i].compareTo(segments2[i]);
-                }
-
-                if (comparison == 0) {
-                    return (segments1.length - segments2.length);
-                }
-                
-                return comparison;
-            }
-
-        };
-
-        private final ConcurrentNavigableMap<String, Binding> bindingsByPath;
+        private final HttpPathTrie<Binding> bindingsByPath;
 
         @Override
         public int hashCode() {
@@ -188,7 +158,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
         
         @Override
         public String toString() {
-            Iterator<Entry<String,Binding>> i = bindingsByPath.entrySet().iterator();
+            Iterator<Entry<String,Binding>> i = bindingsByPath.toMap().entrySet().iterator();
             if (! i.hasNext())
                 return super.toString();
 
@@ -214,7 +184,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
 
         HttpBinding(ResourceAddress bindAddress) {
             super(bindAddress);
-            bindingsByPath = new ConcurrentSkipListMap<>(PATH_ASCENDING);
+            bindingsByPath = new HttpPathTrie<>();
         }
         
         boolean isEmpty() {
@@ -226,17 +196,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
         }
 
         Binding get(String path)  {
-            NavigableSet<String> paths = bindingsByPath.navigableKeySet();
-            NavigableSet<String> candidatePaths = paths.headSet(path, true);
-
-            for (Iterator<String> $i = candidatePaths.descendingIterator(); $i.hasNext(); ) {
-                String candidatePath = $i.next();
-                if (path.startsWith(candidatePath)) {
-                    return bindingsByPath.get(candidatePath);
-                }
-            }
-            
-            return null;
+            return bindingsByPath.get(path);
         }
 
         Binding put(String path, Binding binding)  {
@@ -244,7 +204,7 @@ public class HttpBindings extends Bindings<HttpBinding> {
         }
 
         boolean remove(String path, Binding binding)  {
-            if ( binding == (bindingsByPath.get(path))) {
+            if ( binding == (bindingsByPath.getExact(path))) {
                 if (binding != null && binding.decrementReferenceCount() == 0 ) {
                     return bindingsByPath.remove(path, binding);
                 }
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps paths to values by path segment, finding the value bound to the longest matching prefix of a path.
+ * <p>
+ * Nodes are immutable and the root is published through a volatile field, so lookups take no locks and allocate
+ * nothing, walking one node per segment of the path. Updates copy the nodes along the updated path and are
+ * serialized, which suits bindings that change rarely compared to how often they are looked up.
+ * <p>
+ * Empty segments are ignored, so "/foo", "/foo/" and "//foo" all denote the same path.
+ */
+final class HttpPathTrie<V> {
+
+    private volatile Node<V> root = Node.empty();
+    private volatile int size;
+
+    /**
+     * Returns the value bound to the longest prefix of the given path, or {@code null} if no prefix of the path,
+     * including the root path, has a value bound to it.
+     */
+    V get(String path) {
+        Node<V> node = root;
+        V match = node.value;
+        int length = (path != null) ? path.length() : 0;
+        int start = 0;
+        while (start < length && node.childCount != 0) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            node = node.child(path, start, end);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+            start = end;
+        }
+        return match;
+    }
+
+    /**
+     * Returns the value bound to exactly the given path, or {@code null} if none.
+     */
+    V getExact(String path) {
+        Node<V> node = root;
+        for (String segment : segments(path)) {
+            node = node.child(segment, 0, segment.length());
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Binds the value to the given path, unless a value is already bound to it.
+     *
+     * @return the value already bound to the path, or {@code null} if the given value was bound
+     */
+    synchronized V putIfAbsent(String path, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        V oldValue = getExact(path);
+        if (oldValue == null) {
+            root = root.with(segments(path), 0, path, value);
+            size++;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Unbinds the value from the given path, if it is still bound to it.
+     *
+     * @return true if the value was unbound
+     */
+    synchronized boolean remove(String path, V value) {
+        if (value == null || getExact(path) != value) {
+            return false;
+        }
+        Node<V> newRoot = root.without(segments(path), 0);
+        root = (newRoot != null) ? newRoot : Node.<V>empty();
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a snapshot of the bound values by path, ordered by path.
+     */
+    Map<String, V> toMap() {
+        Map<String, V> values = new TreeMap<>();
+        root.collect(values);
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        return toMap().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof HttpPathTrie)) {
+            return false;
+        }
+        HttpPathTrie<?> that = (HttpPathTrie<?>) o;
+        return this.toMap().equals(that.toMap());
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int length = (path != null) ? path.length() : 0;
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    // same as String.hashCode() for the segment, spread so that the low bits can index the table
+    private static int hash(String path, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + path.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node<V> {
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        private static final Node EMPTY = new Node(null, null, new String[0], new Node[0], 0);
+
+        // path and value bound at this node, both null when only on the way to other nodes
+        final String path;
+        final V value;
+
+        // open addressing by segment, table length is zero or a power of two at least twice the child count
+        final String[] segments;
+        final Node<V>[] children;
+        final int childCount;
+
+        private Node(String path, V value, String[] segments, Node<V>[] children, int childCount) {
+            this.path = path;
+            this.value = value;
+            this.segments = segments;
+            this.children = children;
+            this.childCount = childCount;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Node<V> empty() {
+            return (Node<V>) EMPTY;
+        }
+
+        Node<V> child(String path, int start, int end) {
+            if (childCount == 0) {
+                return null;
+            }
+            int segmentLength = end - start;
+            int mask = segments.length - 1;
+            for (int i = hash(path, start, end) & mask; ; i = (i + 1) & mask) {
+                String segment = segments[i];
+                if (segment == null) {
+                    return null;
+                }
+                if (segment.length() == segmentLength && segment.regionMatches(0, path, start, segmentLength)) {
+                    return children[i];
+                }
+            }
+        }
+
+        Node<V> with(List<String> path, int index, String fullPath, V newValue) {
+            if (index == path.size()) {
+                return new Node<>(fullPath, newValue, segments, children, childCount);
+            }
+            String segment = path.get(index);
+            Node<V> child = child(segment, 0, segment.length());
+            if (child == null) {
+                child = empty();
+            }
+            return withChild(segment, child.with(path, index + 1, fullPath, newValue));
+        }
+
+        // returns null when nothing is left at or below this node
+        Node<V> without(List<String> path, int index) {
+            if (index == path.size()) {
+                return (childCount != 0) ? new Node<>(null, null, segments, children, childCount) : null;
+            }
+            String segment = path.get(index);
+            Node<V> child = child(segment, 0, segment.length()).without(path, index + 1);
+            Node<V> node = withChild(segment, child);
+            return (node.value != null || node.childCount != 0) ? node : null;
+        }
+
+        void collect(Map<String, V> values) {
+            if (value != null) {
+                values.put(path, value);
+            }
+            for (Node<V> child : children) {
+                if (child != null) {
+                    child.collect(values);
+                }
+            }
+        }
+
+        // replaces, adds or (for a null child) removes the child for the segment, rebuilding the table
+        private Node<V> withChild(String segment, Node<V> child) {
+            int newCount = 0;
+            String[] oldSegments = segments;
+            Node<V>[] oldChildren = children;
+            for (int i = 0; i < oldSegments.length; i++) {
+                if (oldSegments[i] != null && !oldSegments[i].equals(segment)) {
+                    newCount++;
+                }
+            }
+            if (child != null) {
+                newCount++;
+            }
+
+            int tableLength = 0;
+            if (newCount != 0) {
+                tableLength = 2;
+                while (tableLength < newCount * 2) {
+                    tableLength <<= 1;
+                }
+            }
+            String[] newSegments = new String[tableLength];
+            @SuppressWarnings("unchecked")
+            Node<V>[] newChildren = new Node[tableLength];
+            for (int i = 0; i < oldSegments.length; i++) {
+                if (oldSegments[i] != null && !oldSegments[i].equals(segment)) {
+                    insert(newSegments, newChildren, oldSegments[i], oldChildren[i]);
+                }
+            }
+            if (child != null) {
+                insert(newSegments, newChildren, segment, child);
+            }
+            return new Node<>(path, value, newSegments, newChildren, newCount);
+        }
+
+        private static <V> void insert(String[] segments, Node<V>[] children, String segment, Node<V> child) {
+            int mask = segments.length - 1;
+            int i = hash(segment, 0, segment.length()) & mask;
+            while (segments[i] != null) {
+                i = (i + 1) & mask;
+            }
+            segments[i] = segment;
+            children[i] = child;
+        }
+    }
+}
@@ -236,7 +236,17 @@ public class HttpUtils {
         return hasBeenModified(requestFile, etag, ifNoneMatch, ifModifiedSince);
     }
 
+    public static boolean hasBeenModified(HttpSession session, String etag, long lastModified) {
+        String ifNoneMatch = session.getReadHeader("If-None-Match");
+        String ifModifiedSince = session.getReadHeader("If-Modified-Since");
+        return hasBeenModified(lastModified, etag, ifNoneMatch, ifModifiedSince);
+    }
+
     private static boolean hasBeenModified(File requestFile, String eTag, String ifNoneMatch, String ifModifiedSince) {
+        return hasBeenModified(requestFile.lastModified(), eTag, ifNoneMatch, ifModifiedSince);
+    }
+
+    private static boolean hasBeenModified(long lastModified, String eTag, String ifNoneMatch, String ifModifiedSince) {
         // "*" indicates skip ETag check, just use if-modified-since semantics, if present
         if (ifNoneMatch != null && !"*".equals(ifNoneMatch)) {
             // if ETag match is found, then not modified
@@ -256,7 +266,6 @@ public class HttpUtils {
             return true;
         }
 
-        long lastModified = requestFile.lastModified();
         Date ifModifiedSinceDate = null;
 
         // parse date format
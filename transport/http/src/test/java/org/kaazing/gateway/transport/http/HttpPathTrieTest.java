@@ -0,0 +1,114 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class HttpPathTrieTest {
+
+    @Test
+    public void shouldMatchLongestPrefixBySegment() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        trie.putIfAbsent("/foo", "foo");
+        trie.putIfAbsent("/foo/;e/ub", "ub");
+        trie.putIfAbsent("/foo/;e/ubm", "ubm");
+
+        assertEquals("foo", trie.get("/foo"));
+        assertEquals("foo", trie.get("/foo/;e/cb"));
+        assertEquals("ub", trie.get("/foo/;e/ub/1234"));
+        assertEquals("ubm", trie.get("/foo/;e/ubm/1234"));
+        assertNull(trie.get("/foobar"));
+        assertNull(trie.get("/"));
+        assertNull(trie.get(""));
+    }
+
+    @Test
+    public void shouldMatchRootPathForAnyPath() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        trie.putIfAbsent("/", "root");
+        trie.putIfAbsent("/foo/bar", "bar");
+
+        assertEquals("root", trie.get("/"));
+        assertEquals("root", trie.get("/foo"));
+        assertEquals("bar", trie.get("/foo/bar/baz"));
+        assertEquals("root", trie.get("/fiz/buz"));
+    }
+
+    @Test
+    public void shouldIgnoreEmptySegments() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        trie.putIfAbsent("/foo/", "foo");
+
+        assertEquals("foo", trie.getExact("/foo"));
+        assertEquals("foo", trie.get("//foo//bar"));
+        assertEquals("foo", trie.putIfAbsent("/foo", "other"));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void shouldRemoveOnlyBoundValue() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        trie.putIfAbsent("/foo", "foo");
+        trie.putIfAbsent("/foo/bar", "bar");
+
+        assertFalse(trie.remove("/foo", "other"));
+        assertFalse(trie.remove("/foo/baz", "foo"));
+        assertTrue(trie.remove("/foo", "foo"));
+
+        assertNull(trie.get("/foo"));
+        assertEquals("bar", trie.get("/foo/bar"));
+
+        assertTrue(trie.remove("/foo/bar", "bar"));
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.toMap().isEmpty());
+    }
+
+    @Test
+    public void shouldKeepManySiblings() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        String[] services = new String[1000];
+        for (int i = 0; i < services.length; i++) {
+            services[i] = "/service" + i;
+            trie.putIfAbsent(services[i], services[i]);
+        }
+        for (int i = 0; i < services.length; i += 2) {
+            trie.remove(services[i], services[i]);
+        }
+
+        assertEquals(500, trie.size());
+        for (int i = 0; i < services.length; i++) {
+            assertEquals((i % 2 == 0) ? null : services[i], trie.get(services[i] + "/;e/cb"));
+        }
+    }
+
+    @Test
+    public void shouldListBindingsByPath() {
+        HttpPathTrie<String> trie = new HttpPathTrie<>();
+        trie.putIfAbsent("/foo/baz", "baz");
+        trie.putIfAbsent("/bar", "bar");
+        trie.putIfAbsent("/foo", "foo");
+
+        assertEquals(Arrays.asList("/bar", "/foo", "/foo/baz"), Arrays.asList(trie.toMap().keySet().toArray()));
+    }
+
+}
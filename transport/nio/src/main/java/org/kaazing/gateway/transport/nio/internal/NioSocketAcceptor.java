@@ -16,8 +16,12 @@
 package org.kaazing.gateway.transport.nio.internal;
 
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.kaazing.gateway.util.InternalSystemProperty.DEBUG_NIOWORKER_POOL;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_BACKLOG;
+import static org.kaazing.gateway.util.InternalSystemProperty.TCP_BUFFER_POOL_CAPACITY;
+import static org.kaazing.gateway.util.InternalSystemProperty.TCP_BUFFER_POOL_LEAK_SAMPLING_INTERVAL;
+import static org.kaazing.gateway.util.InternalSystemProperty.TCP_BUFFER_POOL_LEAK_THRESHOLD;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_IP_TOS;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_KEEP_ALIVE;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_MAXIMUM_READ_BUFFER_SIZE;
@@ -30,6 +34,9 @@ import static org.kaazing.gateway.util.InternalSystemProperty.TCP_REUSE_ADDRESS;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_SEND_BUFFER_SIZE;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_SO_LINGER;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_WRITE_TIMEOUT;
+import static org.kaazing.gateway.util.InternalSystemProperty.TCP_ZERO_COPY_READ;
+import static org.kaazing.gateway.util.Utils.parseDataSize;
+import static org.kaazing.gateway.util.Utils.parseTimeInterval;
 
 import java.util.Collection;
 import java.util.Properties;
@@ -64,7 +71,10 @@ import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.kaazing.gateway.transport.BridgeSessionInitializer;
 import org.kaazing.gateway.transport.NioBindException;
 import org.kaazing.gateway.transport.nio.TcpExtension;
+import org.kaazing.mina.core.buffer.PooledBufferAllocator;
 import org.kaazing.mina.core.service.IoAcceptorEx;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator;
+import org.kaazing.mina.netty.ChannelIoBufferAllocator.ChannelIoBuffer;
 import org.kaazing.mina.netty.socket.nio.DefaultNioSocketChannelIoSessionConfig;
 import org.kaazing.mina.netty.socket.nio.NioSocketChannelIoAcceptor;
 import org.kaazing.mina.netty.util.threadlocal.VicariousThreadLocal;
@@ -122,6 +132,7 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
     }
 
     private final AtomicReference<DistributedNioWorkerPool> currentWorkerPool = new AtomicReference<>();
+    private final AtomicReference<PooledBufferAllocator<ChannelIoBuffer>> currentBufferPool = new AtomicReference<>();
 
     public NioSocketAcceptor(Properties configuration, TcpExtensionFactory extensionFactory) {
         super(configuration, LoggerFactory.getLogger(LOGGER_NAME));
@@ -147,7 +158,17 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
     @Override
     public void dispose() {
         // Unset static state on the thread to allow gateway to be restarted in same thread
-        currentWorkerPool.set(null);
+        DistributedNioWorkerPool workerPool = currentWorkerPool.getAndSet(null);
+        if (workerPool != null && logger.isDebugEnabled()) {
+            for (NioWorker worker : workerPool.workers) {
+                logger.debug("TCP worker: {}", worker);
+            }
+        }
+        PooledBufferAllocator<ChannelIoBuffer> bufferPool = currentBufferPool.getAndSet(null);
+        if (bufferPool != null) {
+            logger.info("TCP buffer pool: {}", bufferPool);
+            bufferPool.dispose();
+        }
         super.dispose();
     }
 
@@ -181,6 +202,8 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
                                                   serverChannelFactory,
                                                   new AffinityIoAcceptorChannelHandlerFactory());
     	acceptor.setIoSessionInitializer(initializer);
+        acceptor.setBufferPool(initBufferPool(logger, "TCP acceptor: {}", configuration));
+        acceptor.setZeroCopyRead(TCP_ZERO_COPY_READ.getBooleanProperty(configuration));
 
         // KG-8210: avoid hang on gateway shutdown, plus we don't want quiesce or unbind to disconnect everyone!
         acceptor.setCloseOnDeactivation(false);
@@ -259,6 +282,39 @@ public class NioSocketAcceptor extends AbstractNioAcceptor {
         return currentWorkerPool.get().workers;
     }
 
+    /**
+     * Returns the pool of buffers shared by the TCP acceptor and connector, or null if buffers are not pooled.
+     */
+    public PooledBufferAllocator<ChannelIoBuffer> getBufferPool() {
+        return currentBufferPool.get();
+    }
+
+    PooledBufferAllocator<ChannelIoBuffer> initBufferPool(Logger logger, String message, Properties configuration) {
+        String bufferPoolCapacity = TCP_BUFFER_POOL_CAPACITY.getProperty(configuration);
+        int maxCapacity = (bufferPoolCapacity != null) ? parseDataSize(bufferPoolCapacity) : 0;
+        if (maxCapacity <= 0) {
+            return null;
+        }
+
+        PooledBufferAllocator<ChannelIoBuffer> bufferPool = currentBufferPool.get();
+        if (bufferPool == null) {
+            String leakThresholdInterval = TCP_BUFFER_POOL_LEAK_THRESHOLD.getProperty(configuration);
+            long leakThreshold = parseTimeInterval(leakThresholdInterval, MILLISECONDS);
+            int leakSamplingInterval = TCP_BUFFER_POOL_LEAK_SAMPLING_INTERVAL.getIntProperty(configuration);
+            PooledBufferAllocator<ChannelIoBuffer> newBufferPool = new PooledBufferAllocator<>(
+                    ChannelIoBufferAllocator.BUFFER_ALLOCATOR, maxCapacity, leakSamplingInterval, leakThreshold);
+            if (currentBufferPool.compareAndSet(null, newBufferPool)) {
+                bufferPool = newBufferPool;
+            }
+            else {
+                // we lost the race with another thread doing acceptor.bind or connector.connect
+                bufferPool = currentBufferPool.get();
+            }
+        }
+        logger.debug(message, "buffer pool capacity = " + maxCapacity);
+        return bufferPool;
+    }
+
 	WorkerPool<NioWorker> initWorkerPool(Logger logger, String message, Properties configuration) {
     	int workerCount = TCP_PROCESSOR_COUNT.getIntProperty(configuration);
         if (logger.isDebugEnabled()) {
@@ -25,6 +25,7 @@ import static org.kaazing.gateway.util.InternalSystemProperty.TCP_READ_BUFFER_SI
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_RECEIVE_BUFFER_SIZE;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_SEND_BUFFER_SIZE;
 import static org.kaazing.gateway.util.InternalSystemProperty.TCP_SO_LINGER;
+import static org.kaazing.gateway.util.InternalSystemProperty.TCP_ZERO_COPY_READ;
 
 import java.util.Properties;
 
@@ -128,7 +129,11 @@ public class NioSocketConnector extends AbstractNioConnector {
         		newCachedThreadPool(),
         		bossCount,
         		workerPool);
-        connector = new NioSocketChannelIoConnector(new DefaultNioSocketChannelIoSessionConfig(), clientChannelFactory);
+        NioSocketChannelIoConnector nioConnector =
+                new NioSocketChannelIoConnector(new DefaultNioSocketChannelIoSessionConfig(), clientChannelFactory);
+        nioConnector.setBufferPool(tcpAcceptor.initBufferPool(logger, "TCP connector: {}", getConfiguration()));
+        nioConnector.setZeroCopyRead(TCP_ZERO_COPY_READ.getBooleanProperty(getConfiguration()));
+        connector = nioConnector;
 
         if ("true".equals(keepAlive)) {
             connector.getSessionConfig().setKeepAlive(true);
@@ -18,6 +18,7 @@ package org.kaazing.gateway.transport.bridge;
 import static org.kaazing.mina.core.buffer.IoBufferEx.FLAG_ZERO_COPY;
 
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import org.kaazing.gateway.transport.BridgeSession;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
@@ -61,6 +62,33 @@ public abstract class CachingMessageEncoder {
         return cachedBuffer;
     }
 
+    /**
+     * Returns the variant of a cached message stored under the given key, creating it with the transformer on first use.
+     * <p>
+     * Variants hold transformations that do not depend on the session a message is written to, such as its compressed
+     * form for a given set of extension parameters. A message fanned out to many sessions is then transformed once
+     * (per I/O thread, like its encoded buffers) and the resulting variant, with its own cache, is shared by them all.
+     */
+    public static <T extends Message> T getVariant(String variantKey, T message, Function<? super T, ? extends T> transformer) {
+        ConcurrentMap<String, Message> variants = message.getVariants();
+
+        // if cache is not initialized, throw exception (caller should guard)
+        if (variants == null) {
+            throw new IllegalStateException("Cache not initialized");
+        }
+
+        @SuppressWarnings("unchecked")
+        T variant = (T) variants.get(variantKey);
+        if (variant == null) {
+            T newVariant = transformer.apply(message);
+            @SuppressWarnings("unchecked")
+            T existingVariant = (T) variants.putIfAbsent(variantKey, newVariant);
+            variant = (existingVariant != null) ? existingVariant : newVariant;
+        }
+
+        return variant;
+    }
+
     public static CachingMessageEncoder getMessageEncoder(IoSessionEx session) {
         return (session instanceof BridgeSession) ? ((BridgeSession)session).getMessageEncoder() : IO_MESSAGE_ENCODER;
     }
@@ -35,12 +35,26 @@ public class Message implements Cloneable {
             return new ConcurrentHashMap<>();
         }
     }
+
+    private static final class VariantsRef extends VicariousThreadLocal<ConcurrentMap<String, Message>> {
+
+        @Override
+        protected ConcurrentMap<String, Message> initialValue() {
+            return new ConcurrentHashMap<>();
+        }
+    }
     
     /**
      * The optional transport encoded buffer cache.
      */
     private ThreadLocal<ConcurrentMap<String, IoBufferEx>> cacheRef;
 
+    /**
+     * The optional cache of transformed variants of this message (such as compressed forms), initialized with
+     * the transport buffer cache.
+     */
+    private ThreadLocal<ConcurrentMap<String, Message>> variantsRef;
+
     /**
      * Initializes the transport buffer cache.
      */
@@ -49,11 +63,16 @@ public class Message implements Cloneable {
             throw new IllegalStateException("Cache already initialized");
         }
         cacheRef = new CacheRef();
+        variantsRef = new VariantsRef();
     }
     
     public ConcurrentMap<String, IoBufferEx> getCache() {
         return cacheRef.get();
     }
+
+    public ConcurrentMap<String, Message> getVariants() {
+        return (variantsRef != null) ? variantsRef.get() : null;
+    }
     
     public boolean hasCache() {
         return (cacheRef != null);
@@ -69,6 +88,7 @@ public class Message implements Cloneable {
     public Object clone() throws CloneNotSupportedException {
         Message clonedMessage = (Message)super.clone();
         clonedMessage.cacheRef = null;
+        clonedMessage.variantsRef = null;
         return clonedMessage;
     }
     
@@ -27,6 +27,10 @@ import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.WANT_C
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
 import static org.kaazing.gateway.transport.BridgeSession.NEXT_PROTOCOL_KEY;
 import static org.kaazing.gateway.transport.BridgeSession.REMOTE_ADDRESS;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_HANDSHAKE_QUEUE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_HANDSHAKE_THREADS;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_SESSION_CACHE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_SESSION_TIMEOUT;
 
 import java.io.IOException;
 import java.net.URI;
@@ -37,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
 
@@ -78,6 +83,8 @@ import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.dispatch.ProtocolDispatcher;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslCertificateSelectionFilter;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslFilter;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslHandshakeExecutor;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslSessionCache;
 import org.kaazing.gateway.transport.ssl.cert.VirtualHostKeySelector;
 import org.kaazing.gateway.util.ssl.SslCipherSuites;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
@@ -105,6 +112,9 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
     private ResourceAddressFactory resourceAddressFactory;
     private BridgeServiceFactory bridgeServiceFactory;
     private VirtualHostKeySelector vhostKeySelector;
+    private Properties configuration = new Properties();
+    private SslSessionCache sessionCache;
+    private SslHandshakeExecutor handshakeExecutor;
 
     // TODO: SslBindings like HttpBindings
     
@@ -122,6 +132,11 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         this.resourceAddressFactory = factory;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Resource(name = "securityContext")
     public void setSecurityContext(SecurityContext securityContext) {
         vhostKeySelector = new VirtualHostKeySelector();
@@ -144,7 +159,8 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
             KeyManagerFactory kmf = KeyManagerFactory.getInstance("SslTransport", new SslProvider());
             sslContextFactory.setKeyManagerFactory(kmf);
 
-            // avoid caching SSLSession in shared SSLContextFactory instance
+            // avoid caching SSLSession in shared SSLContextFactory instance,
+            // sessions are only cached per transport address (see SslSessionCache)
             // Note: SSLSessionContext.setSessionCacheSize(0) means unlimited,
             // so we use 1 instead
             sslContextFactory.setServerSessionCacheSize(1);
@@ -178,6 +194,40 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         }
 
         certificateSelection = new SslCertificateSelectionFilter(false);
+
+        int sessionCacheSize = SSL_SESSION_CACHE_SIZE.getIntProperty(configuration);
+        int sessionTimeout = SSL_SESSION_TIMEOUT.getIntProperty(configuration);
+        sessionCache = new SslSessionCache(sslContextFactory, false, sessionCacheSize, sessionTimeout);
+
+        int handshakeThreads = SSL_HANDSHAKE_THREADS.getIntProperty(configuration);
+        if (handshakeThreads > 0) {
+            int handshakeQueueSize = SSL_HANDSHAKE_QUEUE_SIZE.getIntProperty(configuration);
+            handshakeExecutor = new SslHandshakeExecutor("ssl-accept-handshake", handshakeThreads, handshakeQueueSize);
+        }
+    }
+
+    /**
+     * Returns the server session cache, with counters of full and resumed handshakes.
+     */
+    public SslSessionCache getSessionCache() {
+        return sessionCache;
+    }
+
+    /**
+     * Returns the executor running delegated handshake tasks off the I/O threads, with handshake duration histogram.
+     *
+     * @return null if delegated handshake tasks are run on the I/O threads
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    @Override
+    protected IoFuture dispose0() throws Exception {
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+        }
+        return super.dispose0();
     }
 
     @Override
@@ -212,10 +262,6 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         // the actual SSL filter is added to the filter chain by the
         // cipher selection filter dynamically; we do not need to add it here.
 
-        // Create our SslFilter instance, and configure it based on the
-        // resource address.
-        SslFilter sslFilter = new SslFilter(sslContext, false, logger);
-
         IoSession session = filterChain.getSession();
 
         // Note: Do NOT remove the SSL_RESOURCE_ADDRESS here; it will be
@@ -224,6 +270,14 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
         boolean encryption = sslAddress.getOption(ENCRYPTION_ENABLED);
 
         if (encryption) {
+            // Create our SslFilter instance, and configure it based on the
+            // resource address.  Sessions are resumed only on the transport
+            // address they were negotiated on, where the same certificates apply.
+            SSLContext transportSslContext = (sessionCache != null) ? sessionCache.getContext(sslAddress.getTransport()) : null;
+            SslFilter sslFilter = new SslFilter(transportSslContext != null ? transportSslContext : sslContext, false, logger);
+            sslFilter.setSessionCache(sessionCache);
+            sslFilter.setHandshakeExecutor(handshakeExecutor);
+
             boolean wantClientAuth = sslAddress.getOption(WANT_CLIENT_AUTH);
             boolean needClientAuth = sslAddress.getOption(NEED_CLIENT_AUTH);
 
@@ -332,6 +386,8 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
                 TransportKeySelector transportKeySelector = TransportKeySelector.class.cast(keySelector);
                 certificateSelection.setKeySelector(transportKeySelector);
                 transportKeySelector.bind(address);
+
+                sessionCache.bindContext(address.getTransport());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -407,6 +463,8 @@ public class SslAcceptor extends AbstractBridgeAcceptor<SslSession, NextProtocol
                 }
                 TransportKeySelector transportKeySelector = TransportKeySelector.class.cast(keySelector);
                 transportKeySelector.unbind(address);
+
+                sessionCache.unbindContext(transportAddress);
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
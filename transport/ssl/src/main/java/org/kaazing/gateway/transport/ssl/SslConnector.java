@@ -22,14 +22,22 @@ import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.KEY_SE
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.NEED_CLIENT_AUTH;
 import static org.kaazing.gateway.resource.address.ssl.SslResourceAddress.WANT_CLIENT_AUTH;
 import static org.kaazing.gateway.transport.BridgeSession.LOCAL_ADDRESS;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_HANDSHAKE_QUEUE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_HANDSHAKE_THREADS;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_MAXIMUM_CONNECT_ADDRESSES;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_SESSION_CACHE_SIZE;
+import static org.kaazing.gateway.util.InternalSystemProperty.SSL_SESSION_TIMEOUT;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
@@ -39,6 +47,7 @@ import javax.net.ssl.SSLContext;
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.ConnectFuture;
 import org.apache.mina.core.future.DefaultConnectFuture;
+import org.apache.mina.core.future.IoFuture;
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.service.IoHandler;
 import org.apache.mina.core.service.TransportMetadata;
@@ -64,6 +73,8 @@ import org.kaazing.gateway.transport.TransportKeySelector;
 import org.kaazing.gateway.transport.TypedAttributeKey;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslCertificateSelectionFilter;
 import org.kaazing.gateway.transport.ssl.bridge.filter.SslFilter;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslHandshakeExecutor;
+import org.kaazing.gateway.transport.ssl.bridge.filter.SslSessionCache;
 import org.kaazing.gateway.transport.ssl.cert.VirtualHostKeySelector;
 import org.kaazing.gateway.util.ssl.SslCipherSuites;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -84,6 +95,9 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
     private SslCertificateSelectionFilter certificateSelection;
     private ResourceAddressFactory resourceAddressFactory;
     private VirtualHostKeySelector vhostKeySelector;
+    private Properties configuration = new Properties();
+    private SslSessionCache sessionCache;
+    private SslHandshakeExecutor handshakeExecutor;
 
     public SslConnector() {
         super(new DefaultIoSessionConfigEx());
@@ -99,6 +113,11 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
         this.bridgeServiceFactory = bridgeServiceFactory;
     }
 
+    @Resource(name = "configuration")
+    public void setConfiguration(Properties configuration) {
+        this.configuration = configuration;
+    }
+
     @Resource(name = "securityContext")
     public void setSecurityContext(SecurityContext securityContext) {
         vhostKeySelector = new VirtualHostKeySelector();
@@ -121,7 +140,8 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
             KeyManagerFactory kmf = KeyManagerFactory.getInstance("SslTransport", new SslProvider());
             sslContextFactory.setKeyManagerFactory(kmf);
 
-            // avoid caching SSLSession in shared SSLContextFactory instance
+            // avoid caching SSLSession in shared SSLContextFactory instance,
+            // sessions are only cached per transport address (see SslSessionCache)
             // Note: SSLSessionContext.setSessionCacheSize(0) means unlimited,
             // so we use 1 instead
             sslContextFactory.setClientSessionCacheSize(1);
@@ -148,6 +168,42 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
         }
 
         certificateSelection = new SslCertificateSelectionFilter(true);
+
+        int sessionCacheSize = SSL_SESSION_CACHE_SIZE.getIntProperty(configuration);
+        int sessionTimeout = SSL_SESSION_TIMEOUT.getIntProperty(configuration);
+        int maximumConnectAddresses = SSL_MAXIMUM_CONNECT_ADDRESSES.getIntProperty(configuration);
+        sessionCache = new SslSessionCache(sslContextFactory, true, sessionCacheSize, sessionTimeout,
+                maximumConnectAddresses);
+
+        int handshakeThreads = SSL_HANDSHAKE_THREADS.getIntProperty(configuration);
+        if (handshakeThreads > 0) {
+            int handshakeQueueSize = SSL_HANDSHAKE_QUEUE_SIZE.getIntProperty(configuration);
+            handshakeExecutor = new SslHandshakeExecutor("ssl-connect-handshake", handshakeThreads, handshakeQueueSize);
+        }
+    }
+
+    /**
+     * Returns the client session cache, with counters of full and resumed handshakes.
+     */
+    public SslSessionCache getSessionCache() {
+        return sessionCache;
+    }
+
+    /**
+     * Returns the executor running delegated handshake tasks off the I/O threads, with handshake duration histogram.
+     *
+     * @return null if delegated handshake tasks are run on the I/O threads
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    @Override
+    protected IoFuture dispose0() throws Exception {
+        if (handshakeExecutor != null) {
+            handshakeExecutor.shutdown();
+        }
+        return super.dispose0();
     }
 
     @Override
@@ -163,9 +219,17 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
             boolean encryption = address.getOption(ENCRYPTION_ENABLED);
             if (encryption) {
                 // Create our SslFilter instance, and configure it based on the
-                // resource address.
-                SslFilter sslFilter = new SslFilter(sslContext, true, logger);
+                // resource address.  Sessions are resumed only on the transport
+                // address they were negotiated on, where the same certificates apply.
+                SSLContext transportSslContext = (sessionCache != null) ? sessionCache.getContext(address.getTransport()) : null;
+                SslFilter sslFilter = new SslFilter(transportSslContext != null ? transportSslContext : sslContext, true, logger);
                 sslFilter.setUseClientMode(true);
+                sslFilter.setSessionCache(sessionCache);
+                sslFilter.setHandshakeExecutor(handshakeExecutor);
+
+                // client sessions are cached by peer host and port
+                URI resource = address.getResource();
+                session.setAttribute(SslFilter.PEER_ADDRESS, InetSocketAddress.createUnresolved(resource.getHost(), resource.getPort()));
 
                 boolean wantClientAuth = address.getOption(WANT_CLIENT_AUTH);
                 boolean needClientAuth = address.getOption(NEED_CLIENT_AUTH);
@@ -255,6 +319,8 @@ public class SslConnector extends AbstractBridgeConnector<SslSession> {
                 TransportKeySelector transportKeySelector = TransportKeySelector.class.cast(keySelector);
                 certificateSelection.setKeySelector(transportKeySelector);
                 transportKeySelector.connect(connectAddress);
+
+                sessionCache.createContext(connectAddress.getTransport());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -104,6 +104,11 @@ public class SslCertificateSelectionFilter
         return certAliases.get(clientInfo.getCertAliasesKey());
     }
 
+    public static ResourceAddress getAvailableCertAliasesKey(boolean clientMode) {
+        AvailableCertInfo certInfo = clientMode ? availClientCertInfo.get() : availServerCertInfo.get();
+        return certInfo.getCertAliasesKey();
+    }
+
     public static Collection<String> getAvailableServerCertAliases() {
         AvailableCertInfo serverInfo = availServerCertInfo.get();
         if (serverInfo == null) {
@@ -166,6 +166,10 @@ public class SslFilter extends IoFilterAdapter {
 
     private String[] enabledProtocols;
 
+    private SslSessionCache sessionCache;
+
+    private SslHandshakeExecutor handshakeExecutor;
+
     /**
      * Creates a new SSL filter using the specified {@link SSLContext}.
      * The handshake will start immediately.
@@ -352,6 +356,39 @@ public class SslFilter extends IoFilterAdapter {
         this.enabledProtocols = protocols;
     }
 
+    /**
+     * Returns the session cache counting the handshakes of this filter.
+     *
+     * @return <tt>null</tt> if handshakes are not counted.
+     */
+    public SslSessionCache getSessionCache() {
+        return sessionCache;
+    }
+
+    /**
+     * Sets the session cache counting full and resumed initial handshakes.
+     */
+    public void setSessionCache(SslSessionCache sessionCache) {
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * Returns the executor running the delegated tasks of handshakes.
+     *
+     * @return <tt>null</tt> if delegated tasks are run by the I/O thread.
+     */
+    public SslHandshakeExecutor getHandshakeExecutor() {
+        return handshakeExecutor;
+    }
+
+    /**
+     * Sets the executor running the delegated tasks of handshakes, the
+     * handshake then resumes on the I/O thread of the session.
+     */
+    public void setHandshakeExecutor(SslHandshakeExecutor handshakeExecutor) {
+        this.handshakeExecutor = handshakeExecutor;
+    }
+
     @Override
     public void onPreAdd(IoFilterChain parent, String name,
             NextFilter nextFilter) throws SSLException {
@@ -625,6 +662,31 @@ public class SslFilter extends IoFilterAdapter {
         handler.flushScheduledEvents();
     }
 
+    /**
+     * Continues the handshake on the I/O thread once its delegated tasks have run,
+     * failing it when one of the tasks threw.
+     */
+    void resumeHandshake(NextFilter nextFilter, IoSession session, Throwable failure) {
+        SslHandler handler = (SslHandler) session.getAttribute(SSL_HANDLER);
+        if (handler == null) {
+            // SSL was stopped while the delegated tasks were running
+            return;
+        }
+
+        try {
+            synchronized (handler) {
+                handler.resumeHandshake(nextFilter, failure);
+                handleSslData(nextFilter, handler);
+            }
+
+            handler.flushScheduledEvents();
+        } catch (SSLException ssle) {
+            SSLException newSsle = new SSLHandshakeException("SSL handshake failed.");
+            newSsle.initCause(ssle);
+            session.getFilterChain().fireExceptionCaught(newSsle);
+        }
+    }
+
     private WriteFuture initiateClosure(NextFilter nextFilter, IoSession session)
             throws SSLException {
         SslHandler handler = getSslSessionHandler(session);
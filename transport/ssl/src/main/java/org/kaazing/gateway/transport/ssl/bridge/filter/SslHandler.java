@@ -19,6 +19,7 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
@@ -40,6 +41,7 @@ import org.apache.mina.core.session.IoEventType;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.WriteRequest;
 import org.apache.mina.util.CircularQueue;
+import org.kaazing.gateway.resource.address.ResourceAddress;
 import org.slf4j.Logger;
 
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
@@ -93,6 +95,15 @@ class SslHandler {
 
     private SSLEngineResult.HandshakeStatus handshakeStatus;
     private boolean initialHandshakeComplete;
+    private boolean initialHandshakeCounted;
+    private boolean initialHandshakeTimed;
+    private long handshakeStartTime;
+    private long handshakeStartNanos;
+    private boolean delegatedTasksPending;
+
+    // certificate selection for delegated tasks run off the I/O thread
+    private ResourceAddress certAliasesKey;
+    private Collection<String> certAliases;
     private boolean handshakeComplete;
     private boolean writingEncryptedData;
     private final IoBufferAllocatorEx<?> allocator;
@@ -208,6 +219,10 @@ class SslHandler {
         }
         sslEngine.setEnabledProtocols(protocols);
 
+        // sessions created before this are being resumed
+        handshakeStartTime = System.currentTimeMillis();
+        handshakeStartNanos = System.nanoTime();
+
         // TODO : we may not need to call this method...
         sslEngine.beginHandshake();
         
@@ -407,6 +422,10 @@ class SslHandler {
      * @return buffer with data
      */
     public IoBuffer fetchAppBuffer() {
+        if (this.appBuffer == null) {
+            // nothing decrypted, such as after delegated handshake tasks
+            return (IoBuffer) emptyBuffer;
+        }
         IoBufferEx appBuffer = this.appBuffer.flip();
         this.appBuffer = null;
         return (IoBuffer) appBuffer;
@@ -545,6 +564,12 @@ class SslHandler {
      * Perform any handshaking processing.
      */
     public void handshake(NextFilter nextFilter) throws SSLException {
+        if (delegatedTasksPending) {
+            // resumed by the handshake executor, received data waits in inNetBuffer
+            return;
+        }
+
+        SslHandshakeExecutor handshakeExecutor = parent.getHandshakeExecutor();
         for (;;) {
             switch (handshakeStatus) {
                 case FINISHED :
@@ -558,6 +583,18 @@ class SslHandler {
                             sslSession.getId(), session.getId(), session, sslSession.getCipherSuite(), sslSession.getApplicationBufferSize(), sslSession.getPacketBufferSize()));
                     }
 
+                    SslSessionCache sessionCache = parent.getSessionCache();
+                    if (sessionCache != null && !initialHandshakeCounted) {
+                        initialHandshakeCounted = true;
+                        boolean resumed = sslEngine.getSession().getCreationTime() < handshakeStartTime;
+                        sessionCache.handshakeComplete(resumed);
+                    }
+
+                    if (handshakeExecutor != null && !initialHandshakeTimed) {
+                        initialHandshakeTimed = true;
+                        handshakeExecutor.handshakeComplete(System.nanoTime() - handshakeStartNanos);
+                    }
+
                     if (!initialHandshakeComplete
                             && session.containsAttribute(SslFilter.USE_NOTIFICATION)) {
                         // SESSION_SECURED is fired only when it's the first handshake.
@@ -570,6 +607,9 @@ class SslHandler {
                     return;
                     
                 case NEED_TASK :
+                    if (handshakeExecutor != null && delegateTasks(nextFilter, handshakeExecutor)) {
+                        return;
+                    }
                     handshakeStatus = doTasks();
                     break;
                     
@@ -779,17 +819,111 @@ class SslHandler {
         return res;
     }
 
+    /**
+     * Continue the handshake after the delegated tasks have been run by the handshake executor.
+     *
+     * @param failure the exception thrown by one of the delegated tasks, or <tt>null</tt> if they all ran
+     */
+    void resumeHandshake(NextFilter nextFilter, Throwable failure) throws SSLException {
+        if (!delegatedTasksPending || sslEngine == null) {
+            return;
+        }
+
+        if (failure != null) {
+            delegatedTasksPending = false;
+            SSLException ssle = new SSLHandshakeException("SSL handshake task failed.");
+            ssle.initCause(failure);
+            throw ssle;
+        }
+
+        boolean clientMode = parent.isUseClientMode();
+        SslCertificateSelectionFilter.setCurrentSession(session, clientMode);
+        SslCertificateSelectionFilter.setAvailableCertAliases(certAliasesKey, certAliases, clientMode);
+        try {
+            delegatedTasksPending = false;
+            handshakeStatus = sslEngine.getHandshakeStatus();
+            handshake(nextFilter);
+
+            // Application data will be in the same message as the handshake
+            // during False Start
+            if (handshakeComplete) {
+                decrypt(nextFilter);
+            }
+        } finally {
+            SslCertificateSelectionFilter.setCurrentSession(null, clientMode);
+        }
+    }
+
+    /**
+     * Run the outstanding handshake tasks on the handshake executor, which
+     * resumes the handshake on the I/O thread of the session.
+     *
+     * @return false if the executor is saturated and the tasks have been run in the current Thread
+     */
+    private boolean delegateTasks(final NextFilter nextFilter, SslHandshakeExecutor handshakeExecutor) {
+        final List<Runnable> tasks = new ArrayList<>(2);
+        Runnable task;
+        while ((task = sslEngine.getDelegatedTask()) != null) {
+            tasks.add(task);
+        }
+
+        // certificate selection is based on thread locals of the I/O thread
+        final boolean clientMode = parent.isUseClientMode();
+        ResourceAddress availableAliasesKey = SslCertificateSelectionFilter.getAvailableCertAliasesKey(clientMode);
+        if (availableAliasesKey != null) {
+            certAliasesKey = availableAliasesKey;
+            certAliases = clientMode ? SslCertificateSelectionFilter.getAvailableClientCertAliases()
+                                     : SslCertificateSelectionFilter.getAvailableServerCertAliases();
+        }
+        final ResourceAddress aliasesKey = certAliasesKey;
+        final Collection<String> aliases = certAliases;
+
+        Runnable delegatedTasks = new Runnable() {
+            @Override
+            public void run() {
+                SslCertificateSelectionFilter.setCurrentSession(session, clientMode);
+                SslCertificateSelectionFilter.setAvailableCertAliases(aliasesKey, aliases, clientMode);
+                Throwable failure = null;
+                try {
+                    for (Runnable task : tasks) {
+                        task.run();
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    SslCertificateSelectionFilter.setCurrentSession(null, clientMode);
+
+                    // always resume, otherwise the handshake waits for the tasks forever
+                    final Throwable taskFailure = failure;
+                    session.getIoExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            parent.resumeHandshake(nextFilter, session, taskFailure);
+                        }
+                    });
+                }
+            }
+        };
+
+        delegatedTasksPending = true;
+        if (handshakeExecutor.execute(delegatedTasks)) {
+            return true;
+        }
+
+        delegatedTasksPending = false;
+        for (Runnable delegatedTask : tasks) {
+            delegatedTask.run();
+        }
+        return false;
+    }
+
     /**
      * Do all the outstanding handshake tasks in the current Thread.
      */
     private SSLEngineResult.HandshakeStatus doTasks() {
-        /*
-         * We could run this in a separate thread, but I don't see the need
-         * for this when used from SSLFilter. Use thread filters in MINA instead?
-         */
+        // see delegateTasks to run them on the handshake executor instead
         Runnable runnable;
         while ((runnable = sslEngine.getDelegatedTask()) != null) {
-            // TODO : we may have to use a thread pool here to improve the performances
             runnable.run();
         }
         return sslEngine.getHandshakeStatus();
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs the delegated tasks of SSL handshakes, such as private key operations, away from the I/O threads, so that a
+ * burst of handshakes does not hold up the established sessions served by the same I/O thread.
+ * <p>
+ * The queue of pending tasks is bounded. When it is full, the I/O thread runs the tasks itself, which slows down the
+ * acceptance of new handshakes rather than letting them queue up without limit.
+ * <p>
+ * The duration of initial handshakes is recorded in a histogram with power-of-two millisecond buckets, bucket
+ * {@code i} counting handshakes that took less than {@code 2^i} milliseconds (and at least {@code 2^(i-1)}), and the
+ * last bucket counting all longer handshakes.
+ */
+public final class SslHandshakeExecutor {
+
+    public static final int HISTOGRAM_BUCKETS = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final BlockingQueue<Runnable> queue;
+    private final AtomicLong offloaded;
+    private final AtomicLong rejected;
+    private final AtomicLongArray durations;
+
+    public SslHandshakeExecutor(String name, int threadCount, int queueSize) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount: " + threadCount);
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize: " + queueSize);
+        }
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 60, SECONDS, queue, new HandshakeThreadFactory(name));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.offloaded = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.durations = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    }
+
+    /**
+     * Runs the task on a handshake thread, unless the queue is full.
+     *
+     * @return false if the task was not accepted, and must be run by the caller
+     */
+    public boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            offloaded.incrementAndGet();
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Stops the handshake threads once the queued tasks have run, later tasks are run by the caller.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the number of delegated task batches waiting for a handshake thread.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of delegated task batches run on handshake threads.
+     */
+    public long getOffloadedCount() {
+        return offloaded.get();
+    }
+
+    /**
+     * Returns the number of delegated task batches run by the I/O thread because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns a snapshot of the handshake duration histogram.
+     */
+    public long[] getHandshakeDurations() {
+        long[] counts = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = durations.get(i);
+        }
+        return counts;
+    }
+
+    void handshakeComplete(long durationNanos) {
+        long millis = NANOSECONDS.toMillis(durationNanos);
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        durations.incrementAndGet(Math.min(bucket, HISTOGRAM_BUCKETS - 1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d threads, queue %d/%d, %d offloaded, %d rejected", executor.getPoolSize(),
+                queue.size(), queue.size() + queue.remainingCapacity(), offloaded.get(), rejected.get());
+    }
+
+    private static final class HandshakeThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        HandshakeThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, String.format("%s-%d", name, threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static org.kaazing.gateway.resource.address.Comparators.compareResourceOriginAndProtocolStack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import org.apache.mina.filter.ssl.SslContextFactory;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+
+/**
+ * SSL contexts with bounded, expiring session caches, one per transport address.
+ * <p>
+ * Certificates are selected per transport address (see {@code VirtualHostKeySelector}), so a session negotiated on
+ * one transport address must not be resumed on another, where it would bypass certificate selection. Keeping a
+ * separate context, and therefore a separate session cache, per transport address makes resumption safe. Session
+ * tickets, where the JVM supports them, are protected by keys of the context that issued them, so they are scoped
+ * the same way.
+ * <p>
+ * Each context holds up to {@code cacheSize} sessions, so contexts are not kept longer than needed: on the accept
+ * side a context is held for as long as some address is bound over its transport address, and on the connect side
+ * only the contexts of the {@code maxContexts} transport addresses most recently connected to are kept.
+ */
+public final class SslSessionCache {
+
+    private final SslContextFactory sslContextFactory;
+    private final boolean clientMode;
+    private final int cacheSize;
+    private final int timeout;
+    private final int maxContexts;
+    private final ConcurrentMap<ResourceAddress, Context> sslContexts;
+
+    private final AtomicLong fullHandshakes;
+    private final AtomicLong resumedHandshakes;
+
+    // guarded by this
+    private long uses;
+
+    /**
+     * @param cacheSize  maximum number of sessions cached per transport address, zero means there is no limit
+     * @param timeout    time in seconds after which a cached session can no longer be resumed
+     */
+    public SslSessionCache(SslContextFactory sslContextFactory, boolean clientMode, int cacheSize, int timeout) {
+        this(sslContextFactory, clientMode, cacheSize, timeout, 0);
+    }
+
+    /**
+     * @param cacheSize    maximum number of sessions cached per transport address, zero means there is no limit
+     * @param timeout      time in seconds after which a cached session can no longer be resumed
+     * @param maxContexts  maximum number of contexts kept for transport addresses that are not bound, the least
+     *                     recently used being dropped beyond that, zero means there is no limit
+     */
+    public SslSessionCache(SslContextFactory sslContextFactory, boolean clientMode, int cacheSize, int timeout,
+                           int maxContexts) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize: " + cacheSize);
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout: " + timeout);
+        }
+        if (maxContexts < 0) {
+            throw new IllegalArgumentException("maxContexts: " + maxContexts);
+        }
+        this.sslContextFactory = sslContextFactory;
+        this.clientMode = clientMode;
+        this.cacheSize = cacheSize;
+        this.timeout = timeout;
+        this.maxContexts = maxContexts;
+        this.sslContexts = new ConcurrentSkipListMap<>(compareResourceOriginAndProtocolStack());
+        this.fullHandshakes = new AtomicLong();
+        this.resumedHandshakes = new AtomicLong();
+    }
+
+    /**
+     * Creates the SSL context for the transport address, unless already created, and returns it. Unless bound, the
+     * context may be dropped once {@code maxContexts} other transport addresses have been used more recently.
+     */
+    public synchronized SSLContext createContext(ResourceAddress transportAddress) throws Exception {
+        Context context = sslContexts.get(transportAddress);
+        if (context == null) {
+            context = new Context(newContext());
+            sslContexts.put(transportAddress, context);
+            context.lastUsed = ++uses;
+            evict();
+        }
+        else {
+            context.lastUsed = ++uses;
+        }
+        return context.sslContext;
+    }
+
+    /**
+     * Creates the SSL context for the transport address, unless already created, and keeps it until each binding
+     * has been released by {@link #unbindContext(ResourceAddress)}.
+     */
+    public synchronized SSLContext bindContext(ResourceAddress transportAddress) throws Exception {
+        SSLContext sslContext = createContext(transportAddress);
+        sslContexts.get(transportAddress).bindings++;
+        return sslContext;
+    }
+
+    /**
+     * Releases a binding of the SSL context for the transport address, dropping the context, and with it the cached
+     * sessions, when no binding remains.
+     */
+    public synchronized void unbindContext(ResourceAddress transportAddress) {
+        Context context = sslContexts.get(transportAddress);
+        if (context != null && context.bindings > 0 && --context.bindings == 0) {
+            sslContexts.remove(transportAddress);
+        }
+    }
+
+    /**
+     * Returns the SSL context for the transport address, or null if none has been created.
+     */
+    public SSLContext getContext(ResourceAddress transportAddress) {
+        Context context = sslContexts.get(transportAddress);
+        return (context != null) ? context.sslContext : null;
+    }
+
+    /**
+     * Returns the number of transport addresses for which an SSL context is held.
+     */
+    public int getContextCount() {
+        return sslContexts.size();
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public long getFullHandshakeCount() {
+        return fullHandshakes.get();
+    }
+
+    public long getResumedHandshakeCount() {
+        return resumedHandshakes.get();
+    }
+
+    /**
+     * Returns the fraction of initial handshakes that resumed a session, or zero before any handshake.
+     */
+    public double getResumptionRate() {
+        long resumed = resumedHandshakes.get();
+        long total = resumed + fullHandshakes.get();
+        return (total == 0) ? 0.0 : (double) resumed / total;
+    }
+
+    private SSLContext newContext() throws Exception {
+        SSLContext sslContext = sslContextFactory.newInstance();
+        SSLSessionContext sessionContext = clientMode ? sslContext.getClientSessionContext()
+                                                      : sslContext.getServerSessionContext();
+        sessionContext.setSessionCacheSize(cacheSize);
+        sessionContext.setSessionTimeout(timeout);
+        return sslContext;
+    }
+
+    private void evict() {
+        if (maxContexts == 0) {
+            return;
+        }
+
+        // contexts are only created once per transport address, ahead of a full handshake, so a scan is cheap enough
+        while (true) {
+            int unbound = 0;
+            Map.Entry<ResourceAddress, Context> eldest = null;
+            for (Map.Entry<ResourceAddress, Context> entry : sslContexts.entrySet()) {
+                Context context = entry.getValue();
+                if (context.bindings == 0) {
+                    unbound++;
+                    if (eldest == null || context.lastUsed < eldest.getValue().lastUsed) {
+                        eldest = entry;
+                    }
+                }
+            }
+            if (unbound <= maxContexts) {
+                return;
+            }
+            sslContexts.remove(eldest.getKey());
+        }
+    }
+
+    void handshakeComplete(boolean resumed) {
+        if (resumed) {
+            resumedHandshakes.incrementAndGet();
+        }
+        else {
+            fullHandshakes.incrementAndGet();
+        }
+    }
+
+    private static final class Context {
+        private final SSLContext sslContext;
+
+        // guarded by the cache
+        private int bindings;
+        private long lastUsed;
+
+        Context(SSLContext sslContext) {
+            this.sslContext = sslContext;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s sessions (size %d, timeout %ds): %d resumed, %d full handshakes",
+                clientMode ? "client" : "server", cacheSize, timeout, resumedHandshakes.get(), fullHandshakes.get());
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.apache.mina.filter.ssl.SslContextFactory;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+
+public class SslHandlerTest {
+
+    private final Mockery context = new Mockery();
+    private final BlockingQueue<Runnable> ioTasks = new LinkedBlockingQueue<>();
+    private final CountDownLatch handshakeThreadBlocked = new CountDownLatch(1);
+
+    private IoHandler handler;
+    private DummySessionEx session;
+    private SslFilter sslFilter;
+    private SslHandshakeExecutor handshakeExecutor;
+    private SSLEngine client;
+
+    @Before
+    public void setUp() throws Exception {
+        String keyStorePassword = "testing";
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(getClass().getResourceAsStream("/keystore-testing.db"), keyStorePassword.toCharArray());
+
+        SslContextFactory sslContextFactory = new SslContextFactory();
+        sslContextFactory.setKeyManagerFactoryKeyStore(keyStore);
+        sslContextFactory.setKeyManagerFactoryKeyStorePassword(keyStorePassword);
+
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[] { new TrustAllManager() }, null);
+        client = clientContext.createSSLEngine("localhost", 443);
+        client.setUseClientMode(true);
+        client.setEnabledProtocols(new String[] { "TLSv1.2" });
+
+        handler = context.mock(IoHandler.class);
+        final Logger logger = context.mock(Logger.class);
+        context.checking(new Expectations() {
+            {
+                allowing(logger);
+            }
+        });
+
+        // resumed handshakes are run by the test thread
+        session = new DummySessionEx(Thread.currentThread(), ioTasks::add);
+        session.setHandler(handler);
+        session.suspendWrite();
+
+        handshakeExecutor = new SslHandshakeExecutor("ssl-handshake-test", 1, 4);
+        sslFilter = new SslFilter(sslContextFactory.newInstance(), false, logger);
+        sslFilter.setEnabledProtocols(new String[] { "TLSv1.2" });
+        sslFilter.setHandshakeExecutor(handshakeExecutor);
+        session.getFilterChain().addFirst("ssl", sslFilter);
+    }
+
+    @After
+    public void tearDown() {
+        handshakeThreadBlocked.countDown();
+        handshakeExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldProcessDataReceivedWhileTasksPending() throws Exception {
+        context.checking(new Expectations() {
+            {
+                never(handler).exceptionCaught(with(any(IoSession.class)), with(any(Throwable.class)));
+            }
+        });
+
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.fireMessageReceived(wrap(clientHandshake()));
+        resumeHandshake();
+        clientUnwrap(serverOutput());
+
+        // client key exchange alone, followed by change cipher spec and finished while its tasks are pending
+        ByteBuffer clientFinished = clientHandshake();
+        ByteBuffer clientKeyExchange = firstRecord(clientFinished);
+        blockHandshakeThread();
+        filterChain.fireMessageReceived(wrap(clientKeyExchange));
+        filterChain.fireMessageReceived(wrap(clientFinished));
+
+        assertNull(session.getAttribute(SslFilter.SSL_SESSION));
+
+        handshakeThreadBlocked.countDown();
+        resumeHandshake();
+
+        assertNotNull(session.getAttribute(SslFilter.SSL_SESSION));
+        clientUnwrap(serverOutput());
+        assertEquals(HandshakeStatus.NOT_HANDSHAKING, client.getHandshakeStatus());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldIgnoreResumeAfterCloseWhileTasksPending() throws Exception {
+        context.checking(new Expectations() {
+            {
+                oneOf(handler).sessionClosed(session);
+                never(handler).exceptionCaught(with(any(IoSession.class)), with(any(Throwable.class)));
+            }
+        });
+
+        blockHandshakeThread();
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.fireMessageReceived(wrap(clientHandshake()));
+        filterChain.fireSessionClosed();
+
+        handshakeThreadBlocked.countDown();
+        resumeHandshake();
+
+        assertNull(session.getAttribute(SslFilter.SSL_SESSION));
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void shouldFailHandshakeWhenTasksFail() throws Exception {
+        final RuntimeException failure = new RuntimeException("task failed");
+        context.checking(new Expectations() {
+            {
+                oneOf(handler).exceptionCaught(with(session), with(any(SSLHandshakeException.class)));
+            }
+        });
+
+        blockHandshakeThread();
+        IoFilterChain filterChain = session.getFilterChain();
+        filterChain.fireMessageReceived(wrap(clientHandshake()));
+
+        // as posted by the handshake thread when a delegated task throws
+        NextFilter nextFilter = filterChain.getNextFilter(sslFilter);
+        sslFilter.resumeHandshake(nextFilter, session, failure);
+
+        // the tasks that did run must not resume the failed handshake
+        handshakeThreadBlocked.countDown();
+        resumeHandshake();
+
+        context.assertIsSatisfied();
+    }
+
+    private void blockHandshakeThread() {
+        handshakeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handshakeThreadBlocked.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    private void resumeHandshake() throws InterruptedException {
+        Runnable resume = ioTasks.poll(5, SECONDS);
+        assertNotNull("handshake not resumed", resume);
+        resume.run();
+    }
+
+    private ByteBuffer clientHandshake() throws Exception {
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        while (client.getHandshakeStatus() == HandshakeStatus.NEED_WRAP ||
+               client.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING && out.position() == 0) {
+            client.wrap(ByteBuffer.allocate(0), out);
+        }
+        out.flip();
+        return out;
+    }
+
+    private void clientUnwrap(ByteBuffer in) throws Exception {
+        ByteBuffer app = ByteBuffer.allocate(64 * 1024);
+        while (in.hasRemaining()) {
+            client.unwrap(in, app);
+            Runnable task;
+            while ((task = client.getDelegatedTask()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private ByteBuffer serverOutput() {
+        ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        WriteRequest request;
+        while ((request = session.getWriteRequestQueue().poll(session)) != null) {
+            out.put(((IoBuffer) request.getMessage()).buf());
+        }
+        out.flip();
+        return out;
+    }
+
+    private static ByteBuffer firstRecord(ByteBuffer records) {
+        int length = 5 + (records.getShort(records.position() + 3) & 0xffff);
+        ByteBuffer first = records.duplicate();
+        first.limit(first.position() + length);
+        records.position(records.position() + length);
+        return first;
+    }
+
+    private IoBufferEx wrap(ByteBuffer buf) {
+        return session.getBufferAllocator().wrap(buf);
+    }
+
+    private static final class TrustAllManager implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SslHandshakeExecutorTest {
+
+    private final SslHandshakeExecutor executor = new SslHandshakeExecutor("ssl-handshake-test", 1, 1);
+
+    @After
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldRunTasksOffCallerThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final CountDownLatch ran = new CountDownLatch(1);
+        final boolean[] offThread = new boolean[1];
+
+        assertTrue(executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                offThread[0] = Thread.currentThread() != caller;
+                ran.countDown();
+            }
+        }));
+
+        assertTrue(ran.await(5, SECONDS));
+        assertTrue(offThread[0]);
+        assertEquals(1, executor.getOffloadedCount());
+    }
+
+    @Test
+    public void shouldRejectTasksWhenQueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Runnable noop = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        assertTrue(executor.execute(blocking));
+        assertTrue(started.await(5, SECONDS));
+        assertTrue(executor.execute(noop));
+        assertEquals(1, executor.getQueueDepth());
+
+        assertFalse(executor.execute(noop));
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+    }
+
+    @Test
+    public void shouldRecordHandshakeDurations() throws Exception {
+        executor.handshakeComplete(MILLISECONDS.toNanos(0));
+        executor.handshakeComplete(MILLISECONDS.toNanos(1));
+        executor.handshakeComplete(MILLISECONDS.toNanos(3));
+        executor.handshakeComplete(MILLISECONDS.toNanos(4));
+        executor.handshakeComplete(SECONDS.toNanos(3600));
+
+        long[] expected = new long[SslHandshakeExecutor.HISTOGRAM_BUCKETS];
+        expected[0] = 1;
+        expected[1] = 1;
+        expected[2] = 1;
+        expected[3] = 1;
+        expected[SslHandshakeExecutor.HISTOGRAM_BUCKETS - 1] = 1;
+        assertArrayEquals(expected, executor.getHandshakeDurations());
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ssl.bridge.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import org.apache.mina.filter.ssl.SslContextFactory;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddress;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+
+public class SslSessionCacheTest {
+
+    private final ResourceAddressFactory resourceAddressFactory = ResourceAddressFactory.newResourceAddressFactory();
+
+    @Test
+    public void shouldCreateContextPerTransportAddress() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), false, 100, 60);
+        ResourceAddress first = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+        ResourceAddress second = resourceAddressFactory.newResourceAddress("tcp://localhost:2121");
+
+        assertNull(sessionCache.getContext(first));
+
+        SSLContext firstContext = sessionCache.createContext(first);
+        SSLContext secondContext = sessionCache.createContext(second);
+
+        assertSame(firstContext, sessionCache.createContext(first));
+        assertSame(firstContext, sessionCache.getContext(resourceAddressFactory.newResourceAddress("tcp://localhost:2020")));
+        assertNotSame(firstContext, secondContext);
+    }
+
+    @Test
+    public void shouldDropContextWhenLastBindingIsReleased() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), false, 100, 60);
+        ResourceAddress address = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+
+        SSLContext context = sessionCache.bindContext(address);
+        assertSame(context, sessionCache.bindContext(address));
+
+        sessionCache.unbindContext(address);
+        assertSame(context, sessionCache.getContext(address));
+
+        sessionCache.unbindContext(address);
+        assertNull(sessionCache.getContext(address));
+        assertEquals(0, sessionCache.getContextCount());
+
+        assertNotSame(context, sessionCache.bindContext(address));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedContexts() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), true, 100, 60, 2);
+        ResourceAddress first = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+        ResourceAddress second = resourceAddressFactory.newResourceAddress("tcp://localhost:2121");
+        ResourceAddress third = resourceAddressFactory.newResourceAddress("tcp://localhost:2222");
+
+        SSLContext firstContext = sessionCache.createContext(first);
+        sessionCache.createContext(second);
+        assertSame(firstContext, sessionCache.createContext(first));
+        sessionCache.createContext(third);
+
+        assertEquals(2, sessionCache.getContextCount());
+        assertSame(firstContext, sessionCache.getContext(first));
+        assertNull(sessionCache.getContext(second));
+        assertNotNull(sessionCache.getContext(third));
+    }
+
+    @Test
+    public void shouldNotEvictBoundContexts() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), false, 100, 60, 1);
+        ResourceAddress bound = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+        ResourceAddress first = resourceAddressFactory.newResourceAddress("tcp://localhost:2121");
+        ResourceAddress second = resourceAddressFactory.newResourceAddress("tcp://localhost:2222");
+
+        sessionCache.bindContext(bound);
+        sessionCache.createContext(first);
+        sessionCache.createContext(second);
+
+        assertEquals(2, sessionCache.getContextCount());
+        assertNotNull(sessionCache.getContext(bound));
+        assertNull(sessionCache.getContext(first));
+    }
+
+    @Test
+    public void shouldBoundServerSessionCache() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), false, 100, 60);
+        ResourceAddress address = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+
+        SSLSessionContext sessionContext = sessionCache.createContext(address).getServerSessionContext();
+
+        assertEquals(100, sessionContext.getSessionCacheSize());
+        assertEquals(60, sessionContext.getSessionTimeout());
+    }
+
+    @Test
+    public void shouldBoundClientSessionCache() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), true, 100, 60);
+        ResourceAddress address = resourceAddressFactory.newResourceAddress("tcp://localhost:2020");
+
+        SSLSessionContext sessionContext = sessionCache.createContext(address).getClientSessionContext();
+
+        assertEquals(100, sessionContext.getSessionCacheSize());
+        assertEquals(60, sessionContext.getSessionTimeout());
+    }
+
+    @Test
+    public void shouldCountResumedHandshakes() throws Exception {
+        SslSessionCache sessionCache = new SslSessionCache(new SslContextFactory(), false, 100, 60);
+
+        assertEquals(0.0, sessionCache.getResumptionRate(), 0.0);
+
+        sessionCache.handshakeComplete(false);
+        sessionCache.handshakeComplete(true);
+        sessionCache.handshakeComplete(true);
+        sessionCache.handshakeComplete(true);
+
+        assertEquals(1, sessionCache.getFullHandshakeCount());
+        assertEquals(3, sessionCache.getResumedHandshakeCount());
+        assertEquals(0.75, sessionCache.getResumptionRate(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeCacheSize() throws Exception {
+        new SslSessionCache(new SslContextFactory(), false, -1, 60);
+    }
+}
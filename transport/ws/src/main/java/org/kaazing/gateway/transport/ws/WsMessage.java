@@ -26,6 +26,7 @@ public abstract class WsMessage extends Message {
     }
 
     private final boolean fin;
+    private int rsv;
 
     public abstract Kind getKind();
 
@@ -51,6 +52,18 @@ public abstract class WsMessage extends Message {
         return fin;
     }
 
+    /**
+     * Returns the reserved bits of the frame carrying this message, RSV1 being 0x04 and RSV3 being 0x01.
+     * These are only ever set when a negotiated extension gives them a meaning (e.g. RSV1 for permessage-deflate).
+     */
+    public int getRsv() {
+        return rsv;
+    }
+
+    public void setRsv(int rsv) {
+        this.rsv = rsv;
+    }
+
     @Override
     public int hashCode() {
         return buf.hashCode();
@@ -63,7 +76,7 @@ public abstract class WsMessage extends Message {
         }
 
         WsMessage that = (WsMessage) obj;
-        return (that.getKind() == this.getKind() && that.fin == this.fin &&
+        return (that.getKind() == this.getKind() && that.fin == this.fin && that.rsv == this.rsv &&
                 Utils.sameOrEquals(this.buf == null ? null : this.buf.buf(),
                         that.buf == null ? null : that.buf.buf())); // IoBufferEx has no equals method
     }
@@ -28,7 +28,20 @@ public enum WsSystemProperty {
     WS_ENABLED_TRANSPORTS("org.kaazing.gateway.transport.ws.ENABLED_TRANSPORTS"),
     // in org.kaazing.gateway.util.InternalSystemProperty:
     // WSE_IDLE_TIMEOUT("org.kaazing.gateway.server.transport.wse.IDLE_TIMEOUT", "60")
-    WSE_IDLE_TIMEOUT("org.kaazing.gateway.transport.wse.IDLE_TIMEOUT", "60");
+    WSE_IDLE_TIMEOUT("org.kaazing.gateway.transport.wse.IDLE_TIMEOUT", "60"),
+    // frames following each other on a WSEB downstream within this time (e.g. 5ms) are written together, 0 disables
+    WSEB_DOWNSTREAM_BATCH_LATENCY("org.kaazing.gateway.transport.wseb.DOWNSTREAM_BATCH_LATENCY", "0"),
+    // a downstream batch is written as soon as it reaches this size (e.g. 16k)
+    WSEB_DOWNSTREAM_BATCH_SIZE("org.kaazing.gateway.transport.wseb.DOWNSTREAM_BATCH_SIZE", "16k"),
+
+    // extensions
+    // permessage-deflate is off by default, compressing secrets alongside attacker controlled data can leak them
+    WS_PERMESSAGE_DEFLATE_ENABLED("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_ENABLED", "false"),
+    // messages smaller than this (in bytes) are sent uncompressed by permessage-deflate
+    WS_PERMESSAGE_DEFLATE_MINIMUM_SIZE("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_MINIMUM_SIZE", "256"),
+    // native memory (e.g. 64m) that permessage-deflate may hold in per-connection compression contexts,
+    // further connections are negotiated without context takeover and share pooled contexts instead
+    WS_PERMESSAGE_DEFLATE_MEMORY_LIMIT("org.kaazing.gateway.transport.ws.PERMESSAGE_DEFLATE_MEMORY_LIMIT", "64m");
 
     private final String name;
     private final String defaultValue;
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Accounts for the native memory held by permessage-deflate compression contexts, and pools the contexts used by
+ * connections negotiated without context takeover, which only need one for the duration of a single message.
+ */
+final class PerMessageDeflateContexts {
+
+    // approximate zlib footprint for a 15 bit window at the default memory level,
+    // deflate needs 2^17 bytes for the window plus 2^17 bytes for the hash chains, inflate 2^15 bytes plus its state
+    static final int DEFLATER_MEMORY = (256 + 6) * 1024;
+    static final int INFLATER_MEMORY = (32 + 7) * 1024;
+
+    private final long memoryLimit;
+    private final AtomicLong memoryUsed;
+    private final Queue<Deflater> deflaters;
+    private final Queue<Inflater> inflaters;
+
+    PerMessageDeflateContexts(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+        this.memoryUsed = new AtomicLong();
+        this.deflaters = new ConcurrentLinkedQueue<>();
+        this.inflaters = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Returns true if a connection could be given dedicated contexts of the given size without exceeding the memory limit.
+     */
+    boolean hasCapacity(int memory) {
+        return memoryUsed.get() + memory <= memoryLimit;
+    }
+
+    Deflater newDeflater() {
+        memoryUsed.addAndGet(DEFLATER_MEMORY);
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    Inflater newInflater() {
+        memoryUsed.addAndGet(INFLATER_MEMORY);
+        return new Inflater(true);
+    }
+
+    void endDeflater(Deflater deflater) {
+        deflater.end();
+        memoryUsed.addAndGet(-DEFLATER_MEMORY);
+    }
+
+    void endInflater(Inflater inflater) {
+        inflater.end();
+        memoryUsed.addAndGet(-INFLATER_MEMORY);
+    }
+
+    Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        return (deflater != null) ? deflater : newDeflater();
+    }
+
+    Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        return (inflater != null) ? inflater : newInflater();
+    }
+
+    void releaseDeflater(Deflater deflater) {
+        // a burst of messages may briefly borrow more contexts than the limit allows, those are not kept
+        if (memoryUsed.get() > memoryLimit) {
+            endDeflater(deflater);
+        }
+        else {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    void releaseInflater(Inflater inflater) {
+        if (memoryUsed.get() > memoryLimit) {
+            endInflater(inflater);
+        }
+        else {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+
+    long getMemoryUsed() {
+        return memoryUsed.get();
+    }
+
+    long getMemoryLimit() {
+        return memoryLimit;
+    }
+}
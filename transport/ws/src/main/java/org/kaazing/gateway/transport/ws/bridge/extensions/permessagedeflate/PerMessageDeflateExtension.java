@@ -0,0 +1,60 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import org.apache.mina.core.filterchain.IoFilter;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeader;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHelper;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+
+public final class PerMessageDeflateExtension extends WebSocketExtension {
+    static final String EXTENSION_TOKEN = "permessage-deflate";
+
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+    private final ExtensionHeader extension;
+    private final PerMessageDeflateContexts contexts;
+    private final int minimumSize;
+    private final int maxMessageSize;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    PerMessageDeflateExtension(ExtensionHeader extension, ExtensionHelper extensionHelper, PerMessageDeflateContexts contexts,
+            int minimumSize, int maxMessageSize, boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        super(extensionHelper);
+        this.extension = extension;
+        this.contexts = contexts;
+        this.minimumSize = minimumSize;
+        this.maxMessageSize = maxMessageSize;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    @Override
+    public ExtensionHeader getExtensionHeader() {
+        return extension;
+    }
+
+    @Override
+    public IoFilter getFilter() {
+        return new PerMessageDeflateFilter(contexts, minimumSize, maxMessageSize, serverNoContextTakeover,
+                clientNoContextTakeover);
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.WS_PERMESSAGE_DEFLATE_ENABLED;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.WS_PERMESSAGE_DEFLATE_MEMORY_LIMIT;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.WS_PERMESSAGE_DEFLATE_MINIMUM_SIZE;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateContexts.DEFLATER_MEMORY;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateContexts.INFLATER_MEMORY;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateExtension.CLIENT_MAX_WINDOW_BITS;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateExtension.CLIENT_NO_CONTEXT_TAKEOVER;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateExtension.SERVER_MAX_WINDOW_BITS;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateExtension.SERVER_NO_CONTEXT_TAKEOVER;
+
+import static org.kaazing.gateway.resource.address.ws.WsResourceAddress.CODEC_REQUIRED;
+
+import java.net.ProtocolException;
+import java.util.Properties;
+
+import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeader;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeaderBuilder;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHelper;
+import org.kaazing.gateway.transport.ws.extension.ExtensionParameter;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtensionFactorySpi;
+import org.kaazing.gateway.util.Utils;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
+
+/**
+ * Negotiates the permessage-deflate extension (RFC 7692). Offers that cannot be honoured are declined rather than
+ * failing the connection, so that the client may fall back to a later offer or to no compression at all.
+ */
+public final class PerMessageDeflateExtensionFactory extends WebSocketExtensionFactorySpi {
+
+    // java.util.zip always uses the largest LZ77 window
+    static final int MAX_WINDOW_BITS = 15;
+    static final int MIN_WINDOW_BITS = 8;
+
+    private final boolean enabled;
+    private final int minimumSize;
+    private final PerMessageDeflateContexts contexts;
+
+    public PerMessageDeflateExtensionFactory() {
+        this(System.getProperties());
+    }
+
+    PerMessageDeflateExtensionFactory(Properties configuration) {
+        this.enabled = Boolean.parseBoolean(WS_PERMESSAGE_DEFLATE_ENABLED.getProperty(configuration));
+        this.minimumSize = WS_PERMESSAGE_DEFLATE_MINIMUM_SIZE.getIntProperty(configuration);
+        this.contexts = new PerMessageDeflateContexts(
+                Utils.parseDataSize(WS_PERMESSAGE_DEFLATE_MEMORY_LIMIT.getProperty(configuration)));
+    }
+
+    @Override
+    public String getExtensionName() {
+        return PerMessageDeflateExtension.EXTENSION_TOKEN;
+    }
+
+    @Override
+    public ExtensionOrderCategory getOrderCategory() {
+        // transforms the payload of every data frame, so must be closest to the network
+        return ExtensionOrderCategory.NETWORK;
+    }
+
+    @Override
+    public WebSocketExtension offer(ExtensionHelper extensionHelper, WsResourceAddress address) {
+        // This extension is used for client <--> gateway, but not for gateway <--> gateway
+        return null;
+    }
+
+    @Override
+    public boolean isSupported(WsResourceAddress address, WebSocketWireProtocol wireProtocol) {
+        // compressed messages are marked with RSV1, which only the RFC 6455 frame codec carries, so the Hixie drafts,
+        // the extended handshake (which has no codec of its own) and emulated connections are declined
+        boolean rfc = wireProtocol == WebSocketWireProtocol.HYBI_13 || wireProtocol == WebSocketWireProtocol.HYBI_8
+                || wireProtocol == WebSocketWireProtocol.RFC_6455;
+        return rfc && address.getOption(CODEC_REQUIRED);
+    }
+
+    @Override
+    public WebSocketExtension negotiate(ExtensionHeader requestedExtension, ExtensionHelper extensionHelper,
+            WsResourceAddress address) throws ProtocolException {
+        if (!enabled) {
+            return null;
+        }
+
+        boolean serverNoContextTakeover = false;
+        boolean clientNoContextTakeover = false;
+        boolean serverMaxWindowBits = false;
+
+        for (ExtensionParameter parameter : requestedExtension.getParameters()) {
+            String name = parameter.getName();
+            String value = unquote(parameter.getValue());
+
+            if (SERVER_NO_CONTEXT_TAKEOVER.equals(name) && value == null) {
+                serverNoContextTakeover = true;
+            }
+            else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(name) && value == null) {
+                clientNoContextTakeover = true;
+            }
+            else if (SERVER_MAX_WINDOW_BITS.equals(name) && parseWindowBits(value) == MAX_WINDOW_BITS) {
+                // a smaller window cannot be honoured by the JDK deflater, so such offers are declined
+                serverMaxWindowBits = true;
+            }
+            else if (CLIENT_MAX_WINDOW_BITS.equals(name) && (value == null || parseWindowBits(value) != -1)) {
+                // the inflater accepts any window size, so there is no need to limit the client
+            }
+            else {
+                return null;
+            }
+        }
+
+        // connections beyond the memory limit share pooled contexts, which requires both sides to reset per message
+        int memory = (serverNoContextTakeover ? 0 : DEFLATER_MEMORY) + (clientNoContextTakeover ? 0 : INFLATER_MEMORY);
+        if (memory != 0 && !contexts.hasCapacity(memory)) {
+            serverNoContextTakeover = true;
+            clientNoContextTakeover = true;
+        }
+
+        ExtensionHeaderBuilder response = new ExtensionHeaderBuilder(PerMessageDeflateExtension.EXTENSION_TOKEN);
+        if (serverNoContextTakeover) {
+            response.appendParameter(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContextTakeover) {
+            response.appendParameter(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        if (serverMaxWindowBits) {
+            response.appendParameter(SERVER_MAX_WINDOW_BITS, Integer.toString(MAX_WINDOW_BITS));
+        }
+
+        int maxMessageSize = address.getOption(WsResourceAddress.MAX_MESSAGE_SIZE);
+        return new PerMessageDeflateExtension(response.done(), extensionHelper, contexts, minimumSize, maxMessageSize,
+                serverNoContextTakeover, clientNoContextTakeover);
+    }
+
+    PerMessageDeflateContexts getContexts() {
+        return contexts;
+    }
+
+    private static String unquote(String value) {
+        if (value != null && value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static int parseWindowBits(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            int bits = Integer.parseInt(value);
+            return (bits >= MIN_WINDOW_BITS && bits <= MAX_WINDOW_BITS) ? bits : -1;
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import static org.kaazing.gateway.transport.bridge.CachingMessageEncoder.getVariant;
+import static org.kaazing.gateway.transport.ws.util.WsUtils.NEGOTIATED_RSV_KEY;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.ws.WsBinaryMessage;
+import org.kaazing.gateway.transport.ws.WsCloseMessage;
+import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsFilterAdapter;
+import org.kaazing.gateway.transport.ws.WsMessage;
+import org.kaazing.gateway.transport.ws.WsMessage.Kind;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsCodecFilter;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+
+/**
+ * This filter is used when the permessage-deflate extension is active, to compress outgoing data messages and
+ * decompress incoming ones, marking compressed messages with the RSV1 bit of their first frame.
+ * <p>
+ * Compressed payloads are written with room for the frame header in front of them, so that the frame encoder
+ * can add the header in place instead of copying the payload again.
+ * <p>
+ * Without server context takeover the compressed form of a message does not depend on the connection, so cached
+ * (broadcast) messages are compressed once and the compressed variant is shared by every such connection.
+ */
+class PerMessageDeflateFilter extends WsFilterAdapter {
+    static final int RSV1 = 0x04;
+
+    // trailer of a sync flush, removed from the end of each compressed message and restored before inflating it
+    private static final byte[] EMPTY_DEFLATE_BLOCK = { (byte) 0x00, (byte) 0x00, (byte) 0xff, (byte) 0xff };
+
+    // largest header of an unmasked frame
+    private static final int FRAME_HEADER_ROOM = 10;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    // compression level and window size are fixed, so this parameter alone determines the compressed bytes
+    static final String SHARED_VARIANT_KEY = PerMessageDeflateExtension.EXTENSION_TOKEN + "; "
+            + PerMessageDeflateExtension.SERVER_NO_CONTEXT_TAKEOVER;
+
+    private final PerMessageDeflateContexts contexts;
+    private final int minimumSize;
+    private final int maxMessageSize;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    private IoBufferAllocatorEx<?> allocator;
+    private boolean enabled;
+    private byte[] chunk;
+
+    private Deflater deflater;
+    private boolean deflatingMessage;
+    private byte[] deflated;
+    private int deflatedSize;
+
+    private Inflater inflater;
+    private boolean inflatingMessage;
+    private long inflatedMessageSize;
+    private byte[] inflated;
+    private int inflatedSize;
+
+    PerMessageDeflateFilter(PerMessageDeflateContexts contexts, int minimumSize, int maxMessageSize,
+            boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        this.contexts = contexts;
+        this.minimumSize = minimumSize;
+        this.maxMessageSize = maxMessageSize;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    @Override
+    public void onPreAdd(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        IoSessionEx sessionEx = (IoSessionEx) parent.getSession();
+        allocator = sessionEx.getBufferAllocator();
+
+        // RSV1 can only be carried by the native frame codec, which the factory requires before negotiating, but
+        // should there be none messages are left uncompressed, which the extension always allows
+        enabled = parent.get(WsCodecFilter.class) != null;
+        if (enabled) {
+            NEGOTIATED_RSV_KEY.set(sessionEx, NEGOTIATED_RSV_KEY.get(sessionEx) | RSV1);
+        }
+    }
+
+    @Override
+    public void onPostRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        dispose();
+    }
+
+    @Override
+    public void sessionClosed(NextFilter nextFilter, IoSession session) throws Exception {
+        dispose();
+        super.sessionClosed(nextFilter, session);
+    }
+
+    @Override
+    protected Object doFilterWriteWsText(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+            WsTextMessage wsText) throws Exception {
+        if (isShareable(wsText)) {
+            return getVariant(SHARED_VARIANT_KEY, wsText, this::compressedVariant);
+        }
+        IoBufferEx payload = deflate(wsText);
+        return (payload != null) ? compressed(new WsTextMessage(payload, wsText.isFin())) : null;
+    }
+
+    @Override
+    protected Object doFilterWriteWsBinary(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+            WsBinaryMessage wsBinary) throws Exception {
+        if (isShareable(wsBinary)) {
+            return getVariant(SHARED_VARIANT_KEY, wsBinary, this::compressedVariant);
+        }
+        IoBufferEx payload = deflate(wsBinary);
+        return (payload != null) ? compressed(new WsBinaryMessage(payload, wsBinary.isFin())) : null;
+    }
+
+    @Override
+    protected Object doFilterWriteWsCont(NextFilter nextFilter, IoSession session, WriteRequest writeRequest,
+            WsContinuationMessage wsCont) throws Exception {
+        IoBufferEx payload = deflate(wsCont);
+        // only the first frame of a message carries RSV1
+        return (payload != null) ? new WsContinuationMessage(payload, wsCont.isFin()) : null;
+    }
+
+    @Override
+    protected void wsTextReceived(NextFilter nextFilter, IoSession session, WsTextMessage wsText) throws Exception {
+        if (isCompressed(wsText)) {
+            IoBufferEx payload = inflate(nextFilter, session, wsText);
+            if (payload == null) {
+                return;
+            }
+            wsText = new WsTextMessage(payload, wsText.isFin());
+        }
+        super.wsTextReceived(nextFilter, session, wsText);
+    }
+
+    @Override
+    protected void wsBinaryReceived(NextFilter nextFilter, IoSession session, WsBinaryMessage wsBinary) throws Exception {
+        if (isCompressed(wsBinary)) {
+            IoBufferEx payload = inflate(nextFilter, session, wsBinary);
+            if (payload == null) {
+                return;
+            }
+            wsBinary = new WsBinaryMessage(payload, wsBinary.isFin());
+        }
+        super.wsBinaryReceived(nextFilter, session, wsBinary);
+    }
+
+    @Override
+    protected void wsContinuationReceived(NextFilter nextFilter, IoSession session, WsContinuationMessage wsCont)
+            throws Exception {
+        if (isCompressed(wsCont)) {
+            IoBufferEx payload = inflate(nextFilter, session, wsCont);
+            if (payload == null) {
+                return;
+            }
+            wsCont = new WsContinuationMessage(payload, wsCont.isFin());
+        }
+        super.wsContinuationReceived(nextFilter, session, wsCont);
+    }
+
+    private static WsMessage compressed(WsMessage message) {
+        message.setRsv(RSV1);
+        return message;
+    }
+
+    /*
+     * Returns true if the message is complete, cached and compressed without context takeover, in which case its
+     * compressed form can be shared with other connections.
+     */
+    private boolean isShareable(WsMessage message) {
+        if (enabled && serverNoContextTakeover && message.isFin() && message.hasCache()) {
+            deflatingMessage = message.getBytes().remaining() >= minimumSize;
+            return deflatingMessage;
+        }
+        return false;
+    }
+
+    private WsMessage compressedVariant(WsMessage message) {
+        IoBufferEx payload = deflate(message);
+        WsMessage variant = (message.getKind() == Kind.TEXT) ? new WsTextMessage(payload, true)
+                : new WsBinaryMessage(payload, true);
+        // the variant is written to many connections, so its frame is cached as well
+        variant.initCache();
+        return compressed(variant);
+    }
+
+    /*
+     * Returns the compressed payload of the frame, or null if the message it belongs to is sent uncompressed.
+     */
+    private IoBufferEx deflate(WsMessage message) {
+        if (!enabled) {
+            return null;
+        }
+
+        ByteBuffer payload = message.getBytes().buf();
+        boolean fin = message.isFin();
+
+        // the first frame decides for the whole message, small unfragmented messages are not worth compressing
+        if (message.getKind() != Kind.CONTINUATION) {
+            deflatingMessage = !fin || payload.remaining() >= minimumSize;
+        }
+        if (!deflatingMessage) {
+            return null;
+        }
+
+        if (deflater == null) {
+            deflater = serverNoContextTakeover ? contexts.acquireDeflater() : contexts.newDeflater();
+        }
+
+        deflated = new byte[FRAME_HEADER_ROOM + Math.max(payload.remaining() / 2, 64)];
+        deflatedSize = FRAME_HEADER_ROOM;
+
+        if (payload.hasArray()) {
+            deflater.setInput(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            deflateInput();
+        }
+        else {
+            // shared buffers must not be disturbed, so read direct content through a duplicate
+            ByteBuffer input = payload.duplicate();
+            byte[] chunk = getChunk();
+            while (input.hasRemaining()) {
+                int length = Math.min(input.remaining(), chunk.length);
+                input.get(chunk, 0, length);
+                deflater.setInput(chunk, 0, length);
+                deflateInput();
+            }
+        }
+
+        // flush so that the frame holds everything written so far, ending with an empty stored block
+        for (;;) {
+            int space = ensureDeflatedSpace();
+            int length = deflater.deflate(deflated, deflatedSize, space, Deflater.SYNC_FLUSH);
+            deflatedSize += length;
+            if (length < space) {
+                break;
+            }
+        }
+
+        if (fin) {
+            deflatedSize -= EMPTY_DEFLATE_BLOCK.length;
+            if (serverNoContextTakeover) {
+                contexts.releaseDeflater(deflater);
+                deflater = null;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(deflated, FRAME_HEADER_ROOM, deflatedSize - FRAME_HEADER_ROOM);
+        deflated = null;
+        return allocator.wrap(buf);
+    }
+
+    private void deflateInput() {
+        while (!deflater.needsInput()) {
+            int space = ensureDeflatedSpace();
+            deflatedSize += deflater.deflate(deflated, deflatedSize, space, Deflater.NO_FLUSH);
+        }
+    }
+
+    private int ensureDeflatedSpace() {
+        if (deflatedSize == deflated.length) {
+            deflated = Arrays.copyOf(deflated, deflated.length * 2);
+        }
+        return deflated.length - deflatedSize;
+    }
+
+    private boolean isCompressed(WsMessage message) {
+        if (message.getKind() != Kind.CONTINUATION) {
+            inflatingMessage = (message.getRsv() & RSV1) != 0;
+            inflatedMessageSize = 0;
+        }
+        return inflatingMessage;
+    }
+
+    /*
+     * Returns the decompressed payload of the frame, or null if the connection was failed.
+     */
+    private IoBufferEx inflate(NextFilter nextFilter, IoSession session, WsMessage message) {
+        if (inflater == null) {
+            inflater = clientNoContextTakeover ? contexts.acquireInflater() : contexts.newInflater();
+        }
+
+        ByteBuffer payload = message.getBytes().buf();
+        boolean fin = message.isFin();
+
+        inflated = new byte[Math.max(payload.remaining() * 4, 256)];
+        inflatedSize = 0;
+
+        try {
+            if (payload.hasArray()) {
+                inflater.setInput(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+                inflateInput();
+            }
+            else {
+                ByteBuffer input = payload.duplicate();
+                byte[] chunk = getChunk();
+                while (input.hasRemaining()) {
+                    int length = Math.min(input.remaining(), chunk.length);
+                    input.get(chunk, 0, length);
+                    inflater.setInput(chunk, 0, length);
+                    inflateInput();
+                }
+            }
+
+            if (fin) {
+                inflater.setInput(EMPTY_DEFLATE_BLOCK);
+                inflateInput();
+            }
+        }
+        catch (DataFormatException e) {
+            fail(nextFilter, session, WsCloseMessage.PROTOCOL_ERROR);
+            return null;
+        }
+
+        inflatedMessageSize += inflatedSize;
+        if (maxMessageSize > 0 && inflatedMessageSize > maxMessageSize) {
+            fail(nextFilter, session, WsCloseMessage.MESSAGE_TOO_LONG_ERROR);
+            return null;
+        }
+
+        if (fin && clientNoContextTakeover) {
+            contexts.releaseInflater(inflater);
+            inflater = null;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(inflated, 0, inflatedSize);
+        inflated = null;
+        return allocator.wrap(buf);
+    }
+
+    private void inflateInput() throws DataFormatException {
+        for (;;) {
+            if (inflatedSize == inflated.length) {
+                // stop early on messages that would decompress beyond the limit
+                if (maxMessageSize > 0 && inflatedMessageSize + inflatedSize > maxMessageSize) {
+                    return;
+                }
+                inflated = Arrays.copyOf(inflated, inflated.length * 2);
+            }
+            int length = inflater.inflate(inflated, inflatedSize, inflated.length - inflatedSize);
+            inflatedSize += length;
+
+            if (inflater.finished()) {
+                // the client ended the stream with a final block, so no context can be taken over
+                inflater.reset();
+                return;
+            }
+            if (inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionaries are not supported");
+            }
+            if (length == 0 && inflater.needsInput()) {
+                return;
+            }
+        }
+    }
+
+    private byte[] getChunk() {
+        if (chunk == null) {
+            chunk = new byte[CHUNK_SIZE];
+        }
+        return chunk;
+    }
+
+    private void fail(NextFilter nextFilter, IoSession session, WsCloseMessage reason) {
+        nextFilter.filterWrite(session, new DefaultWriteRequestEx(reason));
+        session.close(true);
+    }
+
+    private void dispose() {
+        if (deflater != null) {
+            if (serverNoContextTakeover) {
+                contexts.releaseDeflater(deflater);
+            }
+            else {
+                contexts.endDeflater(deflater);
+            }
+            deflater = null;
+        }
+        if (inflater != null) {
+            if (clientNoContextTakeover) {
+                contexts.releaseInflater(inflater);
+            }
+            else {
+                contexts.endInflater(inflater);
+            }
+            inflater = null;
+        }
+    }
+}
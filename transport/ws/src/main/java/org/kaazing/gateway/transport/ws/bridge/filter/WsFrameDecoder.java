@@ -18,8 +18,10 @@ package org.kaazing.gateway.transport.ws.bridge.filter;
 import static org.kaazing.gateway.transport.ws.WsMessage.Kind.BINARY;
 import static org.kaazing.gateway.transport.ws.WsMessage.Kind.CONTINUATION;
 import static org.kaazing.gateway.transport.ws.WsMessage.Kind.TEXT;
+import static org.kaazing.gateway.transport.ws.util.WsUtils.NEGOTIATED_RSV_KEY;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
@@ -27,6 +29,7 @@ import org.apache.mina.filter.codec.ProtocolDecoderOutput;
 import org.kaazing.gateway.transport.ws.WsBinaryMessage;
 import org.kaazing.gateway.transport.ws.WsCloseMessage;
 import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsMessage;
 import org.kaazing.gateway.transport.ws.WsMessage.Kind;
 import org.kaazing.gateway.transport.ws.WsPingMessage;
 import org.kaazing.gateway.transport.ws.WsPongMessage;
@@ -60,7 +63,6 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
         in.mark();
 
         byte opcodeByte = in.get();
-        validateRSV(opcodeByte);
 
         int i = (opcodeByte & 0x0f);
         Opcode opcode;
@@ -72,6 +74,11 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
             throw new ProtocolDecoderException("Unrecognized WebSocket frame opcode: " + i + " on session " + session.getLocalAddress(), e);
         }
 
+        int rsv = (opcodeByte >> 4) & 0x07;
+        if (rsv != 0) {
+            validateRSV(session, rsv, opcode);
+        }
+
         // FIN bit validation for opcode
         boolean fin = (opcodeByte & 0x80) != 0;
         validateOpcodeUsingFin(opcode, fin);
@@ -131,17 +138,17 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
 
         switch (opcode) {
             case CONTINUATION:
-                binaryTextDecoder.decodeWsMessage(buf, CONTINUATION, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, CONTINUATION, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
             case BINARY:
-                binaryTextDecoder.decodeWsMessage(buf, BINARY, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, BINARY, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
             case TEXT:
-                binaryTextDecoder.decodeWsMessage(buf, TEXT, fin, out);
+                binaryTextDecoder.decodeWsMessage(buf, TEXT, fin, rsv, out);
                 prevDataFin = fin;
                 currentMessageSize = currentMessageSizeCandidate;
                 break;
@@ -196,17 +203,19 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
         }
     }
 
-    // Validates RSV bits
-    private void validateRSV(byte opcodeByte) throws ProtocolDecoderException {
-        if ((opcodeByte & 0x70) != 0) {
-            // We don't support negotiated extensions that deal with RSV bits
-            if ((opcodeByte & 0x40) != 0) {
+    // Validates RSV bits, only those given a meaning by a negotiated extension are allowed and only on the
+    // first frame of a data message (as for the per-message compression bit of permessage-deflate)
+    private void validateRSV(IoSession session, int rsv, Opcode opcode) throws ProtocolDecoderException {
+        int negotiated = (opcode == Opcode.TEXT || opcode == Opcode.BINARY) ? NEGOTIATED_RSV_KEY.get(session) : 0;
+        int unexpected = rsv & ~negotiated;
+        if (unexpected != 0) {
+            if ((unexpected & 0x04) != 0) {
                 throw new ProtocolDecoderException("RSV1 is set");
             }
-            if ((opcodeByte & 0x20) != 0) {
+            if ((unexpected & 0x02) != 0) {
                 throw new ProtocolDecoderException("RSV2 is set");
             }
-            if ((opcodeByte & 0x10) != 0) {
+            if ((unexpected & 0x01) != 0) {
                 throw new ProtocolDecoderException("RSV3 is set");
             }
         }
@@ -220,43 +229,57 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
             return;
         }
 
-        byte b;
-        int start = buf.position();
-        int remainder = buf.remaining() % 4;
-        int remaining = buf.remaining() - remainder;
-        int end = remaining + buf.position();
+        if (buf.hasArray()) {
+            unmask(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining(), mask);
+            return;
+        }
+
+        int position = buf.position();
+        int limit = buf.limit();
+        int end = position + (buf.remaining() & ~0x07);
 
-        // xor a 32bit word at a time as long as possible
-        while (buf.position() < end) {
-            int plaintext = buf.getInt(buf.position()) ^ mask;
-            buf.putInt(plaintext);
+        // xor a 64bit word at a time as long as possible, the mask repeats every 4 bytes
+        long wideMask = ((long) mask << 32) | (mask & 0xffffffffL);
+        if (buf.order() == ByteOrder.LITTLE_ENDIAN) {
+            wideMask = Long.reverseBytes(wideMask);
+        }
+        int index = position;
+        for (; index < end; index += 8) {
+            buf.putLong(index, buf.getLong(index) ^ wideMask);
         }
 
-        // xor the remaining 3, 2, or 1 bytes
-        switch (remainder) {
-        case 3:
-            b = (byte) (buf.get(buf.position()) ^ ((mask >> 24) & 0xff));
-            buf.put(b);
-            b = (byte) (buf.get(buf.position()) ^ ((mask >> 16) & 0xff));
-            buf.put(b);
-            b = (byte) (buf.get(buf.position()) ^ ((mask >> 8) & 0xff));
-            buf.put(b);
-            break;
-        case 2:
-            b = (byte) (buf.get(buf.position()) ^ ((mask >> 24) & 0xff));
-            buf.put(b);
-            b = (byte) (buf.get(buf.position()) ^ ((mask >> 16) & 0xff));
-            buf.put(b);
-            break;
-        case 1:
-            b = (byte) (buf.get(buf.position()) ^ (mask >> 24));
-            buf.put(b);
-            break;
-        case 0:
-        default:
-                break;
+        // xor the remaining 7 bytes or less
+        for (int shift = 24; index < limit; index++, shift -= 8) {
+            buf.put(index, (byte) (buf.get(index) ^ (mask >> shift)));
+        }
+    }
+
+    /*
+     * Heap buffers are unmasked on their backing array, 8 bytes per step without bounds checks on each byte.
+     */
+    private static void unmask(byte[] array, int offset, int length, int mask) {
+        byte mask0 = (byte) (mask >> 24);
+        byte mask1 = (byte) (mask >> 16);
+        byte mask2 = (byte) (mask >> 8);
+        byte mask3 = (byte) mask;
+
+        int index = offset;
+        int end = offset + (length & ~0x07);
+        for (; index < end; index += 8) {
+            array[index] ^= mask0;
+            array[index + 1] ^= mask1;
+            array[index + 2] ^= mask2;
+            array[index + 3] ^= mask3;
+            array[index + 4] ^= mask0;
+            array[index + 5] ^= mask1;
+            array[index + 6] ^= mask2;
+            array[index + 7] ^= mask3;
+        }
+
+        int limit = offset + length;
+        for (int shift = 24; index < limit; index++, shift -= 8) {
+            array[index] ^= (byte) (mask >> shift);
         }
-        buf.position(start);
     }
 
     private void validateMessageSize(long messageSize) throws WSMessageTooLongException {
@@ -287,25 +310,29 @@ public class WsFrameDecoder extends CumulativeProtocolDecoderEx {
     }
 
     private interface BinaryTextMessageDecoder {
-        void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, ProtocolDecoderOutput out);
+        void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, int rsv, ProtocolDecoderOutput out);
     }
 
     private static final BinaryTextMessageDecoder DEFAULT_BINARY_TEXT_DECODER = new BinaryTextMessageDecoder() {
         @Override
-        public void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, ProtocolDecoderOutput out) {
+        public void decodeWsMessage(IoBufferEx payload, Kind messageKind, boolean fin, int rsv, ProtocolDecoderOutput out) {
+            WsMessage message;
             switch(messageKind) {
             case CONTINUATION:
-                out.write(new WsContinuationMessage(payload, fin));
+                message = new WsContinuationMessage(payload, fin);
                 break;
             case BINARY:
-                out.write(new WsBinaryMessage(payload, fin));
+                message = new WsBinaryMessage(payload, fin);
                 break;
             case TEXT:
-                out.write(new WsTextMessage(payload, fin));
+                message = new WsTextMessage(payload, fin);
                 break;
             default:
                 assert false;
+                return;
             }
+            message.setRsv(rsv);
+            out.write(message);
         }
     };
 
@@ -258,6 +258,9 @@ public class WsFrameEncodingSupport {
         default:
             throw new IllegalStateException("Unrecognized frame type: " + message.getKind());
         }
+
+        // reserved bits, as given a meaning by a negotiated extension
+        b |= (message.getRsv() & 0x07) << 4;
         return b;
     }
 
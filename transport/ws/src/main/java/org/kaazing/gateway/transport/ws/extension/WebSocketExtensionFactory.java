@@ -34,6 +34,7 @@ import java.util.TreeMap;
 
 import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtensionFactorySpi.ExtensionOrderCategory;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 
 public final class WebSocketExtensionFactory {
 
@@ -64,6 +65,7 @@ public final class WebSocketExtensionFactory {
     }
 
     /**
+     * Negotiates extensions for a native RFC 6455 WebSocket connection.
      *
      * @param address  WsResourceAddress for the WebSocket connection for which extensions are being negotiated
      * @param clientRequestedExtensions List of extension header values (one per requested extension, parsing of
@@ -77,6 +79,26 @@ public final class WebSocketExtensionFactory {
                                                                  List<String> clientRequestedExtensions,
                                                                  ExtensionHelper extensionHelper)
             throws ProtocolException {
+        return negotiateWebSocketExtensions(address, WebSocketWireProtocol.RFC_6455, clientRequestedExtensions,
+                extensionHelper);
+    }
+
+    /**
+     *
+     * @param address  WsResourceAddress for the WebSocket connection for which extensions are being negotiated
+     * @param wireProtocol wire protocol of the WebSocket connection, or null if frames are not exchanged natively
+     * @param clientRequestedExtensions List of extension header values (one per requested extension, parsing of
+     *                                  any comma-separated list is already done by the HTTP transport layer)
+     * @param extensionHelper extension helper
+     * @return list of negotiated WebSocketExtensionSpi instances in the order they should appear
+     *         negotiated in (farthest from network to closest)
+     * @throws ProtocolException
+     */
+    public List<WebSocketExtension> negotiateWebSocketExtensions(WsResourceAddress address,
+                                                                 WebSocketWireProtocol wireProtocol,
+                                                                 List<String> clientRequestedExtensions,
+                                                                 ExtensionHelper extensionHelper)
+            throws ProtocolException {
 
         List<WebSocketExtension> result = Collections.emptyList();
         if (clientRequestedExtensions != null) {
@@ -84,16 +106,23 @@ public final class WebSocketExtensionFactory {
 
             // get the acceptedExtensions
             LinkedList<WebSocketExtension> acceptedExtensions = new LinkedList<>();
+            Set<String> acceptedTokens = new HashSet<>();
 
             // Orders the extensions based on SPI preferences, and then order that they came in
             for(Set<ExtensionHeader> extensionHeaders: extensionHeadersByCategory.values()){
                 for (ExtensionHeader candidate : requestedExtensions) {
-                    if(extensionHeaders.contains(candidate)){
+                    // a client may offer the same extension more than once with different parameters, in order
+                    // of preference (e.g. permessage-deflate), the first acceptable offer wins
+                    if(extensionHeaders.contains(candidate) && !acceptedTokens.contains(candidate.getExtensionToken())){
                         WebSocketExtensionFactorySpi extension = factoriesRO.get(candidate.getExtensionToken());
+                        if (!extension.isSupported(address, wireProtocol)) {
+                            continue;
+                        }
                         WebSocketExtension acceptedExtension = extension.negotiate(candidate, extensionHelper, address);
                         // negotiated can be null if the extension doesn't want to be active
                         if (acceptedExtension != null) {
                             acceptedExtensions.add(acceptedExtension);
+                            acceptedTokens.add(candidate.getExtensionToken());
                         }
                     }
                 }
@@ -20,6 +20,7 @@ import static java.lang.String.format;
 import java.net.ProtocolException;
 
 import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 
 /**
  * {@link WebSocketExtensionFactorySpi} is part of <i>Service Provider Interface</i> <em>(SPI)</em> for extension developers.
@@ -69,6 +70,18 @@ public abstract class WebSocketExtensionFactorySpi implements Comparable<WebSock
     public abstract WebSocketExtension negotiate(ExtensionHeader requestedExtension, ExtensionHelper extensionHelper,
         WsResourceAddress address) throws ProtocolException;
 
+    /**
+     * This method is called before negotiating the extension, to decline it on connections whose framing cannot
+     * carry it.
+     * @param address       WebSocket resource address on which the handshake is taking place
+     * @param wireProtocol  wire protocol of the WebSocket connection, or null if frames are not exchanged
+     *                      natively (e.g. emulated WebSocket)
+     * @return         - true if the extension may be negotiated, which is the default
+     */
+    public boolean isSupported(WsResourceAddress address, WebSocketWireProtocol wireProtocol) {
+        return true;
+    }
+
 
     /**
      * This method allows extensions to specify the order that they would like to be placed on the Filter Chain.
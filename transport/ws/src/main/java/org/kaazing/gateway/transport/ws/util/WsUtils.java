@@ -68,6 +68,13 @@ public class WsUtils {
     public static final TypedAttributeKey<List<WebSocketExtension>> ACTIVE_EXTENSIONS_KEY
         = new TypedAttributeKey<>(WsUtils.class, "active-ws-extensions", EMPTY_EXTENSIONS);
 
+    /**
+     * Reserved frame header bits (RSV1 being 0x04) that a negotiated extension has given a meaning to, so that
+     * the frame decoder on the same session passes them on with the message instead of failing the connection.
+     */
+    public static final TypedAttributeKey<Integer> NEGOTIATED_RSV_KEY
+        = new TypedAttributeKey<>(WsUtils.class, "negotiated-ws-rsv", 0);
+
 
     private WsUtils() {
         // no instances
@@ -324,11 +331,13 @@ public class WsUtils {
     public static List<WebSocketExtension> negotiateExtensionsAndSetResponseHeader(
                                                         WebSocketExtensionFactory factory,
                                                         WsResourceAddress address,
+                                                        WebSocketWireProtocol wireProtocol,
                                                         List<String> requestedExtensions,
                                                         HttpAcceptSession session,
                                                         String extendionsHeaderName, ExtensionHelper extensionHelper)
         throws ProtocolException {
-            List<WebSocketExtension> negotiated = factory.negotiateWebSocketExtensions(address, requestedExtensions, extensionHelper);
+            List<WebSocketExtension> negotiated =
+                    factory.negotiateWebSocketExtensions(address, wireProtocol, requestedExtensions, extensionHelper);
             for (WebSocketExtension extension : negotiated) {
                 session.addWriteHeader(extendionsHeaderName, extension.getExtensionHeader().toString());
             }
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import static java.lang.Boolean.FALSE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.mina.core.session.IoSession;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.resource.address.ResourceAddressFactory;
+import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
+import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
+import org.kaazing.gateway.transport.ws.WsSystemProperty;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHeaderBuilder;
+import org.kaazing.gateway.transport.ws.extension.ExtensionHelper;
+import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
+
+public class PerMessageDeflateExtensionFactoryTest {
+    private static final ExtensionHelper extensionHelper = new ExtensionHelper() {
+
+        @Override
+        public void setLoginContext(IoSession session, ResultAwareLoginContext loginContext) {
+            throw new RuntimeException("Not expected to be called");
+        }
+
+        @Override
+        public void closeWebSocketConnection(IoSession session) {
+            throw new RuntimeException("Not expected to be called");
+        }
+    };
+
+    WsResourceAddress address;
+    Properties configuration;
+
+    @Before
+    public void setUp() {
+        String addressURI = "ws://localhost:2020/";
+        Map<String, Object> options = new HashMap<>();
+        address = (WsResourceAddress) ResourceAddressFactory.newResourceAddressFactory().newResourceAddress(addressURI, options);
+        configuration = new Properties();
+        configuration.setProperty(WsSystemProperty.WS_PERMESSAGE_DEFLATE_ENABLED.getPropertyName(), "true");
+    }
+
+    @Test
+    public void negotiateShouldBeDisabledByDefault() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(new Properties());
+        assertNull(negotiate(factory, "permessage-deflate"));
+    }
+
+    @Test
+    public void negotiateShouldAcceptOfferWithoutParameters() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertEquals("permessage-deflate", negotiate(factory, "permessage-deflate"));
+    }
+
+    @Test
+    public void negotiateShouldAcknowledgeContextTakeoverParameters() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                negotiate(factory, "permessage-deflate; client_no_context_takeover; server_no_context_takeover"));
+    }
+
+    @Test
+    public void negotiateShouldIgnoreClientMaxWindowBits() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertEquals("permessage-deflate", negotiate(factory, "permessage-deflate; client_max_window_bits"));
+        assertEquals("permessage-deflate", negotiate(factory, "permessage-deflate; client_max_window_bits=10"));
+    }
+
+    @Test
+    public void negotiateShouldAcceptLargestServerMaxWindowBits() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertEquals("permessage-deflate; server_max_window_bits=15",
+                negotiate(factory, "permessage-deflate; server_max_window_bits=\"15\""));
+    }
+
+    @Test
+    public void negotiateShouldDeclineOffersThatCannotBeHonoured() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertNull(negotiate(factory, "permessage-deflate; server_max_window_bits=10"));
+        assertNull(negotiate(factory, "permessage-deflate; server_max_window_bits"));
+        assertNull(negotiate(factory, "permessage-deflate; client_max_window_bits=16"));
+        assertNull(negotiate(factory, "permessage-deflate; server_no_context_takeover=true"));
+        assertNull(negotiate(factory, "permessage-deflate; unknown"));
+    }
+
+    @Test
+    public void negotiateShouldDisableContextTakeoverBeyondMemoryLimit() throws Exception {
+        configuration.setProperty(WsSystemProperty.WS_PERMESSAGE_DEFLATE_MEMORY_LIMIT.getPropertyName(), "0");
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                negotiate(factory, "permessage-deflate"));
+    }
+
+    @Test
+    public void shouldOnlyBeSupportedWithRfc6455Codec() throws Exception {
+        PerMessageDeflateExtensionFactory factory = new PerMessageDeflateExtensionFactory(configuration);
+        assertTrue(factory.isSupported(address, WebSocketWireProtocol.HYBI_13));
+        assertTrue(factory.isSupported(address, WebSocketWireProtocol.HYBI_8));
+        assertFalse(factory.isSupported(address, WebSocketWireProtocol.HIXIE_76));
+        assertFalse(factory.isSupported(address, WebSocketWireProtocol.HIXIE_75));
+        assertFalse("emulated", factory.isSupported(address, null));
+
+        // as for the extended handshake, framed by the codec of the enclosing connection
+        Map<String, Object> options = new HashMap<>();
+        options.put("ws.codecRequired", FALSE);
+        WsResourceAddress noCodecAddress = (WsResourceAddress) ResourceAddressFactory.newResourceAddressFactory()
+                .newResourceAddress("ws://localhost:2020/", options);
+        assertFalse(factory.isSupported(noCodecAddress, WebSocketWireProtocol.HYBI_13));
+    }
+
+    private String negotiate(PerMessageDeflateExtensionFactory factory, String offer) throws Exception {
+        WebSocketExtension extension = factory.negotiate(new ExtensionHeaderBuilder(offer).done(), extensionHelper, address);
+        return (extension != null) ? extension.getExtensionHeader().toString() : null;
+    }
+
+}
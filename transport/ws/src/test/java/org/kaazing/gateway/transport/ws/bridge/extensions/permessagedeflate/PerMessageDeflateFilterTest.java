@@ -0,0 +1,255 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.transport.ws.bridge.extensions.permessagedeflate.PerMessageDeflateFilter.RSV1;
+import static org.kaazing.gateway.transport.ws.util.WsUtils.NEGOTIATED_RSV_KEY;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.session.IoSession;
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.transport.ws.WsCloseMessage;
+import org.kaazing.gateway.transport.ws.WsContinuationMessage;
+import org.kaazing.gateway.transport.ws.WsMessage;
+import org.kaazing.gateway.transport.ws.WsTextMessage;
+import org.kaazing.gateway.transport.ws.bridge.filter.WsCodecFilter;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.write.WriteRequestEx;
+import org.kaazing.mina.filter.codec.ProtocolCodecSessionEx;
+
+public class PerMessageDeflateFilterTest {
+    private static final int MINIMUM_SIZE = 64;
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    private final IoFilterChain filterChain = context.mock(IoFilterChain.class, "filterChain");
+    private final NextFilter nextFilter = context.mock(NextFilter.class);
+    private final List<WsMessage> received = new ArrayList<>();
+    private final List<Object> written = new ArrayList<>();
+
+    private ProtocolCodecSessionEx session;
+    private IoBufferAllocatorEx<?> allocator;
+    private PerMessageDeflateContexts contexts;
+
+    @Before
+    public void before() throws Exception {
+        session = new ProtocolCodecSessionEx();
+        allocator = session.getBufferAllocator();
+        contexts = new PerMessageDeflateContexts(1024 * 1024);
+        context.checking(new Expectations() {
+            {
+                allowing(filterChain).getSession(); will(returnValue(session));
+                allowing(filterChain).get(WsCodecFilter.class); will(returnValue(new WsCodecFilter(0, false)));
+                allowing(nextFilter).messageReceived(with(any(IoSession.class)), with(any(Object.class)));
+                will(new CustomAction("capture received message") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        received.add((WsMessage) invocation.getParameter(1));
+                        return null;
+                    }
+                });
+                allowing(nextFilter).filterWrite(with(any(IoSession.class)), with(any(WriteRequestEx.class)));
+                will(new CustomAction("capture written message") {
+                    @Override
+                    public Object invoke(Invocation invocation) throws Throwable {
+                        written.add(((WriteRequestEx) invocation.getParameter(1)).getMessage());
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    public void shouldNegotiateRSV1OnSession() throws Exception {
+        newFilter(false, false);
+        assertEquals(RSV1, (int) NEGOTIATED_RSV_KEY.get(session));
+    }
+
+    @Test
+    public void shouldWriteSmallMessageUncompressed() throws Exception {
+        PerMessageDeflateFilter filter = newFilter(false, false);
+        WsTextMessage message = textMessage("small", true);
+
+        assertNull(filter.doFilterWriteWsText(nextFilter, session, null, message));
+    }
+
+    @Test
+    public void shouldCompressAndDecompressMessages() throws Exception {
+        PerMessageDeflateFilter sender = newFilter(false, false);
+        PerMessageDeflateFilter receiver = newFilter(false, false);
+        String text = repeat("{\"symbol\":\"KZNG\",\"price\":42.0}", 20);
+
+        WsMessage first = (WsMessage) sender.doFilterWriteWsText(nextFilter, session, null, textMessage(text, true));
+        WsMessage second = (WsMessage) sender.doFilterWriteWsText(nextFilter, session, null, textMessage(text, true));
+
+        assertEquals(RSV1, first.getRsv());
+        assertTrue(first.getBytes().remaining() < text.length());
+        // the second message refers back to the first one
+        assertTrue(second.getBytes().remaining() < first.getBytes().remaining());
+
+        receiver.messageReceived(nextFilter, session, first);
+        receiver.messageReceived(nextFilter, session, second);
+        assertEquals(textMessage(text, true), received.get(0));
+        assertEquals(textMessage(text, true), received.get(1));
+    }
+
+    @Test
+    public void shouldCompressAndDecompressWithoutContextTakeover() throws Exception {
+        PerMessageDeflateFilter sender = newFilter(true, true);
+        PerMessageDeflateFilter receiver = newFilter(true, true);
+        String text = repeat("0123456789", 20);
+
+        WsMessage first = (WsMessage) sender.doFilterWriteWsText(nextFilter, session, null, textMessage(text, true));
+        WsMessage second = (WsMessage) sender.doFilterWriteWsText(nextFilter, session, null, textMessage(text, true));
+
+        assertEquals(first.getBytes().buf(), second.getBytes().buf());
+
+        receiver.messageReceived(nextFilter, session, second);
+        assertEquals(textMessage(text, true), received.get(0));
+    }
+
+    @Test
+    public void shouldShareCompressedVariantOfCachedMessage() throws Exception {
+        PerMessageDeflateFilter first = newFilter(true, false);
+        PerMessageDeflateFilter second = newFilter(true, false);
+        String text = repeat("0123456789", 20);
+        WsTextMessage message = textMessage(text, true);
+        message.initCache();
+
+        WsMessage compressed = (WsMessage) first.doFilterWriteWsText(nextFilter, session, null, message);
+
+        assertSame(compressed, second.doFilterWriteWsText(nextFilter, session, null, message));
+        assertEquals(RSV1, compressed.getRsv());
+        assertTrue(compressed.hasCache());
+
+        PerMessageDeflateFilter receiver = newFilter(false, false);
+        receiver.messageReceived(nextFilter, session, compressed);
+        assertEquals(textMessage(text, true), received.get(0));
+    }
+
+    @Test
+    public void shouldNotShareCompressedVariantWithContextTakeover() throws Exception {
+        PerMessageDeflateFilter first = newFilter(false, false);
+        PerMessageDeflateFilter second = newFilter(false, false);
+        WsTextMessage message = textMessage(repeat("0123456789", 20), true);
+        message.initCache();
+
+        WsMessage compressed = (WsMessage) first.doFilterWriteWsText(nextFilter, session, null, message);
+
+        assertNotSame(compressed, second.doFilterWriteWsText(nextFilter, session, null, message));
+        assertFalse(compressed.hasCache());
+    }
+
+    @Test
+    public void shouldCompressFragmentedMessage() throws Exception {
+        PerMessageDeflateFilter sender = newFilter(false, false);
+        PerMessageDeflateFilter receiver = newFilter(false, false);
+
+        WsMessage first = (WsMessage) sender.doFilterWriteWsText(nextFilter, session, null, textMessage("Hello, ", false));
+        WsMessage last = (WsMessage) sender.doFilterWriteWsCont(nextFilter, session, null,
+                new WsContinuationMessage(allocator.wrap(ByteBuffer.wrap("World".getBytes(UTF_8))), true));
+
+        assertEquals(RSV1, first.getRsv());
+        assertEquals(0, last.getRsv());
+
+        receiver.messageReceived(nextFilter, session, first);
+        receiver.messageReceived(nextFilter, session, last);
+        assertEquals("Hello, ", toString(received.get(0)));
+        assertFalse(received.get(0).isFin());
+        assertEquals("World", toString(received.get(1)));
+        assertTrue(received.get(1).isFin());
+    }
+
+    @Test
+    public void shouldPassUncompressedMessageThrough() throws Exception {
+        PerMessageDeflateFilter receiver = newFilter(false, false);
+        WsTextMessage message = textMessage("plain", true);
+
+        receiver.messageReceived(nextFilter, session, message);
+
+        assertEquals(message, received.get(0));
+    }
+
+    @Test
+    public void shouldFailConnectionOnInvalidCompressedData() throws Exception {
+        PerMessageDeflateFilter receiver = newFilter(false, false);
+        WsTextMessage message = textMessage("not deflated", true);
+        message.setRsv(RSV1);
+
+        receiver.messageReceived(nextFilter, session, message);
+
+        assertTrue(received.isEmpty());
+        assertEquals(WsCloseMessage.PROTOCOL_ERROR, written.get(0));
+    }
+
+    @Test
+    public void shouldReleaseContextsWhenClosed() throws Exception {
+        PerMessageDeflateFilter filter = newFilter(false, false);
+        filter.doFilterWriteWsText(nextFilter, session, null, textMessage(repeat("x", MINIMUM_SIZE), true));
+        assertEquals(PerMessageDeflateContexts.DEFLATER_MEMORY, contexts.getMemoryUsed());
+
+        filter.onPostRemove(filterChain, PerMessageDeflateExtension.EXTENSION_TOKEN, nextFilter);
+
+        assertEquals(0, contexts.getMemoryUsed());
+    }
+
+    private PerMessageDeflateFilter newFilter(boolean serverNoContextTakeover, boolean clientNoContextTakeover)
+            throws Exception {
+        PerMessageDeflateFilter filter = new PerMessageDeflateFilter(contexts, MINIMUM_SIZE, 0,
+                serverNoContextTakeover, clientNoContextTakeover);
+        filter.onPreAdd(filterChain, PerMessageDeflateExtension.EXTENSION_TOKEN, nextFilter);
+        return filter;
+    }
+
+    private WsTextMessage textMessage(String text, boolean fin) {
+        return new WsTextMessage(allocator.wrap(ByteBuffer.wrap(text.getBytes(UTF_8))), fin);
+    }
+
+    private static String toString(WsMessage message) {
+        ByteBuffer buf = message.getBytes().buf().duplicate();
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -15,12 +15,15 @@
  */
 package org.kaazing.gateway.transport.ws.bridge.filter;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.kaazing.gateway.transport.ws.util.WsUtils.NEGOTIATED_RSV_KEY;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 
 import org.apache.mina.core.buffer.IoBuffer;
@@ -70,6 +73,57 @@ public class WsFrameDecoderTest {
         assertFalse(in.hasRemaining());
     }
 
+    @Test
+    public void decodeTextFrameWithNegotiatedRSV1() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolDecoder decoder = new WsFrameDecoder(allocator, 0, false);
+        NEGOTIATED_RSV_KEY.set(session, 0x04);
+
+        IoBufferEx in = allocator.wrap(allocator.allocate(3))
+                                 .put((byte)0xC1)
+                                 .put((byte)0x01)
+                                 .put((byte)0x61)
+                                 .flip();
+
+        decoder.decode(session, (IoBuffer) in, session.getDecoderOutput());
+
+        WsMessage expected = new WsTextMessage(allocator.wrap(ByteBuffer.wrap(new byte[] { 0x61 })));
+        expected.setRsv(0x04);
+        assertEquals(expected, session.getDecoderOutputQueue().poll());
+        assertTrue(session.getDecoderOutputQueue().isEmpty());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void decodeTextFrameWithRSV1NotNegotiated() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolDecoder decoder = new WsFrameDecoder(allocator, 0, false);
+
+        IoBufferEx in = allocator.wrap(allocator.allocate(3))
+                                 .put((byte)0xC1)
+                                 .put((byte)0x01)
+                                 .put((byte)0x61)
+                                 .flip();
+
+        decoder.decode(session, (IoBuffer) in, session.getDecoderOutput());
+    }
+
+    @Test(expected = ProtocolDecoderException.class)
+    public void decodePingFrameWithNegotiatedRSV1() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolDecoder decoder = new WsFrameDecoder(allocator, 0, false);
+        NEGOTIATED_RSV_KEY.set(session, 0x04);
+
+        IoBufferEx in = allocator.wrap(allocator.allocate(2))
+                                 .put((byte)0xC9)
+                                 .put((byte)0x00)
+                                 .flip();
+
+        decoder.decode(session, (IoBuffer) in, session.getDecoderOutput());
+    }
+
     @Test
     public void decodeTextContinuationFrame() throws Exception {
         ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
@@ -984,6 +1038,46 @@ public class WsFrameDecoderTest {
         System.out.print(s);
     }
 */
+    @Test
+    public void unmaskHeapAndDirectBuffersOfAnyLength() throws Exception {
+        int mask = 0x37fa213d;
+        for (int length = 0; length < 40; length++) {
+            for (int offset = 0; offset < 3; offset++) {
+                byte[] plain = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    plain[i] = (byte) (i * 31);
+                }
+                byte[] masked = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    masked[i] = (byte) (plain[i] ^ (mask >> (24 - 8 * (i % 4))));
+                }
+
+                ByteBuffer heap = ByteBuffer.allocate(offset + length + 5);
+                ByteBuffer direct = ByteBuffer.allocateDirect(offset + length + 5);
+                ByteBuffer directLittleEndian = ByteBuffer.allocateDirect(offset + length + 5).order(ByteOrder.LITTLE_ENDIAN);
+                for (ByteBuffer buf : new ByteBuffer[] { heap, direct, directLittleEndian }) {
+                    buf.position(offset);
+                    buf.put(masked);
+                    buf.flip();
+                    buf.position(offset);
+
+                    WsFrameDecoder.unmask(buf, mask);
+
+                    assertEquals(offset, buf.position());
+                    assertEquals(offset + length, buf.limit());
+                    byte[] unmasked = new byte[length];
+                    buf.get(unmasked);
+                    assertArrayEquals("length " + length + ", offset " + offset, plain, unmasked);
+                    // bytes beyond the payload are untouched
+                    buf.limit(buf.capacity());
+                    while (buf.hasRemaining()) {
+                        assertEquals(0, buf.get());
+                    }
+                }
+            }
+        }
+    }
+
     private static String createString(char ch, int size) {
         char[] arr = new char[size];
         for(int i=0; i < size; i++) {
@@ -70,6 +70,26 @@ public class WsFrameEncoderTest {
                      out);
     }
 
+    @Test
+    public void shouldEncodeReservedBits() throws Exception {
+        ProtocolCodecSessionEx session = new ProtocolCodecSessionEx();
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        ProtocolEncoder encoder = new WsFrameEncoder(allocator, false);
+
+        WsMessage in = new WsBinaryMessage(allocator.wrap(ByteBuffer.wrap(new byte[] { 0x01 })));
+        in.setRsv(0x04);
+
+        encoder.encode(session, in, session.getEncoderOutput());
+
+        IoBufferEx out = (IoBufferEx) session.getEncoderOutputQueue().poll();
+        assertEquals(allocator.wrap(allocator.allocate(3))
+                              .put((byte)0xC2)
+                              .put((byte)0x01)
+                              .put((byte)0x01)
+                              .flip(),
+                     out);
+    }
+
     @Test
     public void shouldEncodeUnexpectedConditionClose()
         throws Exception {
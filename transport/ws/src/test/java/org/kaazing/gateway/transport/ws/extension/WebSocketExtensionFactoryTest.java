@@ -42,6 +42,7 @@ import org.junit.Test;
 import org.kaazing.gateway.resource.address.ws.WsResourceAddress;
 import org.kaazing.gateway.security.auth.context.ResultAwareLoginContext;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtensionFactoryTest.MockWebSocketExtensionFactorySpi.MockNegotiate;
+import org.kaazing.gateway.util.ws.WebSocketWireProtocol;
 
 public class WebSocketExtensionFactoryTest {
 
@@ -167,6 +168,41 @@ public class WebSocketExtensionFactoryTest {
         assertEquals(1, activeWebSocketExtensions.size());
     }
 
+    @Test
+    public void shouldNegotiateFirstAcceptableOfRepeatedOffers() throws ProtocolException {
+        List<String> clientRequestedExtensions = new ArrayList<>();
+        clientRequestedExtensions.add("mock; foo=1");
+        clientRequestedExtensions.add("mock; foo=2");
+        clientRequestedExtensions.add("mock");
+        context.checking(new Expectations() {
+            {
+                oneOf(mockNegotiate).negotiate(with(new ExtensionHeaderTokenMatcher("mock").withParameter("foo=1")),
+                        with(address));
+                will(returnValue(null));
+                oneOf(mockNegotiate).negotiate(with(new ExtensionHeaderTokenMatcher("mock").withParameter("foo=2")),
+                        with(address));
+                will(returnValue(webSocketExtensionSpi));
+            }
+        });
+        List<WebSocketExtension> activeWebSocketExtensions =
+                wsExtFactory.negotiateWebSocketExtensions(address, clientRequestedExtensions, extensionHelper);
+        assertEquals(1, activeWebSocketExtensions.size());
+        assertSame(webSocketExtensionSpi, activeWebSocketExtensions.get(0));
+    }
+
+    @Test
+    public void shouldNotNegotiateUnsupportedExtension() throws ProtocolException {
+        List<String> clientRequestedExtensions = Collections.singletonList("mock");
+        context.checking(new Expectations() {
+            {
+                never(mockNegotiate).negotiate(with(any(ExtensionHeader.class)), with(any(WsResourceAddress.class)));
+            }
+        });
+        List<WebSocketExtension> activeWebSocketExtensions =
+                wsExtFactory.negotiateWebSocketExtensions(address, null, clientRequestedExtensions, extensionHelper);
+        assertEquals(0, activeWebSocketExtensions.size());
+    }
+
     @Test
     public void negotiateExtensionsShouldKeepRequestedOrderWithinSameOrderCategory() throws ProtocolException {
         List<String> clientRequestedExtensions = new ArrayList<>();
@@ -299,6 +335,12 @@ public class WebSocketExtensionFactoryTest {
             return (mockBehavior == null) ? null : mockBehavior.negotiate(requestedExtension, address);
         }
 
+        @Override
+        public boolean isSupported(WsResourceAddress address, WebSocketWireProtocol wireProtocol) {
+            // as for an extension requiring native frames
+            return wireProtocol != null;
+        }
+
         static void setNegotiateBehavoir(MockNegotiate behavoir) {
             mockBehavior = behavoir;
         }
@@ -15,7 +15,6 @@
  */
 package org.kaazing.gateway.transport.wseb;
 
-import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.IoFutureListener;
@@ -37,10 +36,8 @@ import org.slf4j.Logger;
 public class WsebAcceptProcessor extends BridgeAcceptProcessor<WsebSession> {
     private final Logger logger;
     private static final CheckInitialPadding CHECK_INITIAL_PADDING = new CheckInitialPadding();
-    private final ScheduledExecutorService scheduler;
 
-    public WsebAcceptProcessor(ScheduledExecutorService scheduler, Logger logger) {
-        this.scheduler = scheduler;
+    public WsebAcceptProcessor(Logger logger) {
         this.logger = logger;
     }
 
@@ -136,7 +133,7 @@ public class WsebAcceptProcessor extends BridgeAcceptProcessor<WsebSession> {
                 session.detachWriter(writer);
                 boolean attached = session.attachPendingWriter();
                 if (!attached) {
-                    session.scheduleTimeout(scheduler);
+                    session.scheduleTimeout();
                 }
                 break;
             }
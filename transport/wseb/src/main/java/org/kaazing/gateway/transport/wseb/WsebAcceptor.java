@@ -17,6 +17,7 @@ package org.kaazing.gateway.transport.wseb;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.kaazing.gateway.resource.address.ResourceAddress.ALTERNATE;
 import static org.kaazing.gateway.resource.address.ResourceAddress.BIND_ALTERNATE;
 import static org.kaazing.gateway.resource.address.ResourceAddress.NEXT_PROTOCOL;
@@ -31,6 +32,8 @@ import static org.kaazing.gateway.resource.address.ws.WsResourceAddress.MAX_MESS
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CACHE_CONTROL;
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_LENGTH;
 import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_TYPE;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.WSEB_DOWNSTREAM_BATCH_LATENCY;
+import static org.kaazing.gateway.transport.ws.WsSystemProperty.WSEB_DOWNSTREAM_BATCH_SIZE;
 import static org.kaazing.gateway.transport.ws.WsSystemProperty.WSE_IDLE_TIMEOUT;
 import static org.kaazing.gateway.transport.ws.bridge.filter.WsCheckAliveFilter.DISABLE_INACTIVITY_TIMEOUT;
 import static org.kaazing.gateway.util.InternalSystemProperty.WSE_SPECIFICATION;
@@ -44,9 +47,13 @@ import java.nio.charset.CharsetEncoder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 
 import javax.annotation.Resource;
@@ -101,10 +108,14 @@ import org.kaazing.gateway.transport.ws.extension.WebSocketExtension;
 import org.kaazing.gateway.transport.ws.extension.WebSocketExtensionFactory;
 import org.kaazing.gateway.transport.ws.util.WsHandshakeNegotiationException;
 import org.kaazing.gateway.transport.ws.util.WsUtils;
+import org.kaazing.gateway.transport.wseb.filter.WsebBatchingFilter;
+import org.kaazing.gateway.transport.wseb.filter.WsebBatchingStatistics;
 import org.kaazing.gateway.transport.wseb.filter.WsebBufferAllocator;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter.EscapeTypes;
 import org.kaazing.gateway.util.Encoding;
+import org.kaazing.gateway.util.Utils;
 import org.kaazing.gateway.util.scheduler.SchedulerProvider;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.future.UnbindFuture;
@@ -152,6 +163,13 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     private static final String UPSTREAM_MIXED_TEXT_ESCAPED_SUFFIX = EMULATED_SUFFIX + "/utem";
     static final String DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX = EMULATED_SUFFIX + "/dtem";
 
+    private static final String[] UPSTREAM_SUFFIXES = { UPSTREAM_SUFFIX, UPSTREAM_TEXT_SUFFIX,
+            UPSTREAM_TEXT_ESCAPED_SUFFIX, UPSTREAM_MIXED_SUFFIX, UPSTREAM_MIXED_TEXT_SUFFIX,
+            UPSTREAM_MIXED_TEXT_ESCAPED_SUFFIX };
+    private static final String[] DOWNSTREAM_SUFFIXES = { DOWNSTREAM_SUFFIX, DOWNSTREAM_TEXT_SUFFIX,
+            DOWNSTREAM_TEXT_ESCAPED_SUFFIX, DOWNSTREAM_MIXED_SUFFIX, DOWNSTREAM_MIXED_TEXT_SUFFIX,
+            DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX };
+
     private static final Charset UTF_8 = Charset.forName("UTF-8");
     protected static final byte LINEFEED_BYTE = "\n".getBytes()[0];
 
@@ -161,6 +179,9 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     private static final TypedAttributeKey<String[]> SUPPORTED_PROTOCOLS =
             new TypedAttributeKey<>(WsebAcceptor.class, "supportedProtocols");
 
+    private static final TypedAttributeKey<Map<String, WsebDispatchHandler>> DISPATCH_HANDLERS =
+            new TypedAttributeKey<>(WsebAcceptor.class, "dispatchHandlers");
+
     // used to deal with fragmented wseb-create-message content
     private static final TypedAttributeKey<Integer> CREATE_CONTENT_LENGTH_READ =
             new TypedAttributeKey<>(WsebAcceptor.class, "createContentLengthRead");
@@ -174,6 +195,9 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     private boolean specCompliant;
 
     private ScheduledExecutorService scheduler;
+    private TimingWheelScheduler timers;
+    private final WsebBatchingStatistics downstreamBatchingStatistics = new WsebBatchingStatistics();
+    private WsebBatchingFilter downstreamBatching;
     private BridgeServiceFactory bridgeServiceFactory;
     private ResourceAddressFactory resourceAddressFactory;
 
@@ -193,19 +217,24 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
     private final IoHandler createHandler = new WsebCreateHandler();
 
+    // upstream and downstream paths are bound once per http address, each dispatching to the handlers of the sessions
+    // created through that address, and shared by the endpoints bound to it until the last one is unbound
+    private final ConcurrentMap<ResourceAddress, DispatchHandlers> dispatchHandlers = new ConcurrentHashMap<>();
+
     public WsebAcceptor() {
         super(new DefaultIoSessionConfigEx());
     }
 
     @Override
     protected IoProcessorEx<WsebSession> initProcessor() {
-        return new WsebAcceptProcessor(scheduler, logger);
+        return new WsebAcceptProcessor(logger);
     }
 
     @Resource(name = "configuration")
     public void setConfiguration(Properties configuration) {
         this.configuration = configuration;
         this.specCompliant = "true".equals(WSE_SPECIFICATION.getProperty(configuration));
+        initDownstreamBatching();
     }
 
     @Resource(name = "bridgeServiceFactory")
@@ -226,6 +255,23 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
     @Resource(name = "schedulerProvider")
     public void setSchedulerProvider(SchedulerProvider provider) {
         this.scheduler = provider.getScheduler("KeepAlive-Wseb", true);
+        this.timers = provider.getTimingWheelScheduler();
+        initDownstreamBatching();
+    }
+
+    public WsebBatchingStatistics getDownstreamBatchingStatistics() {
+        return downstreamBatchingStatistics;
+    }
+
+    private void initDownstreamBatching() {
+        if (configuration == null || timers == null) {
+            return;
+        }
+        long latency = Utils.parseTimeInterval(WSEB_DOWNSTREAM_BATCH_LATENCY.getProperty(configuration), NANOSECONDS);
+        if (latency > 0) {
+            int maximumSize = Utils.parseDataSize(WSEB_DOWNSTREAM_BATCH_SIZE.getProperty(configuration));
+            downstreamBatching = new WsebBatchingFilter(timers, latency, maximumSize, downstreamBatchingStatistics);
+        }
     }
 
     @Override
@@ -255,6 +301,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             bindCookiesHandler(address.findTransport("http[http/1.1]"));
 
             final ResourceAddress transportAddress = address.getTransport();
+            final Map<String, WsebDispatchHandler> endpointDispatchHandlers = acquireDispatchHandlers(transportAddress);
 
             Protocol httpProtocol = bridgeServiceFactory.getTransportFactory().getProtocol(transportAddress.getResource().getScheme());
             final BridgeSessionInitializer<T> httpInitializer = (initializer != null) ? initializer.getParentInitializer(httpProtocol) : null;
@@ -278,6 +325,9 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
                     // Store the next over-the-top of-websocket protocols the server supports for this address on session.
                     SUPPORTED_PROTOCOLS.set(session, allSupportedProtocols);
+
+                    // Sessions created by this request are only reachable through the dispatch paths of this address
+                    DISPATCH_HANDLERS.set(session, endpointDispatchHandlers);
                 }
             };
 
@@ -370,6 +420,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         BridgeAcceptor acceptor = bridgeServiceFactory.newBridgeAcceptor(transportAddress);
 
         UnbindFuture future = unbindCookiesHandler(address.findTransport("http[http/1.1]"));
+        future = combineFutures(future, releaseDispatchHandlers(transportAddress));
         future = combineFutures(future, acceptor.unbind(transportAddress));
         return future;
     }
@@ -383,6 +434,120 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         return super.dispose0();
     }
 
+    private synchronized Map<String, WsebDispatchHandler> acquireDispatchHandlers(ResourceAddress httpAddress) {
+        DispatchHandlers endpointDispatchHandlers = dispatchHandlers.computeIfAbsent(httpAddress, a -> new DispatchHandlers());
+        if (endpointDispatchHandlers.referenceCount++ == 0) {
+            bindDispatchPaths(httpAddress, endpointDispatchHandlers.handlers);
+        }
+        return endpointDispatchHandlers.handlers;
+    }
+
+    private synchronized UnbindFuture releaseDispatchHandlers(ResourceAddress httpAddress) {
+        DispatchHandlers endpointDispatchHandlers = dispatchHandlers.get(httpAddress);
+        if (endpointDispatchHandlers == null || --endpointDispatchHandlers.referenceCount > 0) {
+            // still used by another endpoint bound to the same http address
+            return null;
+        }
+        dispatchHandlers.remove(httpAddress);
+        return unbindDispatchPaths(httpAddress);
+    }
+
+    /* for test observability only */
+    WsebDispatchHandler dispatchHandler(ResourceAddress httpAddress, String suffix) {
+        DispatchHandlers endpointDispatchHandlers = dispatchHandlers.get(httpAddress);
+        return (endpointDispatchHandlers != null) ? endpointDispatchHandlers.handlers.get(suffix) : null;
+    }
+
+    private static final class DispatchHandlers {
+        private final Map<String, WsebDispatchHandler> handlers = new HashMap<>();
+        private int referenceCount;
+
+        DispatchHandlers() {
+            for (String suffix : UPSTREAM_SUFFIXES) {
+                handlers.put(suffix, new WsebDispatchHandler());
+            }
+            for (String suffix : DOWNSTREAM_SUFFIXES) {
+                handlers.put(suffix, new WsebDispatchHandler());
+            }
+        }
+    }
+
+    private void bindDispatchPaths(ResourceAddress httpAddress, Map<String, WsebDispatchHandler> dispatchHandlers) {
+        for (String suffix : UPSTREAM_SUFFIXES) {
+            ResourceAddress upstreamAddress = createDispatchAddress(httpAddress, suffix, "upstream");
+            BridgeAcceptor upstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(upstreamAddress);
+            upstreamAcceptor.bind(upstreamAddress, dispatchHandlers.get(suffix), null);
+        }
+        for (String suffix : DOWNSTREAM_SUFFIXES) {
+            ResourceAddress downstreamAddress = createDispatchAddress(httpAddress, suffix, "downstream");
+            BridgeAcceptor downstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(downstreamAddress);
+            downstreamAcceptor.bind(downstreamAddress, dispatchHandlers.get(suffix), null);
+        }
+    }
+
+    private UnbindFuture unbindDispatchPaths(ResourceAddress httpAddress) {
+        UnbindFuture future = null;
+        for (String suffix : UPSTREAM_SUFFIXES) {
+            ResourceAddress upstreamAddress = createDispatchAddress(httpAddress, suffix, "upstream");
+            BridgeAcceptor upstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(upstreamAddress);
+            future = combineFutures(future, upstreamAcceptor.unbind(upstreamAddress));
+        }
+        for (String suffix : DOWNSTREAM_SUFFIXES) {
+            ResourceAddress downstreamAddress = createDispatchAddress(httpAddress, suffix, "downstream");
+            BridgeAcceptor downstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(downstreamAddress);
+            future = combineFutures(future, downstreamAcceptor.unbind(downstreamAddress));
+        }
+        return future;
+    }
+
+    private ResourceAddress createDispatchAddress(ResourceAddress httpAddress, String suffix, String direction) {
+        // upstream and downstream requests shouldn't go through authentication/authorization
+        // as the create request already went through it and established wseb session
+        // But for logging purposes we do want to set an IdentityResolver, shared by all sessions of the endpoint
+        IdentityResolver resolver = new FixedIdentityResolver(format("%s#%s", getTransportMetadata().getName(), direction));
+
+        // tcp | http | httpxe | wse - apply no security to http layer
+        ResourceAddress httpxeAddress = httpAddress.getOption(ALTERNATE);
+        ResourceAddress httpxeBaseAddress = httpxeAddressNoSecurity(httpxeAddress, resolver);
+
+        // tcp | http | wse - apply no security to http layer, also sets the httpxe alternate
+        ResourceAddress httpBaseAddress = httpAddressNoSecurity(httpAddress, httpxeBaseAddress, resolver);
+
+        return httpBaseAddress.resolve(createResolvePath(httpBaseAddress.getResource(), suffix));
+    }
+
+    private ResourceAddress httpAddressNoSecurity(ResourceAddress httpAddress, ResourceAddress httpxeAddressNoSecurity, IdentityResolver resolver) {
+        ResourceOptions noSecurityOptions = new NoSecurityResourceOptions(httpAddress);
+        noSecurityOptions.setOption(ALTERNATE, httpxeAddressNoSecurity);
+
+        noSecurityOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
+        noSecurityOptions.setOption(HttpResourceAddress.REALMS, new HttpRealmInfo[0]);
+        return resourceAddressFactory.newResourceAddress(httpAddress.getExternalURI(),
+                noSecurityOptions, httpAddress.getOption(ResourceAddress.QUALIFIER));
+    }
+
+    private ResourceAddress httpxeAddressNoSecurity(ResourceAddress httpxeAddress, IdentityResolver resolver) {
+        // Remove REALM_NAME option at http layer (upstream and downstream requests shouldn't have to
+        // go through authentication/authorization)
+        ResourceAddress httpAddress = httpxeAddress.getTransport();
+        ResourceOptions noSecurityOptions = new NoSecurityResourceOptions(httpAddress);
+
+        noSecurityOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
+        ResourceAddress httpAddressNoSecurity = resourceAddressFactory.newResourceAddress(
+                httpAddress.getExternalURI(), noSecurityOptions, httpAddress.getOption(ResourceAddress.QUALIFIER));
+
+        // Remove REALM_NAME  option at httpxe layer but preserve all other options like
+        // ORIGIN_SECURITY etc. Otherwise, upstream and downstream requests will be subjected
+        // to different origin security constraints. Then finally add http as transport to httpxe
+        ResourceOptions httpxeOptions = ResourceOptions.FACTORY.newResourceOptions(httpxeAddress);
+        httpxeOptions.setOption(TRANSPORT, httpAddressNoSecurity);
+
+        httpxeOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
+
+        httpxeOptions = new NoSecurityResourceOptions(httpxeOptions);
+        return resourceAddressFactory.newResourceAddress(URIUtils.uriToString(httpxeAddress.getResource()), httpxeOptions);
+    }
+
     String createResolvePath(URI httpUri, final String suffixWithLeadingSlash) {
         return appendURI(ensureTrailingSlash(httpUri),suffixWithLeadingSlash).getPath();
     }
@@ -407,18 +572,17 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
 
     final class WsebCreateHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
-        private IoFutureListener<CloseFuture> getWsebCloseListener(final BridgeAcceptor upstreamAcceptor,
-                                                                   final BridgeAcceptor downstreamAcceptor,
+        private IoFutureListener<CloseFuture> getWsebCloseListener(final WsebDispatchHandler upstreamDispatcher,
+                                                                   final WsebDispatchHandler downstreamDispatcher,
                                                                    final WsebSession wsebSession,
-                                                                   final ResourceAddress downstreamAddress,
-                                                                   final ResourceAddress upstreamAddress) {
+                                                                   final String sessionId) {
             return new IoFutureListener<CloseFuture>() {
                 @Override
                 public void operationComplete(CloseFuture future) {
                     currentSessionIdleTracker.get().removeSession(wsebSession);
 
-                    downstreamAcceptor.unbind(downstreamAddress);
-                    upstreamAcceptor.unbind(upstreamAddress);
+                    downstreamDispatcher.unregister(sessionId);
+                    upstreamDispatcher.unregister(sessionId);
 
                     wsebSession.shutdownScheduledCommands();
                     wsebSession.logout();
@@ -561,8 +725,9 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             // negotiate extensions
             final List<WebSocketExtension> negotiated;
             try {
+                // emulated, so there is no wire protocol carrying WebSocket frames
                 negotiated = WsUtils.negotiateExtensionsAndSetResponseHeader(
-                        webSocketExtensionFactory, (WsResourceAddress) wseLocalAddress, clientRequestedExtensions,
+                        webSocketExtensionFactory, (WsResourceAddress) wseLocalAddress, null, clientRequestedExtensions,
                         session, WsUtils.HEADER_X_WEBSOCKET_EXTENSIONS, extensionHelper);
             }
             catch(ProtocolException e) {
@@ -652,6 +817,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                     newWsebSession.setBridgeServiceFactory(bridgeServiceFactory);
                     newWsebSession.setResourceAddressFactory(resourceAddressFactory);
                     newWsebSession.setScheduler(scheduler);
+                    newWsebSession.setTimingWheelScheduler(timers);
                     return newWsebSession;
                 }
             });
@@ -695,48 +861,21 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                                                  URIUtils.getFragment(remoteExternalHttp11));
 
             //
-            // UP- and DOWN- STREAMS: BIND
+            // UP- and DOWN- STREAMS: DISPATCH
             //
-            final ResourceAddress httpAddress = localAddress.getTransport();
-            final ResourceAddress httpxeAddress = localAddress.getTransport().getOption(ALTERNATE);
-
-            // upstream and downstream requests shouldn't go through authentication/authorization
-            // as the create request already went through it and established wseb session
-         // But for logging purposes we do want to set an IdentityResolver
-            String wsebSessionIdentity = format("%s#%d", getTransportMetadata().getName(), wsebSession.getId());
-            final IdentityResolver downstreamResolver = new FixedIdentityResolver(wsebSessionIdentity + "d");
-            // tcp | http | httpxe | wse - apply no security to http layer
-            ResourceAddress httpxeBaseAddress = httpxeAddressNoSecurity(httpxeAddress, downstreamResolver);
-
-            // tcp | http | wse - apply no security to http layer, also sets the httpxe alternate
-            ResourceAddress httpBaseAddress = httpAddressNoSecurity(httpAddress, httpxeBaseAddress, downstreamResolver);
+            // the paths are bound once per endpoint, so just make this session known to those of its endpoint
+            Map<String, WsebDispatchHandler> dispatchHandlers = DISPATCH_HANDLERS.remove(session);
+            WsebDispatchHandler downstreamDispatcher = dispatchHandlers.get(downstreamSuffix);
+            downstreamDispatcher.register(sessionId, selectDownstreamHandler(localAddress, wsebSession, downstreamSuffix));
 
-            ResourceAddress localDownstream = httpBaseAddress.resolve(createResolvePath(httpBaseAddress.getResource(), downstreamSuffix + sessionIdSuffix));
-            logger.trace("Binding "+localDownstream.getTransport()+" to downstreamHandler");
-
-            // Now repeat for upstream
-            final IdentityResolver upstreamResolver = new FixedIdentityResolver(wsebSessionIdentity + "u");
-            httpxeBaseAddress = httpxeAddressNoSecurity(httpxeAddress, upstreamResolver);
-            httpBaseAddress = httpAddressNoSecurity(httpAddress, httpxeBaseAddress, upstreamResolver);
-
-            ResourceAddress localUpstream = httpBaseAddress.resolve(createResolvePath(httpBaseAddress.getResource(), upstreamSuffix + sessionIdSuffix));
-            logger.trace("Binding "+localUpstream.getTransport()+" to upstreamHandler");
-
-            BridgeAcceptor downstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(localDownstream);
-            downstreamAcceptor.bind(localDownstream,
-                    selectDownstreamHandler(localAddress, wsebSession, downstreamSuffix),
-                    null);
-
-            BridgeAcceptor upstreamAcceptor = bridgeServiceFactory.newBridgeAcceptor(localUpstream);
-            upstreamAcceptor.bind(localUpstream,
-                selectUpstreamHandler(localAddress, wsebSession, upstreamSuffix),
-                    null);
+            WsebDispatchHandler upstreamDispatcher = dispatchHandlers.get(upstreamSuffix);
+            upstreamDispatcher.register(sessionId, selectUpstreamHandler(localAddress, wsebSession, upstreamSuffix));
 
             //
             // WEBSOCKET SESSION CLOSE
             //
             CloseFuture closeFuture = wsebSession.getCloseFuture();
-            closeFuture.addListener(getWsebCloseListener(upstreamAcceptor, downstreamAcceptor, wsebSession, localDownstream, localUpstream));
+            closeFuture.addListener(getWsebCloseListener(upstreamDispatcher, downstreamDispatcher, wsebSession, sessionId));
 
 
             //
@@ -768,39 +907,7 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             SESSION_KEY.set(session, wsebSession);
 
             // timeout session if downstream is never attached
-            wsebSession.scheduleTimeout(scheduler);
-        }
-
-        private ResourceAddress httpAddressNoSecurity(ResourceAddress httpAddress, ResourceAddress httpxeAddressNoSecurity, IdentityResolver resolver) {
-            ResourceOptions noSecurityOptions = new NoSecurityResourceOptions(httpAddress);
-            noSecurityOptions.setOption(ALTERNATE, httpxeAddressNoSecurity);
-
-            noSecurityOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
-            noSecurityOptions.setOption(HttpResourceAddress.REALMS, new HttpRealmInfo[0]);
-            return resourceAddressFactory.newResourceAddress(httpAddress.getExternalURI(),
-                    noSecurityOptions, httpAddress.getOption(ResourceAddress.QUALIFIER));
-        }
-
-        private ResourceAddress httpxeAddressNoSecurity(ResourceAddress httpxeAddress, IdentityResolver resolver) {
-            // Remove REALM_NAME option at http layer (upstream and downstream requests shouldn't have to
-            // go through authentication/authorization)
-            ResourceAddress httpAddress = httpxeAddress.getTransport();
-            ResourceOptions noSecurityOptions = new NoSecurityResourceOptions(httpAddress);
-
-            noSecurityOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
-            ResourceAddress httpAddressNoSecurity = resourceAddressFactory.newResourceAddress(
-                    httpAddress.getExternalURI(), noSecurityOptions, httpAddress.getOption(ResourceAddress.QUALIFIER));
-
-            // Remove REALM_NAME  option at httpxe layer but preserve all other options like
-            // ORIGIN_SECURITY etc. Otherwise, upstream and downstream requests will be subjected
-            // to different origin security constraints. Then finally add http as transport to httpxe
-            ResourceOptions httpxeOptions = ResourceOptions.FACTORY.newResourceOptions(httpxeAddress);
-            httpxeOptions.setOption(TRANSPORT, httpAddressNoSecurity);
-
-            httpxeOptions.setOption(ResourceAddress.IDENTITY_RESOLVER, resolver);
-
-            httpxeOptions = new NoSecurityResourceOptions(httpxeOptions);
-            return resourceAddressFactory.newResourceAddress(URIUtils.uriToString(httpxeAddress.getResource()), httpxeOptions);
+            wsebSession.scheduleTimeout();
         }
 
         private boolean validateAcceptCommands(HttpAcceptSession session) {
@@ -895,28 +1002,28 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
                 // We need a session idle tracker to handle ws close handshake, even if ws.inactivity.timeout is not set
                 IoSessionIdleTracker sesionIdleTracker = currentSessionIdleTracker.get();
                 if ( DOWNSTREAM_SUFFIX.equals(downstreamSuffix) ) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler,
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching,
                                                      WsebEncodingStrategy.TEXT_AS_BINARY, sesionIdleTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_TEXT_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching, "text/plain; charset=windows-1252",
                                   WsebEncodingStrategy.TEXT_AS_BINARY, sesionIdleTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_TEXT_ESCAPED_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching, "text/plain; charset=windows-1252",
                                   Encoding.ESCAPE_ZERO_AND_NEWLINE, WsebEncodingStrategy.TEXT_AS_BINARY, sesionIdleTracker, bridgeServiceFactory);
 
                 } else if ( DOWNSTREAM_MIXED_SUFFIX.equals(downstreamSuffix) ) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler,
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching,
                                                      WsebEncodingStrategy.DEFAULT, sesionIdleTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_MIXED_TEXT_SUFFIX.equals(downstreamSuffix)) {
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching, "text/plain; charset=windows-1252",
                                   WsebEncodingStrategy.DEFAULT, sesionIdleTracker, bridgeServiceFactory);
 
                 } else if (DOWNSTREAM_MIXED_TEXT_ESCAPED_SUFFIX.equals(downstreamSuffix)) {
                     wsebSession.setEncodeEscapeType(EscapeTypes.ESCAPE_ZERO_AND_NEWLINES);  //cache key
-                    return new WsebDownstreamHandler(address, wsebSession, scheduler, "text/plain; charset=windows-1252",
+                    return new WsebDownstreamHandler(address, wsebSession, scheduler, downstreamBatching, "text/plain; charset=windows-1252",
                                   Encoding.ESCAPE_ZERO_AND_NEWLINE, WsebEncodingStrategy.DEFAULT, sesionIdleTracker, bridgeServiceFactory);
                 }
             }
@@ -1010,31 +1117,6 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
             return binding.bindAddress();
         }
 
-        private class NoSecurityResourceOptions implements ResourceOptions {
-            private final ResourceOptions options;
-
-            public NoSecurityResourceOptions(ResourceOptions defaultsAddress) {
-                options = ResourceOptions.FACTORY.newResourceOptions(defaultsAddress);
-            }
-
-            @Override
-            public <T> T setOption(ResourceOption<T> key, T value) {
-                if (key == HttpResourceAddress.REALMS) return null;
-                return options.setOption(key,value);
-            }
-
-            @Override
-            public <T> T getOption(ResourceOption<T> key) {
-                if (key == HttpResourceAddress.REALMS) return null;
-                return options.getOption(key);
-            }
-
-            @Override
-            public <T> boolean hasOption(ResourceOption<T> key) {
-                if (key == HttpResourceAddress.REALMS) return false;
-                return options.hasOption(key);
-            }
-        }
     }
 
     private final IoHandler cookiesHandler = new IoHandlerAdapter<HttpAcceptSession>() {
@@ -1088,6 +1170,32 @@ public class WsebAcceptor extends AbstractBridgeAcceptor<WsebSession, Binding> {
         }
     };
 
+    private static final class NoSecurityResourceOptions implements ResourceOptions {
+        private final ResourceOptions options;
+
+        public NoSecurityResourceOptions(ResourceOptions defaultsAddress) {
+            options = ResourceOptions.FACTORY.newResourceOptions(defaultsAddress);
+        }
+
+        @Override
+        public <T> T setOption(ResourceOption<T> key, T value) {
+            if (key == HttpResourceAddress.REALMS) return null;
+            return options.setOption(key,value);
+        }
+
+        @Override
+        public <T> T getOption(ResourceOption<T> key) {
+            if (key == HttpResourceAddress.REALMS) return null;
+            return options.getOption(key);
+        }
+
+        @Override
+        public <T> boolean hasOption(ResourceOption<T> key) {
+            if (key == HttpResourceAddress.REALMS) return false;
+            return options.hasOption(key);
+        }
+    }
+
     private static class FixedIdentityResolver extends IdentityResolver {
         final String identity;
 
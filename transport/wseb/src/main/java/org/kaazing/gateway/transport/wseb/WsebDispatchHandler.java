@@ -0,0 +1,128 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb;
+
+import static org.kaazing.gateway.transport.http.HttpHeaders.HEADER_CONTENT_LENGTH;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.mina.core.service.IoHandler;
+import org.apache.mina.core.session.IdleStatus;
+import org.apache.mina.core.session.IoSession;
+import org.kaazing.gateway.transport.IoHandlerAdapter;
+import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+
+/**
+ * Handles the upstream or downstream requests of one kind (such as "/;e/ub") for every WSEB session of an endpoint,
+ * bound once alongside the create path. Each request is handed to the handler of its WSEB session, found by the
+ * session id that follows the bound path.
+ */
+final class WsebDispatchHandler implements IoHandler {
+
+    private static final TypedAttributeKey<IoHandler> HANDLER_KEY =
+            new TypedAttributeKey<>(WsebDispatchHandler.class, "handler");
+
+    private static final IoHandler NOT_FOUND_HANDLER = new IoHandlerAdapter<HttpAcceptSession>() {
+
+        @Override
+        protected void doSessionOpened(HttpAcceptSession session) throws Exception {
+            session.setStatus(HttpStatus.CLIENT_NOT_FOUND);
+            session.setWriteHeader(HEADER_CONTENT_LENGTH, "0");
+            session.close(false);
+        }
+
+        @Override
+        protected void doExceptionCaught(HttpAcceptSession session, Throwable cause) throws Exception {
+            session.close(true);
+        }
+
+    };
+
+    private final ConcurrentMap<String, IoHandler> handlers = new ConcurrentHashMap<>();
+
+    void register(String sessionId, IoHandler handler) {
+        handlers.put(sessionId, handler);
+    }
+
+    void unregister(String sessionId) {
+        handlers.remove(sessionId);
+    }
+
+    /* for test observability only */
+    int size() {
+        return handlers.size();
+    }
+
+    @Override
+    public void sessionCreated(IoSession session) throws Exception {
+        handler(session).sessionCreated(session);
+    }
+
+    @Override
+    public void sessionOpened(IoSession session) throws Exception {
+        handler(session).sessionOpened(session);
+    }
+
+    @Override
+    public void sessionClosed(IoSession session) throws Exception {
+        handler(session).sessionClosed(session);
+    }
+
+    @Override
+    public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+        handler(session).sessionIdle(session, status);
+    }
+
+    @Override
+    public void exceptionCaught(IoSession session, Throwable cause) throws Exception {
+        handler(session).exceptionCaught(session, cause);
+    }
+
+    @Override
+    public void messageReceived(IoSession session, Object message) throws Exception {
+        handler(session).messageReceived(session, message);
+    }
+
+    @Override
+    public void messageSent(IoSession session, Object message) throws Exception {
+        handler(session).messageSent(session, message);
+    }
+
+    private IoHandler handler(IoSession session) {
+        // the WSEB session may close while a request is in flight, so stick with the handler found at first
+        IoHandler handler = HANDLER_KEY.get(session);
+        if (handler == null) {
+            handler = lookup((HttpAcceptSession) session);
+            HANDLER_KEY.set(session, handler);
+        }
+        return handler;
+    }
+
+    private IoHandler lookup(HttpAcceptSession session) {
+        URI pathInfo = session.getPathInfo();
+        String path = (pathInfo != null) ? pathInfo.getPath() : null;  // includes leading '/' after the bound path
+        if (path == null || path.length() < 2) {
+            return NOT_FOUND_HANDLER;
+        }
+        IoHandler handler = handlers.get(path.substring(1));
+        return (handler != null) ? handler : NOT_FOUND_HANDLER;
+    }
+
+}
@@ -41,6 +41,7 @@ import org.kaazing.gateway.transport.http.HttpUtils;
 import org.kaazing.gateway.transport.ws.WsCommandMessage;
 import org.kaazing.gateway.transport.ws.WsProtocol;
 import org.kaazing.gateway.transport.wseb.filter.EncodingFilter;
+import org.kaazing.gateway.transport.wseb.filter.WsebBatchingFilter;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter.EscapeTypes;
 import org.kaazing.gateway.transport.wseb.filter.WsebTextAsBinaryEncodingCodecFilter;
@@ -52,6 +53,7 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
 
     private static final String CODEC_FILTER = WsebProtocol.NAME + "#codec";
     private static final String ENCODING_FILTER = WsebProtocol.NAME + "#escape";
+    private static final String BATCHING_FILTER = WsebProtocol.NAME + "#batching";
     private static final EnumSet<HttpMethod> PERMITTED_REQUEST_METHODS = EnumSet.of(HttpMethod.GET, HttpMethod.POST);
 
     // TODO: make this setting available via configuration, with a reasonable default
@@ -61,23 +63,25 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
     private final WsebSession wsebSession;
     private final WsebEncodingCodecFilter codec;
     private final IoFilter encoding;
+    private final WsebBatchingFilter batching;
     private IoSessionIdleTracker inactivityTracker = null;
     private final BridgeServiceFactory bridgeServiceFactory;
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress,  WsebSession wsebSession, ScheduledExecutorService scheduler,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress,  WsebSession wsebSession, ScheduledExecutorService scheduler, WsebBatchingFilter batching,
                                  WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
-        this(nextProtocolAddress, wsebSession, scheduler, "application/octet-stream", encodingStrategy, inactivityTracker, bridgeServiceFactory);
+        this(nextProtocolAddress, wsebSession, scheduler, batching, "application/octet-stream", encodingStrategy, inactivityTracker, bridgeServiceFactory);
     }
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler, WsebBatchingFilter batching,
                                  String contentType, WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
-        this(nextProtocolAddress, wsebSession, scheduler, contentType, null, encodingStrategy, inactivityTracker, bridgeServiceFactory);
+        this(nextProtocolAddress, wsebSession, scheduler, batching, contentType, null, encodingStrategy, inactivityTracker, bridgeServiceFactory);
     }
 
-    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler, String contentType,
+    public WsebDownstreamHandler(ResourceAddress nextProtocolAddress, WsebSession wsebSession, ScheduledExecutorService scheduler, WsebBatchingFilter batching, String contentType,
                                  Encoding escapeEncoding, WsebEncodingStrategy encodingStrategy, IoSessionIdleTracker inactivityTracker, BridgeServiceFactory bridgeServiceFactory) {
         this.wsebSession = wsebSession;
         this.contentType = contentType;
+        this.batching = batching;
         if (encodingStrategy == TEXT_AS_BINARY) {
             // 3.5 clients
             this.codec = new WsebTextAsBinaryEncodingCodecFilter();
@@ -176,11 +180,17 @@ class WsebDownstreamHandler extends IoHandlerAdapter<HttpAcceptSession> {
         if (encoding != null) {
             bridgeFilterChain.addBefore(CODEC_FILTER, ENCODING_FILTER, encoding);
         }
+
+        if (batching != null) {
+            // below the encoders, so that encoded frames are joined
+            bridgeFilterChain.addBefore(encoding != null ? ENCODING_FILTER : CODEC_FILTER, BATCHING_FILTER, batching);
+        }
     }
 
     public void removeBridgeFilters(IoFilterChain filterChain) {
         removeFilter(filterChain, CODEC_FILTER);
         removeFilter(filterChain, ENCODING_FILTER);
+        removeFilter(filterChain, BATCHING_FILTER);
     }
 
     private void reconnectSession(final HttpAcceptSession session, final WsebSession wsebSession) throws Exception {
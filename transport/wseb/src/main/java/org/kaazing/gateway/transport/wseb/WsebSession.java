@@ -27,8 +27,6 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -67,6 +65,8 @@ import org.kaazing.gateway.transport.wseb.filter.WsebBufferAllocator;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter;
 import org.kaazing.gateway.transport.wseb.filter.WsebEncodingCodecFilter.EscapeTypes;
 import org.kaazing.gateway.util.Utils;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler.ScheduledTimer;
 import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
 import org.kaazing.mina.core.buffer.IoBufferEx;
 import org.kaazing.mina.core.service.IoProcessorEx;
@@ -150,7 +150,15 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             enqueueReconnectAndFlush0();
         }
     };
-    private ScheduledFuture<?> timeoutFuture;
+    // resolves the I/O executor when a timer fires, as the session may have been realigned since it was scheduled
+    private final Executor timerExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            getIoExecutor().execute(command);
+        }
+    };
+    private TimingWheelScheduler timers;
+    private ScheduledTimer timeoutTimer;
 
     private TransportSession transportSession;
 
@@ -396,16 +404,20 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
         return false;
     }
 
-    void scheduleTimeout(ScheduledExecutorService scheduler) {
-        if (timeoutFuture == null || timeoutFuture.cancel(false)) {
-            timeoutFuture = scheduler.schedule(timeout, TIME_TO_TIMEOUT_RECONNECT_MILLIS, MILLISECONDS);
+    void setTimingWheelScheduler(TimingWheelScheduler timers) {
+        this.timers = timers;
+    }
+
+    void scheduleTimeout() {
+        if (timeoutTimer == null || timeoutTimer.cancel()) {
+            timeoutTimer = timers.schedule(timeout, TIME_TO_TIMEOUT_RECONNECT_MILLIS, MILLISECONDS, timerExecutor);
         }
     }
 
     void cancelTimeout() {
-        if (timeoutFuture != null) {
-            timeoutFuture.cancel(false);
-            timeoutFuture = null;
+        if (timeoutTimer != null) {
+            timeoutTimer.cancel();
+            timeoutTimer = null;
         }
     }
 
@@ -700,7 +712,7 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
                         // after delay to force Silverlight client to notice payload
                         if (flushDelayMillis > 0L) {
                             Runnable command = new AttachParentCommand(WsebSession.this, session, flushDelayMillis);
-                            scheduler.schedule(command, flushDelayMillis, TimeUnit.MILLISECONDS);
+                            timers.schedule(command, flushDelayMillis, MILLISECONDS, timerExecutor);
                         }
                     }
                 });
@@ -732,9 +744,9 @@ public class WsebSession extends AbstractWsBridgeSession<WsebSession, WsBuffer>
             // therefore, write a comment frame a little later as a backup to make
             // sure that the connection does not get stalled
 
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 2, TimeUnit.MILLISECONDS);
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 4, TimeUnit.MILLISECONDS);
-            scheduler.schedule(new FlushCommand(wsebSession), flushDelayMillis * 8, TimeUnit.MILLISECONDS);
+            timers.schedule(new FlushCommand(wsebSession), flushDelayMillis * 2, MILLISECONDS, timerExecutor);
+            timers.schedule(new FlushCommand(wsebSession), flushDelayMillis * 4, MILLISECONDS, timerExecutor);
+            timers.schedule(new FlushCommand(wsebSession), flushDelayMillis * 8, MILLISECONDS, timerExecutor);
         }
     }
 
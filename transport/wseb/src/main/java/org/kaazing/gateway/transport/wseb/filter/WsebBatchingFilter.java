@@ -0,0 +1,221 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb.filter;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.mina.core.filterchain.IoFilterChain;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.write.WriteRequest;
+import org.kaazing.gateway.transport.IoFilterAdapter;
+import org.kaazing.gateway.transport.TypedAttributeKey;
+import org.kaazing.gateway.transport.http.bridge.filter.HttpGzipEncoder;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler.ScheduledTimer;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.future.DefaultWriteFutureEx;
+import org.kaazing.mina.core.session.IoSessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+
+/**
+ * Coalesces the encoded frames written to a WSEB downstream into fewer, larger writes.
+ * <p>
+ * This filter sits below the frame encoders, so what it joins are already encoded frames and the bytes on the wire are
+ * unchanged, they just arrive in one HTTP chunk instead of many. Batching is adaptive: a frame written to a downstream
+ * that has been quiet for longer than the latency budget goes out at once, so sparse feeds see no added latency. Frames
+ * that follow it within the budget are held back and written together when the budget has passed since the first of
+ * them, or as soon as they add up to the maximum batch size, whichever comes first. Anything other than an encoded
+ * frame, and closing the downstream, flushes the pending batch first so that ordering is preserved.
+ * <p>
+ * One instance is shared by all downstreams of an acceptor, the batch of each downstream is kept as a session attribute
+ * and only touched on its I/O thread.
+ */
+public class WsebBatchingFilter extends IoFilterAdapter<IoSessionEx> {
+
+    private static final TypedAttributeKey<Batch> BATCH = new TypedAttributeKey<>(WsebBatchingFilter.class, "batch");
+
+    private final TimingWheelScheduler timers;
+    private final long latencyNanos;
+    private final int maximumBatchSize;
+    private final WsebBatchingStatistics statistics;
+
+    public WsebBatchingFilter(TimingWheelScheduler timers, long latencyNanos, int maximumBatchSize,
+                              WsebBatchingStatistics statistics) {
+        this.timers = timers;
+        this.latencyNanos = latencyNanos;
+        this.maximumBatchSize = maximumBatchSize;
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void doFilterWrite(NextFilter nextFilter, IoSessionEx session, WriteRequest writeRequest) throws Exception {
+        Batch batch = BATCH.get(session);
+        if (batch == null) {
+            batch = new Batch(session, nextFilter);
+            BATCH.set(session, batch);
+        }
+
+        Object message = writeRequest.getMessage();
+        if (!(message instanceof IoBufferEx) || isBlockPadding((IoBufferEx) message)) {
+            batch.flush();
+            nextFilter.filterWrite(session, writeRequest);
+            return;
+        }
+
+        batch.add(writeRequest, ((IoBufferEx) message).remaining());
+    }
+
+    @Override
+    protected void doFilterClose(NextFilter nextFilter, IoSessionEx session) throws Exception {
+        flush(session);
+        super.doFilterClose(nextFilter, session);
+    }
+
+    @Override
+    public void onPreRemove(IoFilterChain parent, String name, NextFilter nextFilter) throws Exception {
+        IoSessionEx session = (IoSessionEx) parent.getSession();
+        flush(session);
+        BATCH.remove(session);
+    }
+
+    private static void flush(IoSessionEx session) {
+        Batch batch = BATCH.get(session);
+        if (batch != null) {
+            batch.flush();
+        }
+    }
+
+    // the gzip encoder substitutes the padding by identity, so it must reach it as written
+    private static boolean isBlockPadding(IoBufferEx buf) {
+        ByteBuffer nioBuf = buf.buf();
+        return nioBuf.hasArray() && nioBuf.array() == HttpGzipEncoder.WSEB_4K_PADDING_BYTES;
+    }
+
+    private final class Batch implements Runnable {
+        private final IoSessionEx session;
+        private final NextFilter nextFilter;
+        private final List<WriteRequest> requests;
+        private final Executor ioExecutor;
+
+        private int bytes;
+        private long startTime;
+        private long lastWriteTime;
+        private ScheduledTimer timer;
+
+        Batch(final IoSessionEx session, NextFilter nextFilter) {
+            this.session = session;
+            this.nextFilter = nextFilter;
+            this.requests = new ArrayList<>();
+            // resolved when the timer fires, the downstream is realigned when it is attached to the wseb session
+            this.ioExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    session.getIoExecutor().execute(command);
+                }
+            };
+            this.lastWriteTime = System.nanoTime() - latencyNanos;
+        }
+
+        void add(WriteRequest request, int size) {
+            long now = System.nanoTime();
+            if (requests.isEmpty()) {
+                if (now - lastWriteTime >= latencyNanos) {
+                    // quiet downstream, do not hold back
+                    lastWriteTime = now;
+                    nextFilter.filterWrite(session, request);
+                    return;
+                }
+                startTime = now;
+                timer = timers.schedule(this, latencyNanos, NANOSECONDS, ioExecutor);
+            }
+
+            requests.add(request);
+            bytes += size;
+
+            if (bytes >= maximumBatchSize) {
+                flush();
+            }
+        }
+
+        // latency budget has passed
+        @Override
+        public void run() {
+            timer = null;
+            flush();
+        }
+
+        void flush() {
+            int frames = requests.size();
+            if (frames == 0) {
+                return;
+            }
+
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+
+            long now = System.nanoTime();
+            statistics.batchFlushed(frames, bytes, now - startTime);
+            lastWriteTime = now;
+
+            if (frames == 1) {
+                WriteRequest request = requests.get(0);
+                requests.clear();
+                bytes = 0;
+                nextFilter.filterWrite(session, request);
+                return;
+            }
+
+            IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+            ByteBuffer merged = allocator.allocate(bytes);
+            int offset = merged.position();
+            for (WriteRequest request : requests) {
+                IoBufferEx buf = (IoBufferEx) request.getMessage();
+                merged.put(buf.buf().duplicate());
+            }
+            merged.flip();
+            merged.position(offset);
+
+            final WriteRequest[] batched = requests.toArray(new WriteRequest[frames]);
+            requests.clear();
+            bytes = 0;
+
+            DefaultWriteFutureEx future = new DefaultWriteFutureEx(session);
+            future.addListener(new IoFutureListener<WriteFuture>() {
+                @Override
+                public void operationComplete(WriteFuture future) {
+                    for (WriteRequest request : batched) {
+                        if (future.isWritten()) {
+                            request.getFuture().setWritten();
+                        }
+                        else {
+                            request.getFuture().setException(future.getException());
+                        }
+                    }
+                }
+            });
+            nextFilter.filterWrite(session, new DefaultWriteRequestEx(allocator.wrap(merged), future));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batch size and flush latency of the batches written by {@link WsebBatchingFilter}, across all downstreams. Frames
+ * written straight through on a quiet downstream are not counted.
+ */
+public final class WsebBatchingStatistics {
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+    private final AtomicLong maximumFrames = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maximumLatencyNanos = new AtomicLong();
+
+    void batchFlushed(int frames, int bytes, long latencyNanos) {
+        batchCount.incrementAndGet();
+        frameCount.addAndGet(frames);
+        byteCount.addAndGet(bytes);
+        totalLatencyNanos.addAndGet(latencyNanos);
+        updateMaximum(maximumFrames, frames);
+        updateMaximum(maximumLatencyNanos, latencyNanos);
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return (batches == 0) ? 0.0 : (double) frameCount.get() / batches;
+    }
+
+    public long getMaximumBatchSize() {
+        return maximumFrames.get();
+    }
+
+    /**
+     * Returns the average time, in nanoseconds, from the first frame of a batch being held back to the batch being
+     * written.
+     */
+    public long getAverageFlushLatency() {
+        long batches = batchCount.get();
+        return (batches == 0) ? 0 : totalLatencyNanos.get() / batches;
+    }
+
+    public long getMaximumFlushLatency() {
+        return maximumLatencyNanos.get();
+    }
+
+    private static void updateMaximum(AtomicLong maximum, long value) {
+        long current = maximum.get();
+        while (value > current && !maximum.compareAndSet(current, value)) {
+            current = maximum.get();
+        }
+    }
+}
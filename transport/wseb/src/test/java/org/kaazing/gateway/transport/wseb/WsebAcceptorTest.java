@@ -143,4 +143,49 @@ public class WsebAcceptorTest {
 
     }
 
+    @Test
+    public void shouldDispatchPerBoundHttpAddress() throws Exception {
+        Map<String, Object> addressOptions = Collections.emptyMap();
+        ResourceAddress wseAddress1 = addressFactory.newResourceAddress("wse://localhost:8000/echo1", addressOptions);
+        ResourceAddress wseAddress2 = addressFactory.newResourceAddress("wse://localhost:8000/echo2", addressOptions);
+        IoHandler acceptHandler = new IoHandlerAdapter() {};
+
+        wsebAcceptor.bind(wseAddress1, acceptHandler, null);
+        wsebAcceptor.bind(wseAddress2, acceptHandler, null);
+
+        WsebDispatchHandler dispatchHandler1 = wsebAcceptor.dispatchHandler(wseAddress1.getTransport(), "/;e/ub");
+        WsebDispatchHandler dispatchHandler2 = wsebAcceptor.dispatchHandler(wseAddress2.getTransport(), "/;e/ub");
+        Assert.assertNotNull(dispatchHandler1);
+        Assert.assertNotNull(dispatchHandler2);
+        Assert.assertNotSame(dispatchHandler1, dispatchHandler2);
+
+        wsebAcceptor.unbind(wseAddress1).awaitUninterruptibly();
+        Assert.assertNull(wsebAcceptor.dispatchHandler(wseAddress1.getTransport(), "/;e/ub"));
+        Assert.assertSame(dispatchHandler2, wsebAcceptor.dispatchHandler(wseAddress2.getTransport(), "/;e/ub"));
+
+        wsebAcceptor.unbind(wseAddress2).awaitUninterruptibly();
+    }
+
+    @Test
+    public void shouldShareDispatchHandlersOfSameHttpAddress() throws Exception {
+        ResourceAddress wseAddress1 = addressFactory.newResourceAddress("wse://localhost:8000/echo",
+                Collections.<String, Object>singletonMap("nextProtocol", "protocol1"));
+        ResourceAddress wseAddress2 = addressFactory.newResourceAddress("wse://localhost:8000/echo",
+                Collections.<String, Object>singletonMap("nextProtocol", "protocol2"));
+        Assert.assertEquals(wseAddress1.getTransport(), wseAddress2.getTransport());
+        IoHandler acceptHandler = new IoHandlerAdapter() {};
+
+        wsebAcceptor.bind(wseAddress1, acceptHandler, null);
+        WsebDispatchHandler dispatchHandler = wsebAcceptor.dispatchHandler(wseAddress1.getTransport(), "/;e/ub");
+        wsebAcceptor.bind(wseAddress2, acceptHandler, null);
+        Assert.assertNotNull(dispatchHandler);
+        Assert.assertSame(dispatchHandler, wsebAcceptor.dispatchHandler(wseAddress2.getTransport(), "/;e/ub"));
+
+        wsebAcceptor.unbind(wseAddress1).awaitUninterruptibly();
+        Assert.assertSame(dispatchHandler, wsebAcceptor.dispatchHandler(wseAddress2.getTransport(), "/;e/ub"));
+
+        wsebAcceptor.unbind(wseAddress2).awaitUninterruptibly();
+        Assert.assertNull(wsebAcceptor.dispatchHandler(wseAddress2.getTransport(), "/;e/ub"));
+    }
+
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+
+import org.apache.mina.core.service.IoHandler;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.transport.http.HttpAcceptSession;
+import org.kaazing.gateway.transport.http.HttpStatus;
+
+public class WsebDispatchHandlerTest {
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery();
+
+    @Test
+    public void shouldDispatchToHandlerOfSession() throws Exception {
+        final HttpAcceptSession session = context.mock(HttpAcceptSession.class);
+        final IoHandler handler = context.mock(IoHandler.class);
+        final Object message = new Object();
+
+        context.checking(new Expectations() {
+            {
+                allowing(session).getPathInfo(); will(returnValue(URI.create("/abc123")));
+                oneOf(session).getAttribute(with(any(Object.class))); will(returnValue(null));
+                oneOf(session).setAttribute(with(any(Object.class)), with(handler));
+                allowing(session).getAttribute(with(any(Object.class))); will(returnValue(handler));
+                oneOf(handler).sessionCreated(session);
+                oneOf(handler).sessionOpened(session);
+                oneOf(handler).messageReceived(session, message);
+                oneOf(handler).sessionClosed(session);
+            }
+        });
+
+        WsebDispatchHandler dispatcher = new WsebDispatchHandler();
+        dispatcher.register("abc123", handler);
+
+        dispatcher.sessionCreated(session);
+        dispatcher.sessionOpened(session);
+        dispatcher.messageReceived(session, message);
+        dispatcher.sessionClosed(session);
+    }
+
+    @Test
+    public void shouldRespondNotFoundForUnknownSession() throws Exception {
+        final HttpAcceptSession session = context.mock(HttpAcceptSession.class);
+        final IoHandler handler = context.mock(IoHandler.class);
+
+        context.checking(new Expectations() {
+            {
+                allowing(session).getPathInfo(); will(returnValue(URI.create("/unknown")));
+                allowing(session).getAttribute(with(any(Object.class))); will(returnValue(null));
+                allowing(session).setAttribute(with(any(Object.class)), with(any(Object.class)));
+                oneOf(session).setStatus(HttpStatus.CLIENT_NOT_FOUND);
+                oneOf(session).setWriteHeader("Content-Length", "0");
+                oneOf(session).close(false);
+            }
+        });
+
+        WsebDispatchHandler dispatcher = new WsebDispatchHandler();
+        dispatcher.register("abc123", handler);
+
+        dispatcher.sessionOpened(session);
+    }
+
+    @Test
+    public void shouldForgetUnregisteredSession() throws Exception {
+        IoHandler handler = context.mock(IoHandler.class);
+
+        WsebDispatchHandler dispatcher = new WsebDispatchHandler();
+        dispatcher.register("abc123", handler);
+        dispatcher.register("def456", handler);
+        dispatcher.unregister("abc123");
+
+        assertEquals(1, dispatcher.size());
+    }
+
+}
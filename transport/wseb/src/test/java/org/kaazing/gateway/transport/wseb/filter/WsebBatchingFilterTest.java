@@ -0,0 +1,182 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.transport.wseb.filter;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.write.WriteRequest;
+import org.jmock.integration.junit4.JUnitRuleMockery;
+import org.jmock.lib.concurrent.Synchroniser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.kaazing.gateway.transport.test.Expectations;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler;
+import org.kaazing.mina.core.buffer.IoBufferAllocatorEx;
+import org.kaazing.mina.core.buffer.IoBufferEx;
+import org.kaazing.mina.core.future.DefaultWriteFutureEx;
+import org.kaazing.mina.core.session.DummySessionEx;
+import org.kaazing.mina.core.write.DefaultWriteRequestEx;
+
+public class WsebBatchingFilterTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public JUnitRuleMockery context = new JUnitRuleMockery() {
+        {
+            // batches held back for the latency are written from a timer thread
+            setThreadingPolicy(new Synchroniser());
+        }
+    };
+
+    private final NextFilter nextFilter = context.mock(NextFilter.class);
+
+    private TimingWheelScheduler timers;
+    private WsebBatchingStatistics statistics;
+    private DummySessionEx session;
+
+    @Before
+    public void before() {
+        timers = new TimingWheelScheduler("test_timers", 1, 10, MILLISECONDS);
+        statistics = new WsebBatchingStatistics();
+        session = new DummySessionEx();
+    }
+
+    @After
+    public void after() {
+        timers.stop();
+    }
+
+    @Test
+    public void shouldWriteFrameOnQuietDownstreamImmediately() throws Exception {
+        WsebBatchingFilter filter = new WsebBatchingFilter(timers, MINUTES.toNanos(1), 1024, statistics);
+        final WriteRequest request = newWriteRequest("a");
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, request);
+            }
+        });
+
+        filter.filterWrite(nextFilter, session, request);
+
+        assertEquals(0, statistics.getBatchCount());
+    }
+
+    @Test
+    public void shouldJoinFramesFollowingWithinLatency() throws Exception {
+        WsebBatchingFilter filter = new WsebBatchingFilter(timers, MINUTES.toNanos(1), 1024, statistics);
+        final WriteRequest first = newWriteRequest("a");
+        WriteRequest second = newWriteRequest("bc");
+        WriteRequest third = newWriteRequest("def");
+        final AtomicReference<WriteRequest> batched = new AtomicReference<>();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, first);
+                oneOf(nextFilter).filterWrite(with(session), with(any(WriteRequest.class)));
+                will(saveParameter(batched, 1));
+                oneOf(nextFilter).filterClose(session);
+            }
+        });
+
+        filter.filterWrite(nextFilter, session, first);
+        filter.filterWrite(nextFilter, session, second);
+        filter.filterWrite(nextFilter, session, third);
+        filter.filterClose(nextFilter, session);
+
+        assertEquals("bcdef", toString((IoBufferEx) batched.get().getMessage()));
+        assertFalse(second.getFuture().isDone());
+
+        batched.get().getFuture().setWritten();
+
+        assertTrue(second.getFuture().isWritten());
+        assertTrue(third.getFuture().isWritten());
+        assertEquals(1, statistics.getBatchCount());
+        assertEquals(2, statistics.getMaximumBatchSize());
+        assertEquals(5, statistics.getByteCount());
+    }
+
+    @Test
+    public void shouldWriteBatchOnceMaximumSizeIsReached() throws Exception {
+        WsebBatchingFilter filter = new WsebBatchingFilter(timers, MINUTES.toNanos(1), 4, statistics);
+        final WriteRequest first = newWriteRequest("a");
+        final AtomicReference<WriteRequest> batched = new AtomicReference<>();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, first);
+                oneOf(nextFilter).filterWrite(with(session), with(any(WriteRequest.class)));
+                will(saveParameter(batched, 1));
+            }
+        });
+
+        filter.filterWrite(nextFilter, session, first);
+        filter.filterWrite(nextFilter, session, newWriteRequest("bc"));
+        filter.filterWrite(nextFilter, session, newWriteRequest("de"));
+
+        assertEquals("bcde", toString((IoBufferEx) batched.get().getMessage()));
+    }
+
+    @Test
+    public void shouldWriteBatchWhenLatencyHasPassed() throws Exception {
+        WsebBatchingFilter filter = new WsebBatchingFilter(timers, MILLISECONDS.toNanos(50), 1024, statistics);
+        final WriteRequest first = newWriteRequest("a");
+        final WriteRequest second = newWriteRequest("b");
+        final AtomicReference<WriteRequest> written = new AtomicReference<>();
+
+        context.checking(new Expectations() {
+            {
+                oneOf(nextFilter).filterWrite(session, first);
+                oneOf(nextFilter).filterWrite(session, second);
+                will(saveParameter(written, 1));
+            }
+        });
+
+        filter.filterWrite(nextFilter, session, first);
+        filter.filterWrite(nextFilter, session, second);
+
+        for (int i = 0; i < 100 && written.get() == null; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, statistics.getBatchCount());
+        assertTrue(statistics.getMaximumFlushLatency() >= MILLISECONDS.toNanos(50));
+    }
+
+    private WriteRequest newWriteRequest(String text) {
+        IoBufferAllocatorEx<?> allocator = session.getBufferAllocator();
+        IoBufferEx buf = allocator.wrap(ByteBuffer.wrap(text.getBytes(UTF_8)));
+        return new DefaultWriteRequestEx(buf, new DefaultWriteFutureEx(session));
+    }
+
+    private static String toString(IoBufferEx buf) {
+        ByteBuffer nioBuf = buf.buf().duplicate();
+        byte[] bytes = new byte[nioBuf.remaining()];
+        nioBuf.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
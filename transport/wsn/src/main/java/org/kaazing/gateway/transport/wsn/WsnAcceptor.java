@@ -1101,8 +1101,8 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                     final List<WebSocketExtension> negotiated;
                     try {
                         negotiated = WsUtils.negotiateExtensionsAndSetResponseHeader(
-                                webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, clientRequestedExtensions,
-                                session, HEADER_SEC_WEBSOCKET_EXTENSION, extensionHelper);
+                                webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, wsVersion,
+                                clientRequestedExtensions, session, HEADER_SEC_WEBSOCKET_EXTENSION, extensionHelper);
                     }
                     catch(ProtocolException e) {
                         handleExtensionNegotiationException(session, clientRequestedExtensions, e);
@@ -1338,8 +1338,8 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                     final List<WebSocketExtension> negotiated;
                     try {
                         negotiated = WsUtils.negotiateExtensionsAndSetResponseHeader(
-                                webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, clientRequestedExtensions,
-                                session, HEADER_SEC_WEBSOCKET_EXTENSION, extensionHelper);
+                                webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, WebSocketWireProtocol.HIXIE_76,
+                                clientRequestedExtensions, session, HEADER_SEC_WEBSOCKET_EXTENSION, extensionHelper);
                     }
                     catch(ProtocolException e) {
                         handleExtensionNegotiationException(session, clientRequestedExtensions, e);
@@ -1516,8 +1516,8 @@ public class WsnAcceptor extends AbstractBridgeAcceptor<WsnSession, WsnBindings.
                    final List<WebSocketExtension> negotiated;
                    try {
                        negotiated = WsUtils.negotiateExtensionsAndSetResponseHeader(
-                               webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, clientRequestedExtensions,
-                               session, HEADER_X_WEBSOCKET_EXTENSIONS, extensionHelper);
+                               webSocketExtensionFactory, (WsResourceAddress) wsLocalAddress, WebSocketWireProtocol.HIXIE_75,
+                               clientRequestedExtensions, session, HEADER_X_WEBSOCKET_EXTENSIONS, extensionHelper);
                    }
                    catch(ProtocolException e) {
                        handleExtensionNegotiationException(session, clientRequestedExtensions, e);
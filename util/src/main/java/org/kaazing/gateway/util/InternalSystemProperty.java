@@ -56,6 +56,13 @@ public enum InternalSystemProperty {
             ("org.kaazing.gateway.server.util.scheduler.BACKGROUND_TASK_THREADS",
                     Integer.toString(getRuntime().availableProcessors())),
 
+    // Timing wheels for per-session timers, each ticked by a thread of its own
+    TIMING_WHEEL_THREADS
+            ("org.kaazing.gateway.server.util.scheduler.TIMING_WHEEL_THREADS",
+                    Integer.toString(Math.max(1, getRuntime().availableProcessors() / 4))),
+    TIMING_WHEEL_TICK_MILLIS
+            ("org.kaazing.gateway.server.util.scheduler.TIMING_WHEEL_TICK_MILLIS", "10"),
+
     // These Buffer sizes were used by Mina. I'm pretty sure they no longer apply.
     TCP_READ_BUFFER_SIZE
             ("org.kaazing.gateway.server.transport.tcp.READ_BUFFER_SIZE"),
@@ -94,6 +101,43 @@ public enum InternalSystemProperty {
     TCP_IP_TOS
             ("org.kaazing.gateway.server.transport.tcp.IP_TOS"),
 
+    // bytes of heap held by the pool of TCP read buffers (e.g. 64m), unset or 0 allocates a new buffer every time
+    TCP_BUFFER_POOL_CAPACITY
+            ("org.kaazing.gateway.server.transport.tcp.BUFFER_POOL_CAPACITY"),
+
+    // time after which a pooled TCP buffer that has not been released is reported as leaked
+    TCP_BUFFER_POOL_LEAK_THRESHOLD
+            ("org.kaazing.gateway.server.transport.tcp.BUFFER_POOL_LEAK_THRESHOLD", "60s"),
+
+    // record where one in every so many pooled TCP buffers was allocated, to report it if leaked, 0 records none
+    TCP_BUFFER_POOL_LEAK_SAMPLING_INTERVAL
+            ("org.kaazing.gateway.server.transport.tcp.BUFFER_POOL_LEAK_SAMPLING_INTERVAL", "0"),
+
+    // let sessions that opt in read into pooled TCP buffers and pass them up without copying, needs BUFFER_POOL_CAPACITY
+    TCP_ZERO_COPY_READ
+            ("org.kaazing.gateway.server.transport.tcp.ZERO_COPY_READ", "false"),
+
+    // number of resumable SSL sessions kept per transport address, 0 means unbounded
+    SSL_SESSION_CACHE_SIZE
+            ("org.kaazing.gateway.server.transport.ssl.SESSION_CACHE_SIZE", "10000"),
+
+    // seconds after which an SSL session can no longer be resumed
+    SSL_SESSION_TIMEOUT
+            ("org.kaazing.gateway.server.transport.ssl.SESSION_TIMEOUT", "3600"),
+
+    // remote transport addresses the SSL connector keeps resumable sessions for, the least recently connected to
+    // are dropped beyond that, 0 means unbounded
+    SSL_MAXIMUM_CONNECT_ADDRESSES
+            ("org.kaazing.gateway.server.transport.ssl.MAXIMUM_CONNECT_ADDRESSES", "1024"),
+
+    // threads running the delegated tasks of SSL handshakes off the I/O threads, 0 runs them on the I/O threads
+    SSL_HANDSHAKE_THREADS
+            ("org.kaazing.gateway.server.transport.ssl.HANDSHAKE_THREADS", "0"),
+
+    // delegated SSL handshake tasks waiting for a thread, beyond which the I/O threads run them
+    SSL_HANDSHAKE_QUEUE_SIZE
+            ("org.kaazing.gateway.server.transport.ssl.HANDSHAKE_QUEUE_SIZE", "1024"),
+
     CONNECT_FOLLOW_REDIRECT_WITH_QUERY
             ("org.kaazing.gateway.transport.http.CONNECT_FOLLOW_REDIRECT_WITH_QUERY", "false"),
 
@@ -105,6 +149,30 @@ public enum InternalSystemProperty {
     BROADCAST_SERVICE_DISCONNECT_CLIENTS_ON_RECONNECT(
             "org.kaazing.gateway.server.service.broadcast.DISCONNECT_CLIENTS_ON_RECONNECT"),
 
+    // true or false, whether broadcast messages are written in batches on each client's own I/O thread
+    BROADCAST_SERVICE_SHARDED_FAN_OUT(
+            "org.kaazing.gateway.server.service.broadcast.SHARDED_FAN_OUT", "true"),
+
+    // broadcast messages that may be queued for one I/O thread before its clients are closed as slow consumers
+    BROADCAST_SERVICE_MAXIMUM_SHARD_QUEUE_DEPTH(
+            "org.kaazing.gateway.server.service.broadcast.MAXIMUM_SHARD_QUEUE_DEPTH", "1024"),
+
+    // directory service file cache size (e.g. 32m), 0 disables caching
+    HTTP_DIRECTORY_CACHE_SIZE
+            ("org.kaazing.gateway.server.service.http.directory.CACHE_SIZE", "32m"),
+
+    // largest file held on the heap by the directory service, larger files are memory-mapped
+    HTTP_DIRECTORY_CACHE_MAX_FILE_SIZE
+            ("org.kaazing.gateway.server.service.http.directory.CACHE_MAX_FILE_SIZE", "1m"),
+
+    // total size of the files memory-mapped by the directory service cache, larger files are streamed
+    HTTP_DIRECTORY_CACHE_MAX_MAPPED_SIZE
+            ("org.kaazing.gateway.server.service.http.directory.CACHE_MAX_MAPPED_SIZE", "256m"),
+
+    // how often balanced services publish their load for the balancers to choose from (e.g. 1s), 0 disables publishing
+    BALANCEE_LOAD_INTERVAL
+            ("org.kaazing.gateway.server.service.balancer.LOAD_INTERVAL", "1s"),
+
     // management
     MANAGEMENT_SESSION_THRESHOLD
             ("org.kaazing.gateway.management.SESSION_THRESHOLD", "500"),
@@ -115,6 +183,15 @@ public enum InternalSystemProperty {
     MANAGEMENT_SUMMARY_DATA_LIMIT
             ("com.kaazing.gateway.management.SUMMARY_DATA_LIMIT", "100"),
 
+    // threads handling session events for the management listeners, events of one session are handled by one of them
+    MANAGEMENT_EVENT_THREADS
+            ("org.kaazing.gateway.management.EVENT_THREADS", "1"),
+
+    // session events each ring (sessions being spread across one ring per processor) can have waiting for the management
+    // threads, beyond that message events are dropped
+    MANAGEMENT_EVENT_QUEUE_SIZE
+            ("org.kaazing.gateway.management.EVENT_QUEUE_SIZE", "4096"),
+
     /**
      * Internal system property describing whether Agrona is enabled or not
      */
@@ -29,6 +29,9 @@ public final class Utf8Util {
 
     private static final String MSG_INVALID_CODEPOINT = "Invalid UTF-16 codepoint %c";
 
+    private static final int ASCII_BLOCK_SIZE = 8;
+    private static final long NON_ASCII_BITS = 0x8080808080808080L;
+
     private Utf8Util() {
     }
 
@@ -136,7 +139,19 @@ public final class Utf8Util {
     }
 
     public static int validateUTF8(ByteBuffer buffer, int offset, int length, ErrorHandler errorHandler) {
+        // the ASCII fast path is not retried until the block that failed it has been validated
+        int asciiBlockEnd = 0;
         for (int index = 0; index < length; index++) {
+            if (index >= asciiBlockEnd) {
+                while (index + ASCII_BLOCK_SIZE <= length && isAsciiBlock(buffer, offset + index)) {
+                    index += ASCII_BLOCK_SIZE;
+                }
+                asciiBlockEnd = index + ASCII_BLOCK_SIZE;
+                if (index >= length) {
+                    break;
+                }
+            }
+
             byte leadingByte = buffer.get(offset + index);
             final int expectedLen;
             int codePoint;
@@ -196,6 +211,20 @@ public final class Utf8Util {
         return 0;
     }
 
+    /*
+     * Returns true if none of the 8 bytes at the given index have the high bit set, reading them with a single long
+     * for direct buffers and straight from the backing array for heap buffers.
+     */
+    private static boolean isAsciiBlock(ByteBuffer buffer, int index) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int i = buffer.arrayOffset() + index;
+            return ((array[i] | array[i + 1] | array[i + 2] | array[i + 3] |
+                     array[i + 4] | array[i + 5] | array[i + 6] | array[i + 7]) & 0x80) == 0;
+        }
+        return (buffer.getLong(index) & NON_ASCII_BITS) == 0;
+    }
+
     public static boolean validBytesUTF8(ByteBuffer buf, int offset, int limit) {
         for (int index = offset; index < limit;) {
             byte leadingByte = buf.get(index++);
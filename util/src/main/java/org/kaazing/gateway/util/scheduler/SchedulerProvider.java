@@ -15,7 +15,10 @@
  */
 package org.kaazing.gateway.util.scheduler;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.kaazing.gateway.util.InternalSystemProperty.BACKGROUND_TASK_THREADS;
+import static org.kaazing.gateway.util.InternalSystemProperty.TIMING_WHEEL_THREADS;
+import static org.kaazing.gateway.util.InternalSystemProperty.TIMING_WHEEL_TICK_MILLIS;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,6 +32,9 @@ public class SchedulerProvider {
 
     private final List<ManagedScheduledExecutorService> schedulers = new ArrayList<>(10);
     private final ManagedScheduledExecutorService sharedScheduler;
+    private final int timingWheelThreads;
+    private final long timingWheelTickMillis;
+    private TimingWheelScheduler timingWheelScheduler;
 
     public SchedulerProvider() {
         this(new Properties());
@@ -37,6 +43,8 @@ public class SchedulerProvider {
     public SchedulerProvider(Properties configuration) {
         int corePoolSize = BACKGROUND_TASK_THREADS.getIntProperty(configuration);
         sharedScheduler = new ManagedScheduledExecutorService(corePoolSize, "gtwy_bg_tasks", true);
+        timingWheelThreads = TIMING_WHEEL_THREADS.getIntProperty(configuration);
+        timingWheelTickMillis = TIMING_WHEEL_TICK_MILLIS.getIntProperty(configuration);
     }
 
 
@@ -55,6 +63,19 @@ public class SchedulerProvider {
         return needDedicatedThread ? new ManagedScheduledExecutorService(1, purpose, false) : sharedScheduler;
     }
 
+    /**
+     * Returns the timing wheel scheduler shared by all transports, for per-session timers which are scheduled and
+     * cancelled in large numbers and must run on the I/O thread of their session. The scheduler is stopped by
+     * {@link #shutdownNow()}, not by its users.
+     */
+    public synchronized TimingWheelScheduler getTimingWheelScheduler() {
+        if (timingWheelScheduler == null) {
+            timingWheelScheduler = new TimingWheelScheduler("gtwy_timers", timingWheelThreads, timingWheelTickMillis,
+                    MILLISECONDS);
+        }
+        return timingWheelScheduler;
+    }
+
     public synchronized void shutdownNow() {
         for (ManagedScheduledExecutorService scheduler : schedulers) {
             scheduler.shutdownImmediate();
@@ -62,6 +83,11 @@ public class SchedulerProvider {
 
         schedulers.clear();
         sharedScheduler.shutdownImmediate();
+
+        if (timingWheelScheduler != null) {
+            timingWheelScheduler.stop();
+            timingWheelScheduler = null;
+        }
     }
 
     /**
@@ -0,0 +1,221 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.util.scheduler;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler for large numbers of short, mostly cancelled, per-session timers (reconnect timeouts, delayed flushes).
+ * <p>
+ * Timers are kept in hashed timing wheels, so scheduling and cancelling are constant time regardless of how many timers
+ * are pending. Each wheel is ticked by a thread of its own, and the wheel used is chosen by the scheduling thread, so
+ * the I/O threads spread their timers across the wheels. An expired timer is not run on the wheel thread but handed to
+ * the executor given when it was scheduled, normally the I/O executor of the session it belongs to.
+ * <p>
+ * Expiry is only as precise as the tick duration, which makes this unsuitable for periodic work where drift matters.
+ */
+public final class TimingWheelScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final HashedWheelTimer[] wheels;
+
+    private final AtomicInteger pendingTimerCount;
+    private final AtomicLong expiredTimerCount;
+    private final AtomicLong cancelledTimerCount;
+    private final AtomicLong maximumLagNanos;
+    private volatile long lastLagNanos;
+
+    public TimingWheelScheduler(final String purpose, int wheelCount, long tickDuration, TimeUnit unit) {
+        if (wheelCount < 1) {
+            throw new IllegalArgumentException("wheelCount must be at least 1: " + wheelCount);
+        }
+        wheels = new HashedWheelTimer[wheelCount];
+        for (int i = 0; i < wheelCount; i++) {
+            final String threadName = purpose + "-" + (i + 1);
+            wheels[i] = new HashedWheelTimer(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, tickDuration, unit, TICKS_PER_WHEEL);
+        }
+        pendingTimerCount = new AtomicInteger();
+        expiredTimerCount = new AtomicLong();
+        cancelledTimerCount = new AtomicLong();
+        maximumLagNanos = new AtomicLong();
+    }
+
+    /**
+     * Schedules a task to run once, on the given executor, after the given delay.
+     *
+     * @param task      the task to run
+     * @param delay     the delay after which the task is handed to the executor
+     * @param unit      the unit of the delay
+     * @param executor  the executor that runs the task, typically the I/O executor of the session the timer is for
+     * @return a handle to cancel the timer
+     */
+    public ScheduledTimer schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+        long delayNanos = unit.toNanos(delay);
+        ScheduledTimer timer = new ScheduledTimer(task, executor, System.nanoTime() + delayNanos);
+        pendingTimerCount.incrementAndGet();
+        HashedWheelTimer wheel = wheels[(int) (Thread.currentThread().getId() % wheels.length)];
+        timer.timeout = wheel.newTimeout(timer, delayNanos, NANOSECONDS);
+        return timer;
+    }
+
+    /**
+     * Returns the number of timers scheduled and neither expired nor cancelled yet.
+     */
+    public int getPendingTimerCount() {
+        return pendingTimerCount.get();
+    }
+
+    public long getExpiredTimerCount() {
+        return expiredTimerCount.get();
+    }
+
+    public long getCancelledTimerCount() {
+        return cancelledTimerCount.get();
+    }
+
+    /**
+     * Returns how late, in nanoseconds, the most recently expired timer started running, counting both the wheel tick
+     * and the wait for its executor.
+     */
+    public long getLastLag() {
+        return lastLagNanos;
+    }
+
+    /**
+     * Returns the largest lag, in nanoseconds, of any expired timer.
+     */
+    public long getMaximumLag() {
+        return maximumLagNanos.get();
+    }
+
+    public int getWheelCount() {
+        return wheels.length;
+    }
+
+    public void stop() {
+        for (HashedWheelTimer wheel : wheels) {
+            wheel.stop();
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos = lagNanos;
+        long maximum = maximumLagNanos.get();
+        while (lagNanos > maximum && !maximumLagNanos.compareAndSet(maximum, lagNanos)) {
+            maximum = maximumLagNanos.get();
+        }
+    }
+
+    /**
+     * A timer scheduled with {@link TimingWheelScheduler#schedule(Runnable, long, TimeUnit, Executor)}.
+     */
+    public final class ScheduledTimer implements TimerTask, Runnable {
+        private final Runnable task;
+        private final Executor executor;
+        private final long deadline;
+        private final AtomicInteger state;
+        private volatile Timeout timeout;
+
+        private ScheduledTimer(Runnable task, Executor executor, long deadline) {
+            this.task = task;
+            this.executor = executor;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(PENDING);
+        }
+
+        /**
+         * Cancels the timer.
+         *
+         * @return true if the timer was pending and will now not run, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pendingTimerCount.decrementAndGet();
+            cancelledTimerCount.incrementAndGet();
+            // the timeout is only unset while schedule() is still returning, then the task is skipped on expiry instead
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isDone() {
+            return state.get() != PENDING;
+        }
+
+        // called on the wheel thread
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            if (state.get() != PENDING) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            }
+            catch (RejectedExecutionException e) {
+                if (cancel()) {
+                    LOGGER.debug("Timer cancelled, executor no longer accepts tasks", e);
+                }
+            }
+        }
+
+        // called on the executor
+        @Override
+        public void run() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            pendingTimerCount.decrementAndGet();
+            expiredTimerCount.incrementAndGet();
+            recordLag(System.nanoTime() - deadline);
+            task.run();
+        }
+    }
+}
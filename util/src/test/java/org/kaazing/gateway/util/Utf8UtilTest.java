@@ -15,10 +15,18 @@
  */
 package org.kaazing.gateway.util;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.kaazing.gateway.util.Utf8Util.INVALID_UTF8;
 import static org.kaazing.gateway.util.Utf8Util.initialDecodeUTF8;
 import static org.kaazing.gateway.util.Utf8Util.remainingBytesUTF8;
 import static org.kaazing.gateway.util.Utf8Util.remainingDecodeUTF8;
+import static org.kaazing.gateway.util.Utf8Util.validateUTF8;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -70,4 +78,50 @@ public class Utf8UtilTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldValidateTextAroundAsciiBlocks() throws Exception {
+        String ascii = "The quick brown fox jumps over the lazy dog";
+        for (int i = 0; i <= ascii.length(); i++) {
+            String text = ascii.substring(0, i) + "\u00e9\u8bc5\ud844\udd52" + ascii.substring(i);
+            for (ByteBuffer buf : buffers(text.getBytes(UTF_8))) {
+                assertEquals(text, 0, validateUTF8(buf, buf.position(), buf.remaining(), message -> { }));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidByteAfterAsciiBlocks() throws Exception {
+        byte[] ascii = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(UTF_8);
+        for (int i = 0; i < ascii.length; i++) {
+            byte[] bytes = ascii.clone();
+            bytes[i] = (byte) 0xff;
+            for (ByteBuffer buf : buffers(bytes)) {
+                List<String> errors = new ArrayList<>();
+                assertEquals(INVALID_UTF8, validateUTF8(buf, buf.position(), buf.remaining(), errors::add));
+                assertTrue(!errors.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportIncompleteCharacterAfterAsciiBlocks() throws Exception {
+        byte[] bytes = "0123456789abcdef\u8bc5".getBytes(UTF_8);
+        for (ByteBuffer buf : buffers(bytes)) {
+            assertEquals(2, validateUTF8(buf, buf.position(), buf.remaining() - 1, message -> { }));
+        }
+    }
+
+    private static ByteBuffer[] buffers(byte[] bytes) {
+        // content at an offset, in a heap buffer and a direct buffer
+        ByteBuffer heap = ByteBuffer.allocate(bytes.length + 3);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        for (ByteBuffer buf : new ByteBuffer[] { heap, direct }) {
+            buf.position(3);
+            buf.put(bytes);
+            buf.flip();
+            buf.position(3);
+        }
+        return new ByteBuffer[] { heap, direct };
+    }
+}
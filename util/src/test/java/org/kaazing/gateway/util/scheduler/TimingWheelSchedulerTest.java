@@ -0,0 +1,131 @@
+/**
+ * Copyright 2007-2016, Kaazing Corporation. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.gateway.util.scheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kaazing.gateway.util.scheduler.TimingWheelScheduler.ScheduledTimer;
+
+public class TimingWheelSchedulerTest {
+
+    private TimingWheelScheduler scheduler;
+    private ExecutorService executor;
+
+    @Before
+    public void before() {
+        scheduler = new TimingWheelScheduler("test_timers", 2, 10, MILLISECONDS);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void after() {
+        scheduler.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunExpiredTimerOnExecutor() throws Exception {
+        final Thread executorThread = executor.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        }).get();
+        final AtomicReference<Thread> ranOn = new AtomicReference<>();
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        ScheduledTimer timer = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ranOn.set(Thread.currentThread());
+                ran.countDown();
+            }
+        }, 20, MILLISECONDS, executor);
+
+        assertTrue(ran.await(5, SECONDS));
+        assertSame(executorThread, ranOn.get());
+        assertTrue(timer.isDone());
+        assertFalse(timer.cancel());
+        assertEquals(0, scheduler.getPendingTimerCount());
+        assertEquals(1, scheduler.getExpiredTimerCount());
+        assertTrue(scheduler.getMaximumLag() >= 0);
+    }
+
+    @Test
+    public void shouldNotRunCancelledTimer() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        ScheduledTimer timer = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 50, MILLISECONDS, executor);
+
+        assertEquals(1, scheduler.getPendingTimerCount());
+        assertTrue(timer.cancel());
+        assertFalse(timer.cancel());
+
+        assertFalse(ran.await(200, MILLISECONDS));
+        assertTrue(timer.isCancelled());
+        assertEquals(0, scheduler.getPendingTimerCount());
+        assertEquals(1, scheduler.getCancelledTimerCount());
+        assertEquals(0, scheduler.getExpiredTimerCount());
+    }
+
+    @Test
+    public void shouldNotRunTimerCancelledWhileQueuedOnExecutor() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch ran = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        ScheduledTimer timer = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ran.countDown();
+            }
+        }, 10, MILLISECONDS, executor);
+
+        Thread.sleep(100);
+        assertTrue(timer.cancel());
+        blocked.countDown();
+
+        assertFalse(ran.await(100, MILLISECONDS));
+        assertEquals(0, scheduler.getExpiredTimerCount());
+    }
+}